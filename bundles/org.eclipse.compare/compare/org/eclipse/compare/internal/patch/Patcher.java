@@ -634,10 +634,19 @@ public class Patcher implements IHunkFilter {
 	}
 	
 	public void refresh() {
-		diffResults.clear();
+		clearDiffResults();
 		refresh(getDiffs());
 	}
 	
+	/**
+	 * Discard the results of the diffs. A new result is created when the
+	 * result of a diff is next requested and it must be refreshed before
+	 * it is used.
+	 */
+	public void clearDiffResults() {
+		diffResults.clear();
+	}
+	
 	public void refresh(FilePatch2[] diffs) {
 		for (int i = 0; i < diffs.length; i++) {
 			FilePatch2 diff = diffs[i];
@@ -11,6 +11,7 @@
 package org.eclipse.team.core.diff.provider;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.*;
@@ -44,6 +45,10 @@ public class DiffTree implements IDiffTree {
 	private ILock lock = Job.getJobManager().newLock();
 	
 	private DiffTreeStatistics statistics = new DiffTreeStatistics();
+
+	// {String first path segment -> DiffTreeStatistics} the statistics of the
+	// diffs below each top-level path (i.e. each project of a resource diff tree)
+	private Map rootStatistics = new ConcurrentHashMap();
 	
 	private DiffChangeEvent changes;
 
@@ -176,6 +181,7 @@ public class DiffTree implements IDiffTree {
 			beginInput();
 			pathTree.clear();
 			statistics.clear();
+			rootStatistics.clear();
 			internalReset();
 		} finally {
 			endInput(null);
@@ -282,7 +288,9 @@ public class DiffTree implements IDiffTree {
 		} else {
 			statistics.remove(oldDiff);
 			statistics.add(delta);
+			removeRootStatistics(oldDiff);
 		}
+		addRootStatistics(delta);
 		boolean isConflict = false;
 		if (delta instanceof IThreeWayDiff) {
 			IThreeWayDiff twd = (IThreeWayDiff) delta;
@@ -294,11 +302,38 @@ public class DiffTree implements IDiffTree {
 	private void internalRemove(IDiff delta) {
 		Assert.isTrue(!lockedForModification);
 		statistics.remove(delta);
+		removeRootStatistics(delta);
 		setPropertyToRoot(delta, P_HAS_DESCENDANT_CONFLICTS, false);
 		setPropertyToRoot(delta, P_BUSY_HINT, false);
 		pathTree.remove(delta.getPath());
 	}
 	
+	private void addRootStatistics(IDiff delta) {
+		IPath path = delta.getPath();
+		if (path.segmentCount() == 0)
+			return;
+		String root = path.segment(0);
+		DiffTreeStatistics stats = (DiffTreeStatistics)rootStatistics.get(root);
+		if (stats == null) {
+			stats = new DiffTreeStatistics();
+			rootStatistics.put(root, stats);
+		}
+		stats.add(delta);
+	}
+
+	private void removeRootStatistics(IDiff delta) {
+		IPath path = delta.getPath();
+		if (path.segmentCount() == 0)
+			return;
+		String root = path.segment(0);
+		DiffTreeStatistics stats = (DiffTreeStatistics)rootStatistics.get(root);
+		if (stats != null) {
+			stats.remove(delta);
+			if (stats.isEmpty())
+				rootStatistics.remove(root);
+		}
+	}
+
 	private void internalAdded(IDiff delta) {
 		changes.added(delta);
 	}
@@ -339,6 +374,41 @@ public class DiffTree implements IDiffTree {
 		return statistics.countFor(state, mask);
 	}
 
+	/**
+	 * Return the number of diffs at or below the given path that match the
+	 * given state and mask (see {@link #countFor(int, int)}).
+	 * The counts for the root path and for the paths with a single segment
+	 * (e.g. the projects of a resource diff tree) are maintained as the tree
+	 * changes so they are obtained in constant time and without waiting for a
+	 * thread that is modifying the tree. The diffs below other paths are
+	 * counted by visiting them.
+	 * @param path the path
+	 * @param state the diff state
+	 * @param mask the mask applied to the diff state
+	 * @return the number of matching diffs at or below the path
+	 * @since 3.8
+	 */
+	public long countFor(IPath path, final int state, final int mask) {
+		if (path.segmentCount() == 0)
+			return countFor(state, mask);
+		if (path.segmentCount() == 1) {
+			DiffTreeStatistics stats = (DiffTreeStatistics)rootStatistics.get(path.segment(0));
+			if (stats == null)
+				return 0;
+			return state == 0 ? stats.size() : stats.countFor(state, mask);
+		}
+		final long[] count = new long[] { 0 };
+		accept(path, new IDiffVisitor() {
+			public boolean visit(IDiff diff) {
+				int diffState = DiffTreeStatistics.getState(diff);
+				if (state == 0 || (mask == 0 ? diffState == state : (diffState & mask) == state))
+					count[0]++;
+				return true;
+			}
+		}, IResource.DEPTH_INFINITE);
+		return count[0];
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.team.core.diff.IDiffTree#size()
 	 */
@@ -179,6 +179,21 @@ public class ResourceDiffTree extends DiffTree implements IResourceDiffTree {
 		remove(resource.getFullPath());
 	}
 
+	/**
+	 * Return the number of diffs for the given resource and its descendants
+	 * that match the given state and mask (see {@link #countFor(int, int)}).
+	 * The counts for the workspace root and for projects are obtained in
+	 * constant time.
+	 * @param resource the resource
+	 * @param state the diff state
+	 * @param mask the mask applied to the diff state
+	 * @return the number of matching diffs for the resource and its descendants
+	 * @since 3.8
+	 */
+	public long countFor(IResource resource, int state, int mask) {
+		return countFor(resource.getFullPath(), state, mask);
+	}
+
 	public boolean hasMatchingDiffs(ResourceTraversal[] traversals, final FastDiffFilter filter) {
 		final RuntimeException found = new RuntimeException();
 		try {
@@ -27,6 +27,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.team.internal.core.Messages;
 import org.eclipse.team.internal.core.TeamPlugin;
+import org.eclipse.team.internal.core.subscribers.SyncInfoStatistics;
 import org.eclipse.team.internal.core.subscribers.SyncInfoTreeChangeEvent;
 
 /**
@@ -42,6 +43,10 @@ public class SyncInfoTree extends SyncInfoSet {
 
 	protected Map parents = Collections.synchronizedMap(new HashMap());
 	
+	// {IPath container -> SyncInfoStatistics of the out-of-sync descendants of the container}
+	// Only built once counts are requested for a resource (see countFor(IResource, int, int))
+	private Map folderStatistics;
+	
 	/**
 	 * Create an empty sync info tree.
 	 */
@@ -80,6 +85,41 @@ public class SyncInfoTree extends SyncInfoSet {
 		return (allDescendants != null && !allDescendants.isEmpty());
 	}
 
+	/**
+	 * Return the number of out-of-sync resources at or below the given resource
+	 * whose kind matches the given kind once the mask is applied. The counts of
+	 * each folder are computed on the first call and are then maintained as
+	 * resources are added to and removed from the set so the subtree does not
+	 * need to be traversed on subsequent calls.
+	 * 
+	 * @param resource the root of the resource subtree
+	 * @param kind the sync kind to count
+	 * @param mask the mask applied to the kind of each out-of-sync resource
+	 * @return the number of matching out-of-sync resources in the subtree
+	 * @see SyncInfoSet#countFor(int, int)
+	 * @since 3.8
+	 */
+	public synchronized long countFor(IResource resource, int kind, int mask) {
+		if (resource.getType() == IResource.ROOT) return countFor(kind, mask);
+		long count = 0;
+		SyncInfo info = getSyncInfo(resource);
+		if (info != null && (mask == 0 ? info.getKind() == kind : (info.getKind() & mask) == kind)) {
+			count++;
+		}
+		if (folderStatistics == null) {
+			folderStatistics = new HashMap();
+			SyncInfo[] infos = getSyncInfos();
+			for (int i = 0; i < infos.length; i++) {
+				updateFolderStatistics(infos[i], true);
+			}
+		}
+		SyncInfoStatistics statistics = (SyncInfoStatistics)folderStatistics.get(resource.getFullPath());
+		if (statistics != null) {
+			count += statistics.countFor(kind, mask);
+		}
+		return count;
+	}
+
 	/**
 	 * Return the <code>SyncInfo</code> for each out-of-sync resource in the subtree rooted at the given resource
 	 * to the depth specified. The depth is one of:
@@ -200,6 +240,7 @@ public class SyncInfoTree extends SyncInfoSet {
 			super.clear();
 			synchronized(this) {
 				parents.clear();
+				folderStatistics = null;
 			}
 		} finally {
 			endInput(null);
@@ -258,6 +299,56 @@ public class SyncInfoTree extends SyncInfoSet {
 		return removedParent;
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.core.synchronize.SyncInfoSet#internalAdd(org.eclipse.team.core.synchronize.SyncInfo)
+	 */
+	protected synchronized void internalAdd(SyncInfo info) {
+		SyncInfo oldInfo = getSyncInfo(info.getLocal());
+		super.internalAdd(info);
+		if (folderStatistics != null) {
+			if (oldInfo != null) {
+				updateFolderStatistics(oldInfo, false);
+			}
+			updateFolderStatistics(info, true);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.core.synchronize.SyncInfoSet#internalRemove(org.eclipse.core.resources.IResource)
+	 */
+	protected synchronized SyncInfo internalRemove(IResource resource) {
+		SyncInfo info = super.internalRemove(resource);
+		if (info != null && folderStatistics != null) {
+			updateFolderStatistics(info, false);
+		}
+		return info;
+	}
+
+	/*
+	 * Count or uncount the kind of the given info in the statistics of each of
+	 * the ancestors of its resource.
+	 */
+	private void updateFolderStatistics(SyncInfo info, boolean add) {
+		IContainer parent = info.getLocal().getParent();
+		while (parent != null && parent.getType() != IResource.ROOT) {
+			IPath path = parent.getFullPath();
+			SyncInfoStatistics statistics = (SyncInfoStatistics)folderStatistics.get(path);
+			if (add) {
+				if (statistics == null) {
+					statistics = new SyncInfoStatistics();
+					folderStatistics.put(path, statistics);
+				}
+				statistics.add(info);
+			} else if (statistics != null) {
+				statistics.remove(info);
+				if (statistics.isEmpty()) {
+					folderStatistics.remove(path);
+				}
+			}
+			parent = parent.getParent();
+		}
+	}
+
 	private void internalAddedSubtreeRoot(IResource parent) {
 		((SyncInfoTreeChangeEvent)getChangeEvent()).addedSubtreeRoot(parent);
 	}
@@ -100,6 +100,24 @@ public class ActiveChangeSet extends DiffChangeSet {
         return getManager().isModified(diff);
     }
 
+    /*
+     * Override to keep the path index of the manager up-to-date while the
+     * diff tree is locked and has not reported the change yet
+     */
+    protected void internalAdd(IDiff diff) {
+        getManager().addToIndex(this, diff.getPath());
+        super.internalAdd(diff);
+    }
+
+    /*
+     * Override to keep the path index of the manager up-to-date while the
+     * diff tree is locked and has not reported the change yet
+     */
+    protected void internalRemove(IPath path) {
+        super.internalRemove(path);
+        getManager().removeFromIndex(this, path);
+    }
+
     private void addResource(IResource resource) throws CoreException {
         IDiff diff = getManager().getDiff(resource);
         if (diff != null) {
@@ -36,21 +36,103 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
     
     private ActiveChangeSet defaultSet;
 
+    /*
+     * {IResourceDiffTree -> ChangeSet} the set of each diff tree
+     */
+    private final Map setsByTree = new HashMap();
+
+    /*
+     * {IPath -> Set of ChangeSet} the sets whose diff tree contains a diff for
+     * the path. The sets update the index as they add or remove diffs, before
+     * their trees report the change. A path is indexed before its diff is
+     * added and unindexed after it is removed so sets found through the index
+     * are checked against their tree before they are returned.
+     */
+    private final Map setsByPath = new HashMap();
+
 	/**
      * Return the Change Set whose sync info set is the
      * one given.
      * @param tree a diff tree
      * @return the change set for the given diff tree
      */
-    protected ChangeSet getChangeSet(IResourceDiffTree tree) {
-        ChangeSet[] sets = getSets();
-        for (int i = 0; i < sets.length; i++) {
-			ChangeSet changeSet = sets[i];
-            if (((DiffChangeSet)changeSet).getDiffTree() == tree) {
-                return changeSet;
-            }
-        }
-        return null;
+    public ChangeSet getChangeSet(IResourceDiffTree tree) {
+    	synchronized (setsByPath) {
+    		return (ChangeSet)setsByTree.get(tree);
+    	}
+    }
+    
+    /**
+     * Return the sets of this manager that contain a diff for the given path.
+     * The sets are found through an index so the cost does not depend on the
+     * number of sets.
+     * @param path the full path of a resource
+     * @return the sets that contain a diff for the path
+     */
+    public ChangeSet[] getContainingSets(IPath path) {
+    	List candidates = new ArrayList();
+    	synchronized (setsByPath) {
+    		Set indexed = (Set)setsByPath.get(path);
+    		if (indexed != null)
+    			candidates.addAll(indexed);
+    	}
+    	List result = new ArrayList();
+    	for (Iterator iter = candidates.iterator(); iter.hasNext();) {
+			DiffChangeSet set = (DiffChangeSet) iter.next();
+			if (set.contains(path) && contains(set))
+				result.add(set);
+		}
+    	return (ChangeSet[]) result.toArray(new ChangeSet[result.size()]);
+    }
+    
+    /**
+     * Return the sets of this manager that contain a diff for the given resource.
+     * @param resource a resource
+     * @return the sets that contain a diff for the resource
+     */
+    public ChangeSet[] getContainingSets(IResource resource) {
+    	return getContainingSets(resource.getFullPath());
+    }
+    
+    /*
+     * Record that the set contains a diff for the path. Sets that are not
+     * managed by this manager are not indexed.
+     */
+    void addToIndex(DiffChangeSet set, IPath path) {
+    	synchronized (setsByPath) {
+    		if (setsByTree.get(set.getDiffTree()) != set)
+    			return;
+    		Set sets = (Set)setsByPath.get(path);
+    		if (sets == null) {
+    			sets = new HashSet(2);
+    			setsByPath.put(path, sets);
+    		}
+    		sets.add(set);
+    	}
+    }
+    
+    /*
+     * Record that the set no longer contains a diff for the path
+     */
+    void removeFromIndex(DiffChangeSet set, IPath path) {
+    	synchronized (setsByPath) {
+    		Set sets = (Set)setsByPath.get(path);
+    		if (sets != null) {
+    			sets.remove(set);
+    			if (sets.isEmpty())
+    				setsByPath.remove(path);
+    		}
+    	}
+    }
+    
+    private void removeFromIndex(ChangeSet set) {
+    	synchronized (setsByPath) {
+    		for (Iterator iter = setsByPath.values().iterator(); iter.hasNext();) {
+				Set sets = (Set) iter.next();
+				if (sets.remove(set) && sets.isEmpty())
+					iter.remove();
+			}
+    	}
     }
     
     /* (non-Javadoc)
@@ -66,7 +148,15 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
      */
     protected void handleSetAdded(ChangeSet set) {
     	Assert.isTrue(set instanceof ActiveChangeSet);
-    	((DiffChangeSet)set).getDiffTree().addDiffChangeListener(getDiffTreeListener());
+    	IResourceDiffTree tree = ((DiffChangeSet)set).getDiffTree();
+    	tree.addDiffChangeListener(getDiffTreeListener());
+    	synchronized (setsByPath) {
+    		setsByTree.put(tree, set);
+    		IDiff[] diffs = ((ActiveChangeSet)set).internalGetDiffTree().getDiffs();
+    		for (int i = 0; i < diffs.length; i++) {
+				addToIndex((ActiveChangeSet)set, diffs[i].getPath());
+			}
+    	}
     	super.handleSetAdded(set);
     	handleAddedResources(set, ((ActiveChangeSet)set).internalGetDiffTree().getDiffs());
     }
@@ -75,7 +165,12 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
      * @see org.eclipse.team.internal.core.subscribers.AbstractChangeSetCollector#handleSetRemoved(org.eclipse.team.internal.core.subscribers.ChangeSet)
      */
     protected void handleSetRemoved(ChangeSet set) {
-    	((DiffChangeSet)set).getDiffTree().removeDiffChangeListener(getDiffTreeListener());
+    	IResourceDiffTree tree = ((DiffChangeSet)set).getDiffTree();
+    	tree.removeDiffChangeListener(getDiffTreeListener());
+    	synchronized (setsByPath) {
+    		setsByTree.remove(tree);
+    		removeFromIndex(set);
+    	}
     	super.handleSetRemoved(set);
     }
     
@@ -236,13 +331,28 @@ public abstract class ActiveChangeSetManager extends ChangeSetManager implements
 				resources[i] = ((DiffChangeSet)set).getDiffTree().getResource(diffs[i]);
 			}
 	        // Remove the added files from any other set that contains them
-	        ChangeSet[] sets = getSets();
-	        for (int i = 0; i < sets.length; i++) {
-	            ChangeSet otherSet = sets[i];
-				if (otherSet != set && ((ActiveChangeSet)otherSet).isUserCreated()) {
-	                otherSet.remove(resources);
-	            }
+	        Map toRemove = new HashMap();
+	        for (int i = 0; i < resources.length; i++) {
+	        	if (resources[i] == null)
+	        		continue;
+	        	ChangeSet[] sets = getContainingSets(resources[i]);
+	        	for (int j = 0; j < sets.length; j++) {
+	        		ChangeSet otherSet = sets[j];
+	        		if (otherSet != set && ((ActiveChangeSet)otherSet).isUserCreated()) {
+	        			List otherResources = (List)toRemove.get(otherSet);
+	        			if (otherResources == null) {
+	        				otherResources = new ArrayList();
+	        				toRemove.put(otherSet, otherResources);
+	        			}
+	        			otherResources.add(resources[i]);
+	        		}
+	        	}
 	        }
+	        for (Iterator iter = toRemove.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry entry = (Map.Entry) iter.next();
+				List otherResources = (List)entry.getValue();
+				((ChangeSet)entry.getKey()).remove((IResource[]) otherResources.toArray(new IResource[otherResources.size()]));
+			}
 	    }
 	}
 
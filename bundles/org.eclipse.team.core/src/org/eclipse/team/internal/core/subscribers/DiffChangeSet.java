@@ -72,7 +72,7 @@ public class DiffChangeSet extends ChangeSet {
      */
     public void add(IDiff diff) {
         if (isValidChange(diff)) {
-            tree.add(diff);
+            internalAdd(diff);
         }
     }
     
@@ -110,7 +110,7 @@ public class DiffChangeSet extends ChangeSet {
      */
     public void remove(IResource resource) {
         if (contains(resource)) {
-            tree.remove(resource);
+            internalRemove(resource.getFullPath());
         }
     }
     
@@ -129,7 +129,7 @@ public class DiffChangeSet extends ChangeSet {
 					IDiff diff = diffs[i];
 					IResource r = tree.getResource(diff);
 					if (r != null)
-						tree.remove(r);
+						internalRemove(r.getFullPath());
 				}
     		} finally {
     			tree.endInput(null);
@@ -150,7 +150,7 @@ public class DiffChangeSet extends ChangeSet {
 			tree.beginInput();
 			for (int i = 0; i < paths.length; i++) {
 				IPath path = paths[i];
-				tree.remove(path);
+				internalRemove(path);
 			}
 		} finally {
 			tree.endInput(null);
@@ -162,13 +162,31 @@ public class DiffChangeSet extends ChangeSet {
 			tree.beginInput();
 			for (int i = 0; i < resources.length; i++) {
 				IResource resource = resources[i];
-				tree.remove(resource);
+				internalRemove(resource.getFullPath());
 			}
 		} finally {
 			tree.endInput(null);
 		}
 	}
 	
+	/**
+	 * Add the diff to the diff tree of this set. All additions made by
+	 * this set go through this method.
+	 * @param diff the diff to be added
+	 */
+	protected void internalAdd(IDiff diff) {
+		tree.add(diff);
+	}
+	
+	/**
+	 * Remove the diff for the given path from the diff tree of this set.
+	 * All removals made by this set go through this method.
+	 * @param path the path of the diff to be removed
+	 */
+	protected void internalRemove(IPath path) {
+		tree.remove(path);
+	}
+	
 	public String getComment() {
 		return null;
 	}
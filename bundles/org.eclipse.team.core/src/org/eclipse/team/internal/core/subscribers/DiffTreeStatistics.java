@@ -11,14 +11,38 @@
 package org.eclipse.team.internal.core.subscribers;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.diff.IThreeWayDiff;
 import org.eclipse.team.core.synchronize.SyncInfo;
 
+/**
+ * Counts the diffs of a diff tree by state. The states of the diffs that can be
+ * stored in a diff tree (a change kind, possibly combined with a direction) are
+ * counted in atomic counters so that the counts can be obtained in constant
+ * time without blocking the thread that modifies the tree. Counts for other
+ * states are kept in a map.
+ */
 public class DiffTreeStatistics {
+
+	// The kind and direction bits of a diff state
+	private static final int KIND_BITS = IDiff.ADD | IDiff.REMOVE | IDiff.CHANGE;
+	private static final int DIRECTION_SHIFT = 8;
+	private static final int STATE_BITS = KIND_BITS | IThreeWayDiff.DIRECTION_MASK;
+
+	// The number of counters: one per combination of kind bits and direction
+	private static final int COUNTER_COUNT = (KIND_BITS + 1) * ((IThreeWayDiff.DIRECTION_MASK >> DIRECTION_SHIFT) + 1);
+
+	/**
+	 * The counts of the states that have kind and direction bits only,
+	 * indexed by {@link #getIndex(int)}
+	 */
+	private final AtomicLongArray counters = new AtomicLongArray(COUNTER_COUNT);
+
 	/**
 	 * {Integer sync kind -> Long number of infos with that sync kind in this sync set}
+	 * for the states that do not have a counter
 	 */
 	protected Map stats = Collections.synchronizedMap(new HashMap());
 
@@ -27,6 +51,10 @@ public class DiffTreeStatistics {
 	 * @param state the state
 	 */
 	public void add(int state) {
+		if ((state & ~STATE_BITS) == 0) {
+			counters.incrementAndGet(getIndex(state));
+			return;
+		}
 		// update statistics
 		Long count = (Long)stats.get(new Integer(state));
 		if(count == null) {
@@ -40,6 +68,10 @@ public class DiffTreeStatistics {
 	 * @param state the info type to remove 
 	 */	
 	public void remove(int state) {
+		if ((state & ~STATE_BITS) == 0) {
+			counters.decrementAndGet(getIndex(state));
+			return;
+		}
 		// update stats
 		Integer kind = new Integer(state);
 		Long count = (Long)stats.get(kind);
@@ -67,23 +99,60 @@ public class DiffTreeStatistics {
 	 * @return the number of sync info types added for the specific kind
 	 */
 	public long countFor(int state, int mask) {
+		long count = 0;
 		if(mask == 0) {
-			Long count = (Long)stats.get(new Integer(state));
-			return count == null ? 0 : count.longValue();
-		} else {
-			Set keySet = stats.keySet();
-			long count = 0;
-			synchronized (stats) {
-				Iterator it = keySet.iterator();
-				while (it.hasNext()) {
-					Integer key = (Integer) it.next();
-					if((key.intValue() & mask) == state) {
-						count += ((Long)stats.get(key)).intValue();
-					}
-				}
+			if ((state & ~STATE_BITS) == 0)
+				return counters.get(getIndex(state));
+			Long stored = (Long)stats.get(new Integer(state));
+			return stored == null ? 0 : stored.longValue();
+		}
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			if ((getState(i) & mask) == state) {
+				count += counters.get(i);
 			}
+		}
+		if (stats.isEmpty())
 			return count;
+		Set keySet = stats.keySet();
+		synchronized (stats) {
+			Iterator it = keySet.iterator();
+			while (it.hasNext()) {
+				Integer key = (Integer) it.next();
+				if((key.intValue() & mask) == state) {
+					count += ((Long)stats.get(key)).intValue();
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return whether no diffs are counted.
+	 * @return whether no diffs are counted
+	 */
+	public boolean isEmpty() {
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			if (counters.get(i) != 0)
+				return false;
 		}
+		return stats.isEmpty();
+	}
+
+	/**
+	 * Return the number of diffs that are counted.
+	 * @return the number of diffs that are counted
+	 */
+	public long size() {
+		long count = 0;
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			count += counters.get(i);
+		}
+		synchronized (stats) {
+			for (Iterator it = stats.values().iterator(); it.hasNext();) {
+				count += ((Long) it.next()).longValue();
+			}
+		}
+		return count;
 	}
 
 	/**
@@ -91,14 +160,36 @@ public class DiffTreeStatistics {
 	 * sync infos are added.
 	 */
 	public void clear() {
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			counters.set(i, 0);
+		}
 		stats.clear();
 	}
+
+	/*
+	 * Return the index of the counter of a state that only has kind and direction bits
+	 */
+	private static int getIndex(int state) {
+		return ((state & IThreeWayDiff.DIRECTION_MASK) >> DIRECTION_SHIFT) * (KIND_BITS + 1) + (state & KIND_BITS);
+	}
+
+	/*
+	 * Return the state counted by the counter at the given index
+	 */
+	private static int getState(int index) {
+		return ((index / (KIND_BITS + 1)) << DIRECTION_SHIFT) | (index % (KIND_BITS + 1));
+	}
 	
 	/**
 	 * For debugging
 	 */
 	public String toString() {
 		StringBuffer out = new StringBuffer();
+		for (int i = 0; i < COUNTER_COUNT; i++) {
+			long count = counters.get(i);
+			if (count != 0)
+				out.append(SyncInfo.kindToString(getState(i)) + ": " + count + "\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
 		Iterator it = stats.keySet().iterator();
 		while (it.hasNext()) {
 			Integer kind = (Integer) it.next();
@@ -117,7 +208,12 @@ public class DiffTreeStatistics {
 		remove(state);
 	}
 
-	private int getState(IDiff delta) {
+	/**
+	 * Return the state that is counted for the given diff.
+	 * @param delta the diff
+	 * @return the state of the diff
+	 */
+	public static int getState(IDiff delta) {
 		int state = delta.getKind();
 		if (delta instanceof IThreeWayDiff) {
 			IThreeWayDiff twd = (IThreeWayDiff) delta;
@@ -210,14 +210,12 @@ public class SubscriberChangeSetManager extends ActiveChangeSetManager {
         
         private void removeFromAllSets(IResource resource) {
             List toRemove = new ArrayList();
-            ChangeSet[] sets = getSets();
+            ChangeSet[] sets = SubscriberChangeSetManager.this.getContainingSets(resource);
             for (int i = 0; i < sets.length; i++) {
                 ChangeSet set = sets[i];
-                if (set.contains(resource)) {
-                    set.remove(resource);
-	                if (set.isEmpty()) {
-	                    toRemove.add(set);
-	                }
+                set.remove(resource);
+                if (set.isEmpty()) {
+                    toRemove.add(set);
                 }
             }
             for (Iterator iter = toRemove.iterator(); iter.hasNext();) {
@@ -227,15 +225,10 @@ public class SubscriberChangeSetManager extends ActiveChangeSetManager {
         }
 
         private ActiveChangeSet[] getContainingSets(IResource resource) {
-            Set result = new HashSet();
-            ChangeSet[] sets = getSets();
-            for (int i = 0; i < sets.length; i++) {
-                ChangeSet set = sets[i];
-                if (set.contains(resource)) {
-                    result.add(set);
-                }
-            }
-            return (ActiveChangeSet[]) result.toArray(new ActiveChangeSet[result.size()]);
+            ChangeSet[] sets = SubscriberChangeSetManager.this.getContainingSets(resource);
+            ActiveChangeSet[] result = new ActiveChangeSet[sets.length];
+            System.arraycopy(sets, 0, result, 0, sets.length);
+            return result;
         }
     }
     
@@ -84,6 +84,14 @@ public class SyncInfoStatistics {
 		}
 	}
 
+	/**
+	 * Return whether no sync kind is counted.
+	 * @return whether the statistics are empty
+	 */
+	public boolean isEmpty() {
+		return stats.isEmpty();
+	}
+
 	/**
 	 * Clear the statistics counts. All calls to countFor() will return 0 until new
 	 * sync infos are added.
@@ -232,6 +232,10 @@ public class CVSMessages extends NLS {
 	public static String CRLFDetectInputStream_0;
 	public static String DeferredResourceChangeHandler_0;
 	public static String DeferredResourceChangeHandler_1;
+	public static String FileModificationManager_0;
+	public static String FileModificationManager_1;
+	public static String FileContentPrefetcher_0;
+	public static String FileContentPrefetcher_1;
 	public static String CVSWorkspaceRoot_11;
 	public static String RemoveEntryHandler_2;
 	public static String ServerMessageLineMatcher_5;
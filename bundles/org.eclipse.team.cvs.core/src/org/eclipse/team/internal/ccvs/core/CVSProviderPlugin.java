@@ -331,6 +331,9 @@ public class CVSProviderPlugin extends Plugin {
 			workspace.removeResourceChangeListener(metaFileSyncListener);
 			workspace.removeResourceChangeListener(fileModificationManager);
 			workspace.removeResourceChangeListener(addDeleteMoveListener);
+			fileModificationManager.shutdown();
+			if (cvsWorkspaceSubscriber != null)
+				cvsWorkspaceSubscriber.shutdown();
 			
 			// remove all of this plugin's save participants. This is easier than having
 			// each class that added itself as a participant to have to listen to shutdown.
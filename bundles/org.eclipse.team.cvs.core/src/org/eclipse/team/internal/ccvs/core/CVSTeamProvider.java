@@ -323,17 +323,18 @@ public class CVSTeamProvider extends RepositoryProvider {
 					
 					// only set keyword substitution if new differs from actual
 					byte[] syncBytes = mFile.getSyncBytes();
-					KSubstOption fromKSubst = ResourceSyncInfo.getKeywordMode(syncBytes);
+					ResourceSyncBytes info = new ResourceSyncBytes(syncBytes);
+					KSubstOption fromKSubst = info.getKeywordMode();
 					if (toKSubst.equals(fromKSubst)) continue;
 					
 					// change resource sync info immediately for an outgoing addition
-					if (ResourceSyncInfo.isAddition(syncBytes)) {
+					if (info.isAddition()) {
 						mFile.setSyncBytes(ResourceSyncInfo.setKeywordMode(syncBytes, toKSubst), ICVSFile.UNKNOWN);
 						continue;
 					}
 
 					// nothing do to for deletions
-					if (ResourceSyncInfo.isDeletion(syncBytes)) continue;
+					if (info.isDeletion()) continue;
 
 					// file exists remotely so we'll have to commit it
 					if (fromKSubst.isBinary() && ! toKSubst.isBinary()) {
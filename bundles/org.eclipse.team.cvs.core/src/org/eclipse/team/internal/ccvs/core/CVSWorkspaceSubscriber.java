@@ -17,6 +17,7 @@ import org.eclipse.core.resources.*;
 import org.eclipse.core.resources.mapping.ResourceMapping;
 import org.eclipse.core.resources.mapping.ResourceTraversal;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.core.*;
 import org.eclipse.team.core.diff.IDiff;
@@ -27,6 +28,7 @@ import org.eclipse.team.core.synchronize.SyncInfoSet;
 import org.eclipse.team.core.variants.*;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.resources.EclipseSynchronizer;
+import org.eclipse.team.internal.ccvs.core.resources.FileContentPrefetcher;
 import org.eclipse.team.internal.ccvs.core.syncinfo.*;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
 import org.eclipse.team.internal.core.subscribers.ActiveChangeSetManager;
@@ -43,6 +45,8 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 
 	private boolean contentFetch;
 	
+	private FileContentPrefetcher prefetcher;
+	
 	CVSWorkspaceSubscriber(QualifiedName id, String name) {
 		super(id, name);
 		
@@ -66,7 +70,17 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 			public boolean isCacheFileContentsHint() {
 				return getCacheFileContentsHint();
 			}
+			public IResource[] refresh(IResource[] resources, int depth, IProgressMonitor monitor) throws TeamException {
+				IResource[] changedResources = super.refresh(resources, depth, monitor);
+				// Fetch the contents of the incoming changes in the background
+				// unless they were already fetched by the refresh
+				if (!getCacheFileContentsHint())
+					prefetcher.refreshed(changedResources);
+				return changedResources;
+			}
 		};
+		prefetcher = new FileContentPrefetcher(this);
+		remoteTree.setRefreshChangedFoldersOnly(true);
 		
 		ResourceStateChangeListeners.getListener().addResourceStateChangeListener(this); 
 	}
@@ -102,6 +116,12 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 	}
 
 	private void internalResourceSyncInfoChanged(IResource[] changedResources, boolean canModifyWorkspace) {
+		for (int i = 0; i < changedResources.length; i++) {
+			IResource resource = changedResources[i];
+			// The folder sync info (e.g. the tag) of a container may have changed
+			if (resource.getType() != IResource.FILE && resource.getType() != IResource.ROOT)
+				remoteTree.resetChangedFolders(resource.getProject());
+		}
 		getRemoteByteStore().handleResourceChanges(changedResources, canModifyWorkspace);	
 		fireTeamResourceChange(SubscriberChangeEvent.asSyncChangedDeltas(this, changedResources));
 	}
@@ -137,6 +157,7 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 	 * @see org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener#projectDeconfigured(org.eclipse.core.resources.IProject)
 	 */
 	public void projectDeconfigured(IProject project) {
+		remoteTree.resetChangedFolders(project);
 		try {
 			getRemoteTree().flushVariants(project, IResource.DEPTH_INFINITE);
 		} catch (TeamException e) {
@@ -292,6 +313,15 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 		}
 	}
 
+	/**
+	 * Fetch the remote contents of the given files in the background before
+	 * the contents of the other files changed by the last refresh.
+	 * @param files the files whose remote contents will likely be needed soon
+	 */
+	public void prefetchContents(IFile[] files) {
+		prefetcher.prefetch(files);
+	}
+	
 	public ICVSRemoteResource buildRemoteTree(IResource resource, boolean immutable, IProgressMonitor monitor) throws TeamException {
 		try {
 			monitor.beginTask(null, IProgressMonitor.UNKNOWN);
@@ -301,6 +331,42 @@ public class CVSWorkspaceSubscriber extends CVSSyncTreeSubscriber implements IRe
 		}
 	}
 	
+	/**
+	 * Build the remote tree of the given container that only contains the given
+	 * descendants of the container and the folders between them and the container.
+	 * @param root the root of the tree
+	 * @param resources descendants of the root
+	 * @param monitor a progress monitor
+	 * @return the remote tree or <code>null</code> if the root has no remote
+	 * @throws TeamException
+	 */
+	public ICVSRemoteResource buildRemoteTree(IContainer root, IResource[] resources, IProgressMonitor monitor) throws TeamException {
+		try {
+			monitor.beginTask(null, IProgressMonitor.UNKNOWN);
+			return ((CVSResourceVariantTree)getRemoteTree()).buildTree(root, resources, monitor);
+		} finally {
+			monitor.done();
+		}
+	}
+	
+	/**
+	 * Return the job that fetches the remote contents of the files changed by
+	 * a refresh in the background. This is exposed so that clients (e.g. tests)
+	 * can wait for the contents to be fetched.
+	 * @return the content prefetching job
+	 */
+	public Job getContentPrefetchJob() {
+		return prefetcher.getEventHandlerJob();
+	}
+	
+	/**
+	 * Stop fetching the remote contents of changed files. This is called when
+	 * the plug-in is stopped.
+	 */
+	public void shutdown() {
+		prefetcher.shutdown();
+	}
+	
 	/* (non-Javadoc)
 	 * @see org.eclipse.team.core.subscribers.Subscriber#getState(org.eclipse.core.resources.mapping.ResourceMapping, int, org.eclipse.core.runtime.IProgressMonitor)
 	 */
@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.client;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
+import org.eclipse.team.internal.ccvs.core.client.listeners.ICommandOutputListener;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+import org.eclipse.team.internal.ccvs.core.util.Util;
+
+/**
+ * Keeps the annotations of recently annotated file revisions. When a revision
+ * of a file is annotated and an older revision of the same file is cached,
+ * the annotation is computed by applying the <code>rdiff</code> of each
+ * intermediate revision to the cached annotation instead of asking the server
+ * to annotate the whole file again.
+ * <p>
+ * The lines of a revision added by a diff are attributed to that revision,
+ * using the author and date of its log entry. Diffs are fetched in the same
+ * keyword substitution mode as the annotation so that the lines match the
+ * contents of the revision. A line that only differs from the line it
+ * replaces in the expansion of its keywords keeps the attribution of the
+ * replaced line, as it does in the annotation of the server.
+ */
+public class AnnotationCache {
+
+	// The maximum number of files whose annotations are kept
+	private static final int MAX_FILES = 32;
+
+	// The maximum number of revisions kept for each file
+	private static final int MAX_REVISIONS_PER_FILE = 4;
+
+	// The maximum number of diffs that are applied instead of performing a full annotate
+	private static final int MAX_DIFFS = 4;
+
+	private static final LocalOption UNIFIED_FORMAT = new LocalOption("-u"); //$NON-NLS-1$
+
+	// The separator between the prefix of an annotate line and the line contents
+	private static final String ANNOTATE_SEPARATOR = "): "; //$NON-NLS-1$
+
+	// An expanded keyword (e.g. "$Revision: 1.2 $")
+	private static final Pattern EXPANDED_KEYWORD = Pattern.compile("\\$(\\w+):[^$]*\\$"); //$NON-NLS-1$
+
+	private static AnnotationCache instance;
+
+	// Map of file path (including the repository location) to a Map of revision to annotate lines
+	private final Map files = new LinkedHashMap(MAX_FILES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_FILES;
+		}
+	};
+
+	public static synchronized AnnotationCache getInstance() {
+		if (instance == null) {
+			instance = new AnnotationCache();
+		}
+		return instance;
+	}
+
+	/*
+	 * Records the lines of a full annotate while passing them on to the listener
+	 */
+	private static class RecordingListener extends CommandOutputListener {
+		private final ICommandOutputListener listener;
+		private final List lines = new ArrayList();
+
+		RecordingListener(ICommandOutputListener listener) {
+			this.listener = listener;
+		}
+		public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			lines.add(line);
+			return listener.messageLine(line, location, commandRoot, monitor);
+		}
+		public IStatus errorLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			return listener.errorLine(line, location, commandRoot, monitor);
+		}
+	}
+
+	/*
+	 * Collects the lines of a unified diff
+	 */
+	private static class DiffListener extends CommandOutputListener {
+		private final List lines = new ArrayList();
+
+		public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			lines.add(line);
+			return OK;
+		}
+		public IStatus errorLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			// Informational messages such as "Diffing module" are not of interest
+			return OK;
+		}
+	}
+
+	/**
+	 * Annotate the given revision of the file, passing the annotate lines to the
+	 * listener. The annotation is taken from the cache or computed from a cached
+	 * annotation of an older revision when possible. Otherwise, a full annotate
+	 * is performed over the given session and its result is cached.
+	 *
+	 * @param session an open session
+	 * @param file the file to annotate
+	 * @param revision the revision to annotate or <code>null</code>. Annotations are only cached for a given revision.
+	 * @param binary whether binary files should be annotated. Such annotations are not cached.
+	 * @param logEntries a map of revision to <code>ILogEntry</code> for the file or <code>null</code>
+	 * @param listener the listener that receives the annotate lines
+	 * @param monitor a progress monitor
+	 * @return the status of the annotate
+	 * @throws CVSException
+	 */
+	public IStatus annotate(Session session, ICVSResource file, String revision, boolean binary, Map logEntries, ICommandOutputListener listener, IProgressMonitor monitor) throws CVSException {
+		monitor = Policy.monitorFor(monitor);
+		monitor.beginTask(null, 100);
+		try {
+			boolean cacheable = revision != null && !binary;
+			String key = cacheable ? getKey(session, file) : null;
+			if (cacheable) {
+				String[] lines = getAnnotation(key, revision);
+				if (lines == null && logEntries != null) {
+					lines = computeAnnotation(session, file, key, revision, logEntries, Policy.subMonitorFor(monitor, 50));
+				}
+				if (lines != null) {
+					for (int i = 0; i < lines.length; i++) {
+						listener.messageLine(lines[i], session.getCVSRepositoryLocation(), session.getLocalRoot(), monitor);
+					}
+					return ICommandOutputListener.OK;
+				}
+			}
+			List localOptions = new ArrayList();
+			if (revision != null) {
+				localOptions.add(Annotate.makeRevisionOption(revision));
+			}
+			if (binary) {
+				localOptions.add(Annotate.FORCE_BINARY_ANNOTATE);
+			}
+			RecordingListener recorder = new RecordingListener(listener);
+			IStatus status = Command.ANNOTATE.execute(session, Command.NO_GLOBAL_OPTIONS, (LocalOption[]) localOptions.toArray(new LocalOption[localOptions.size()]), new ICVSResource[] { file }, recorder, Policy.subMonitorFor(monitor, 50));
+			if (cacheable && status.getCode() != CVSStatus.SERVER_ERROR) {
+				putAnnotation(key, revision, (String[]) recorder.lines.toArray(new String[recorder.lines.size()]));
+			}
+			return status;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/*
+	 * Compute the annotation of the revision from the cached annotation of one of its
+	 * predecessors by applying the diff of each intermediate revision.
+	 * Return null if no close predecessor is cached or if a diff could not be applied.
+	 */
+	private String[] computeAnnotation(Session session, ICVSResource file, String key, String revision, Map logEntries, IProgressMonitor monitor) throws CVSException {
+		List steps = new ArrayList();
+		String current = revision;
+		String[] base = null;
+		while (base == null && steps.size() < MAX_DIFFS) {
+			if (!logEntries.containsKey(current))
+				return null;
+			steps.add(0, current);
+			current = getPredecessor(current);
+			if (current == null)
+				return null;
+			base = getAnnotation(key, current);
+		}
+		if (base == null)
+			return null;
+		monitor.beginTask(null, steps.size() * 100);
+		try {
+			List lines = new ArrayList(Arrays.asList(base));
+			for (Iterator iter = steps.iterator(); iter.hasNext();) {
+				String next = (String) iter.next();
+				DiffListener diff = new DiffListener();
+				IStatus status = Command.RDIFF.execute(session, Command.NO_GLOBAL_OPTIONS,
+						new LocalOption[] { UNIFIED_FORMAT, getRevisionOption(current), getRevisionOption(next) },
+						new ICVSResource[] { file }, diff, Policy.subMonitorFor(monitor, 100));
+				if (status.getCode() == CVSStatus.SERVER_ERROR)
+					return null;
+				lines = applyDiff(lines, diff.lines, (ILogEntry)logEntries.get(next));
+				if (lines == null)
+					return null;
+				current = next;
+			}
+			String[] result = (String[]) lines.toArray(new String[lines.size()]);
+			putAnnotation(key, revision, result);
+			return result;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Apply the given unified diff to the annotate lines of the previous revision,
+	 * attributing the added lines to the revision of the given log entry unless
+	 * they only differ from the line they replace in their keyword expansion.
+	 * Return <code>null</code> if the diff does not apply to the annotate lines.
+	 * @param lines the annotate lines of the previous revision
+	 * @param diff the lines of the unified diff
+	 * @param entry the log entry of the revision the diff leads to
+	 * @return the annotate lines of the new revision or <code>null</code>
+	 */
+	public static List applyDiff(List lines, List diff, ILogEntry entry) {
+		String prefix = getAnnotatePrefix(entry);
+		List result = new ArrayList(lines.size());
+		// The annotate lines removed by the current change, in order
+		List removed = new ArrayList();
+		int oldIndex = 0;
+		boolean inHunk = false;
+		for (Iterator iter = diff.iterator(); iter.hasNext();) {
+			String line = (String) iter.next();
+			if (line.startsWith("@@ ")) { //$NON-NLS-1$
+				int start = parseHunkStart(line);
+				if (start < 0 || start < oldIndex || start > lines.size())
+					return null;
+				result.addAll(lines.subList(oldIndex, start));
+				oldIndex = start;
+				inHunk = true;
+				removed.clear();
+			} else if (!inHunk || line.startsWith("\\")) { //$NON-NLS-1$
+				// Skip the header lines and the "\ No newline at end of file" markers
+				continue;
+			} else if (line.startsWith("+")) { //$NON-NLS-1$
+				String contents = line.substring(1);
+				String replaced = removed.isEmpty() ? null : (String) removed.remove(0);
+				result.add(getAnnotateLine(replaced, contents, prefix));
+			} else if (line.startsWith("-") || line.startsWith(" ") || line.length() == 0) { //$NON-NLS-1$ //$NON-NLS-2$
+				if (oldIndex >= lines.size())
+					return null;
+				if (line.startsWith("-")) { //$NON-NLS-1$
+					removed.add(lines.get(oldIndex));
+				} else {
+					removed.clear();
+					result.add(lines.get(oldIndex));
+				}
+				oldIndex++;
+			} else {
+				return null;
+			}
+		}
+		result.addAll(lines.subList(oldIndex, lines.size()));
+		return result;
+	}
+
+	/*
+	 * Return the annotate line for the given added contents. The attribution of the
+	 * replaced line is kept if the lines only differ in their keyword expansion.
+	 */
+	private static String getAnnotateLine(String replaced, String contents, String prefix) {
+		if (replaced != null) {
+			int end = replaced.indexOf(ANNOTATE_SEPARATOR);
+			if (end != -1) {
+				end += ANNOTATE_SEPARATOR.length();
+				if (collapseKeywords(replaced.substring(end)).equals(collapseKeywords(contents)))
+					return replaced.substring(0, end) + contents;
+			}
+		}
+		return prefix + contents;
+	}
+
+	private static String collapseKeywords(String line) {
+		if (line.indexOf('$') == -1)
+			return line;
+		return EXPANDED_KEYWORD.matcher(line).replaceAll("\\$$1\\$"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Return the 0-based index of the first old line of the hunk
+	 * (i.e. the number of old lines that precede the hunk) or -1.
+	 * The header has the form "@@ -start[,length] +start[,length] @@".
+	 */
+	private static int parseHunkStart(String header) {
+		try {
+			int start = header.indexOf('-');
+			int end = header.indexOf(' ', start);
+			if (start == -1 || end == -1)
+				return -1;
+			String range = header.substring(start + 1, end);
+			int comma = range.indexOf(',');
+			int first = Integer.parseInt(comma == -1 ? range : range.substring(0, comma));
+			int length = comma == -1 ? 1 : Integer.parseInt(range.substring(comma + 1));
+			// An empty range refers to the line after which the lines are inserted
+			return length == 0 ? first : first - 1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * Return the prefix of the annotate lines of the revision of the given entry.
+	 * The format matches the output of the annotate command (e.g. "1.2          (user     07-Mar-02): ")
+	 */
+	private static String getAnnotatePrefix(ILogEntry entry) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(entry.getRevision());
+		pad(buffer, 13);
+		buffer.append('(');
+		int start = buffer.length();
+		// Long author names are truncated to the width of the column
+		String author = entry.getAuthor() == null ? "" : entry.getAuthor(); //$NON-NLS-1$
+		buffer.append(author.length() > 8 ? author.substring(0, 8) : author);
+		pad(buffer, start + 8);
+		buffer.append(' ');
+		Date date = entry.getDate();
+		buffer.append(date == null ? "" : CVSDateFormatter.millisToAnnotateDate(date.getTime())); //$NON-NLS-1$
+		buffer.append("): "); //$NON-NLS-1$
+		return buffer.toString();
+	}
+
+	private static void pad(StringBuffer buffer, int length) {
+		while (buffer.length() < length) {
+			buffer.append(' ');
+		}
+	}
+
+	/**
+	 * Return the revision that immediately precedes the given revision or
+	 * <code>null</code> if the revision is the first revision of the trunk.
+	 * The predecessor of the first revision of a branch is the branch point.
+	 * @param revision a revision
+	 * @return the preceding revision or <code>null</code>
+	 */
+	static String getPredecessor(String revision) {
+		int[] digits = Util.convertToDigits(revision);
+		if (digits.length < 2 || digits.length % 2 != 0)
+			return null;
+		int length = digits.length;
+		if (digits[length - 1] > 1) {
+			digits[length - 1]--;
+		} else if (length > 2) {
+			length -= 2;
+		} else {
+			return null;
+		}
+		StringBuffer buffer = new StringBuffer(revision.length());
+		for (int i = 0; i < length; i++) {
+			if (i > 0)
+				buffer.append('.');
+			buffer.append(digits[i]);
+		}
+		return buffer.toString();
+	}
+
+	private static LocalOption getRevisionOption(String revision) {
+		return new LocalOption("-r", revision); //$NON-NLS-1$
+	}
+
+	private String getKey(Session session, ICVSResource file) throws CVSException {
+		return session.getCVSRepositoryLocation().getLocation(false) + ':' + file.getRepositoryRelativePath();
+	}
+
+	private synchronized String[] getAnnotation(String key, String revision) {
+		Map revisions = (Map)files.get(key);
+		if (revisions == null)
+			return null;
+		return (String[])revisions.get(revision);
+	}
+
+	private synchronized void putAnnotation(String key, String revision, String[] lines) {
+		Map revisions = (Map)files.get(key);
+		if (revisions == null) {
+			revisions = new LinkedHashMap(MAX_REVISIONS_PER_FILE, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				protected boolean removeEldestEntry(Map.Entry eldest) {
+					return size() > MAX_REVISIONS_PER_FILE;
+				}
+			};
+			files.put(key, revisions);
+		}
+		revisions.put(revision, lines);
+	}
+}
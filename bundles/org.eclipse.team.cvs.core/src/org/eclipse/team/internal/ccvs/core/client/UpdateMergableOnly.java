@@ -14,7 +14,7 @@ package org.eclipse.team.internal.ccvs.core.client;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
+import java.util.regex.Matcher;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -107,9 +107,9 @@ public class UpdateMergableOnly extends Update {
 			super(updateMessageListener);
 		}
 		public IStatus errorLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
-			Map variables = MERGE_UPDATE_CONFLICTING_ADDITION_MATCHER.processServerMessage(line);
-			if (variables != null) {
-				String filePath = (String)variables.get(LOCAL_FILE_PATH_VARIABLE_NAME);
+			Matcher matcher = MERGE_UPDATE_CONFLICTING_ADDITION_MATCHER.match(line);
+			if (matcher != null) {
+				String filePath = MERGE_UPDATE_CONFLICTING_ADDITION_MATCHER.getValue(matcher, LOCAL_FILE_PATH_VARIABLE_NAME);
 				try {
 					ICVSResource cvsResource = commandRoot.getChild(filePath);
 					IResource resource = cvsResource.getIResource();
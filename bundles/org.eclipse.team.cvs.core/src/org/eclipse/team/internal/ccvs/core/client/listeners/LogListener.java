@@ -13,7 +13,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.client.listeners;
 
-import java.text.*;
+import java.text.ParseException;
 import java.util.*;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -23,6 +23,7 @@ import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.CommandOutputListener;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
 /**
@@ -31,15 +32,6 @@ import org.eclipse.team.internal.ccvs.core.util.Util;
  */
 public class LogListener extends CommandOutputListener {
     
-    /*
-     * A new format for log dates was introduced in 1.12.9
-     */
-    private static final String LOG_TIMESTAMP_FORMAT_OLD= "yyyy/MM/dd HH:mm:ss zzz";//$NON-NLS-1$
-    private static final String LOG_TIMESTAMP_FORMAT= "yyyy-MM-dd HH:mm:ss zzz";//$NON-NLS-1$
-    private static final Locale LOG_TIMESTAMP_LOCALE= Locale.US;
-    private final DateFormat LOG_DATE_FORMATTER_OLD = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT_OLD, LOG_TIMESTAMP_LOCALE);
-    private final DateFormat LOG_DATE_FORMATTER = new SimpleDateFormat(LOG_TIMESTAMP_FORMAT, LOG_TIMESTAMP_LOCALE);
-    
     // Server message prefix used for error detection
     private static final String NOTHING_KNOWN_ABOUT = "nothing known about "; //$NON-NLS-1$
 
@@ -287,16 +279,12 @@ public class LogListener extends CommandOutputListener {
 
     /**
      * Converts a time stamp as sent from a cvs server for a "log" command into a
-     * <code>Date</code>.
+     * <code>Date</code>. Both the old (pre 1.12.9) and the new log date formats
+     * are accepted.
      */
     private Date convertFromLogTime(String modTime) {
-        DateFormat format = LOG_DATE_FORMATTER;
-        // Compatibility for older cvs version (pre 1.12.9)
-        if (modTime.length() > 4 && modTime.charAt(4) == '/')
-            format = LOG_DATE_FORMATTER_OLD;
-        
         try {
-            return format.parse(modTime);
+            return new Date(CVSDateFormatter.logStampToMillis(modTime));
         } catch (ParseException e) {
             // fallback is to return null
             return null;
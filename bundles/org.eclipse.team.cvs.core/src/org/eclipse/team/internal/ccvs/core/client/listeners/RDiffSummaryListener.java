@@ -10,7 +10,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.client.listeners;
 
-import java.util.Map;
+import java.util.regex.Matcher;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -86,36 +86,38 @@ public class RDiffSummaryListener extends CommandOutputListener {
 		ICVSFolder commandRoot,
 		IProgressMonitor monitor) {
 		
-		Map variables = FILE_DIFF_MATCHER.processServerMessage(line);
-		if (variables != null) {
+		// Each matcher rejects lines that do not contain its literal text
+		// before running its pattern so usually only one pattern is run per line
+		Matcher matcher = FILE_DIFF_MATCHER.match(line);
+		if (matcher != null) {
 			listener.fileDiff(
-					(String)variables.get(REMOTE_FILE_PATH_VARIABLE_NAME), 
-					(String)variables.get(LEFT_REVISION_VARIABLE_NAME), 
-					(String)variables.get(RIGHT_REVISION_VARIABLE_NAME));
+					FILE_DIFF_MATCHER.getValue(matcher, REMOTE_FILE_PATH_VARIABLE_NAME), 
+					FILE_DIFF_MATCHER.getValue(matcher, LEFT_REVISION_VARIABLE_NAME), 
+					FILE_DIFF_MATCHER.getValue(matcher, RIGHT_REVISION_VARIABLE_NAME));
 			return OK;
 		}
 		
-		variables = NEW_FILE_MATCHER.processServerMessage(line);
-		if (variables != null) {
+		matcher = NEW_FILE_MATCHER.match(line);
+		if (matcher != null) {
 			listener.newFile(
-					(String)variables.get(REMOTE_FILE_PATH_VARIABLE_NAME), 
-					(String)variables.get(RIGHT_REVISION_VARIABLE_NAME));
+					NEW_FILE_MATCHER.getValue(matcher, REMOTE_FILE_PATH_VARIABLE_NAME), 
+					NEW_FILE_MATCHER.getValue(matcher, RIGHT_REVISION_VARIABLE_NAME));
 			return OK;
 		}
 		
-		variables = DELETED_FILE_MATCHER.processServerMessage(line);
-		if (variables != null) {
+		matcher = DELETED_FILE_MATCHER.match(line);
+		if (matcher != null) {
 			listener.deletedFile(
-					(String)variables.get(REMOTE_FILE_PATH_VARIABLE_NAME),
+					DELETED_FILE_MATCHER.getValue(matcher, REMOTE_FILE_PATH_VARIABLE_NAME),
 					null);
 			return OK;
 		}
 		
-		variables = DELETED_FILE_MATCHER2.processServerMessage(line);
-		if (variables != null) {
+		matcher = DELETED_FILE_MATCHER2.match(line);
+		if (matcher != null) {
 			listener.deletedFile(
-					(String)variables.get(REMOTE_FILE_PATH_VARIABLE_NAME),
-					(String)variables.get(LEFT_REVISION_VARIABLE_NAME));
+					DELETED_FILE_MATCHER2.getValue(matcher, REMOTE_FILE_PATH_VARIABLE_NAME),
+					DELETED_FILE_MATCHER2.getValue(matcher, LEFT_REVISION_VARIABLE_NAME));
 			return OK;
 		}
 		
@@ -131,10 +133,10 @@ public class RDiffSummaryListener extends CommandOutputListener {
 		ICVSFolder commandRoot,
 		IProgressMonitor monitor) {
 		
-		Map variables = DIRECTORY_MATCHER.processServerMessage(line);
-		if (variables != null) {
+		Matcher matcher = DIRECTORY_MATCHER.match(line);
+		if (matcher != null) {
 			listener.directory(
-					(String)variables.get(REMOTE_FOLDER_PATH_VARIABLE_NAME));
+					DIRECTORY_MATCHER.getValue(matcher, REMOTE_FOLDER_PATH_VARIABLE_NAME));
 			return OK;
 		}
 			
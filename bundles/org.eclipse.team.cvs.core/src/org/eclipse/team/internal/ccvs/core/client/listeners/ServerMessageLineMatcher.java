@@ -27,6 +27,10 @@ import org.eclipse.team.internal.ccvs.core.*;
 /**
  * This class extracts matches server lines to expected patterns and extracts
  * required information from the line.
+ * <p>
+ * The longest literal text that any matching line must contain is extracted
+ * from the template so that most lines can be rejected with a simple string
+ * search instead of running the pattern.
  */
 public class ServerMessageLineMatcher {
 
@@ -34,6 +38,7 @@ public class ServerMessageLineMatcher {
 	
 	Pattern pattern;
 	String[] variables;
+	String literal;
 
 	public ServerMessageLineMatcher(String template, String[] expectedVariables) throws CVSException {
 		// Extract the variable names from the template
@@ -70,6 +75,72 @@ public class ServerMessageLineMatcher {
 
 		// Create the pattern fir matching lines from the server
 		this.pattern = Pattern.compile(template);
+		this.literal = getRequiredLiteral(template);
+	}
+
+	/**
+	 * Return the longest run of literal characters that appears outside of any
+	 * group or alternation of the given regular expression and is therefore
+	 * part of every line the expression finds. Return an empty string if there
+	 * is no such run or if the expression uses alternations or special
+	 * constructs (e.g. flags) that could make a run optional or change how it
+	 * is matched.
+	 * @param regex a regular expression
+	 * @return the literal text that all matches contain
+	 */
+	public static String getRequiredLiteral(String regex) {
+		if (regex.indexOf('|') != -1 || regex.indexOf("(?") != -1) //$NON-NLS-1$
+			return ""; //$NON-NLS-1$
+		String longest = ""; //$NON-NLS-1$
+		StringBuffer run = new StringBuffer();
+		int depth = 0;
+		for (int i = 0; i < regex.length(); i++) {
+			char c = regex.charAt(i);
+			boolean literalChar = false;
+			switch (c) {
+				case '\\' :
+					// Escaped characters and character classes end the run
+					i++;
+					break;
+				case '(' :
+				case '[' :
+				case '{' :
+					depth++;
+					break;
+				case ')' :
+				case ']' :
+				case '}' :
+					depth--;
+					break;
+				case '*' :
+				case '?' :
+				case '+' :
+					// The quantified character is not required
+					if (run.length() > 0)
+						run.setLength(run.length() - 1);
+					break;
+				case '.' :
+				case '^' :
+				case '$' :
+					break;
+				default :
+					literalChar = depth == 0;
+			}
+			if (literalChar) {
+				// A character followed by a quantifier is not required
+				char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+				if (next != '*' && next != '?' && next != '{') {
+					run.append(c);
+					continue;
+				}
+			}
+			if (run.length() > longest.length())
+				longest = run.toString();
+			run.setLength(0);
+		}
+		if (run.length() > longest.length())
+			longest = run.toString();
+		return longest;
 	}
 
 	/*
@@ -86,9 +157,8 @@ public class ServerMessageLineMatcher {
 	}
 
 	public Map processServerMessage(String line) {
-		Matcher matcher = pattern.matcher(line);
-		if (!matcher.find()) return null;
-		Assert.isTrue(matcher.groupCount() == variables.length);
+		Matcher matcher = match(line);
+		if (matcher == null) return null;
 		Map result = new HashMap();
 		for (int i = 1; i <= matcher.groupCount(); i++) {
 			result.put(variables[i - 1], matcher.group(i));
@@ -96,4 +166,35 @@ public class ServerMessageLineMatcher {
 		return result;
 	}
 
+	/**
+	 * Match the given line against the pattern of this matcher. The values
+	 * of the variables of a successful match can be obtained using
+	 * {@link #getValue(Matcher, String)} without creating a map for each line.
+	 * @param line a line received from the server
+	 * @return the matcher positioned on the match or <code>null</code>
+	 * if the line does not match
+	 */
+	public Matcher match(String line) {
+		if (line.indexOf(literal) == -1) return null;
+		Matcher matcher = pattern.matcher(line);
+		if (!matcher.find()) return null;
+		Assert.isTrue(matcher.groupCount() == variables.length);
+		return matcher;
+	}
+
+	/**
+	 * Return the value of the given variable in a match returned by {@link #match(String)}.
+	 * @param matcher a successful match of this matcher
+	 * @param variable the variable name
+	 * @return the value of the variable or <code>null</code> if the template
+	 * does not contain the variable
+	 */
+	public String getValue(Matcher matcher, String variable) {
+		for (int i = 0; i < variables.length; i++) {
+			if (variables[i].equals(variable))
+				return matcher.group(i + 1);
+		}
+		return null;
+	}
+
 }
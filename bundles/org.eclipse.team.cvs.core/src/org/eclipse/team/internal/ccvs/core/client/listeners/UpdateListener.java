@@ -10,7 +10,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.client.listeners;
 
-import java.util.Map;
+import java.util.regex.Matcher;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -218,16 +218,16 @@ public class UpdateListener extends CommandOutputListener {
 					mergedBinaryFilePath = null;
 					return OK;
 				} else if (wasMergingBinary) {
-					Map variables = MERGED_BINARY_FILE_LINE_1.processServerMessage(message);
-					if (variables != null) {
-						mergedBinaryFileRevision = (String)variables.get(REVISION_VARIABLE_NAME);
-						mergedBinaryFilePath = (String)variables.get(LOCAL_FILE_PATH_VARIABLE_NAME);
+					Matcher matcher = MERGED_BINARY_FILE_LINE_1.match(message);
+					if (matcher != null) {
+						mergedBinaryFileRevision = MERGED_BINARY_FILE_LINE_1.getValue(matcher, REVISION_VARIABLE_NAME);
+						mergedBinaryFilePath = MERGED_BINARY_FILE_LINE_1.getValue(matcher, LOCAL_FILE_PATH_VARIABLE_NAME);
 						mergingBinary = true;
 						return OK;
 					}
-					variables = MERGED_BINARY_FILE_LINE_2.processServerMessage(message);
-					if (variables != null) {
-						String backupFile = (String)variables.get(BACKUP_FILE_VARIABLE_NAME);
+					matcher = MERGED_BINARY_FILE_LINE_2.match(message);
+					if (matcher != null) {
+						String backupFile = MERGED_BINARY_FILE_LINE_2.getValue(matcher, BACKUP_FILE_VARIABLE_NAME);
 						try {
 							if (mergedBinaryFileRevision != null && mergedBinaryFilePath != null) {
 								ICVSFile file = commandRoot.getFile(mergedBinaryFilePath);
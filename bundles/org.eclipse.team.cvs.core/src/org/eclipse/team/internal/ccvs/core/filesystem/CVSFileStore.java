@@ -55,6 +55,11 @@ public class CVSFileStore extends FileStore {
 		if (info != null && !info.isDirectory()) {
 			return new IFileInfo[0];
 		}
+		// Use the tree fetched for this folder or one of its ancestors to avoid a round trip per folder and file
+		IFileInfo[] cachedInfos = RemoteTreeCache.getChildInfos(uri, monitor);
+		if (cachedInfos != null) {
+			return cachedInfos;
+		}
 		ICVSRemoteFolder folder = uri.toFolder();
 		ICVSResource[] children = folder.fetchChildren(monitor);
 		
@@ -97,6 +102,10 @@ public class CVSFileStore extends FileStore {
 			info.setName(uri.getRepositoryName());
 			info.setDirectory(true);
 		}
+		IFileInfo cachedInfo = RemoteTreeCache.getFileInfo(uri, monitor);
+		if (cachedInfo != null) {
+			return cachedInfo;
+		}
 		ICVSResource[] children = folder.fetchChildren(monitor);
 		ICVSResource resource = null;
 		for (int i = 0; i < children.length; i++) {
@@ -170,7 +179,14 @@ public class CVSFileStore extends FileStore {
 
 	public InputStream openInputStream(int options, IProgressMonitor monitor) throws CoreException {
 		monitor = Policy.monitorFor(monitor);
-		ICVSRemoteFile file = uri.toFile();
+		ICVSRemoteFile file = null;
+		if (uri.getRevision() == null) {
+			// The file of the prefetched tree has its revision so its contents can be found in the cache
+			file = RemoteTreeCache.getFile(uri, monitor);
+		}
+		if (file == null) {
+			file = uri.toFile();
+		}
 		IStorage storage = ((IResourceVariant) file).getStorage(monitor);
 		return storage.getContents();
 	}
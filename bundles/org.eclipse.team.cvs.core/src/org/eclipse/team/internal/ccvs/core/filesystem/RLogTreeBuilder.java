@@ -66,6 +66,18 @@ class RLogTreeBuilder {
 		}
 	}
 
+	/**
+	 * Add the folder at the given path to the tree if it is not already
+	 * part of it. This is used for folders that do not contain files.
+	 * @param remoteFolderPath the path of the folder relative to the root of the tree
+	 */
+	public void newFolder(IPath remoteFolderPath) {
+		try {
+			getFolder(tree, tag, remoteFolderPath, Path.EMPTY);
+		} catch (CVSException e) {
+		}
+	}
+
 	private void addFile(RemoteFolderTree tree, CVSTag tag, ICVSRemoteFile file, IPath filePath) throws CVSException {
 		RemoteFolderTree parent = (RemoteFolderTree) getFolder(tree, tag, filePath.removeLastSegments(1), Path.EMPTY);
 		addChild(parent, file);
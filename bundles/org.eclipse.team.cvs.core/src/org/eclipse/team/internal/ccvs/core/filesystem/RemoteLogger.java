@@ -10,12 +10,13 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.filesystem;
 
-import java.util.HashMap;
+import java.util.*;
 
 import org.eclipse.core.runtime.*;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.*;
+import org.eclipse.team.internal.ccvs.core.client.Command.QuietOption;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogListener;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
@@ -25,8 +26,12 @@ public class RemoteLogger {
 
 	static final String DEAD_STATE = "dead"; //$NON-NLS-1$
 	
+	// Server message reported for each folder visited by the log
+	private static final String LOGGING = "Logging "; //$NON-NLS-1$
+	
 	private ICVSRemoteFolder remoteFolder;
 	private LogEntryCache cache;
+	private List folderPaths;
 	
 	private RLogTreeBuilder treeBuilder;
 
@@ -39,14 +44,29 @@ public class RemoteLogger {
 		try {
 			// Build the local options
 			this.cache = new LogEntryCache();
-			LogListener listener = new LogListener(cache);
+			this.folderPaths = new ArrayList();
+			LogListener listener = new LogListener(cache) {
+				public IStatus errorLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+					// Remember the folders so that folders without files are part of the tree
+					String serverMessage = getServerMessage(line, location);
+					if (serverMessage != null && serverMessage.startsWith(LOGGING)) {
+						folderPaths.add(serverMessage.substring(LOGGING.length()));
+					}
+					return super.errorLine(line, location, commandRoot, monitor);
+				}
+			};
 
 			Command.LocalOption[] localOptions = getLocalOptions(tag, null);
+			// Make sure that the folders are reported during this operation
+			QuietOption quietness = CVSProviderPlugin.getPlugin().getQuietness();
 			try {
+				CVSProviderPlugin.getPlugin().setQuietness(Command.VERBOSE);
 				session.open(Policy.subMonitorFor(monitor, 10));
 				RLog rlog = new RLog();
 				rlog.execute(session, Command.NO_GLOBAL_OPTIONS, localOptions, new ICVSRemoteResource[] {this.remoteFolder}, listener, Policy.subMonitorFor(monitor, 90));
 			} catch (CVSException e) {
+			} finally {
+				CVSProviderPlugin.getPlugin().setQuietness(quietness);
 			}
 		} finally {
 			session.close();
@@ -88,20 +108,14 @@ public class RemoteLogger {
 			if (tag.getType() == CVSTag.BRANCH && remoteFile.getRevision().equals(LogListener.BRANCH_REVISION))
 				verifyRevision(tag, logEntry[0], remoteFile);
 
-			IPath logPath = new Path(null, remoteFile.getRepositoryRelativePath());
-			if (logPath.segmentCount() > 0) {
-				//trim everything up to the project segment
-				String[] pathSegments = logPath.segments();
-				int index;
-				String projectName = project.getName();
-				for (index = 0; index < pathSegments.length; index++) {
-					if (pathSegments[index].equals(projectName))
-						break;
-				}
-				logPath = logPath.removeFirstSegments(index + 1);
-			}
+			IPath logPath = getRelativePath(new Path(null, remoteFile.getRepositoryRelativePath()));
 			treeBuilder.newFile(logPath, remoteFile);
 		}
+		for (Iterator iter = folderPaths.iterator(); iter.hasNext();) {
+			IPath folderPath = getRelativePath(new Path(null, (String) iter.next()));
+			if (folderPath.segmentCount() > 0)
+				treeBuilder.newFolder(folderPath);
+		}
 
 		return treeBuilder.getTree();
 		}
@@ -110,6 +124,27 @@ public class RemoteLogger {
 		}
 	}
 
+	/*
+	 * Return the path of the given repository path relative to the logged folder
+	 */
+	private IPath getRelativePath(IPath logPath) {
+		IPath folderPath = new Path(null, this.remoteFolder.getRepositoryRelativePath());
+		if (folderPath.isPrefixOf(logPath))
+			return logPath.removeFirstSegments(folderPath.segmentCount());
+		if (logPath.segmentCount() > 0) {
+			//trim everything up to the project segment
+			String[] pathSegments = logPath.segments();
+			int index;
+			String projectName = this.remoteFolder.getName();
+			for (index = 0; index < pathSegments.length; index++) {
+				if (pathSegments[index].equals(projectName))
+					break;
+			}
+			logPath = logPath.removeFirstSegments(index + 1);
+		}
+		return logPath;
+	}
+
 	protected Command.LocalOption[] getLocalOptions(CVSTag tag1, CVSTag tag2) {
 		if (tag1 != null && tag2 != null) {
 			return new Command.LocalOption[] {RLog.NO_TAGS, RLog.ONLY_INCLUDE_CHANGES, RLog.makeTagOption(tag1, tag2)};
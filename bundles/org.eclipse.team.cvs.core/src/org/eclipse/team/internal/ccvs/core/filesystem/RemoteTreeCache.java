@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.filesystem;
+
+import java.util.*;
+
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.provider.FileInfo;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTree;
+
+/**
+ * Caches the remote trees browsed through the CVS file system. The tree of a
+ * folder is fetched with a single <code>rlog</code> request and is used to
+ * answer the child and file info requests of the folder and of all its
+ * descendants until it expires. Threads that need a tree that is being
+ * fetched wait for that fetch instead of starting their own.
+ * <p>
+ * The tree contains the files reported by the log and the folders visited by
+ * the log, including the folders that only contain deleted files. Resources
+ * that are not part of a fetched tree are not answered by the cache and
+ * callers are expected to query the server in that case.
+ */
+class RemoteTreeCache {
+
+	// The time after which a fetched tree is fetched again
+	private static final long TIME_TO_LIVE = 60000;
+
+	// The maximum number of trees that are kept
+	private static final int MAX_TREES = 16;
+
+	private static final ICVSRemoteResource[] NO_CHILDREN = new ICVSRemoteResource[0];
+
+	/*
+	 * The tree of a folder as fetched at a given time. The root is null if
+	 * the tree could not be fetched, in which case the server is queried
+	 * directly until the entry expires.
+	 */
+	private static class CachedTree {
+		private final long timestamp;
+		private final IPath rootPath;
+		private final RemoteFolderTree root;
+		private final Map folders;
+		private final Map logEntries;
+
+		CachedTree(IPath rootPath, RemoteFolderTree root, Map folders, Map logEntries) {
+			this.timestamp = System.currentTimeMillis();
+			this.rootPath = rootPath;
+			this.root = root;
+			this.folders = folders;
+			this.logEntries = logEntries;
+		}
+
+		boolean isExpired() {
+			return System.currentTimeMillis() - timestamp > TIME_TO_LIVE;
+		}
+
+		RemoteFolderTree getFolder(IPath path) {
+			if (root == null || !rootPath.isPrefixOf(path))
+				return null;
+			if (path.segmentCount() == rootPath.segmentCount())
+				return root;
+			return (RemoteFolderTree)folders.get(path.removeFirstSegments(rootPath.segmentCount()).toString());
+		}
+	}
+
+	/*
+	 * A tree that is being fetched. The tree is null if the fetch failed.
+	 */
+	private static class PendingTree {
+		private CachedTree tree;
+		private boolean done;
+
+		synchronized void setTree(CachedTree tree) {
+			this.tree = tree;
+			this.done = true;
+			notifyAll();
+		}
+
+		synchronized CachedTree waitForTree(IProgressMonitor monitor) {
+			while (!done) {
+				if (monitor.isCanceled())
+					throw new OperationCanceledException();
+				try {
+					wait(100);
+				} catch (InterruptedException e) {
+					throw new OperationCanceledException();
+				}
+			}
+			return tree;
+		}
+	}
+
+	// Map of tree key to CachedTree, in access order so the least recently used tree is evicted
+	private static final Map trees = new LinkedHashMap(MAX_TREES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_TREES;
+		}
+	};
+
+	// Map of tree key to PendingTree for the trees that are being fetched
+	private static final Map pending = new HashMap();
+
+	/**
+	 * Return the infos of the members of the given folder or <code>null</code>
+	 * if the folder is not part of a remote tree.
+	 * @param uri the folder URI
+	 * @param monitor a progress monitor
+	 * @return the infos of the members or <code>null</code>
+	 * @throws TeamException
+	 */
+	static IFileInfo[] getChildInfos(CVSURI uri, IProgressMonitor monitor) throws TeamException {
+		CachedTree tree = getTree(uri, monitor);
+		if (tree == null)
+			return null;
+		RemoteFolderTree folder = tree.getFolder(uri.getPath());
+		if (folder == null)
+			return null;
+		ICVSRemoteResource[] children = getChildren(folder);
+		IFileInfo[] infos = new IFileInfo[children.length];
+		for (int i = 0; i < children.length; i++) {
+			infos[i] = getFileInfo(tree, children[i]);
+		}
+		return infos;
+	}
+
+	/**
+	 * Return the info of the given resource or <code>null</code> if the
+	 * resource is not part of the remote tree of its parent.
+	 * @param uri the resource URI
+	 * @param monitor a progress monitor
+	 * @return the file info or <code>null</code>
+	 * @throws TeamException
+	 */
+	static IFileInfo getFileInfo(CVSURI uri, IProgressMonitor monitor) throws TeamException {
+		CachedTree tree = getParentTree(uri, monitor);
+		if (tree == null)
+			return null;
+		ICVSRemoteResource resource = getResource(tree, uri);
+		if (resource == null)
+			return null;
+		return getFileInfo(tree, resource);
+	}
+
+	/**
+	 * Return the remote file for the given URI or <code>null</code> if the
+	 * file is not part of the remote tree of its parent. The returned file
+	 * has its revision set so its contents are shared through the resource
+	 * variant cache.
+	 * @param uri the file URI
+	 * @param monitor a progress monitor
+	 * @return the remote file or <code>null</code>
+	 * @throws TeamException
+	 */
+	static ICVSRemoteFile getFile(CVSURI uri, IProgressMonitor monitor) throws TeamException {
+		CachedTree tree = getParentTree(uri, monitor);
+		if (tree == null)
+			return null;
+		ICVSRemoteResource resource = getResource(tree, uri);
+		if (resource instanceof ICVSRemoteFile)
+			return (ICVSRemoteFile)resource;
+		return null;
+	}
+
+	/**
+	 * Forget all the fetched trees.
+	 */
+	static synchronized void clear() {
+		trees.clear();
+	}
+
+	private static CachedTree getParentTree(CVSURI uri, IProgressMonitor monitor) throws TeamException {
+		// Projects are members of the repository root, which has no tree
+		if (uri.getPath().segmentCount() < 2)
+			return null;
+		return getTree(uri.removeLastSegment(), monitor);
+	}
+
+	private static ICVSRemoteResource getResource(CachedTree tree, CVSURI uri) {
+		RemoteFolderTree parent = tree.getFolder(uri.getPath().removeLastSegments(1));
+		if (parent == null)
+			return null;
+		ICVSRemoteResource[] children = getChildren(parent);
+		String name = uri.getLastSegment();
+		for (int i = 0; i < children.length; i++) {
+			if (children[i].getName().equals(name))
+				return children[i];
+		}
+		return null;
+	}
+
+	private static ICVSRemoteResource[] getChildren(RemoteFolderTree folder) {
+		ICVSRemoteResource[] children = folder.getChildren();
+		return children == null ? NO_CHILDREN : children;
+	}
+
+	private static IFileInfo getFileInfo(CachedTree tree, ICVSRemoteResource resource) {
+		FileInfo info = new FileInfo();
+		info.setExists(true);
+		info.setName(resource.getName());
+		if (resource.isContainer()) {
+			info.setLastModified(0);
+			info.setDirectory(true);
+		} else {
+			ILogEntry entry = (ILogEntry)tree.logEntries.get(resource);
+			if (entry != null && entry.getDate() != null)
+				info.setLastModified(entry.getDate().getTime());
+		}
+		return info;
+	}
+
+	/*
+	 * Return a tree that contains the given folder. The tree of the folder or
+	 * of one of its ancestors is used if it is cached or being fetched.
+	 * Otherwise the tree of the folder is fetched. Return null for the
+	 * repository root and if the fetch failed.
+	 */
+	private static CachedTree getTree(CVSURI uri, IProgressMonitor monitor) throws TeamException {
+		if (uri.isRepositoryRoot())
+			return null;
+		monitor = Policy.monitorFor(monitor);
+		IPath path = uri.getPath();
+		String key = getKey(uri, path);
+		PendingTree pendingTree = null;
+		boolean fetch = false;
+		synchronized (RemoteTreeCache.class) {
+			for (IPath folderPath = path; folderPath.segmentCount() > 0; folderPath = folderPath.removeLastSegments(1)) {
+				CachedTree tree = (CachedTree)trees.get(getKey(uri, folderPath));
+				if (tree != null && !tree.isExpired())
+					return tree;
+			}
+			for (IPath folderPath = path; pendingTree == null && folderPath.segmentCount() > 0; folderPath = folderPath.removeLastSegments(1)) {
+				pendingTree = (PendingTree)pending.get(getKey(uri, folderPath));
+			}
+			if (pendingTree == null) {
+				pendingTree = new PendingTree();
+				pending.put(key, pendingTree);
+				fetch = true;
+			}
+		}
+		if (!fetch)
+			return pendingTree.waitForTree(monitor);
+		CachedTree tree = null;
+		try {
+			tree = fetchTree(uri, monitor);
+			synchronized (RemoteTreeCache.class) {
+				trees.put(key, tree);
+			}
+		} finally {
+			synchronized (RemoteTreeCache.class) {
+				pending.remove(key);
+			}
+			pendingTree.setTree(tree);
+		}
+		return tree;
+	}
+
+	private static CachedTree fetchTree(CVSURI uri, IProgressMonitor monitor) throws TeamException {
+		RemoteLogger logger = new RemoteLogger(uri.toFolder());
+		RemoteFolderTree root = logger.fetchTree(monitor);
+		if (root.getChildren() == null || root.getChildren().length == 0) {
+			// The rlog failed or the folder is empty. In both cases the server is queried directly.
+			return new CachedTree(uri.getPath(), null, Collections.EMPTY_MAP, Collections.EMPTY_MAP);
+		}
+		return new CachedTree(uri.getPath(), root, logger.getFolderMap(), logger.getLogMap());
+	}
+
+	private static String getKey(CVSURI uri, IPath folderPath) {
+		CVSTag tag = uri.getTag();
+		if (tag == null)
+			tag = CVSTag.DEFAULT;
+		return uri.getRepository().getLocation(false) + '|' + tag.getType() + '|' + tag.getName() + '|' + folderPath;
+	}
+}
@@ -617,14 +617,13 @@ public class EclipseFile extends EclipseResource implements ICVSFile {
 			// isMerged() must be called because when a file is updated and merged by the cvs server the timestamps
 			// are equal. Merged files should however be reported as dirty because the user should take action and commit
 			// or review the merged contents.
-			if (ResourceSyncInfo.isAddition(syncBytes)
-					|| ResourceSyncInfo.isMerge(syncBytes)
-					|| ResourceSyncInfo.wasDeleted(syncBytes) || !exists()) {
+			ResourceSyncBytes info = new ResourceSyncBytes(syncBytes);
+			if (info.isAddition()
+					|| info.isMerge()
+					|| info.wasDeleted() || !exists()) {
 				dirty = true;
 			} else {
-				// TODO: non-optimal as ResourceSyncInfo is created each time
-				ResourceSyncInfo info = new ResourceSyncInfo(syncBytes);
-				dirty = !getTimeStamp().equals(info.getTimeStamp());
+				dirty = !info.isTimeStamp(getTimeStamp());
 			}
 		}
 		return dirty;
@@ -30,11 +30,12 @@ import org.osgi.framework.Bundle;
  * A synchronizer is responsible for managing synchronization information for local
  * CVS resources.
  * 
- * This class is thread safe but only allows one thread to modify the cache at a time. It
- * doesn't support fine grain locking on a resource basis. Lock ordering between the workspace
- * lock and the synchronizer lock is guaranteed to be deterministic. That is, the workspace
- * lock is *always* acquired before the synchronizer lock. This protects against possible
- * deadlock cases where the synchronizer lock is acquired before a workspace lock.
+ * This class is thread safe but only allows one thread to modify the cache of a project at a time.
+ * The projects are spread over a fixed number of synchronizer locks so that operations on different
+ * projects usually do not block each other. It doesn't support fine grain locking on a resource basis.
+ * Lock ordering between the workspace lock and the synchronizer locks is guaranteed to be deterministic.
+ * That is, the workspace lock is *always* acquired before a synchronizer lock. This protects against possible
+ * deadlock cases where a synchronizer lock is acquired before a workspace lock.
  * 
  * Special processing has been added for linked folders and their childen so
  * that their CVS meta files are never read or written.
@@ -57,8 +58,11 @@ public class EclipseSynchronizer implements IFlushOperation {
 	// the cvs eclipse synchronizer is a singleton
 	private static EclipseSynchronizer instance;
 	
+	// The number of locks guarding the cached sync info. Each project is guarded by one of them.
+	private static final int LOCK_COUNT = 16;
+	
 	// track resources that have changed in a given operation
-	private ILock lock = Job.getJobManager().newLock();
+	private ILock[] locks = new ILock[LOCK_COUNT];
 	private ReentrantLock resourceLock = new ReentrantLock();
 	
 	private SynchronizerSyncInfoCache synchronizerCache = new SynchronizerSyncInfoCache();
@@ -67,7 +71,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 	/*
 	 * Package private constructor to allow specialized subclass for handling folder deletions
 	 */
-	EclipseSynchronizer() {		
+	EclipseSynchronizer() {
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = Job.getJobManager().newLock();
+		}		
 	}
 	
 	/**
@@ -118,7 +125,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(folder, null);
 			try {
-				beginOperation();
+				beginOperation(folder);
 				// get the old info
 				FolderSyncInfo oldInfo = getFolderSync(folder);
 				// set folder sync and notify
@@ -129,7 +136,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				}
 				folderChanged(folder);
 			} finally {
-				endOperation();
+				endOperation(folder);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -150,11 +157,11 @@ public class EclipseSynchronizer implements IFlushOperation {
         if (info != null)
             return info;
 		try {
-			beginOperation();
+			beginOperation(folder);
 			cacheFolderSync(folder);
 			return getSyncInfoCacheFor(folder).getCachedFolderSync(folder, true /* thread safe */);
 		} finally {
-			endOperation();
+			endOperation(folder);
 		}
 	}	
 
@@ -171,7 +178,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(folder, null);
 			try {
-				beginOperation();
+				beginOperation(folder);
 				// iterate over all children with sync info and prepare notifications
 				// this is done first since deleting the folder sync may remove a phantom
 				cacheResourceSyncForChildren(folder, true /* can modify workspace */);
@@ -188,13 +195,24 @@ public class EclipseSynchronizer implements IFlushOperation {
 			} catch (CoreException e) {
 				throw CVSException.wrapException(e);
 			} finally {
-				endOperation();
+				endOperation(folder);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
 		}
 	}
 
+	/*
+	 * Return whether the sync bytes on disk of all the given changed resources are known
+	 */
+	private boolean hasDiskSyncBytes(CVSThreadInfo threadInfo, List changed) {
+		for (Iterator iter = changed.iterator(); iter.hasNext();) {
+			if (!threadInfo.hasDiskSyncBytes((IResource) iter.next()))
+				return false;
+		}
+		return true;
+	}
+
 	private void folderChanged(IContainer folder) {
 		resourceLock.folderChanged(folder);
 	}
@@ -223,13 +241,13 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(resource, null);
 			try {
-				beginOperation();
+				beginOperation(resource);
 				// cache resource sync for siblings, set for self, then notify
 				cacheResourceSyncForChildren(parent, true /* can modify workspace */);
 				setCachedResourceSync(resource, info);
 				resourceChanged(resource);		
 			} finally {
-				endOperation();
+				endOperation(resource);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -264,7 +282,7 @@ public class EclipseSynchronizer implements IFlushOperation {
         if (info != null)
             return info;
 		try {
-			beginOperation();
+			beginOperation(resource);
 			// cache resource sync for siblings, then return for self
 			try {
 				cacheResourceSyncForChildren(parent, false /* cannot modify workspace */);
@@ -282,7 +300,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 			}
 			return getCachedSyncBytes(resource);
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 
@@ -306,13 +324,13 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(resource, null);
 			try {
-				beginOperation();
+				beginOperation(resource);
 				// cache resource sync for siblings, set for self, then notify
 				cacheResourceSyncForChildren(parent, true /* can modify workspace */);
 				setCachedSyncBytes(resource, syncBytes);
 				resourceChanged(resource);		
 			} finally {
-				endOperation();
+				endOperation(resource);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -332,7 +350,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(resource, null);
 			try {
-				beginOperation();
+				beginOperation(resource);
 				// cache resource sync for siblings, delete for self, then notify
 				cacheResourceSyncForChildren(parent, true /* can modify workspace */);
 				if (getCachedSyncBytes(resource) != null) { // avoid redundant notifications
@@ -341,7 +359,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 					resourceChanged(resource);
 				}
 			} finally {
-				endOperation();
+				endOperation(resource);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -373,10 +391,10 @@ public class EclipseSynchronizer implements IFlushOperation {
         FileNameMatcher matcher = sessionPropertyCache.getFolderIgnores(parent, false /* not thread safe */);
         if (matcher == null) {
     		try {
-    			beginOperation();
+    			beginOperation(resource);
                 matcher = cacheFolderIgnores(parent);
     		} finally {
-    			endOperation();
+    			endOperation(resource);
     		}
         }
 		return matcher.match(resource.getName());
@@ -398,7 +416,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(folder.getFile(new Path(SyncFileWriter.IGNORE_FILE)), null);
 			try {
-				beginOperation();
+				beginOperation(folder);
 				String[] ignores = SyncFileWriter.readCVSIgnoreEntries(folder);
 				if (ignores != null) {
 					// verify that the pattern has not already been added
@@ -420,7 +438,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				accumulateNonManagedChildren(folder, possibleIgnores);
 				ResourceStateChangeListeners.getListener().resourceSyncInfoChanged((IResource[])possibleIgnores.toArray(new IResource[possibleIgnores.size()]));
 			} finally {
-				endOperation();
+				endOperation(folder);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -437,7 +455,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	public IResource[] members(IContainer folder) throws CVSException {
 		if (! isValid(folder)) return new IResource[0];
 		try {				
-			beginOperation();
+			beginOperation(folder);
 			if (folder.getType() != IResource.ROOT) {
 				// ensure that the sync info is cached so any required phantoms are created
 				cacheResourceSyncForChildren(folder, false);
@@ -447,7 +465,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				throw e;
 			}
 		} finally {
-			endOperation();
+			endOperation(folder);
 		}
 		try {
 			
@@ -528,8 +546,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 	
 	/*
 	 * Begin an access to the internal data structures of the synchronizer
+	 * for the project of the given resource. A null resource or the workspace
+	 * root begins an access to the data structures of all projects.
 	 */
-	private void beginOperation() {
+	private void beginOperation(IResource resource) {
 		try {
             // Do not try to acquire the lock if the resources tree is locked
             // The reason for this is that during the resource delta phase (i.e. when the tree is locked)
@@ -546,15 +566,24 @@ public class EclipseSynchronizer implements IFlushOperation {
 		        throw new OperationCanceledException();
 		    }
         }
-		lock.acquire();
+		int index = getLockIndex(resource);
+		if (index == -1) {
+			// Always acquire the locks in the same order
+			for (int i = 0; i < locks.length; i++) {
+				locks[i].acquire();
+			}
+		} else {
+			locks[index].acquire();
+		}
 	}
 	
 	/*
 	 * End an access to the internal data structures of the synchronizer
+	 * for the project of the given resource
 	 */
-	private void endOperation() {
+	private void endOperation(IResource resource) {
 		try {
-            // See beginOperation() for a description of why the lock is not obtained when the tree is locked
+            // See beginOperation(IResource) for a description of why the lock is not obtained when the tree is locked
             if (ResourcesPlugin.getWorkspace().isTreeLocked()) return;
         } catch (RuntimeException e) {
 		    // If we are not active, throw a cancel. Otherwise, propogate it.
@@ -565,7 +594,24 @@ public class EclipseSynchronizer implements IFlushOperation {
 		        throw new OperationCanceledException();
 		    }
         }
-		lock.release();
+		int index = getLockIndex(resource);
+		if (index == -1) {
+			for (int i = locks.length - 1; i >= 0; i--) {
+				locks[i].release();
+			}
+		} else {
+			locks[index].release();
+		}
+	}
+	
+	/*
+	 * Return the index of the lock that guards the project of the given
+	 * resource or -1 if all locks are required.
+	 */
+	private int getLockIndex(IResource resource) {
+		if (resource == null || resource.getType() == IResource.ROOT)
+			return -1;
+		return (resource.getProject().getName().hashCode() & Integer.MAX_VALUE) % LOCK_COUNT;
 	}
 	
 	/**
@@ -589,7 +635,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(root, Policy.subMonitorFor(monitor, 1));
 			try {
-				beginOperation();
+				beginOperation(root);
 				try {
 					// Flush changes to disk
 					resourceLock.flush(Policy.subMonitorFor(monitor, 8));
@@ -600,7 +646,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 					sessionPropertyCache.purgeCache(root, deep);
 				}
 			} finally {
-				endOperation();
+				endOperation(root);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, Policy.subMonitorFor(monitor, 1));
@@ -643,7 +689,7 @@ public class EclipseSynchronizer implements IFlushOperation {
     				Set changed = new HashSet();
     				rule = beginBatching(container, null);
     				try {
-    					beginOperation();
+    					beginOperation(container);
                         
                         // Record the previous ignore pattterns
                         FileNameMatcher oldIgnores = null;
@@ -676,7 +722,7 @@ public class EclipseSynchronizer implements IFlushOperation {
                             }
                         }
     				} finally {
-    					endOperation();
+    					endOperation(container);
     				}
     				if (!changed.isEmpty()) {
     					ResourceStateChangeListeners.getListener().resourceSyncInfoChanged(
@@ -730,7 +776,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(resource, null);
 			try {
-				beginOperation();
+				beginOperation(resource);
 				// Flush the dirty info for the resource and it's ancestors.
 				// Although we could be smarter, we need to do this because the
 				// deletion may fail.
@@ -768,7 +814,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 					}
 				}
 			} finally {
-				endOperation();
+				endOperation(resource);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -786,10 +832,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 	protected void handleDeleted(IResource resource) throws CVSException {
 		if (resource.exists()) return;
 		try {
-			beginOperation();
+			beginOperation(resource);
 			adjustDirtyStateRecursively(resource, RECOMPUTE_INDICATOR);
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 	
@@ -804,10 +850,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 	protected void handleAdded(IResource resource) throws CVSException {
 		if (!resource.exists()) return;
 		try {
-			beginOperation();
+			beginOperation(resource);
 			adjustDirtyStateRecursively(resource, RECOMPUTE_INDICATOR);
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 	
@@ -827,7 +873,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		// Move sync info to phantom space for the resource and all it's children
 		monitor = Policy.monitorFor(monitor);
 		try {
-			beginOperation();
+			beginOperation(resource);
 			monitor.beginTask(null, 100);
 			try {
 				resource.accept(new IResourceVisitor() {
@@ -844,7 +890,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				throw CVSException.wrapException(e);
 			}
 		} finally {
-			endOperation();
+			endOperation(resource);
 			monitor.done();
 		}
 	}
@@ -864,29 +910,40 @@ public class EclipseSynchronizer implements IFlushOperation {
 			if (isLinkedResource(container)) {
 				infos = null;
 			} else {
-				infos = SyncFileWriter.readAllResourceSync(container);
+				infos = readAllResourceSync(container);
 			}
-			try {
-				if (infos != null) {
-					for (int i = 0; i < infos.length; i++) {
-						byte[] syncBytes = infos[i];
-						IPath name = new Path(null, getName(syncBytes));
-						IResource resource;
-						if (isFolder(syncBytes)) {
-							resource = container.getFolder(name);
-						} else {
-							resource = container.getFile(name);
-						}
-						getSyncInfoCacheFor(resource).setCachedSyncBytes(resource, syncBytes, canModifyWorkspace);
+			cacheResourceSyncForChildren(container, infos, canModifyWorkspace);
+		}
+	}
+	
+	/**
+	 * Caches the given resource sync for the children of the container, which
+	 * were read from the container's meta files.
+	 *
+	 * @param container the container
+	 * @param infos the sync bytes of the children or <code>null</code>
+	 */
+	private void cacheResourceSyncForChildren(IContainer container, byte[][] infos, boolean canModifyWorkspace) throws CVSException {
+		try {
+			if (infos != null) {
+				for (int i = 0; i < infos.length; i++) {
+					byte[] syncBytes = infos[i];
+					IPath name = new Path(null, getName(syncBytes));
+					IResource resource;
+					if (isFolder(syncBytes)) {
+						resource = container.getFolder(name);
+					} else {
+						resource = container.getFile(name);
 					}
+					getSyncInfoCacheFor(resource).setCachedSyncBytes(resource, syncBytes, canModifyWorkspace);
 				}
-				getSyncInfoCacheFor(container).setResourceSyncInfoCached(container);
-			} catch (CVSException e) {
-				if (Policy.DEBUG_METAFILE_CHANGES) {
-					System.err.println("Failed to cache Entries for folder " + container.getFullPath()); //$NON-NLS-1$
-				}
-				throw e;
 			}
+			getSyncInfoCacheFor(container).setResourceSyncInfoCached(container);
+		} catch (CVSException e) {
+			if (Policy.DEBUG_METAFILE_CHANGES) {
+				System.err.println("Failed to cache Entries for folder " + container.getFullPath()); //$NON-NLS-1$
+			}
+			throw e;
 		}
 	}
 	
@@ -905,12 +962,36 @@ public class EclipseSynchronizer implements IFlushOperation {
 			if (isLinkedResource(container)) {
 				info = null;
 			} else {
-				info = SyncFileWriter.readFolderSync(container);
+				info = readFolderSync(container);
 			}
 			getSyncInfoCacheFor(container).setCachedFolderSync(container, info, false);
 		}
 	}
 	
+	/*
+	 * Read the resource sync of the children of the container from the sync info
+	 * snapshot if it is still valid for the container or from the meta files otherwise.
+	 */
+	private byte[][] readAllResourceSync(IContainer container) throws CVSException {
+		SyncInfoSnapshot.Entry entry = sessionPropertyCache.getSnapshot().getEntry(container);
+		if (entry != null)
+			return entry.getResourceSync();
+		return SyncFileWriter.readAllResourceSync(container);
+	}
+	
+	/*
+	 * Read the folder sync of the container from the sync info snapshot if it is
+	 * still valid for the container or from the meta files otherwise.
+	 */
+	private FolderSyncInfo readFolderSync(IContainer container) throws CVSException {
+		SyncInfoSnapshot.Entry entry = sessionPropertyCache.getSnapshot().getEntry(container);
+		if (entry != null) {
+			SyncFileWriter.hideCVSSubdirectory(container);
+			return entry.getFolderSync();
+		}
+		return SyncFileWriter.readFolderSync(container);
+	}
+	
 	private boolean isLinkedResource(IResource resource) {
 		return CVSWorkspaceRoot.isLinkedResource(resource);
 	}
@@ -958,10 +1039,18 @@ public class EclipseSynchronizer implements IFlushOperation {
 			    changedFolders = new IContainer[0];
 			}
 			Set dirtyParents = new HashSet();
+			// {IContainer -> List of IResource} the changed children of each dirty parent
+			Map changedChildren = new HashMap();
 			for (int i = 0; i < changedResources.length; i++) {
 				IResource resource = changedResources[i];
 				IContainer folder = resource.getParent();
 				dirtyParents.add(folder);
+				List children = (List) changedChildren.get(folder);
+				if (children == null) {
+					children = new ArrayList();
+					changedChildren.put(folder, children);
+				}
+				children.add(resource);
 			}
 			
 			monitor = Policy.monitorFor(monitor);
@@ -980,7 +1069,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				IContainer folder = changedFolders[i];
 				if (folder.exists() && folder.getType() != IResource.ROOT) {
 					try {
-                        beginOperation();
+                        beginOperation(folder);
 						FolderSyncInfo info = sessionPropertyCache.getCachedFolderSync(folder, true);
 						// Do not write the folder sync for linked resources
 						if (info == null) {
@@ -1001,7 +1090,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 						}
 						errors.add(e.getStatus());
 					} finally {
-                        endOperation();
+                        endOperation(folder);
                     }
 				}
 				monitor.worked(1);
@@ -1016,20 +1105,36 @@ public class EclipseSynchronizer implements IFlushOperation {
 				if (folder.exists() && folder.getType() != IResource.ROOT) {
 					// write sync info for all children in one go
 					try {
-                        beginOperation();
+                        beginOperation(folder);
 						List infos = new ArrayList();
+						Map infosByChild = new HashMap();
 						IResource[] children = folder.members(true);
 						for (int i = 0; i < children.length; i++) {
 							IResource resource = children[i];
 							byte[] syncBytes = getSyncBytes(resource);
 							if (syncBytes != null) {
 								infos.add(syncBytes);
+								infosByChild.put(resource, syncBytes);
 							}
 						}
 						// do not overwrite the sync info for linked resources
-						if (infos.size() > 0 || !isLinkedResource(folder))
+						if (infos.size() > 0 || !isLinkedResource(folder)) {
+							// pass the changes so that the meta files need not be read to find them
+							byte[][] diskInfos = null;
+							byte[][] changedInfos = null;
+							List changed = (List) changedChildren.get(folder);
+							if (threadInfo instanceof CVSThreadInfo && hasDiskSyncBytes((CVSThreadInfo)threadInfo, changed)) {
+								diskInfos = new byte[changed.size()][];
+								changedInfos = new byte[changed.size()][];
+								for (int i = 0; i < diskInfos.length; i++) {
+									IResource resource = (IResource) changed.get(i);
+									diskInfos[i] = ((CVSThreadInfo)threadInfo).getDiskSyncBytes(resource);
+									changedInfos[i] = (byte[]) infosByChild.get(resource);
+								}
+							}
 							SyncFileWriter.writeAllResourceSync(folder,
-								(byte[][]) infos.toArray(new byte[infos.size()][]));
+								(byte[][]) infos.toArray(new byte[infos.size()][]), diskInfos, changedInfos);
+						}
 					} catch(CVSException e) {
 						try {
 							sessionPropertyCache.purgeCache(folder, false /* depth 1 */);
@@ -1045,7 +1150,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 						}							
 						errors.add(e.getStatus());
 					} finally {
-                        endOperation();
+                        endOperation(folder);
                     }
 				}
 				monitor.worked(1);
@@ -1108,6 +1213,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 * @see #cacheResourceSyncForChildren
 	 */
 	private void setCachedSyncBytes(IResource resource, byte[] syncBytes) throws CVSException {
+		resourceLock.syncBytesChanging(resource, getCachedSyncBytes(resource));
 		getSyncInfoCacheFor(resource).setCachedSyncBytes(resource, syncBytes, true);
 		resourceChanged(resource);
 	}
@@ -1125,6 +1231,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		//todo
 		byte[] syncBytes = null;
 		if (info != null) syncBytes = info.getBytes();
+		resourceLock.syncBytesChanging(resource, getCachedSyncBytes(resource));
 		getSyncInfoCacheFor(resource).setCachedSyncBytes(resource, syncBytes, true);
 	}
 	
@@ -1338,9 +1445,11 @@ public class EclipseSynchronizer implements IFlushOperation {
 		ISchedulingRule rule = null;
 		try {
 			rule = beginBatching(file, Policy.subMonitorFor(monitor, 10));
-			ResourceSyncInfo info = getResourceSync(file);
+			byte[] syncBytes = getSyncBytes(file);
 			// The file must exist remotely and locally
-			if (info == null || info.isAdded() || info.isDeleted())
+			if (syncBytes == null) return;
+			ResourceSyncBytes info = new ResourceSyncBytes(syncBytes);
+			if (info.isAddition() || info.isDeletion())
 				return;
 			SyncFileWriter.writeFileToBaseDirectory(file, Policy.subMonitorFor(monitor, 80));
 			resourceChanged(file);
@@ -1356,9 +1465,9 @@ public class EclipseSynchronizer implements IFlushOperation {
 		ISchedulingRule rule = null;
 		try {
 			rule = beginBatching(file, Policy.subMonitorFor(monitor, 10));
-			ResourceSyncInfo info = getResourceSync(file);
+			byte[] syncBytes = getSyncBytes(file);
 			// The file must exist remotely
-			if (info == null || info.isAdded())
+			if (syncBytes == null || new ResourceSyncBytes(syncBytes).isAddition())
 				return;
 			SyncFileWriter.restoreFileFromBaseDirectory(file, Policy.subMonitorFor(monitor, 80));
 			resourceChanged(file);
@@ -1369,9 +1478,9 @@ public class EclipseSynchronizer implements IFlushOperation {
 	}
 	
 	public void deleteFileFromBaseDirectory(final IFile file, IProgressMonitor monitor) throws CVSException {
-		ResourceSyncInfo info = getResourceSync(file);
+		byte[] syncBytes = getSyncBytes(file);
 		// The file must exist remotely
-		if (info == null || info.isAdded())
+		if (syncBytes == null || new ResourceSyncBytes(syncBytes).isAddition())
 			return;
 		SyncFileWriter.deleteFileFromBaseDirectory(file, monitor);
 	}
@@ -1408,19 +1517,36 @@ public class EclipseSynchronizer implements IFlushOperation {
 	public void ensureSyncInfoLoaded(IResource[] resources, int depth) throws CVSException {
 		// get the folders involved
 		IContainer[] folders = getParentFolders(resources, depth);
+		// Read the meta files of the folders that are not loaded yet concurrently
+		// and outside of the lock so only the caching is done while holding it
+		Map prefetched = SyncInfoPrefetcher.prefetch(getUnloadedFolders(folders), sessionPropertyCache.getSnapshot());
 		// Cache the sync info for all the folders
 		for (int i = 0; i < folders.length; i++) {
 			IContainer parent = folders[i];
+			SyncInfoPrefetcher.Metadata metadata = (SyncInfoPrefetcher.Metadata)prefetched.get(parent);
 			ISchedulingRule rule = null;
 			try {
 				rule = beginBatching(parent, null);
 				try {
-					beginOperation();
-					cacheResourceSyncForChildren(parent, true /* can modify workspace */);
-					cacheFolderSync(parent);
+					beginOperation(parent);
+					if (metadata != null && metadata.isValid()) {
+						SyncInfoCache cache = getSyncInfoCacheFor(parent);
+						if (!cache.isResourceSyncInfoCached(parent)) {
+							cacheResourceSyncForChildren(parent, metadata.getResourceSync(), true /* can modify workspace */);
+						}
+						if (!cache.isFolderSyncInfoCached(parent)) {
+							if (metadata.getFolderSync() != null) {
+								SyncFileWriter.hideCVSSubdirectory(parent);
+							}
+							cache.setCachedFolderSync(parent, metadata.getFolderSync(), false);
+						}
+					} else {
+						cacheResourceSyncForChildren(parent, true /* can modify workspace */);
+						cacheFolderSync(parent);
+					}
 					cacheFolderIgnores(parent);
 				} finally {
-					endOperation();
+					endOperation(parent);
 				}
 			} finally {
 				if (rule != null) endBatching(rule, null);
@@ -1428,6 +1554,22 @@ public class EclipseSynchronizer implements IFlushOperation {
 		}
 	}
 
+	/*
+	 * Return the folders whose sync info is not loaded and whose meta files
+	 * can be read (i.e. that are not linked).
+	 */
+	private IContainer[] getUnloadedFolders(IContainer[] folders) throws CVSException {
+		List unloaded = new ArrayList();
+		for (int i = 0; i < folders.length; i++) {
+			IContainer folder = folders[i];
+			if (folder.getType() != IResource.ROOT && !isLinkedResource(folder) 
+					&& !getSyncInfoCacheFor(folder).isSyncInfoLoaded(folder)) {
+				unloaded.add(folder);
+			}
+		}
+		return (IContainer[]) unloaded.toArray(new IContainer[unloaded.size()]);
+	}
+
 	/*
 	 * Collect the projects and parent folders of the resources since 
 	 * thats were the sync info is kept.
@@ -1491,7 +1633,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	/* package */ void adjustDirtyStateRecursively(IResource resource, String indicator) throws CVSException {
 		if (resource.getType() == IResource.ROOT) return;
 		try {
-			beginOperation();
+			beginOperation(resource);
 			
 			if (getSyncInfoCacheFor(resource).cachesDirtyState()) {
 				if (indicator == getDirtyIndicator(resource)) {
@@ -1517,7 +1659,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				adjustDirtyStateRecursively(parent, indicator);
 			} 
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 
@@ -1527,10 +1669,10 @@ public class EclipseSynchronizer implements IFlushOperation {
         if (indicator != null)
             return indicator;
 		try {
-			beginOperation();
+			beginOperation(resource);
 			return getSyncInfoCacheFor(resource).getDirtyIndicator(resource, true);
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 	
@@ -1627,7 +1769,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 		try {
 			rule = beginBatching(file, null);
 			try {
-				beginOperation();
+				beginOperation(cvsFile.getIResource());
 				try {
 					file.setLocalTimeStamp(time);
 					setModified(cvsFile, ICVSFile.CLEAN);
@@ -1636,7 +1778,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				}
 				resourceChanged(file);		
 			} finally {
-				endOperation();
+				endOperation(cvsFile.getIResource());
 			}
 		} finally {
 			if (rule != null) endBatching(rule, null);
@@ -1649,7 +1791,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 */
 	public void postMove(IResource resource) throws CVSException {
 		try {
-			beginOperation();
+			beginOperation(resource);
 			if (resource.getType() == IResource.FILE) {
 				// Purge any copied sync info so true sync info will 
 				// be obtained from the synchronizer cache
@@ -1681,7 +1823,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				flush(container, true /* deep */, null);
 			}
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 	
@@ -1700,10 +1842,10 @@ public class EclipseSynchronizer implements IFlushOperation {
 			monitor.beginTask(null, 100);
 			rule = beginBatching(null, null);
 			try {
-				beginOperation();
+				beginOperation(null);
 				runnable.run(Policy.subMonitorFor(monitor, 95));
 			} finally {
-				endOperation();
+				endOperation(null);
 			}
 		} finally {
 			if (rule != null) endBatching(rule, Policy.subMonitorFor(monitor, 5));
@@ -1722,7 +1864,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 */
 	public boolean setModified(EclipseFile cvsFile, int modificationState) throws CVSException {
 		try {
-			beginOperation();
+			beginOperation(cvsFile.getIResource());
 			boolean dirty;
 			if (modificationState == ICVSFile.UNKNOWN) {
 				dirty = cvsFile.isDirty();
@@ -1732,7 +1874,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 			setDirtyIndicator(cvsFile.getIResource(), dirty);
 			return dirty;
 		} finally {
-			endOperation();
+			endOperation(cvsFile.getIResource());
 		}
 
 	}
@@ -1746,7 +1888,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 */
 	public void setModified(ICVSFolder cvsFolder, boolean modified) throws CVSException {
 		try {
-			beginOperation();
+			beginOperation(cvsFolder.getIResource());
 			IContainer folder = (IContainer)cvsFolder.getIResource();
 			// The drop out condition for clean or dirty are the opposite.
 			// (i.e. if modified and a dirty is found we can set the indicator
@@ -1772,7 +1914,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				setDirtyIndicator(folder, modified);
 			}
 		} finally {
-			endOperation();
+			endOperation(cvsFolder.getIResource());
 		}
 	}
 	
@@ -1833,7 +1975,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 
 	protected void created(IResource resource) throws CVSException {
 		try {
-			beginOperation();
+			beginOperation(resource);
 			if (resource.exists()) {
 				restoreResourceSync(resource);
 				if (resource.getType() == IResource.FOLDER) {
@@ -1841,7 +1983,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 				}
 			}
 		} finally {
-			endOperation();
+			endOperation(resource);
 		}
 	}
 	
@@ -1851,7 +1993,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	private void restoreFolderSync(IFolder folder) throws CVSException {
 		try {
 			// set the dirty count using what was cached in the phantom it
-			beginOperation();
+			beginOperation(folder);
 			FolderSyncInfo folderInfo = synchronizerCache.getCachedFolderSync(folder, true);
 			if (folderInfo != null) {
 				// There is folder sync info to restore
@@ -1902,7 +2044,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 			}
 		} finally {
 			try {
-				endOperation();
+				endOperation(folder);
 			} finally {
 				synchronizerCache.flush(folder);
 			}
@@ -1914,7 +2056,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 	 */
 	private void restoreResourceSync(IResource resource) throws CVSException {
 		try {
-			beginOperation();
+			beginOperation(resource);
 			byte[] syncBytes = synchronizerCache.getCachedSyncBytes(resource, true);
 			if (syncBytes != null) {
 				if (!ResourceSyncInfo.isFolder(syncBytes)) {
@@ -1931,7 +2073,7 @@ public class EclipseSynchronizer implements IFlushOperation {
 			}
 		} finally {
 			try {
-				endOperation();
+				endOperation(resource);
 			} finally {
 				synchronizerCache.setCachedSyncBytes(resource, null, true);
 			}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.resources;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.core.BackgroundEventHandler;
+
+/**
+ * Fetches the remote contents of the files with incoming changes in the
+ * background after a refresh of the workspace subscriber so that comparing
+ * them does not require a round trip to the server for each file. The
+ * contents are fetched with one <code>update</code> per batch of files of the
+ * same project and are cached in the resource variant cache.
+ * <p>
+ * The number of bytes fetched after a refresh is limited. Each request only
+ * includes the files of its batch. Files that are requested with priority
+ * (e.g. files selected by the user) are fetched first and are not subject to
+ * the limit.
+ */
+public class FileContentPrefetcher extends BackgroundEventHandler {
+
+	// The maximum number of files fetched in one request
+	private static final int BATCH_SIZE = 25;
+
+	// The number of bytes that are fetched after each refresh before the remaining files are dropped
+	private static final long BYTE_BUDGET = 10 * 1024 * 1024;
+
+	private static final int PREFETCH = 1;
+	private static final int PRIORITY_PREFETCH = 2;
+
+	private final CVSWorkspaceSubscriber subscriber;
+
+	// The files to fetch in the order they should be fetched
+	private LinkedHashSet priorityFiles = new LinkedHashSet();
+	private LinkedHashSet files = new LinkedHashSet();
+
+	// The number of bytes fetched since the last refresh
+	private long fetchedBytes;
+
+	public FileContentPrefetcher(CVSWorkspaceSubscriber subscriber) {
+		super(CVSMessages.FileContentPrefetcher_0, CVSMessages.FileContentPrefetcher_1);
+		this.subscriber = subscriber;
+	}
+
+	/**
+	 * Queue the given files, which were changed by a refresh, for prefetching.
+	 * This resets the number of bytes that can be fetched.
+	 * @param changedResources the resources whose remote state changed
+	 */
+	public void refreshed(IResource[] changedResources) {
+		synchronized (this) {
+			fetchedBytes = 0;
+		}
+		for (int i = 0; i < changedResources.length; i++) {
+			IResource resource = changedResources[i];
+			if (resource.getType() == IResource.FILE)
+				queueEvent(new ResourceEvent(resource, PREFETCH, IResource.DEPTH_ZERO), false);
+		}
+	}
+
+	/**
+	 * Fetch the contents of the given files before those of the other queued
+	 * files. The number of bytes fetched for these files is not limited but
+	 * only the first files of a large selection are fetched.
+	 * @param selectedFiles the files
+	 */
+	public void prefetch(IFile[] selectedFiles) {
+		int count = Math.min(selectedFiles.length, BATCH_SIZE);
+		// Queue in reverse order since each event is queued in front of the others
+		for (int i = count - 1; i >= 0; i--) {
+			queueEvent(new ResourceEvent(selectedFiles[i], PRIORITY_PREFETCH, IResource.DEPTH_ZERO), true);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.core.BackgroundEventHandler#processEvent(org.eclipse.team.internal.core.BackgroundEventHandler.Event, org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	protected void processEvent(Event event, IProgressMonitor monitor) throws CoreException {
+		IResource resource = event.getResource();
+		if (event.getType() == PRIORITY_PREFETCH) {
+			files.remove(resource);
+			priorityFiles.add(resource);
+		} else if (!priorityFiles.contains(resource)) {
+			files.add(resource);
+		}
+		// Fetch a batch as soon as it is complete
+		if (priorityFiles.size() >= BATCH_SIZE || files.size() >= BATCH_SIZE) {
+			fetchNextBatch(monitor);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.core.BackgroundEventHandler#doDispatchEvents(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	protected boolean doDispatchEvents(IProgressMonitor monitor) throws TeamException {
+		boolean workDone = false;
+		while (!priorityFiles.isEmpty() || !files.isEmpty()) {
+			Policy.checkCanceled(monitor);
+			fetchNextBatch(monitor);
+			workDone = true;
+		}
+		return workDone;
+	}
+
+	/*
+	 * Fetch the contents of the next files of the same project, priority files first
+	 */
+	private void fetchNextBatch(IProgressMonitor monitor) {
+		boolean priority = !priorityFiles.isEmpty();
+		LinkedHashSet queue = priority ? priorityFiles : files;
+		if (!priority && isBudgetExceeded()) {
+			queue.clear();
+			return;
+		}
+		List batch = new ArrayList();
+		IProject project = null;
+		for (Iterator iter = queue.iterator(); iter.hasNext() && batch.size() < BATCH_SIZE;) {
+			IResource resource = (IResource) iter.next();
+			if (project == null)
+				project = resource.getProject();
+			if (resource.getProject().equals(project)) {
+				batch.add(resource);
+				iter.remove();
+			}
+		}
+		try {
+			fetchContents((IResource[]) batch.toArray(new IResource[batch.size()]), monitor);
+		} catch (TeamException e) {
+			// Prefetching is only an optimization so log the problem and continue
+			CVSProviderPlugin.log(e);
+		}
+	}
+
+	private synchronized boolean isBudgetExceeded() {
+		return fetchedBytes >= BYTE_BUDGET;
+	}
+
+	private synchronized void addFetchedBytes(long bytes) {
+		fetchedBytes += bytes;
+	}
+
+	/*
+	 * Fetch the contents of the given files of a project that are not cached yet
+	 * using a single request on a remote tree of their closest common ancestor
+	 * that only contains the files of the batch
+	 */
+	private void fetchContents(IResource[] batch, IProgressMonitor monitor) throws TeamException {
+		if (batch.length == 0 || !batch[0].getProject().isAccessible())
+			return;
+		IContainer root = getCommonAncestor(batch);
+		ICVSRemoteResource tree = subscriber.buildRemoteTree(root, batch, Policy.subMonitorFor(monitor, 10));
+		if (!(tree instanceof RemoteFolderTree))
+			return;
+		List uncached = new ArrayList();
+		for (int i = 0; i < batch.length; i++) {
+			RemoteFile file = getRemoteFile((RemoteFolderTree)tree, root, batch[i]);
+			if (file != null && !file.isContentsCached())
+				uncached.add(file);
+		}
+		if (uncached.isEmpty())
+			return;
+		String[] paths = new String[uncached.size()];
+		for (int i = 0; i < paths.length; i++) {
+			paths[i] = ((RemoteFile)uncached.get(i)).getRelativePath((RemoteFolderTree)tree);
+		}
+		FileContentCachingService.fetchFileContents((RemoteFolderTree)tree, paths, Policy.subMonitorFor(monitor, 90));
+		long bytes = 0;
+		for (Iterator iter = uncached.iterator(); iter.hasNext();) {
+			RemoteFile file = (RemoteFile) iter.next();
+			if (file.isContentsCached())
+				bytes += file.getSize();
+		}
+		addFetchedBytes(bytes);
+	}
+
+	/*
+	 * Return the remote file of the given tree that corresponds to the local resource or null
+	 */
+	private RemoteFile getRemoteFile(RemoteFolderTree tree, IContainer root, IResource resource) {
+		try {
+			String path = resource.getFullPath().removeFirstSegments(root.getFullPath().segmentCount()).toString();
+			ICVSFile file = tree.getFile(path);
+			if (file instanceof RemoteFile)
+				return (RemoteFile)file;
+		} catch (CVSException e) {
+			// The file does not exist remotely
+		}
+		return null;
+	}
+
+	private IContainer getCommonAncestor(IResource[] resources) {
+		IContainer ancestor = resources[0].getParent();
+		for (int i = 1; i < resources.length; i++) {
+			IPath path = resources[i].getFullPath();
+			while (!ancestor.getFullPath().isPrefixOf(path)) {
+				ancestor = ancestor.getParent();
+			}
+		}
+		return ancestor;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.core.BackgroundEventHandler#getJobFamiliy()
+	 */
+	protected Object getJobFamiliy() {
+		return this;
+	}
+}
@@ -10,15 +10,18 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.resources;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 import org.eclipse.core.resources.*;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.team.core.RepositoryProvider;
+import org.eclipse.team.core.TeamException;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
+import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
+import org.eclipse.team.internal.core.BackgroundEventHandler;
 
 /**
  * This class performs several functions related to determining the modified
@@ -27,12 +30,22 @@ import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
  * participant so that deltas generated before the plugin are loaded are not
  * missed. Secondly, it listens for CVS resource state change events and uses
  * these to properly mark files and folders as modified.
+ * <p>
+ * Computing the modification state of a file requires its sync info and is
+ * too expensive to do for every file in the delta of a large build or
+ * refactoring. The delta listener therefore only queues the changed resources
+ * and leaves the rest to a background handler. The handler processes the
+ * changes in batches per folder. For each folder, it flags the folder and its
+ * ancestors for recomputation once, computes the new state of the changed
+ * files and notifies the state change listeners once per batch.
  */
 public class FileModificationManager implements IResourceChangeListener {
 	
 	private static final QualifiedName UPDATE_TIMESTAMP = new QualifiedName(CVSProviderPlugin.ID, "update-timestamp"); //$NON-NLS-1$
 	
 	/* private */Set modifiedResources = new HashSet();
+	
+	private ModificationStateHandler handler = new ModificationStateHandler();
 
 	// consider the following changes types and ignore the others (e.g. marker and description changes are ignored)
 	protected int INTERESTING_CHANGES = 	IResourceDelta.CONTENT | 
@@ -69,7 +82,7 @@ public class FileModificationManager implements IResourceChangeListener {
 					if (resource.getType()==IResource.FILE && delta.getKind() == IResourceDelta.CHANGED && resource.exists()) {
 						int flags = delta.getFlags();
 						if((flags & INTERESTING_CHANGES) != 0) {
-							resourceChanged(resource, false);
+							handler.changed(resource, false);
 						}
 					} else if (delta.getKind() == IResourceDelta.ADDED) {
 						try {
@@ -77,30 +90,42 @@ public class FileModificationManager implements IResourceChangeListener {
 						} catch (CVSException e) {
 							CVSProviderPlugin.log(e);
 						}
-						resourceChanged(resource, true);
+						handler.changed(resource, true);
 					} else if (delta.getKind() == IResourceDelta.REMOVED) {
 						try {
 							EclipseSynchronizer.getInstance().handleDeleted(resource);
 						} catch (CVSException e) {
 							CVSProviderPlugin.log(e);
 						}
-						modifiedResources.add(resource);
+						handler.removed(resource);
 					}
 
 					return true;
 				}
 			});
-			if (!modifiedResources.isEmpty()) {
-				ResourceStateChangeListeners.getListener().resourceModified(
-					(IResource[])modifiedResources.toArray(new IResource[modifiedResources.size()]));
-				modifiedResources.clear();
-			}
 		} catch (CoreException e) {
 			CVSProviderPlugin.log(e);
 		}
 
 	}
 
+	/**
+	 * Stop handling the queued modifications. This is called when the plug-in is stopped.
+	 */
+	public void shutdown() {
+		handler.shutdown();
+	}
+
+	/**
+	 * Return the job that computes the modification state of changed resources
+	 * in the background. This is exposed so that clients (e.g. tests) can wait
+	 * for the modifications to be handled.
+	 * @return the modification state handling job
+	 */
+	public Job getEventHandlerJob() {
+		return handler.getEventHandlerJob();
+	}
+
 	/**
 	 * Method updated flags the objetc as having been modfied by the updated
 	 * handler. This flag is read during the resource delta to determine whether
@@ -124,7 +149,6 @@ public class FileModificationManager implements IResourceChangeListener {
 	 * CVS resource and recording the change for broadcast to interested listeners.
 	 */
 	/* private */void resourceChanged(IResource resource, boolean addition) {
-		if (isCleanUpdate(resource)) return;
 		try {
 			EclipseResource cvsResource = (EclipseResource)CVSWorkspaceRoot.getCVSResourceFor(resource);
 			if (!cvsResource.isIgnored()) {
@@ -143,6 +167,19 @@ public class FileModificationManager implements IResourceChangeListener {
 		}
 	}
 
+	/*
+	 * Return whether the change of the given resource can affect its
+	 * modification state. Derived and linked resources are always ignored so,
+	 * apart from the special case of the .cvsignore file, their changes do not
+	 * affect the modification state of their parent.
+	 */
+	private boolean isRelevantChange(IResource resource) {
+		if (isCleanUpdate(resource)) return false;
+		if ((resource.isDerived() || resource.isLinked()) && !resource.getName().equals(SyncFileWriter.IGNORE_FILE))
+			return false;
+		return true;
+	}
+
 	/**
 	 * If the file was the result of a clean update, the cached timestamp will
 	 * be removed.
@@ -163,5 +200,112 @@ public class FileModificationManager implements IResourceChangeListener {
 		}
 		return (whenWeWrote!=null && whenWeWrote.longValue() == modStamp);
 	}
-}
 
+	/*
+	 * Computes the modification state of the changed resources in the background.
+	 * The changes are grouped by parent folder and each folder is handled while
+	 * holding its scheduling rule so that the computed state cannot be
+	 * invalidated by a concurrent modification of the folder.
+	 */
+	private class ModificationStateHandler extends BackgroundEventHandler {
+		
+		private static final int CHANGED = 1;
+		private static final int ADDED = 2;
+		private static final int REMOVED = 3;
+		
+		// Map of parent container to Map of changed resource to Boolean (whether the resource was added)
+		private Map changesByFolder = new HashMap();
+		private Set removedResources = new HashSet();
+		
+		protected ModificationStateHandler() {
+			super(CVSMessages.FileModificationManager_0, CVSMessages.FileModificationManager_1);
+		}
+		
+		public void changed(IResource resource, boolean addition) {
+			queueEvent(new ResourceEvent(resource, addition ? ADDED : CHANGED, IResource.DEPTH_ZERO), false);
+		}
+		
+		public void removed(IResource resource) {
+			queueEvent(new ResourceEvent(resource, REMOVED, IResource.DEPTH_ZERO), false);
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.eclipse.team.internal.core.BackgroundEventHandler#processEvent(org.eclipse.team.internal.core.BackgroundEventHandler.Event, org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		protected void processEvent(Event event, IProgressMonitor monitor) throws CoreException {
+			IResource resource = event.getResource();
+			if (event.getType() == REMOVED) {
+				removedResources.add(resource);
+				return;
+			}
+			IContainer parent = resource.getParent();
+			Map changes = (Map)changesByFolder.get(parent);
+			if (changes == null) {
+				changes = new HashMap();
+				changesByFolder.put(parent, changes);
+			}
+			if (event.getType() == ADDED || !changes.containsKey(resource)) {
+				changes.put(resource, Boolean.valueOf(event.getType() == ADDED));
+			}
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.eclipse.team.internal.core.BackgroundEventHandler#doDispatchEvents(org.eclipse.core.runtime.IProgressMonitor)
+		 */
+		protected boolean doDispatchEvents(IProgressMonitor monitor) throws TeamException {
+			if (changesByFolder.isEmpty() && removedResources.isEmpty())
+				return false;
+			Map folders = changesByFolder;
+			changesByFolder = new HashMap();
+			for (Iterator iter = folders.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry entry = (Map.Entry) iter.next();
+				handleChanges((IContainer)entry.getKey(), (Map)entry.getValue(), monitor);
+			}
+			modifiedResources.addAll(removedResources);
+			removedResources.clear();
+			if (!modifiedResources.isEmpty()) {
+				ResourceStateChangeListeners.getListener().resourceModified(
+					(IResource[])modifiedResources.toArray(new IResource[modifiedResources.size()]));
+				modifiedResources.clear();
+			}
+			return true;
+		}
+		
+		private void handleChanges(IContainer folder, Map changes, IProgressMonitor monitor) {
+			if (!folder.isAccessible())
+				return;
+			EclipseSynchronizer synchronizer = EclipseSynchronizer.getInstance();
+			try {
+				ISchedulingRule rule = synchronizer.beginBatching(folder, null);
+				try {
+					boolean flagged = false;
+					for (Iterator iter = changes.entrySet().iterator(); iter.hasNext();) {
+						Map.Entry entry = (Map.Entry) iter.next();
+						IResource resource = (IResource)entry.getKey();
+						if (!resource.exists() || !isRelevantChange(resource))
+							continue;
+						// Flag the folder and its ancestors once for all the changes of the folder.
+						// Changes to ignored resources do not affect the state of the folder.
+						if (!flagged && !CVSWorkspaceRoot.getCVSResourceFor(resource).isIgnored()) {
+							synchronizer.adjustDirtyStateRecursively(folder, SyncInfoCache.RECOMPUTE_INDICATOR);
+							flagged = true;
+						}
+						resourceChanged(resource, ((Boolean)entry.getValue()).booleanValue());
+					}
+				} finally {
+					synchronizer.endBatching(rule, null);
+				}
+			} catch (CVSException e) {
+				// Log the exception and continue with the next folder
+				CVSProviderPlugin.log(e);
+			}
+		}
+		
+		/* (non-Javadoc)
+		 * @see org.eclipse.team.internal.core.BackgroundEventHandler#getJobFamiliy()
+		 */
+		protected Object getJobFamiliy() {
+			return FileModificationManager.this;
+		}
+	}
+}
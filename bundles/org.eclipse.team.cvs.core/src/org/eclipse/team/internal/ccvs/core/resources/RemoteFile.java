@@ -72,11 +72,16 @@ public class RemoteFile extends RemoteResource implements ICVSRemoteFile  {
 	public static RemoteFile getBase(RemoteFolder parent, ICVSFile managed) throws CVSException {
 		Assert.isNotNull(parent, "A parent folder must be provided for file " + managed.getName()); //$NON-NLS-1$
 		byte[] syncBytes = managed.getSyncBytes();
-		if ((syncBytes == null) || ResourceSyncInfo.isAddition(syncBytes)) {
-			// Either the file is unmanaged or has just been added (i.e. doesn't necessarily have a remote)
+		if (syncBytes == null) {
+			// The file is unmanaged
 			return null;
 		}
-		if (ResourceSyncInfo.isDeletion(syncBytes)) {
+		ResourceSyncBytes info = new ResourceSyncBytes(syncBytes);
+		if (info.isAddition()) {
+			// The file has just been added (i.e. doesn't necessarily have a remote)
+			return null;
+		}
+		if (info.isDeletion()) {
 			syncBytes = ResourceSyncInfo.convertFromDeletion(syncBytes);
 		}
 		RemoteFile file = new RemoteFile(parent, syncBytes);
@@ -15,6 +15,7 @@ import java.util.*;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.*;
@@ -23,6 +24,7 @@ import org.eclipse.team.internal.ccvs.core.client.listeners.*;
 import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncBytes;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
@@ -41,6 +43,12 @@ public class RemoteFolderTreeBuilder {
 
 	private static final int MAX_REVISION_FETCHES_PER_CONNECTION = 1024;
 	
+	// The maximum number of connections opened concurrently to a repository by tree builders
+	private static final int MAX_CONCURRENT_SESSIONS = 4;
+	
+	// Map of repository location to the number of concurrent sessions opened by tree builders
+	private static final Map concurrentSessions = new HashMap();
+	
 	private Map fileDeltas;
 	private List changedFiles;
 	private Map remoteFolderTable;
@@ -64,6 +72,16 @@ public class RemoteFolderTreeBuilder {
 	
 	private boolean newFolderExist = false;
 	
+	// The paths of new folders whose contents were fetched concurrently
+	private Set fetchedNewFolders = new HashSet();
+	
+	/*
+	 * A request that is run over a connection to the repository
+	 */
+	private interface ISessionTask {
+		void run(Session session, IProgressMonitor monitor) throws CVSException;
+	}
+	
 	static class DeltaNode {
 		int syncState = Update.STATE_NONE;
 		String name;
@@ -260,19 +278,145 @@ public class RemoteFolderTreeBuilder {
 			String[] allChangedFiles = (String[])changedFiles.toArray(new String[changedFiles.size()]);
 			int iterations = (allChangedFiles.length / MAX_REVISION_FETCHES_PER_CONNECTION) 
 				+ (allChangedFiles.length % MAX_REVISION_FETCHES_PER_CONNECTION == 0 ? 0 : 1);
+			List tasks = new ArrayList();
 			for (int i = 0; i < iterations ; i++) {
 				int length = Math.min(MAX_REVISION_FETCHES_PER_CONNECTION, 
 					allChangedFiles.length - (MAX_REVISION_FETCHES_PER_CONNECTION * i));
-				String buffer[] = new String[length];
+				final String buffer[] = new String[length];
 				System.arraycopy(allChangedFiles, i * MAX_REVISION_FETCHES_PER_CONNECTION, buffer, 0, length);
-				Session session = new Session(repository, remoteRoot, false);
-				session.open(Policy.subMonitorFor(monitor, 1), false /* read-only */);
+				tasks.add(new ISessionTask() {
+					public void run(Session session, IProgressMonitor monitor) throws CVSException {
+						fetchFileRevisions(session, buffer, monitor);
+					}
+				});
+			}
+			// Each group is fetched over its own connection. The groups are independent 
+			// since each one only updates the revisions of its own files.
+			runConcurrently((ISessionTask[]) tasks.toArray(new ISessionTask[tasks.size()]), null /* session per task */, monitor);
+		}
+	}
+	
+	/*
+	 * Run the given tasks, using up to MAX_CONCURRENT_SESSIONS concurrent connections
+	 * to the repository. The calling thread runs tasks as well so all tasks are run
+	 * even if no additional connection can be opened. If a session is provided, the
+	 * calling thread runs its tasks over that session and each helper runs its tasks
+	 * over a single connection. Otherwise, a new connection is used for each task.
+	 * 
+	 * Does 3 work for each task run by the calling thread.
+	 */
+	private void runConcurrently(final ISessionTask[] tasks, Session session, final IProgressMonitor monitor) throws CVSException {
+		final int[] next = new int[] { 0 };
+		final List errors = Collections.synchronizedList(new ArrayList());
+		final boolean sessionPerTask = session == null;
+		// Helpers only report cancelation since progress monitors are not thread safe
+		final IProgressMonitor helperMonitor = new NullProgressMonitor() {
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		Job[] helpers = new Job[Math.min(tasks.length, MAX_CONCURRENT_SESSIONS) - 1];
+		for (int i = 0; i < helpers.length; i++) {
+			helpers[i] = new Job("") { //$NON-NLS-1$
+				protected IStatus run(IProgressMonitor jobMonitor) {
+					// Only help if the repository is not already serving the maximum number of concurrent sessions
+					if (!acquireConcurrentSession())
+						return org.eclipse.core.runtime.Status.OK_STATUS;
+					try {
+						runTasks(tasks, next, null, sessionPerTask, errors, helperMonitor);
+					} finally {
+						releaseConcurrentSession();
+					}
+					return org.eclipse.core.runtime.Status.OK_STATUS;
+				}
+			};
+			helpers[i].setSystem(true);
+			helpers[i].schedule();
+		}
+		runTasks(tasks, next, session, sessionPerTask, errors, monitor);
+		for (int i = 0; i < helpers.length; i++) {
+			// Helpers that have not started yet are not needed since all tasks have been claimed
+			if (!helpers[i].cancel()) {
 				try {
-					fetchFileRevisions(session, buffer, Policy.subMonitorFor(monitor, 2));
+					helpers[i].join();
+				} catch (InterruptedException e) {
+					throw new OperationCanceledException();
+				}
+			}
+		}
+		Policy.checkCanceled(monitor);
+		if (!errors.isEmpty()) {
+			if (errors.size() == 1) {
+				throw (CVSException)errors.get(0);
+			} else {
+				MultiStatus multi = new MultiStatus(CVSProviderPlugin.ID, 0, CVSMessages.RemoteFolder_errorFetchingRevisions, null); 
+				for (int i = 0; i < errors.size(); i++) {
+					multi.merge(((CVSException)errors.get(i)).getStatus());
+				}
+				throw new CVSException(multi);
+			}
+		}
+	}
+	
+	/*
+	 * Run unclaimed tasks until all tasks are claimed, a task fails or the operation is canceled.
+	 * A provided session is used but not closed.
+	 */
+	private void runTasks(ISessionTask[] tasks, int[] next, Session providedSession, boolean sessionPerTask, List errors, IProgressMonitor monitor) {
+		Session session = providedSession;
+		try {
+			while (errors.isEmpty() && !monitor.isCanceled()) {
+				ISessionTask task;
+				synchronized (next) {
+					if (next[0] == tasks.length)
+						return;
+					task = tasks[next[0]++];
+				}
+				if (session == null) {
+					session = new Session(repository, remoteRoot, false);
+					session.open(Policy.subMonitorFor(monitor, 1), false /* read-only */);
+				}
+				try {
+					task.run(session, Policy.subMonitorFor(monitor, 2));
 				} finally {
-					session.close();
+					if (sessionPerTask) {
+						session.close();
+						session = null;
+					}
 				}
 			}
+		} catch (CVSException e) {
+			errors.add(e);
+		} catch (OperationCanceledException e) {
+			// The cancelation is reported by the calling thread
+		} finally {
+			if (session != null && session != providedSession) {
+				session.close();
+			}
+		}
+	}
+	
+	private boolean acquireConcurrentSession() {
+		String location = repository.getLocation(false);
+		synchronized (concurrentSessions) {
+			Integer count = (Integer)concurrentSessions.get(location);
+			int value = count == null ? 0 : count.intValue();
+			if (value >= MAX_CONCURRENT_SESSIONS - 1)
+				return false;
+			concurrentSessions.put(location, new Integer(value + 1));
+			return true;
+		}
+	}
+	
+	private void releaseConcurrentSession() {
+		String location = repository.getLocation(false);
+		synchronized (concurrentSessions) {
+			int value = ((Integer)concurrentSessions.get(location)).intValue() - 1;
+			if (value == 0) {
+				concurrentSessions.remove(location);
+			} else {
+				concurrentSessions.put(location, new Integer(value));
+			}
 		}
 	}
 	
@@ -396,11 +540,12 @@ public class RemoteFolderTreeBuilder {
 			// if there is no sync info then there is no base
 			if (syncBytes==null)
 				continue;
+			ResourceSyncBytes info = new ResourceSyncBytes(syncBytes);
 			// There is no remote if the file was added
-			if (ResourceSyncInfo.isAddition(syncBytes))
+			if (info.isAddition())
 				continue;
 			// If the file was deleted locally, we need to generate a new sync info without the delete flag
-			if (ResourceSyncInfo.isDeletion(syncBytes)) {
+			if (info.isDeletion()) {
 				syncBytes = ResourceSyncInfo.convertFromDeletion(syncBytes);
 			}
 			children.add(createRemoteFile(remote, syncBytes));
@@ -443,7 +588,8 @@ public class RemoteFolderTreeBuilder {
 		Map children = new HashMap();
 		
 		// If there's no corresponding local resource then we need to fetch its contents in order to populate the deltas
-		if (local == null) {
+		// (unless they were already fetched concurrently with those of its siblings)
+		if (local == null && !fetchedNewFolders.remove(localPath)) {
 			fetchNewDirectory(session, remote, localPath, monitor);
 		}
 		
@@ -477,11 +623,12 @@ public class RemoteFolderTreeBuilder {
 				// server.
 				if (syncBytes==null)
 					continue;
+				ResourceSyncBytes info = new ResourceSyncBytes(syncBytes);
 				// There is no remote if the file was added and we didn't get a conflict (C) indicator from the server
-				if (ResourceSyncInfo.isAddition(syncBytes) && d==null)
+				if (info.isAddition() && d==null)
 					continue;
 				// There is no remote if the file was deleted and we didn't get a remove (R) indicator from the server
-				if (ResourceSyncInfo.isDeletion(syncBytes) && d==null)
+				if (info.isDeletion() && d==null)
 					continue;
 					
 				int type = d==null ? Update.STATE_NONE : d.getSyncState();
@@ -533,6 +680,7 @@ public class RemoteFolderTreeBuilder {
 		// We have to delay building the child folders to support the proper fetching of new directories
 		// due to the fact that the same CVS home directory (i.e. the same root directory) must
 		// be used for all requests sent over the same connection
+		fetchNewChildDirectories(session, deltas, children, localPath, monitor);
 		Iterator childIterator = children.entrySet().iterator();
 		List emptyChildren = new ArrayList();
 		while (childIterator.hasNext()) {
@@ -573,6 +721,34 @@ public class RemoteFolderTreeBuilder {
 		}
 	}
 	
+	/*
+	 * Fetch the contents of the new child folders concurrently if there are several of them.
+	 * This populates the deltas of the child folders before they are built.
+	 */
+	private void fetchNewChildDirectories(Session session, Map deltas, Map children, String localPath, IProgressMonitor monitor) throws CVSException {
+		List tasks = new ArrayList();
+		final List paths = new ArrayList();
+		for (Iterator iter = children.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			final String name = (String)entry.getKey();
+			DeltaNode d = (DeltaNode)deltas.get(name);
+			if (d != null && d.getRevision() == FOLDER) {
+				final RemoteFolderTree newFolder = (RemoteFolderTree)entry.getValue();
+				final String path = Util.appendPath(localPath, name);
+				paths.add(path);
+				tasks.add(new ISessionTask() {
+					public void run(Session session, IProgressMonitor monitor) throws CVSException {
+						fetchNewDirectory(session, newFolder, path, monitor);
+					}
+				});
+			}
+		}
+		if (tasks.size() > 1) {
+			runConcurrently((ISessionTask[]) tasks.toArray(new ISessionTask[tasks.size()]), session, monitor);
+			fetchedNewFolders.addAll(paths);
+		}
+	}
+	
 	/*
 	 * This method fetches the delta between the local state and the remote state of the resource tree
 	 * and records the deltas in the fileDeltas instance variable
@@ -672,8 +848,11 @@ public class RemoteFolderTreeBuilder {
 			}
 			public void fileInformation(int type, ICVSFolder root, String filename) {
 				// NOTE: Check path prefix
-				changedFiles.add(filename);
-				recordDelta(filename, ADDED, type);
+				// The contents of several new directories may be fetched concurrently
+				synchronized (RemoteFolderTreeBuilder.this) {
+					changedFiles.add(filename);
+					recordDelta(filename, ADDED, type);
+				}
 				monitor.subTask(NLS.bind(CVSMessages.RemoteFolderTreeBuilder_receivingDelta, new String[] { Util.toTruncatedPath(filename, 3) })); 
 			}
 			public void fileDoesNotExist(ICVSFolder root, String filename) {
@@ -759,7 +938,7 @@ public class RemoteFolderTreeBuilder {
 	 * A revision of UNKNOWN indicates that the revision has not been fetched
 	 * from the repository yet.
 	 */
-	private void recordDelta(String path, String revision, int syncState) {
+	private synchronized void recordDelta(String path, String revision, int syncState) {
 		if (revision == FOLDER) {
 			newFolderExist = true;
 		}
@@ -10,9 +10,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.resources;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -28,7 +26,8 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
  * This cache uses session properties to hold the bytes representing the sync
  * info. In addition when the workbench closes or a project is closed, the dirty 
  * state for all cvs managed folders are persisted using the resource's plugin
- * synchronizer.
+ * synchronizer and the cached folder and resource sync is written to a
+ * {@link SyncInfoSnapshot} so it can be restored without reading the meta files.
  */
 /*package*/ class SessionPropertySyncInfoCache extends SyncInfoCache implements ISaveParticipant {
 	
@@ -45,6 +44,8 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 	// (i.e. for those cases where a deleted resource is recreated)
 	private SynchronizerSyncInfoCache synchronizerCache;
 	
+	private SyncInfoSnapshot snapshot = new SyncInfoSnapshot();
+	
 	/*package*/ SessionPropertySyncInfoCache(SynchronizerSyncInfoCache synchronizerCache) {
 		this.synchronizerCache = synchronizerCache;
 		try {
@@ -57,6 +58,10 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 		}
 	}
 
+	/*package*/ SyncInfoSnapshot getSnapshot() {
+		return snapshot;
+	}
+
 	/**
 	 * If not already cached, loads and caches the folder ignores sync for the container.
 	 * Folder must exist and must not be the workspace root.
@@ -415,6 +420,7 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 			} else {
 				projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
 			}
+			List managedProjects = new ArrayList();
 			for (int i = 0; i < projects.length; i++) {
 				IProject project = projects[i];
 				RepositoryProvider provider = RepositoryProvider.getProvider(
@@ -422,8 +428,9 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 														CVSProviderPlugin.getTypeId());
 														
 				// found a project managed by CVS, convert each session property on a
-				// folder to a sync object.
+				// folder to a sync object and record the cached sync info in the snapshot.
 				if (provider != null) {
+					final List entries = new ArrayList();
 					project.accept(new IResourceVisitor() {
 						public boolean visit(IResource resource) throws CoreException {
 							if(resource.getType() != IResource.FILE) {
@@ -436,14 +443,67 @@ import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 								}
 								if(di != null) {
 									synchronizer.setSyncInfo(FOLDER_DIRTY_STATE_KEY, resource, di.getBytes());
-								}								
+								}
+								try {
+									SyncInfoSnapshot.Entry entry = getSnapshotEntry((IContainer)resource);
+									if (entry != null) {
+										entries.add(entry);
+									}
+								} catch (CVSException e) {
+									// continue traversal
+									CVSProviderPlugin.log(e);
+								}
 							}
 							return true;
 						}
 					});
+					snapshot.write(project, entries);
+					managedProjects.add(project);
 				}
 			}
+			if (fullSave) {
+				snapshot.retainAll((IProject[]) managedProjects.toArray(new IProject[managedProjects.size()]));
+			}
+		}
+	}
+	
+	/*
+	 * Return the snapshot entry for the sync info cached for the given container
+	 * or null if the sync info of the container is not cached. Since the entry is
+	 * keyed by the meta file stamps, an entry recorded while a change is pending
+	 * is invalidated when the change is written to the meta files.
+	 */
+	private SyncInfoSnapshot.Entry getSnapshotEntry(IContainer container) throws CVSException {
+		if (container.getType() == IResource.ROOT || CVSWorkspaceRoot.isLinkedResource(container))
+			return null;
+		FolderSyncInfo folderSync = (FolderSyncInfo)safeGetSessionProperty(container, FOLDER_SYNC_KEY);
+		if (folderSync == null || !isResourceSyncInfoCached(container))
+			return null;
+		if (!container.getFolder(new Path(SyncFileWriter.CVS_DIRNAME)).getFile(SyncFileWriter.ENTRIES).exists())
+			return null;
+		List children = new ArrayList();
+		try {
+			IResource[] members = container.members(IContainer.INCLUDE_PHANTOMS);
+			for (int i = 0; i < members.length; i++) {
+				IResource member = members[i];
+				byte[] syncBytes;
+				if (member.exists()) {
+					syncBytes = getCachedSyncBytes(member, true);
+				} else {
+					syncBytes = synchronizerCache.getCachedSyncBytes(member, true);
+				}
+				if (syncBytes != null) {
+					children.add(syncBytes);
+				}
+			}
+		} catch (CoreException e) {
+			throw CVSException.wrapException(e);
 		}
+		return new SyncInfoSnapshot.Entry(
+				container.getProjectRelativePath().toString(),
+				SyncFileWriter.getMetaFileStamps(container),
+				folderSync == NULL_FOLDER_SYNC_INFO ? null : folderSync,
+				(byte[][]) children.toArray(new byte[children.size()][]));
 	}
 		
 	/* 
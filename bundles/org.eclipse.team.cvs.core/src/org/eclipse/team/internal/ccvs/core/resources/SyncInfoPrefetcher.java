@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.resources;
+
+import java.util.*;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
+
+/**
+ * Reads the CVS meta files (Entries, Entries.Log, Root, Repository, Tag and
+ * Entries.Static) of several folders concurrently. The reads are performed
+ * without holding the synchronizer lock and without modifying the workspace.
+ * The results are installed into the sync info caches by the
+ * {@link EclipseSynchronizer} while it holds its lock.
+ * <p>
+ * The calling thread takes part in the reading so progress is made even
+ * if no worker job gets scheduled.
+ */
+class SyncInfoPrefetcher {
+
+	/*
+	 * Minimum number of folders for which helper jobs are started. Below this,
+	 * the folders are read by the calling thread only.
+	 */
+	private static final int MIN_FOLDERS_PER_JOB = 4;
+
+	/**
+	 * The meta file contents read for a single folder.
+	 */
+	static class Metadata {
+		private final IContainer folder;
+		private final long[] stamps;
+		private byte[][] resourceSync;
+		private FolderSyncInfo folderSync;
+		private CVSException error;
+		private volatile boolean done;
+
+		Metadata(IContainer folder) {
+			this.folder = folder;
+			// Take the stamps before reading so that concurrent modifications are detected
+			this.stamps = SyncFileWriter.getMetaFileStamps(folder);
+		}
+
+		void read(SyncInfoSnapshot snapshot) {
+			try {
+				SyncInfoSnapshot.Entry entry = snapshot.getEntry(folder);
+				if (entry != null) {
+					resourceSync = entry.getResourceSync();
+					folderSync = entry.getFolderSync();
+					return;
+				}
+				resourceSync = SyncFileWriter.readAllResourceSync(folder);
+				folderSync = SyncFileWriter.readFolderSync(folder, false /* do not modify the workspace */);
+			} catch (CVSException e) {
+				error = e;
+			} finally {
+				done = true;
+			}
+		}
+
+		/**
+		 * Return whether the contents read are still valid. They are not if an
+		 * error occurred while reading, if the read did not complete, or if the
+		 * meta files have changed since.
+		 * In that case, the caller should read the meta files again.
+		 */
+		boolean isValid() {
+			return done && error == null && Arrays.equals(stamps, SyncFileWriter.getMetaFileStamps(folder));
+		}
+
+		byte[][] getResourceSync() {
+			return resourceSync;
+		}
+
+		FolderSyncInfo getFolderSync() {
+			return folderSync;
+		}
+	}
+
+	private final Metadata[] work;
+	private final SyncInfoSnapshot snapshot;
+	private int next;
+
+	private SyncInfoPrefetcher(IContainer[] folders, SyncInfoSnapshot snapshot) {
+		this.snapshot = snapshot;
+		work = new Metadata[folders.length];
+		for (int i = 0; i < folders.length; i++) {
+			work[i] = new Metadata(folders[i]);
+		}
+	}
+
+	/**
+	 * Read the meta files of the given folders and return a map from
+	 * folder to the {@link Metadata} read for it. The sync info of folders
+	 * whose snapshot entry is still valid is taken from the snapshot.
+	 * @param folders the folders whose meta files are to be read
+	 * @param snapshot the sync info snapshot
+	 * @return a map of <code>IContainer</code> to <code>Metadata</code>
+	 */
+	static Map prefetch(IContainer[] folders, SyncInfoSnapshot snapshot) {
+		if (folders.length == 0)
+			return Collections.EMPTY_MAP;
+		SyncInfoPrefetcher prefetcher = new SyncInfoPrefetcher(folders, snapshot);
+		prefetcher.run();
+		Map result = new HashMap();
+		for (int i = 0; i < prefetcher.work.length; i++) {
+			Metadata metadata = prefetcher.work[i];
+			result.put(metadata.folder, metadata);
+		}
+		return result;
+	}
+
+	private void run() {
+		int jobCount = Math.min(Runtime.getRuntime().availableProcessors() - 1, work.length / MIN_FOLDERS_PER_JOB);
+		Job[] jobs = new Job[Math.max(jobCount, 0)];
+		for (int i = 0; i < jobs.length; i++) {
+			jobs[i] = new Job("") { //$NON-NLS-1$
+				protected IStatus run(IProgressMonitor monitor) {
+					readAll();
+					return Status.OK_STATUS;
+				}
+			};
+			jobs[i].setSystem(true);
+			jobs[i].setPriority(Job.SHORT);
+			jobs[i].schedule();
+		}
+		readAll();
+		// Wait for the folders claimed by the jobs. Jobs that have not started
+		// yet are cancelled since all the work has been claimed.
+		for (int i = 0; i < jobs.length; i++) {
+			if (!jobs[i].cancel()) {
+				try {
+					jobs[i].join();
+				} catch (InterruptedException e) {
+					// Folders whose read did not complete are reported as invalid
+					// and are read again by the synchronizer
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private void readAll() {
+		Metadata metadata;
+		while ((metadata = nextWork()) != null) {
+			metadata.read(snapshot);
+		}
+	}
+
+	private synchronized Metadata nextWork() {
+		if (next < work.length)
+			return work[next++];
+		return null;
+	}
+}
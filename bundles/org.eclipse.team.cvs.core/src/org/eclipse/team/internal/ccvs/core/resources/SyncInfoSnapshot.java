@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.resources;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
+
+/**
+ * A persistent snapshot of the folder and resource sync of the CVS managed
+ * folders of a project. The snapshot is written when the workspace is saved
+ * and allows the sync info caches to be filled at startup without reading
+ * and parsing the CVS meta files of each folder.
+ * <p>
+ * Each folder entry is keyed by the modification stamps of the folder's meta
+ * files at the time the snapshot was written. An entry is only used if the
+ * stamps still match, so the snapshot can never be used to provide sync info
+ * that differs from the meta files on disk. The snapshot files are memory
+ * mapped when first accessed and the entries are only decoded and validated
+ * when the sync info of the corresponding folder is requested.
+ * <p>
+ * The file format is:
+ * <pre>
+ * int magic, int version, int folderCount,
+ * folderCount * (int pathLength, byte[] path, int entryLength, entry)
+ * entry: byte stampCount, long[] stamps, int folderSyncLength (-1 if none),
+ *        byte[] folderSync, int childCount, childCount * (int length, byte[] syncBytes)
+ * </pre>
+ */
+public class SyncInfoSnapshot {
+
+	private static final int MAGIC = 0x43565353; // "CVSS"
+	private static final int VERSION = 1;
+	private static final String SNAPSHOT_DIRECTORY = ".syncSnapshots"; //$NON-NLS-1$
+	private static final String SNAPSHOT_EXTENSION = ".snapshot"; //$NON-NLS-1$
+	private static final String TEMP_EXTENSION = ".tmp"; //$NON-NLS-1$
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * The sync info of a folder as recorded in the snapshot.
+	 */
+	public static class Entry {
+		private final String path;
+		private final long[] stamps;
+		private final FolderSyncInfo folderSync;
+		private final byte[][] resourceSync;
+
+		public Entry(String path, long[] stamps, FolderSyncInfo folderSync, byte[][] resourceSync) {
+			this.path = path;
+			this.stamps = stamps;
+			this.folderSync = folderSync;
+			this.resourceSync = resourceSync;
+		}
+
+		public FolderSyncInfo getFolderSync() {
+			return folderSync;
+		}
+
+		public byte[][] getResourceSync() {
+			return resourceSync;
+		}
+	}
+
+	/*
+	 * The mapped snapshot file of a project and the offsets of its entries
+	 */
+	private static class ProjectSnapshot {
+		private final ByteBuffer buffer;
+		private final Map offsets;
+
+		ProjectSnapshot(ByteBuffer buffer, Map offsets) {
+			this.buffer = buffer;
+			this.offsets = offsets;
+		}
+	}
+
+	private static final ProjectSnapshot EMPTY = new ProjectSnapshot(null, Collections.EMPTY_MAP);
+
+	// Map of project name to loaded ProjectSnapshot
+	private final Map snapshots = new HashMap();
+
+	// The directory containing the snapshot files or null to use the plug-in state location
+	private final File directory;
+
+	/**
+	 * Create a snapshot that is stored in the state location of the CVS core plug-in.
+	 */
+	public SyncInfoSnapshot() {
+		this(null);
+	}
+
+	/**
+	 * Create a snapshot that is stored in the given directory.
+	 * @param directory the directory that contains the snapshot files
+	 */
+	public SyncInfoSnapshot(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Return the snapshot entry for the given folder or <code>null</code> if
+	 * the snapshot does not contain the folder or if the meta files of the
+	 * folder have changed since the snapshot was written.
+	 * @param folder the folder
+	 * @return the snapshot entry or <code>null</code>
+	 */
+	public Entry getEntry(IContainer folder) {
+		if (CVSProviderPlugin.getPlugin().crashOnLastRun())
+			return null;
+		ProjectSnapshot snapshot = getProjectSnapshot(folder.getProject());
+		if (snapshot == EMPTY)
+			return null;
+		String path = folder.getProjectRelativePath().toString();
+		Integer offset = (Integer)snapshot.offsets.get(path);
+		if (offset == null)
+			return null;
+		// Each reader uses its own view of the buffer so entries can be decoded concurrently
+		ByteBuffer buffer = snapshot.buffer.duplicate();
+		try {
+			buffer.position(offset.intValue());
+			long[] stamps = new long[buffer.get()];
+			for (int i = 0; i < stamps.length; i++) {
+				stamps[i] = buffer.getLong();
+			}
+			if (!Arrays.equals(stamps, SyncFileWriter.getMetaFileStamps(folder)))
+				return null;
+			FolderSyncInfo folderSync = null;
+			byte[] folderSyncBytes = getBytes(buffer);
+			if (folderSyncBytes != null)
+				folderSync = FolderSyncInfo.getFolderSyncInfo(folderSyncBytes);
+			byte[][] resourceSync = new byte[buffer.getInt()][];
+			for (int i = 0; i < resourceSync.length; i++) {
+				resourceSync[i] = getBytes(buffer);
+			}
+			return new Entry(path, stamps, folderSync, resourceSync);
+		} catch (CVSException e) {
+			discardCorrupt(folder.getProject(), e);
+		} catch (RuntimeException e) {
+			// Buffer underflows and illegal positions or sizes indicate a corrupt snapshot
+			discardCorrupt(folder.getProject(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Write the snapshot for the given project. Any loaded snapshot for the
+	 * project is discarded first.
+	 * @param project the project
+	 * @param entries the entries for the CVS managed folders of the project
+	 */
+	public void write(IProject project, List entries) {
+		discard(project);
+		File file = getSnapshotFile(project);
+		File tempFile = new File(file.getPath() + TEMP_EXTENSION);
+		try {
+			file.getParentFile().mkdirs();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(entries.size());
+				ByteArrayOutputStream entryBytes = new ByteArrayOutputStream();
+				DataOutputStream entryOut = new DataOutputStream(entryBytes);
+				for (Iterator iter = entries.iterator(); iter.hasNext();) {
+					Entry entry = (Entry) iter.next();
+					entryBytes.reset();
+					entryOut.writeByte(entry.stamps.length);
+					for (int i = 0; i < entry.stamps.length; i++) {
+						entryOut.writeLong(entry.stamps[i]);
+					}
+					writeBytes(entryOut, entry.folderSync == null ? null : entry.folderSync.getBytes());
+					entryOut.writeInt(entry.resourceSync.length);
+					for (int i = 0; i < entry.resourceSync.length; i++) {
+						writeBytes(entryOut, entry.resourceSync[i]);
+					}
+					entryOut.flush();
+					writeBytes(out, entry.path.getBytes(ENCODING));
+					out.writeInt(entryBytes.size());
+					entryBytes.writeTo(out);
+				}
+			} finally {
+				out.close();
+			}
+			// On some platforms, a file cannot be deleted or renamed while it is still mapped
+			if (file.exists() && !file.delete()) {
+				// The previous snapshot must not be used on the next start
+				invalidate(file);
+			} else if (!tempFile.renameTo(file)) {
+				CVSProviderPlugin.log(IStatus.WARNING, NLS.bind("Could not write the sync info snapshot {0}", file.getPath()), null); //$NON-NLS-1$
+			}
+		} catch (IOException e) {
+			CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+		} catch (CVSException e) {
+			CVSProviderPlugin.log(e);
+		} finally {
+			tempFile.delete();
+		}
+	}
+
+	/**
+	 * Delete the snapshots of all projects other than the given ones.
+	 * @param projects the projects whose snapshots are kept
+	 */
+	public void retainAll(IProject[] projects) {
+		Set names = new HashSet();
+		for (int i = 0; i < projects.length; i++) {
+			names.add(getSnapshotFile(projects[i]).getName());
+		}
+		File[] files = getSnapshotDirectory().listFiles();
+		if (files == null)
+			return;
+		for (int i = 0; i < files.length; i++) {
+			File file = files[i];
+			if (!names.contains(file.getName())) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Forget the loaded snapshot of the given project.
+	 * @param project the project
+	 */
+	public synchronized void discard(IProject project) {
+		snapshots.remove(project.getName());
+	}
+
+	private synchronized ProjectSnapshot getProjectSnapshot(IProject project) {
+		ProjectSnapshot snapshot = (ProjectSnapshot)snapshots.get(project.getName());
+		if (snapshot == null) {
+			snapshot = load(getSnapshotFile(project));
+			snapshots.put(project.getName(), snapshot);
+		}
+		return snapshot;
+	}
+
+	/*
+	 * Map the snapshot file into memory and index its entries without decoding them.
+	 * The header is checked before the file is mapped so that an invalid snapshot
+	 * is not kept mapped and can be replaced.
+	 */
+	private ProjectSnapshot load(File file) {
+		if (!file.isFile())
+			return EMPTY;
+		try {
+			FileInputStream in = new FileInputStream(file);
+			try {
+				FileChannel channel = in.getChannel();
+				ByteBuffer header = ByteBuffer.allocate(8);
+				while (header.hasRemaining() && channel.read(header) != -1) {
+					// keep reading until the header is complete or the file ends
+				}
+				header.flip();
+				if (header.remaining() < 8 || header.getInt() != MAGIC || header.getInt() != VERSION)
+					return EMPTY;
+				ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				buffer.position(8);
+				int count = buffer.getInt();
+				Map offsets = new HashMap();
+				for (int i = 0; i < count; i++) {
+					byte[] path = getBytes(buffer);
+					int length = buffer.getInt();
+					offsets.put(new String(path, ENCODING), new Integer(buffer.position()));
+					buffer.position(buffer.position() + length);
+				}
+				return new ProjectSnapshot(buffer, offsets);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+		} catch (RuntimeException e) {
+			// Buffer underflows and illegal positions or sizes indicate a corrupt snapshot
+			CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+		}
+		return EMPTY;
+	}
+
+	/*
+	 * Overwrite the header of a snapshot file that could not be replaced so that
+	 * it is not loaded again. Writing to a mapped file is possible on platforms
+	 * that prevent it from being deleted.
+	 */
+	private void invalidate(File file) {
+		try {
+			RandomAccessFile out = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+			try {
+				out.writeInt(0);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+		}
+	}
+
+	private synchronized void discardCorrupt(IProject project, Exception e) {
+		CVSProviderPlugin.log(IStatus.ERROR, e.getMessage(), e);
+		snapshots.put(project.getName(), EMPTY);
+	}
+
+	private static byte[] getBytes(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length == -1)
+			return null;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		if (bytes == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private File getSnapshotDirectory() {
+		if (directory != null)
+			return directory;
+		return CVSProviderPlugin.getPlugin().getStateLocation().append(SNAPSHOT_DIRECTORY).toFile();
+	}
+
+	private File getSnapshotFile(IProject project) {
+		return new File(getSnapshotDirectory(), project.getName() + SNAPSHOT_EXTENSION);
+	}
+}
@@ -26,6 +26,7 @@ import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
 import org.eclipse.team.internal.ccvs.core.ICVSFolder;
 import org.eclipse.team.internal.ccvs.core.ICVSResource;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncBytes;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.Util;
 
@@ -128,11 +129,12 @@ import org.eclipse.team.internal.ccvs.core.util.Util;
 				}
 			}
 			if (bytes != null && resource.getType() == IResource.FILE) {
-				if (ResourceSyncInfo.isAddition(bytes)) {
+				ResourceSyncBytes info = new ResourceSyncBytes(bytes);
+				if (info.isAddition()) {
 					// The local file has been deleted but was an addition
 					// Therefore, ignore the sync bytes
 					bytes = null;
-				} else if (!ResourceSyncInfo.isDeletion(bytes)) {
+				} else if (!info.isDeletion()) {
 					// Ensure the bytes indicate an outgoing deletion
 					bytes = ResourceSyncInfo.convertToDeletion(bytes);
 				}
@@ -27,9 +27,10 @@ public class CVSBaseResourceVariantTree extends ResourceVariantByteStore {
 			byte[] bytes =  EclipseSynchronizer.getInstance().getSyncBytes(resource);
 			if (bytes != null) {
 				// Use the base sync info (i.e. no deletion or addition)
-				if (ResourceSyncInfo.isDeletion(bytes)) {
+				ResourceSyncBytes info = new ResourceSyncBytes(bytes);
+				if (info.isDeletion()) {
 					bytes = ResourceSyncInfo.convertFromDeletion(bytes);
-				} else if (ResourceSyncInfo.isAddition(bytes)) {
+				} else if (info.isAddition()) {
 					bytes = null;
 				}
 			}
@@ -30,6 +30,7 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 	private CVSTag tag;
 	private boolean cacheFileContentsHint;
 	private CVSSyncTreeSubscriber subscriber;
+	private RemoteChangeFinder changeFinder;
 
 	public CVSResourceVariantTree(ResourceVariantByteStore cache, CVSTag tag, boolean cacheFileContentsHint) {
 		super(cache);
@@ -331,7 +332,11 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 			Policy.checkCanceled(monitor);
 		}
 		try {
-			changedResources = super.refresh(resource, depth, Policy.subMonitorFor(monitor, 99));
+			if (changeFinder != null && resource.getType() == IResource.PROJECT && depth == IResource.DEPTH_INFINITE) {
+				changedResources = refreshChanges((IProject)resource, Policy.subMonitorFor(monitor, 99));
+			} else {
+				changedResources = super.refresh(resource, depth, Policy.subMonitorFor(monitor, 99));
+			}
 		} catch (TeamException e) {
 		    // Try to properly handle exceptions that are due to project modifications
 		    // performed while the refresh was happening
@@ -347,6 +352,62 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 		return changedResources;
 	}
 	
+	/*
+	 * Refresh the folders of the project that changed remotely since the last
+	 * refresh or the whole project if the changed folders cannot be determined.
+	 */
+	private IResource[] refreshChanges(IProject project, IProgressMonitor monitor) throws TeamException {
+		long refreshTime = System.currentTimeMillis();
+		monitor.beginTask(null, 100);
+		try {
+			RemoteChangeFinder.ChangedFolder[] folders = changeFinder.findChangedFolders(project, Policy.subMonitorFor(monitor, 10));
+			IResource[] changedResources;
+			if (folders == null) {
+				changedResources = super.refresh(project, IResource.DEPTH_INFINITE, Policy.subMonitorFor(monitor, 90));
+			} else {
+				List result = new ArrayList();
+				IProgressMonitor subMonitor = Policy.subMonitorFor(monitor, 90);
+				subMonitor.beginTask(null, Math.max(1, folders.length) * 100);
+				for (int i = 0; i < folders.length; i++) {
+					IResource[] changed = super.refresh(folders[i].getFolder(), folders[i].getDepth(), Policy.subMonitorFor(subMonitor, 100));
+					if (changed != null)
+						result.addAll(Arrays.asList(changed));
+				}
+				subMonitor.done();
+				changedResources = (IResource[]) result.toArray(new IResource[result.size()]);
+			}
+			changeFinder.refreshed(project, refreshTime, folders == null);
+			return changedResources;
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Set whether the refresh of a project should first ask the server for the
+	 * files that changed since the project was last refreshed and only refresh
+	 * the folders containing them. This makes refreshes of projects with few
+	 * remote changes much cheaper. It should only be enabled for trees that
+	 * follow the tags of the local resources.
+	 * @param enabled whether only the changed folders should be refreshed
+	 */
+	public void setRefreshChangedFoldersOnly(boolean enabled) {
+		changeFinder = enabled ? new RemoteChangeFinder() : null;
+	}
+
+	/**
+	 * Forget the last refresh of the given project so that the next refresh
+	 * refreshes the whole project. This must be called when the local state
+	 * of the project changes in a way that affects its remote state (e.g.
+	 * the tag of a folder changes).
+	 * @param project the project
+	 */
+	public void resetChangedFolders(IProject project) {
+		RemoteChangeFinder finder = changeFinder;
+		if (finder != null)
+			finder.forget(project);
+	}
+	
 	private boolean isJobInFamilyRunning(Object family) {
 		Job[] jobs = Job.getJobManager().find(family);
 		if (jobs != null && jobs.length > 0) {
@@ -362,6 +423,38 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 	
 	
 	public ICVSRemoteResource buildTree(RemoteFolderTree parent, IResource resource, boolean immutable, IProgressMonitor monitor) throws TeamException {
+		return buildTree(parent, resource, null, immutable, monitor);
+	}
+	
+	/**
+	 * Build a remote tree of the given container that only contains the given
+	 * descendants of the container and the folders between them and the container.
+	 * Operations on the tree (e.g. fetching file contents) then only include
+	 * the given resources.
+	 * @param root the root of the tree
+	 * @param resources descendants of the root
+	 * @param monitor a progress monitor
+	 * @return the remote tree or <code>null</code> if the root has no remote
+	 * @throws TeamException
+	 */
+	public ICVSRemoteResource buildTree(IContainer root, IResource[] resources, IProgressMonitor monitor) throws TeamException {
+		Set paths = new HashSet();
+		int rootSegments = root.getFullPath().segmentCount();
+		for (int i = 0; i < resources.length; i++) {
+			// Include the resource and its ancestors below the root
+			IPath path = resources[i].getFullPath();
+			while (path.segmentCount() > rootSegments && paths.add(path)) {
+				path = path.removeLastSegments(1);
+			}
+		}
+		return buildTree(null, root, paths, false /* not immutable */, monitor);
+	}
+	
+	/*
+	 * Build the tree of the resource. If paths is not null, only the members whose
+	 * full path it contains are included.
+	 */
+	private ICVSRemoteResource buildTree(RemoteFolderTree parent, IResource resource, Set paths, boolean immutable, IProgressMonitor monitor) throws TeamException {
 		
 		Policy.checkCanceled(monitor);
 		
@@ -385,7 +478,9 @@ public class CVSResourceVariantTree extends ResourceVariantTree {
 			List children = new ArrayList();
 			for (int i = 0; i < members.length; i++) {
 				IResource member = members[i];
-				ICVSRemoteResource child = buildTree(remote, member, immutable, monitor);
+				if (paths != null && !paths.contains(member.getFullPath()))
+					continue;
+				ICVSRemoteResource child = buildTree(remote, member, paths, immutable, monitor);
 				if (child != null)
 					children.add(child);
 			}
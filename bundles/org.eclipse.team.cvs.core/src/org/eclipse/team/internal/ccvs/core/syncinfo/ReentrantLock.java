@@ -10,10 +10,10 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ccvs.core.syncinfo;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.team.core.TeamException;
@@ -36,12 +36,44 @@ public class ReentrantLock extends BatchingLock {
 	
 	public class CVSThreadInfo extends ThreadInfo{
 		private Set changedFolders = new HashSet();
+		// {IResource -> byte[]} the sync bytes of the changed resources before their first change
+		private Map diskSyncBytes = new HashMap();
+		// The changed resources whose sync bytes before the change are not known
+		private Set unknownSyncBytes = new HashSet();
 		public CVSThreadInfo(IFlushOperation operation) {
 			super(operation);
 		}
 		public void addChangedFolder(IContainer container) {
 			changedFolders.add(container);
 		}
+		public void addChangedResource(IResource resource) {
+			if (!diskSyncBytes.containsKey(resource))
+				unknownSyncBytes.add(resource);
+			super.addChangedResource(resource);
+		}
+		public void syncBytesChanging(IResource resource, byte[] syncBytes) {
+			// Only the bytes before the first change of the resource are on disk
+			if (!diskSyncBytes.containsKey(resource) && !unknownSyncBytes.contains(resource))
+				diskSyncBytes.put(resource, syncBytes);
+		}
+		/**
+		 * Return whether the sync bytes of the changed resource before the
+		 * first change since the last flush are known.
+		 * @param resource a changed resource
+		 * @return whether the sync bytes are known
+		 */
+		public boolean hasDiskSyncBytes(IResource resource) {
+			return diskSyncBytes.containsKey(resource) && !unknownSyncBytes.contains(resource);
+		}
+		/**
+		 * Return the sync bytes of the changed resource before its first change
+		 * since the last flush, which are the bytes in the meta files on disk.
+		 * @param resource a changed resource
+		 * @return the sync bytes or <code>null</code>
+		 */
+		public byte[] getDiskSyncBytes(IResource resource) {
+			return (byte[]) diskSyncBytes.get(resource);
+		}
 		public boolean isEmpty() {
 			return changedFolders.isEmpty() && super.isEmpty();
 		}
@@ -55,6 +87,8 @@ public class ReentrantLock extends BatchingLock {
 				// We have to clear the resources no matter what since the next attempt
 				// to flush may not have an appropriate scheduling rule
 				changedFolders.clear();
+				diskSyncBytes.clear();
+				unknownSyncBytes.clear();
 			}
 		}
 	}
@@ -72,4 +106,17 @@ public class ReentrantLock extends BatchingLock {
 		info.addChangedFolder(folder);
 	}
 
+	/**
+	 * Notification that the sync bytes of the resource are about to be changed.
+	 * The bytes before the first change are remembered until the next flush so
+	 * that the flush can write only the changes to the meta files.
+	 * @param resource the resource
+	 * @param syncBytes the current sync bytes of the resource or <code>null</code>
+	 */
+	public void syncBytesChanging(IResource resource, byte[] syncBytes) {
+		CVSThreadInfo info = (CVSThreadInfo)getThreadInfo();
+		Assert.isNotNull(info, "Sync bytes changed outside of resource lock"); //$NON-NLS-1$
+		info.syncBytesChanging(resource, syncBytes);
+	}
+
 }
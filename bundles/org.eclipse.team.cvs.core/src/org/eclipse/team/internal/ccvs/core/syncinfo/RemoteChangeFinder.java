@@ -0,0 +1,297 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.syncinfo;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.internal.ccvs.core.*;
+import org.eclipse.team.internal.ccvs.core.client.*;
+import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.EclipseSynchronizer;
+import org.eclipse.team.internal.ccvs.core.util.Util;
+
+/**
+ * Finds the folders of a project that contain remote changes since the
+ * project was last refreshed using a single <code>rlog -d</code> request.
+ * This allows a refresh to only fetch the state of the changed folders instead
+ * of the whole project when the repository has been quiet.
+ * <p>
+ * Changes can only be found for projects whose folders all map to
+ * folders below the remote folder of the project on HEAD or on the same
+ * branch. Other projects, projects that have not been fully refreshed
+ * recently or whose local folder sync info changed since the last refresh
+ * are always fully refreshed.
+ */
+public class RemoteChangeFinder {
+
+	// The time subtracted from the last refresh time to account for clock differences with the server
+	private static final long CLOCK_SKEW_MARGIN = 60 * 60 * 1000;
+
+	// The time after which a full refresh is performed even when no changes were found
+	private static final long FULL_REFRESH_INTERVAL = 6 * 60 * 60 * 1000;
+
+	// The number of changed folders above which a full refresh is cheaper than refreshing each folder
+	private static final int MAX_CHANGED_FOLDERS = 10;
+
+	/*
+	 * The state of a project when it was last refreshed
+	 */
+	private static class RefreshStamp {
+		final long refreshTime;
+		final long fullRefreshTime;
+		final FolderSyncInfo folderSync;
+		RefreshStamp(long refreshTime, long fullRefreshTime, FolderSyncInfo folderSync) {
+			this.refreshTime = refreshTime;
+			this.fullRefreshTime = fullRefreshTime;
+			this.folderSync = folderSync;
+		}
+	}
+
+	/**
+	 * A folder that needs to be refreshed to the given depth.
+	 */
+	public static class ChangedFolder {
+		private final IContainer folder;
+		private final int depth;
+		ChangedFolder(IContainer folder, int depth) {
+			this.folder = folder;
+			this.depth = depth;
+		}
+		/**
+		 * Return the folder to refresh.
+		 * @return the folder to refresh
+		 */
+		public IContainer getFolder() {
+			return folder;
+		}
+		/**
+		 * Return the depth to which the folder is refreshed.
+		 * @return <code>IResource.DEPTH_ONE</code> or <code>IResource.DEPTH_INFINITE</code>
+		 */
+		public int getDepth() {
+			return depth;
+		}
+	}
+
+	/*
+	 * Collects the repository relative paths of the files listed by rlog
+	 */
+	private static class ChangedFileListener extends CommandOutputListener {
+		private final Set paths = new HashSet();
+		public IStatus messageLine(String line, ICVSRepositoryLocation location, ICVSFolder commandRoot, IProgressMonitor monitor) {
+			if (line.startsWith("RCS file: ")) { //$NON-NLS-1$
+				String fileName = line.substring(10).trim();
+				if (fileName.endsWith(",v")) { //$NON-NLS-1$
+					fileName = fileName.substring(0, fileName.length() - 2);
+				}
+				fileName = Util.removeAtticSegment(fileName);
+				String rootDirectory = location.getRootDirectory();
+				if (fileName.startsWith(rootDirectory)) {
+					try {
+						paths.add(Util.getRelativePath(rootDirectory, fileName));
+					} catch (CVSException e) {
+						CVSProviderPlugin.log(e);
+					}
+				}
+			}
+			return OK;
+		}
+	}
+
+	// Map of IProject to RefreshStamp
+	private final Map stamps = new HashMap();
+
+	/**
+	 * Return the folders of the project that need to be refreshed or <code>null</code>
+	 * if the project must be fully refreshed.
+	 * @param project the project
+	 * @param monitor a progress monitor
+	 * @return the changed folders or <code>null</code>
+	 */
+	public ChangedFolder[] findChangedFolders(IProject project, IProgressMonitor monitor) {
+		RefreshStamp stamp;
+		synchronized (stamps) {
+			stamp = (RefreshStamp)stamps.get(project);
+		}
+		if (stamp == null || System.currentTimeMillis() - stamp.fullRefreshTime > FULL_REFRESH_INTERVAL)
+			return null;
+		try {
+			FolderSyncInfo folderSync = EclipseSynchronizer.getInstance().getFolderSync(project);
+			if (folderSync == null || !folderSync.equals(stamp.folderSync))
+				return null;
+			Set paths = fetchChangedFiles(project, new Date(stamp.refreshTime - CLOCK_SKEW_MARGIN), monitor);
+			if (paths == null)
+				return null;
+			return getChangedFolders(project, folderSync, paths);
+		} catch (CVSException e) {
+			// Log and fall back to a full refresh
+			CVSProviderPlugin.log(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Record that the project was refreshed. Only the changes made after
+	 * the given time will be found by the next refresh.
+	 * @param project the project
+	 * @param refreshTime the time at which the refresh started
+	 * @param full whether the whole project was refreshed
+	 */
+	public void refreshed(IProject project, long refreshTime, boolean full) {
+		try {
+			FolderSyncInfo folderSync = EclipseSynchronizer.getInstance().getFolderSync(project);
+			RefreshStamp stamp = null;
+			if (full) {
+				if (isEligible(project, folderSync))
+					stamp = new RefreshStamp(refreshTime, refreshTime, folderSync);
+			} else {
+				synchronized (stamps) {
+					RefreshStamp previous = (RefreshStamp)stamps.get(project);
+					if (previous != null)
+						stamp = new RefreshStamp(refreshTime, previous.fullRefreshTime, previous.folderSync);
+				}
+			}
+			synchronized (stamps) {
+				if (stamp == null) {
+					stamps.remove(project);
+				} else {
+					stamps.put(project, stamp);
+				}
+			}
+		} catch (CVSException e) {
+			CVSProviderPlugin.log(e);
+			forget(project);
+		}
+	}
+
+	/**
+	 * Forget the last refresh of the project so that it is fully refreshed next time.
+	 * @param project the project
+	 */
+	public void forget(IProject project) {
+		synchronized (stamps) {
+			stamps.remove(project);
+		}
+	}
+
+	/*
+	 * Return whether all the folders of the project are on HEAD or on the branch
+	 * of the project and map to folders below the remote folder of the project
+	 */
+	private boolean isEligible(IProject project, final FolderSyncInfo projectSync) throws CVSException {
+		if (projectSync == null || !isMutable(projectSync.getTag()))
+			return false;
+		final String prefix = projectSync.getRepository() + Session.SERVER_SEPARATOR;
+		final boolean[] eligible = new boolean[] { true };
+		try {
+			project.accept(new IResourceVisitor() {
+				public boolean visit(IResource resource) throws CoreException {
+					if (!eligible[0] || resource.getType() == IResource.FILE || resource.getType() == IResource.PROJECT)
+						return eligible[0];
+					FolderSyncInfo info = EclipseSynchronizer.getInstance().getFolderSync((IContainer)resource);
+					if (info == null)
+						return false;
+					if (!info.getRoot().equals(projectSync.getRoot())
+							|| !info.getRepository().startsWith(prefix)
+							|| !equals(info.getTag(), projectSync.getTag())) {
+						eligible[0] = false;
+					}
+					return eligible[0];
+				}
+				private boolean equals(CVSTag tag1, CVSTag tag2) {
+					return tag1 == null ? tag2 == null : tag1.equals(tag2);
+				}
+			});
+		} catch (CoreException e) {
+			throw CVSException.wrapException(e);
+		}
+		return eligible[0];
+	}
+
+	private boolean isMutable(CVSTag tag) {
+		return tag == null || tag.getType() == CVSTag.HEAD || tag.getType() == CVSTag.BRANCH;
+	}
+
+	/*
+	 * Return the repository relative paths of the files of the project that
+	 * have revisions created after the given date or null if the request failed.
+	 */
+	private Set fetchChangedFiles(IProject project, Date since, IProgressMonitor monitor) throws CVSException {
+		ICVSRemoteResource remote = CVSWorkspaceRoot.getRemoteResourceFor(project);
+		if (!(remote instanceof ICVSRemoteFolder))
+			return null;
+		Session session = new Session(remote.getRepository(), (ICVSRemoteFolder)remote, false /* output to console */);
+		ChangedFileListener listener = new ChangedFileListener();
+		monitor.beginTask(null, 100);
+		try {
+			session.open(Policy.subMonitorFor(monitor, 10), false /* read-only */);
+			LocalOption dateOption = RLog.makeTagOption(CVSTag.DEFAULT, new CVSTag(since));
+			IStatus status = new RLog().execute(session, Command.NO_GLOBAL_OPTIONS,
+					new LocalOption[] { RLog.NO_TAGS, RLog.ONLY_INCLUDE_CHANGES, dateOption },
+					new ICVSRemoteResource[] { remote }, listener, Policy.subMonitorFor(monitor, 90));
+			if (status.getSeverity() == IStatus.ERROR)
+				return null;
+		} finally {
+			session.close();
+			monitor.done();
+		}
+		return listener.paths;
+	}
+
+	/*
+	 * Return the folders that contain the given changed files or null if too many
+	 * folders changed. The parent of a changed file is refreshed to depth one if
+	 * it exists locally. Otherwise, its closest existing ancestor is refreshed deeply
+	 * so that new remote folders are found.
+	 */
+	private ChangedFolder[] getChangedFolders(IProject project, FolderSyncInfo projectSync, Set paths) {
+		String prefix = projectSync.getRepository() + Session.SERVER_SEPARATOR;
+		Map depths = new HashMap();
+		for (Iterator iter = paths.iterator(); iter.hasNext();) {
+			String path = (String) iter.next();
+			if (!path.startsWith(prefix))
+				continue;
+			IPath parentPath = new Path(null, path.substring(prefix.length())).removeLastSegments(1);
+			IContainer folder = parentPath.isEmpty() ? (IContainer)project : project.getFolder(parentPath);
+			int depth = IResource.DEPTH_ONE;
+			while (!folder.exists() && folder.getType() != IResource.PROJECT) {
+				folder = folder.getParent();
+				depth = IResource.DEPTH_INFINITE;
+			}
+			Integer previous = (Integer)depths.get(folder);
+			if (previous == null || previous.intValue() < depth)
+				depths.put(folder, new Integer(depth));
+		}
+		// Remove the folders that are covered by the deep refresh of an ancestor
+		List result = new ArrayList();
+		for (Iterator iter = depths.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			IContainer folder = (IContainer)entry.getKey();
+			if (!isCoveredByAncestor(folder, depths))
+				result.add(new ChangedFolder(folder, ((Integer)entry.getValue()).intValue()));
+		}
+		if (result.size() > MAX_CHANGED_FOLDERS)
+			return null;
+		return (ChangedFolder[]) result.toArray(new ChangedFolder[result.size()]);
+	}
+
+	private boolean isCoveredByAncestor(IContainer folder, Map depths) {
+		for (IContainer parent = folder.getParent(); parent != null && parent.getType() != IResource.ROOT; parent = parent.getParent()) {
+			Integer depth = (Integer)depths.get(parent);
+			if (depth != null && depth.intValue() == IResource.DEPTH_INFINITE)
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.core.syncinfo;
+
+import java.text.ParseException;
+import java.util.Date;
+
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSMessages;
+import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
+import org.eclipse.team.internal.ccvs.core.resources.CVSEntryLineTag;
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+
+/**
+ * Read-only view over the sync bytes of a resource (i.e. a line of the CVS/Entries file).
+ * The offsets of the slots are found once when the view is created and the individual
+ * fields are only decoded when asked for. Unlike <code>ResourceSyncInfo</code>, creating
+ * a view does not parse the whole entry line so it is cheap to use when only one or
+ * two fields are of interest.
+ * <p>
+ * The view does not copy the bytes. Clients must not modify the bytes while the view is in use.
+ * </p>
+ *
+ * @see ResourceSyncInfo
+ */
+public final class ResourceSyncBytes {
+
+	// The number of separators in a well-formed entry line (/name/revision/timestamp/mode/tag)
+	private static final int SEPARATOR_COUNT = 5;
+
+	private static final byte[] BINARY_MODE = "-kb".getBytes(); //$NON-NLS-1$
+	private static final byte[] SERVER_MERGED = ResourceSyncInfo.TIMESTAMP_SERVER_MERGED.getBytes();
+	private static final byte[] SERVER_MERGED_WITH_CONFLICT = ResourceSyncInfo.TIMESTAMP_SERVER_MERGED_WITH_CONFLICT.getBytes();
+	private static final byte[] MERGED = ResourceSyncInfo.TIMESTAMP_MERGED.getBytes();
+	private static final byte[] MERGED_WITH_CONFLICT = ResourceSyncInfo.TIMESTAMP_MERGED_WITH_CONFLICT.getBytes();
+	private static final byte[] DELETED_AND_RESTORED = ResourceSyncInfo.TIMESTAMP_DELETED_AND_RESTORED.getBytes();
+	private static final byte[] PLUS = "+".getBytes(); //$NON-NLS-1$
+
+	private final byte[] syncBytes;
+	// separators[i] is the index of the slash that precedes slot i + 1 or -1 if there is none
+	private final int[] separators = new int[SEPARATOR_COUNT];
+
+	/**
+	 * Create a view on the given sync bytes.
+	 *
+	 * @param syncBytes the sync bytes of a resource
+	 */
+	public ResourceSyncBytes(byte[] syncBytes) {
+		this.syncBytes = syncBytes;
+		int count = 0;
+		for (int i = 0; i < syncBytes.length && count < SEPARATOR_COUNT; i++) {
+			if (syncBytes[i] == ResourceSyncInfo.SEPARATOR_BYTE) {
+				separators[count++] = i;
+			}
+		}
+		for (int i = count; i < SEPARATOR_COUNT; i++) {
+			separators[i] = -1;
+		}
+	}
+
+	/**
+	 * Return the bytes this view is on.
+	 * @return the sync bytes
+	 */
+	public byte[] getBytes() {
+		return syncBytes;
+	}
+
+	/**
+	 * Return whether all the slots of an entry line are present.
+	 * @return whether the entry line is well-formed
+	 */
+	public boolean isWellFormed() {
+		return separators[SEPARATOR_COUNT - 1] != -1;
+	}
+
+	/**
+	 * Return whether the sync bytes are for a folder.
+	 * @return boolean
+	 */
+	public boolean isFolder() {
+		return syncBytes.length > 0 && syncBytes[0] == 'D';
+	}
+
+	/**
+	 * Return the name of the resource.
+	 * @return the name
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public String getName() throws CVSException {
+		return getRawSlot(1);
+	}
+
+	/**
+	 * Return the revision. The revision will not include the deleted prefix '-'.
+	 * The "locked by" suffix will not be included either.
+	 * @return the revision
+	 * @throws CVSException if the sync bytes are malformed
+	 * @see ResourceSyncInfo#LOCKEDBY_REGEX
+	 */
+	public String getRevision() throws CVSException {
+		int start = getSlotStart(2);
+		int end = getSlotEnd(2);
+		if (start < end && syncBytes[start] == ResourceSyncInfo.DELETED_PREFIX_BYTE) {
+			start++;
+		}
+		String revision = new String(syncBytes, start, end - start);
+		// Only pay for the regular expression if there could be a "locked by" suffix
+		for (int i = start; i < end; i++) {
+			if (Character.isWhitespace((char)syncBytes[i])) {
+				return revision.replaceFirst(ResourceSyncInfo.LOCKEDBY_REGEX, ""); //$NON-NLS-1$
+			}
+		}
+		return revision;
+	}
+
+	/**
+	 * Return whether the sync bytes are for a file that has been added but not committed.
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean isAddition() throws CVSException {
+		int start = getSeparator(2);
+		// There must be, in the very least, two characters after the slot
+		if (start > syncBytes.length - 3) {
+			throw malformed();
+		}
+		// If the zero is followed by a dot, then it is a valid revision and not an addition
+		return syncBytes[start + 1] == '0' && syncBytes[start + 2] != '.';
+	}
+
+	/**
+	 * Return whether the sync bytes are for a file that is scheduled for deletion.
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean isDeletion() throws CVSException {
+		int start = getSeparator(2);
+		if (start >= syncBytes.length - 1) {
+			throw malformed();
+		}
+		return syncBytes[start + 1] == ResourceSyncInfo.DELETED_PREFIX_BYTE;
+	}
+
+	/**
+	 * Return the keyword substitution mode.
+	 * @return the keyword substitution mode
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public KSubstOption getKeywordMode() throws CVSException {
+		return KSubstOption.fromMode(getRawSlot(4));
+	}
+
+	/**
+	 * Return whether the keyword mode of the sync bytes is binary.
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean isBinary() throws CVSException {
+		int start = getSlotStart(4);
+		int end = getSlotEnd(4);
+		return end - start == BINARY_MODE.length && indexOf(BINARY_MODE, start, end) == start;
+	}
+
+	/**
+	 * Return whether the timestamp indicates a merge (with or without conflicts).
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean isMerge() throws CVSException {
+		int syncType = getSyncType();
+		return syncType == ResourceSyncInfo.TYPE_MERGED || syncType == ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+	}
+
+	/**
+	 * Return whether the timestamp indicates a merge with conflicts.
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean isMergedWithConflicts() throws CVSException {
+		return getSyncType() == ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+	}
+
+	/**
+	 * Return whether the timestamp indicates that the file was deleted and restored afterwards.
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean wasDeleted() throws CVSException {
+		return getSyncType() == ResourceSyncInfo.TYPE_DELETED_AND_RESTORED;
+	}
+
+	/**
+	 * Return whether the sync bytes are for a file that has been merged by the server
+	 * with conflicts and has not been modified since, relative to the given timestamp.
+	 * @param fileTimestamp the timestamp of the file
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 * @see ResourceSyncInfo#isNeedsMerge(Date)
+	 */
+	public boolean isNeedsMerge(Date fileTimestamp) throws CVSException {
+		return isMergedWithConflicts() && isTimeStamp(fileTimestamp);
+	}
+
+	/**
+	 * Return whether the timestamp recorded in the sync bytes is the given timestamp.
+	 * This is equivalent to comparing the given timestamp with
+	 * <code>ResourceSyncInfo#getTimeStamp()</code> but does not create a date.
+	 * @param fileTimestamp the timestamp of the file
+	 * @return boolean
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public boolean isTimeStamp(Date fileTimestamp) throws CVSException {
+		if (fileTimestamp == null) return false;
+		int start = getDateStart();
+		int end = getSlotEnd(3);
+		if (start == -1 || start == end) return false;
+		try {
+			return CVSDateFormatter.entryLineToMillis(new String(syncBytes, start, end - start)) == fileTimestamp.getTime();
+		} catch (ParseException e) {
+			// something we don't understand, the sync has no timestamp
+			return false;
+		}
+	}
+
+	/**
+	 * Return the bytes of the tag slot. The tag may contain slashes so the
+	 * rest of the bytes are included.
+	 * @return the tag bytes
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public byte[] getTagBytes() throws CVSException {
+		int start = getSlotStart(5);
+		byte[] tag = new byte[syncBytes.length - start];
+		System.arraycopy(syncBytes, start, tag, 0, tag.length);
+		return tag;
+	}
+
+	/**
+	 * Return the tag or <code>null</code> if there is no tag.
+	 * @return the tag
+	 * @throws CVSException if the sync bytes are malformed
+	 */
+	public CVSEntryLineTag getTag() throws CVSException {
+		int start = getSlotStart(5);
+		if (start == syncBytes.length) return null;
+		return new CVSEntryLineTag(new String(syncBytes, start, syncBytes.length - start));
+	}
+
+	/*
+	 * Return the type of sync encoded in the timestamp slot
+	 */
+	int getSyncType() throws CVSException {
+		int start = getSlotStart(3);
+		int end = getSlotEnd(3);
+		if (indexOf(SERVER_MERGED, start, end) != -1) {
+			return ResourceSyncInfo.TYPE_MERGED;
+		} else if (indexOf(SERVER_MERGED_WITH_CONFLICT, start, end) != -1) {
+			return ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+		} else if (indexOf(MERGED_WITH_CONFLICT, start, end) != -1) {
+			return ResourceSyncInfo.TYPE_MERGED_WITH_CONFLICTS;
+		} else if (indexOf(MERGED, start, end) != -1) {
+			return ResourceSyncInfo.TYPE_MERGED;
+		} else if (indexOf(DELETED_AND_RESTORED, start, end) != -1) {
+			return ResourceSyncInfo.TYPE_DELETED_AND_RESTORED;
+		}
+		return ResourceSyncInfo.TYPE_REGULAR;
+	}
+
+	/*
+	 * Return the start of the date in the timestamp slot or -1 if there is no date.
+	 * See ResourceSyncInfo#setTimestamp(String) for the possible timestamps.
+	 */
+	private int getDateStart() throws CVSException {
+		int start = getSlotStart(3);
+		int end = getSlotEnd(3);
+		if (indexOf(SERVER_MERGED, start, end) != -1
+				|| indexOf(SERVER_MERGED_WITH_CONFLICT, start, end) != -1) {
+			return -1;
+		} else if (indexOf(MERGED_WITH_CONFLICT, start, end) != -1
+				|| indexOf(DELETED_AND_RESTORED, start, end) != -1) {
+			return indexOf(PLUS, start, end) + 1;
+		} else if (indexOf(MERGED, start, end) != -1) {
+			return -1;
+		}
+		return start;
+	}
+
+	/*
+	 * Return the undecoded contents of the given slot (excluding the tag slot) as a string
+	 */
+	String getRawSlot(int slot) throws CVSException {
+		int start = getSlotStart(slot);
+		return new String(syncBytes, start, getSlotEnd(slot) - start);
+	}
+
+	/*
+	 * Return the index of the slash that precedes the given slot
+	 */
+	private int getSeparator(int slot) throws CVSException {
+		int index = separators[slot - 1];
+		if (index == -1) {
+			throw malformed();
+		}
+		return index;
+	}
+
+	private int getSlotStart(int slot) throws CVSException {
+		return getSeparator(slot) + 1;
+	}
+
+	private int getSlotEnd(int slot) {
+		if (slot < SEPARATOR_COUNT) {
+			int end = separators[slot];
+			if (end != -1) return end;
+		}
+		return syncBytes.length;
+	}
+
+	/*
+	 * Return the index of the first occurrence of the pattern in the given range or -1
+	 */
+	private int indexOf(byte[] pattern, int start, int end) {
+		int last = end - pattern.length;
+		outer: for (int i = start; i <= last; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (syncBytes[i + j] != pattern[j]) continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private CVSException malformed() {
+		return new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) }));
+	}
+}
@@ -54,7 +54,7 @@ public class ResourceSyncInfo {
 	// file sync information can be associated with a local resource that has been deleted. This is
 	// noted by prefixing the revision with this character.
 	private static final String DELETED_PREFIX = "-"; //$NON-NLS-1$
-	private static final byte DELETED_PREFIX_BYTE = '-';
+	static final byte DELETED_PREFIX_BYTE = '-';
 
 	// revision can be locked in repository using "cvs admin -l<rev>" command
 	// entry looks like [M revision 1.2.2.3	locked by: igorf;]
@@ -102,7 +102,7 @@ public class ResourceSyncInfo {
 	}
 	
 	public ResourceSyncInfo(byte[] entryLine) throws CVSException {
-		this(new String(entryLine), null);
+		setEntryLine(new ResourceSyncBytes(entryLine));
 	}
 	
 	/**
@@ -396,7 +396,59 @@ public class ResourceSyncInfo {
 			setRevision(rev);
 		}
 	
-		String date = strings[3];
+		setTimestamp(strings[3]);
+		keywordMode = KSubstOption.fromMode(strings[4]);
+		String tagEntry;
+		if (strings.length == 6) {
+			tagEntry = strings[5];
+		} else {
+			// It turns out that CVS supports slashes (/) in the tag even though this breaks the spec
+			// See http://dev.eclipse.org/bugs/show_bug.cgi?id=26717
+			StringBuffer buffer = new StringBuffer();
+			for (int i = 5; i < strings.length; i++) {
+				buffer.append(strings[i]);
+				if (i < strings.length - 1) {
+					buffer.append(SEPARATOR);
+				}
+			}
+			tagEntry = buffer.toString();
+		}
+						
+		if(tagEntry.length()>0) {
+			tag = new CVSEntryLineTag(tagEntry);
+		} else {
+			tag = null;
+		}
+	}
+	
+	/*
+	 * Set the entry line from the given view of the sync bytes. Only the slots
+	 * are decoded, the entry line is not converted into a string first.
+	 */
+	private void setEntryLine(ResourceSyncBytes syncBytes) throws CVSException {
+		if (!syncBytes.isWellFormed()) {
+			throw new CVSException(CVSMessages.Malformed_entry_line___11 + new String(syncBytes.getBytes())); 
+		}
+		isDirectory = syncBytes.isFolder();
+		name = syncBytes.getName();
+		if (name.length() == 0) {
+			throw new CVSException(CVSMessages.Malformed_entry_line__missing_name___12 + new String(syncBytes.getBytes())); 
+		}
+		String rev = syncBytes.getRawSlot(2);
+		if (rev.length() == 0 && !isDirectory()) {
+			throw new CVSException(CVSMessages.Malformed_entry_line__missing_revision___13 + new String(syncBytes.getBytes())); 
+		} else {
+			setRevision(rev);
+		}
+		setTimestamp(syncBytes.getRawSlot(3));
+		keywordMode = syncBytes.getKeywordMode();
+		tag = syncBytes.getTag();
+	}
+	
+	/*
+	 * Set the sync type and timestamp from the timestamp slot of an entry line
+	 */
+	private void setTimestamp(String date) {
 		
 		// possible timestamps are:
 		// from server: "+=" and "+modified"
@@ -439,28 +491,6 @@ public class ResourceSyncInfo {
 				timeStamp = null;
 			}
 		}
-		keywordMode = KSubstOption.fromMode(strings[4]);
-		String tagEntry;
-		if (strings.length == 6) {
-			tagEntry = strings[5];
-		} else {
-			// It turns out that CVS supports slashes (/) in the tag even though this breaks the spec
-			// See http://dev.eclipse.org/bugs/show_bug.cgi?id=26717
-			StringBuffer buffer = new StringBuffer();
-			for (int i = 5; i < strings.length; i++) {
-				buffer.append(strings[i]);
-				if (i < strings.length - 1) {
-					buffer.append(SEPARATOR);
-				}
-			}
-			tagEntry = buffer.toString();
-		}
-						
-		if(tagEntry.length()>0) {
-			tag = new CVSEntryLineTag(tagEntry);
-		} else {
-			tag = null;
-		}
 	}
 	
 	private String getEntryLine(boolean includeTimeStamp, String timestampOverride) {
@@ -529,11 +559,7 @@ public class ResourceSyncInfo {
 	 * @return String
 	 */
 	public static String getName(byte[] syncBytes) throws CVSException {
-		String name = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 1, false);
-		if (name == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return name;
+		return new ResourceSyncBytes(syncBytes).getName();
 	}
 	
 	/**
@@ -542,11 +568,7 @@ public class ResourceSyncInfo {
 	 * @return String
 	 */
 	public static KSubstOption getKeywordMode(byte[] syncBytes) throws CVSException {
-		String mode = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 4, false);
-		if (mode == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return KSubstOption.fromMode(mode);
+		return new ResourceSyncBytes(syncBytes).getKeywordMode();
 	}
 	
 	/**
@@ -587,11 +609,7 @@ public class ResourceSyncInfo {
 	 */
 	public static boolean isBinary(byte[] syncBytes)  throws CVSException {
 		if (syncBytes == null) return false;
-		String mode = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 4, false);
-		if (mode == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return "-kb".equals(mode); //$NON-NLS-1$
+		return new ResourceSyncBytes(syncBytes).isBinary();
 	}
 	
 	/**
@@ -609,13 +627,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean isAddition(byte[] syncBytes) throws CVSException {
-		int start = startOfSlot(syncBytes, 2);
-		// There must be a slot and, in the very least, there must be two characters after the slot
-		if (start == -1 || start > syncBytes.length - 3) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		// If the zero is followed by a dot, then it is a valid revision and not an addition
-		return syncBytes[start + 1] == '0' && syncBytes[start + 2] != '.';
+		return new ResourceSyncBytes(syncBytes).isAddition();
 	}
 	
 	/**
@@ -624,11 +636,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean isDeletion(byte[] syncBytes) throws CVSException {
-		int start = startOfSlot(syncBytes, 2);
-		if (start == -1 || start >= syncBytes.length) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return syncBytes[start + 1] == DELETED_PREFIX_BYTE;
+		return new ResourceSyncBytes(syncBytes).isDeletion();
 	}
 		
 	/**
@@ -760,7 +768,7 @@ public class ResourceSyncInfo {
 			if (syncType == TYPE_DELETED_AND_RESTORED) {
 				return syncTimestamp.substring(syncTimestamp.indexOf("+") + 1); //$NON-NLS-1$
 			} else if (syncType != TYPE_REGULAR) {
-				if (syncType == TYPE_MERGED_WITH_CONFLICTS && fileTimestamp.equals(getTimestamp(syncTimestamp))) {
+				if (syncType == TYPE_MERGED_WITH_CONFLICTS && isTimestamp(syncTimestamp, fileTimestamp.getTime())) {
 					return TIMESTAMP_SERVER_MERGED_WITH_CONFLICT;
 				} else {
 					return TIMESTAMP_SERVER_MERGED;
@@ -770,11 +778,13 @@ public class ResourceSyncInfo {
 		return null;
 	}
 	/**
-	 * Method getTimestamp.
+	 * Return whether the date portion of the given sync timestamp represents the
+	 * given file timestamp.
 	 * @param syncTimestamp
-	 * @return Object
+	 * @param fileTimestamp
+	 * @return boolean
 	 */
-	private static Date getTimestamp(String syncTimestamp) {
+	private static boolean isTimestamp(String syncTimestamp, long fileTimestamp) {
 		String dateString= syncTimestamp;
 		if(syncTimestamp.indexOf(ResourceSyncInfo.TIMESTAMP_SERVER_MERGED) != -1) {
 			dateString = null;
@@ -787,14 +797,14 @@ public class ResourceSyncInfo {
 		}
 		
 		if(dateString==null || "".equals(dateString)) { //$NON-NLS-1$
-			return null;	
+			return false;	
 		} else {
 			try {	
-				return CVSDateFormatter.entryLineToDate(dateString);
+				return CVSDateFormatter.entryLineToMillis(dateString) == fileTimestamp;
 			} catch(ParseException e) {
 				// something we don't understand, just make this sync have no timestamp and
 				// never be in sync with the server.
-				return null;
+				return false;
 			}
 		}
 	}
@@ -825,11 +835,7 @@ public class ResourceSyncInfo {
 	 * @return String
 	 */
 	public static byte[] getTagBytes(byte[] syncBytes) throws CVSException {
-		byte[] tag = Util.getBytesForSlot(syncBytes, SEPARATOR_BYTE, 5, true);
-		if (tag == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		return tag;
+		return new ResourceSyncBytes(syncBytes).getTagBytes();
 	}
 	
 	/**
@@ -869,15 +875,7 @@ public class ResourceSyncInfo {
 	 * @see #LOCKEDBY_REGEX
 	 */
 	public static String getRevision(byte[] syncBytes) throws CVSException {
-		String revision = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 2, false);
-		if (revision == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		if(revision.startsWith(DELETED_PREFIX)) {
-			revision = revision.substring(DELETED_PREFIX.length());
-		}
-		revision = revision.replaceFirst(LOCKEDBY_REGEX, ""); //$NON-NLS-1$
-		return revision;
+		return new ResourceSyncBytes(syncBytes).getRevision();
 	}
 
 	/**
@@ -896,12 +894,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean isMerge(byte[] syncBytes) throws CVSException {
-		String timestamp = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 3, false);
-		if (timestamp == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		int syncType = getSyncType(timestamp);
-		return syncType == TYPE_MERGED || syncType == TYPE_MERGED_WITH_CONFLICTS;
+		return new ResourceSyncBytes(syncBytes).isMerge();
 	}
 
 	/**
@@ -912,15 +905,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean wasDeleted(byte[] syncBytes) throws CVSException {
-		String timestamp = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 3,
-				false);
-		if (timestamp == null) {
-			throw new CVSException(NLS.bind(
-					CVSMessages.ResourceSyncInfo_malformedSyncBytes,
-					new String[] { new String(syncBytes) }));
-		}
-		int syncType = getSyncType(timestamp);
-		return syncType == TYPE_DELETED_AND_RESTORED;
+		return new ResourceSyncBytes(syncBytes).wasDeleted();
 	}
 
 	/**
@@ -929,12 +914,7 @@ public class ResourceSyncInfo {
 	 * @return boolean
 	 */
 	public static boolean isMergedWithConflicts(byte[] syncBytes) throws CVSException {
-		String timestamp = Util.getSubstring(syncBytes, SEPARATOR_BYTE, 3, false);
-		if (timestamp == null) {
-			throw new CVSException(NLS.bind(CVSMessages.ResourceSyncInfo_malformedSyncBytes, new String[] { new String(syncBytes) })); 
-		}
-		int syncType = getSyncType(timestamp);
-		return syncType == TYPE_MERGED_WITH_CONFLICTS;
+		return new ResourceSyncBytes(syncBytes).isMergedWithConflicts();
 	}
 	
 	
@@ -12,9 +12,7 @@ package org.eclipse.team.internal.ccvs.core.util;
 
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Locale;
 import java.util.TimeZone;
 
 /**
@@ -22,80 +20,341 @@ import java.util.TimeZone;
  * required in the Entry file is ISO C asctime() function (Sun Apr  7 01:29:26 1996).
  * <p>
  * To be compatible with asctime(), the day field in the entryline format is
- * padded with a space and not a zero. Most other CVS clients use string comparison 
+ * padded with a space and not a zero. Most other CVS clients use string comparison
  * for timestamps based on the result of the C function asctime().
  * </p>
+ * <p>
+ * The timestamps are parsed and formatted by hand into epoch milliseconds. No
+ * shared <code>DateFormat</code> is involved so all methods can be called
+ * concurrently without locking.
+ * </p>
  */
 public class CVSDateFormatter {
-	
-	private static final String ENTRYLINE_FORMAT = "E MMM dd HH:mm:ss yyyy"; //$NON-NLS-1$
-	private static final String SERVER_FORMAT = "dd MMM yyyy HH:mm:ss";//$NON-NLS-1$
-	private static final int ENTRYLINE_TENS_DAY_OFFSET = 8;
-	
-	private static final SimpleDateFormat serverFormat = new SimpleDateFormat(SERVER_FORMAT, Locale.US);
-	private static SimpleDateFormat entryLineFormat = new SimpleDateFormat(ENTRYLINE_FORMAT, Locale.US);
-	
-	static {
-		entryLineFormat.setTimeZone(TimeZone.getTimeZone("GMT")); //$NON-NLS-1$
-	}
-	static synchronized public Date serverStampToDate(String text) throws ParseException {
-		serverFormat.setTimeZone(getTimeZone(text));
-		Date date = serverFormat.parse(text);
-		return date;
-	}
-	
-	static synchronized public Date entryLineToDate(String text) throws ParseException {
-		try {
-			if (text.charAt(ENTRYLINE_TENS_DAY_OFFSET) == ' ') {
-				StringBuffer buf = new StringBuffer(text);
-				buf.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, '0');
-				text = buf.toString();
-			}
-		} catch (StringIndexOutOfBoundsException e) {
-			throw new ParseException(e.getMessage(), ENTRYLINE_TENS_DAY_OFFSET);
-		}
-		return entryLineFormat.parse(text);
+
+	private static final String[] MONTHS = {
+		"Jan", "Feb", "Mar", "Apr", "May", "Jun", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		"Jul", "Aug", "Sep", "Oct", "Nov", "Dec" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	};
+
+	// index 0 is Sunday
+	private static final String[] DAYS = {
+		"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+	};
+
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+	private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+	private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+	public static Date serverStampToDate(String text) throws ParseException {
+		return new Date(serverStampToMillis(text));
+	}
+
+	public static Date entryLineToDate(String text) throws ParseException {
+		return new Date(entryLineToMillis(text));
 	}
 
-	static synchronized public String dateToEntryLine(Date date) {
+	public static String dateToEntryLine(Date date) {
 		if (date == null) return ""; //$NON-NLS-1$
-		String passOne = entryLineFormat.format(date);
-		if (passOne.charAt(ENTRYLINE_TENS_DAY_OFFSET) != '0') return passOne;
-		StringBuffer passTwo = new StringBuffer(passOne);
-		passTwo.setCharAt(ENTRYLINE_TENS_DAY_OFFSET, ' ');
-		return passTwo.toString();
-	}
-	
-	static synchronized public String dateToNotifyServer(Date date) {
-		serverFormat.setTimeZone(TimeZone.getTimeZone("GMT"));//$NON-NLS-1$
-		return serverFormat.format(date) + " GMT"; //$NON-NLS-1$
-	}
-	
+		return millisToEntryLine(date.getTime());
+	}
+
+	public static String dateToNotifyServer(Date date) {
+		return millisToServerStamp(date.getTime()) + " GMT"; //$NON-NLS-1$
+	}
+
+	/**
+	 * Parse an entry line timestamp (e.g. <code>Sun Apr  7 01:29:26 1996</code>).
+	 * The day of the month may be padded with a space or a zero. Entry line
+	 * timestamps are always in GMT.
+	 *
+	 * @param text the entry line timestamp
+	 * @return the timestamp in milliseconds since the epoch
+	 * @throws ParseException if the text is not an entry line timestamp
+	 */
+	public static long entryLineToMillis(String text) throws ParseException {
+		Scanner scanner = new Scanner(text);
+		scanner.skipWord(); // the day of the week is redundant
+		scanner.skipSpaces();
+		int month = scanner.nextMonth();
+		scanner.skipSpaces();
+		int day = scanner.nextNumber();
+		scanner.skipSpaces();
+		long time = scanner.nextTime();
+		scanner.skipSpaces();
+		int year = scanner.nextNumber();
+		return toMillis(year, month, day) + time;
+	}
+
+	/**
+	 * Parse a timestamp as sent by the server in a <code>Mod-time</code> response
+	 * (e.g. <code>18 Oct 2002 13:02:45 -0000</code>). The time zone is optional
+	 * and defaults to GMT.
+	 *
+	 * @param text the server timestamp
+	 * @return the timestamp in milliseconds since the epoch
+	 * @throws ParseException if the text is not a server timestamp
+	 */
+	public static long serverStampToMillis(String text) throws ParseException {
+		Scanner scanner = new Scanner(text);
+		scanner.skipSpaces();
+		int day = scanner.nextNumber();
+		scanner.skipSpaces();
+		int month = scanner.nextMonth();
+		scanner.skipSpaces();
+		int year = scanner.nextNumber();
+		scanner.skipSpaces();
+		long time = scanner.nextTime();
+		long local = toMillis(year, month, day) + time;
+		return local - scanner.nextZoneOffset(local);
+	}
+
+	/**
+	 * Parse a timestamp as found in the output of the <code>log</code> command
+	 * (e.g. <code>2000/06/19 04:56:21 GMT</code> or, for servers 1.12.9 and later,
+	 * <code>2005-03-10 14:41:24 +0000</code>). The time zone is optional and defaults
+	 * to GMT.
+	 *
+	 * @param text the log timestamp
+	 * @return the timestamp in milliseconds since the epoch
+	 * @throws ParseException if the text is not a log timestamp
+	 */
+	public static long logStampToMillis(String text) throws ParseException {
+		Scanner scanner = new Scanner(text);
+		scanner.skipSpaces();
+		int year = scanner.nextNumber();
+		scanner.expectDateSeparator();
+		int month = scanner.nextNumber() - 1;
+		scanner.expectDateSeparator();
+		int day = scanner.nextNumber();
+		scanner.skipSpaces();
+		long time = scanner.nextTime();
+		long local = toMillis(year, month, day) + time;
+		return local - scanner.nextZoneOffset(local);
+	}
+
+	/**
+	 * Format the given time in the entry line format with the day of the month
+	 * padded with a space (e.g. <code>Sun Apr  7 01:29:26 1996</code>).
+	 *
+	 * @param millis the time in milliseconds since the epoch
+	 * @return the entry line timestamp
+	 */
+	public static String millisToEntryLine(long millis) {
+		long days = floorDiv(millis, MILLIS_PER_DAY);
+		int[] civil = toCivil(days);
+		StringBuffer buffer = new StringBuffer(24);
+		buffer.append(DAYS[(int)floorMod(days + 4, 7)]); // 1970-01-01 was a Thursday
+		buffer.append(' ');
+		buffer.append(MONTHS[civil[1]]);
+		buffer.append(' ');
+		if (civil[2] < 10) buffer.append(' ');
+		buffer.append(civil[2]);
+		buffer.append(' ');
+		appendTime(buffer, millis - days * MILLIS_PER_DAY);
+		buffer.append(' ');
+		appendPadded(buffer, civil[0], 4);
+		return buffer.toString();
+	}
+
+	/**
+	 * Format the given time as the date of an annotate line in GMT
+	 * (e.g. <code>07-Apr-96</code>).
+	 *
+	 * @param millis the time in milliseconds since the epoch
+	 * @return the annotate date
+	 */
+	public static String millisToAnnotateDate(long millis) {
+		long days = floorDiv(millis, MILLIS_PER_DAY);
+		int[] civil = toCivil(days);
+		StringBuffer buffer = new StringBuffer(9);
+		appendPadded(buffer, civil[2], 2);
+		buffer.append('-');
+		buffer.append(MONTHS[civil[1]]);
+		buffer.append('-');
+		appendPadded(buffer, (int)floorMod(civil[0], 100), 2);
+		return buffer.toString();
+	}
+
+	/*
+	 * Format the given time in the GMT server format (e.g. 07 Apr 1996 01:29:26)
+	 */
+	private static String millisToServerStamp(long millis) {
+		long days = floorDiv(millis, MILLIS_PER_DAY);
+		int[] civil = toCivil(days);
+		StringBuffer buffer = new StringBuffer(20);
+		appendPadded(buffer, civil[2], 2);
+		buffer.append(' ');
+		buffer.append(MONTHS[civil[1]]);
+		buffer.append(' ');
+		appendPadded(buffer, civil[0], 4);
+		buffer.append(' ');
+		appendTime(buffer, millis - days * MILLIS_PER_DAY);
+		return buffer.toString();
+	}
+
+	private static void appendTime(StringBuffer buffer, long millisOfDay) {
+		int seconds = (int)(millisOfDay / MILLIS_PER_SECOND);
+		appendPadded(buffer, seconds / 3600, 2);
+		buffer.append(':');
+		appendPadded(buffer, (seconds / 60) % 60, 2);
+		buffer.append(':');
+		appendPadded(buffer, seconds % 60, 2);
+	}
+
+	private static void appendPadded(StringBuffer buffer, int value, int width) {
+		String digits = Integer.toString(value);
+		for (int i = digits.length(); i < width; i++) {
+			buffer.append('0');
+		}
+		buffer.append(digits);
+	}
+
+	/*
+	 * Return the milliseconds at midnight GMT of the given date. The month is zero based.
+	 * Out of range days roll over into the following months as with a lenient calendar.
+	 */
+	private static long toMillis(int year, int month, int day) {
+		// Shift the year to start in March so that the leap day is the last day of the year
+		int m = month + 1;
+		long y = m <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yearOfEra = y - era * 400;
+		long dayOfYear = (153 * (m > 2 ? m - 3 : m + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		long days = era * 146097 + dayOfEra - 719468;
+		return days * MILLIS_PER_DAY;
+	}
+
+	/*
+	 * Return the year, zero based month and day of month of the given day since the epoch.
+	 */
+	private static int[] toCivil(long days) {
+		long z = days + 719468;
+		long era = (z >= 0 ? z : z - 146096) / 146097;
+		long dayOfEra = z - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long mp = (5 * dayOfYear + 2) / 153;
+		int day = (int)(dayOfYear - (153 * mp + 2) / 5 + 1);
+		int month = (int)(mp < 10 ? mp + 2 : mp - 10);
+		int year = (int)(yearOfEra + era * 400 + (month <= 1 ? 1 : 0));
+		return new int[] { year, month, day };
+	}
+
+	private static long floorDiv(long x, long y) {
+		long result = x / y;
+		if ((x % y != 0) && ((x < 0) != (y < 0))) result--;
+		return result;
+	}
+
+	private static long floorMod(long x, long y) {
+		return x - floorDiv(x, y) * y;
+	}
+
 	/*
-	 * Converts timezone text from date string from CVS server and
-	 * returns a timezone representing the received timezone.
-	 * Timezone string is of the following format: [-|+]MMSS
+	 * Cursor over a timestamp string. Each instance is confined to a single parse.
 	 */
-	static private TimeZone getTimeZone(String dateFromServer) {
-	    if (dateFromServer.lastIndexOf("0000") != -1)  //$NON-NLS-1$
-	        return TimeZone.getTimeZone("GMT");//$NON-NLS-1$ 
-		String tz = null;
-		StringBuffer resultTz = new StringBuffer("GMT");//$NON-NLS-1$
-		if (dateFromServer.indexOf("-") != -1) {//$NON-NLS-1$
-			resultTz.append("-");//$NON-NLS-1$
-			tz = dateFromServer.substring(dateFromServer.indexOf("-"));//$NON-NLS-1$
-		} else if (dateFromServer.indexOf("+") != -1) {//$NON-NLS-1$
-			resultTz.append('+');
-			tz = dateFromServer.substring(dateFromServer.indexOf("+"));//$NON-NLS-1$
+	private static class Scanner {
+		private final String text;
+		private int position;
+
+		Scanner(String text) {
+			this.text = text;
+		}
+
+		private ParseException error() {
+			return new ParseException("Unparseable date: \"" + text + "\"", position); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		private boolean atEnd() {
+			return position >= text.length();
+		}
+
+		void skipSpaces() {
+			while (!atEnd() && text.charAt(position) == ' ') position++;
+		}
+
+		void skipWord() throws ParseException {
+			int start = position;
+			while (!atEnd() && Character.isLetter(text.charAt(position))) position++;
+			if (position == start) throw error();
+		}
+
+		void expectDateSeparator() throws ParseException {
+			if (atEnd()) throw error();
+			char c = text.charAt(position);
+			if (c != '/' && c != '-') throw error();
+			position++;
+		}
+
+		void expect(char expected) throws ParseException {
+			if (atEnd() || text.charAt(position) != expected) throw error();
+			position++;
 		}
-		try {
-			if(tz!=null) {
-				resultTz.append(tz.substring(1, 3) /*hours*/ + ":" + tz.substring(3, 5) /*minutes*/);//$NON-NLS-1$
-				return TimeZone.getTimeZone(resultTz.toString());
+
+		int nextNumber() throws ParseException {
+			int start = position;
+			int value = 0;
+			while (!atEnd()) {
+				char c = text.charAt(position);
+				if (c < '0' || c > '9') break;
+				if (position - start >= 9) throw error();
+				value = value * 10 + (c - '0');
+				position++;
+			}
+			if (position == start) throw error();
+			return value;
+		}
+
+		int nextMonth() throws ParseException {
+			int start = position;
+			skipWord();
+			if (position - start >= 3) {
+				for (int i = 0; i < MONTHS.length; i++) {
+					if (text.regionMatches(true, start, MONTHS[i], 0, 3)) {
+						return i;
+					}
+				}
+			}
+			position = start;
+			throw error();
+		}
+
+		/*
+		 * Parse HH:mm:ss and return it in milliseconds
+		 */
+		long nextTime() throws ParseException {
+			int hours = nextNumber();
+			expect(':');
+			int minutes = nextNumber();
+			expect(':');
+			int seconds = nextNumber();
+			return hours * MILLIS_PER_HOUR + minutes * MILLIS_PER_MINUTE + seconds * MILLIS_PER_SECOND;
+		}
+
+		/*
+		 * Parse an optional time zone of the form [-|+]HHMM or a time zone id
+		 * and return its offset from GMT in milliseconds.
+		 */
+		long nextZoneOffset(long localMillis) throws ParseException {
+			skipSpaces();
+			if (atEnd()) return 0;
+			char c = text.charAt(position);
+			if (c == '+' || c == '-') {
+				position++;
+				int start = position;
+				int value = nextNumber();
+				if (position - start != 4) throw error();
+				long offset = (value / 100) * MILLIS_PER_HOUR + (value % 100) * MILLIS_PER_MINUTE;
+				return c == '-' ? -offset : offset;
 			}
-		} catch(IndexOutOfBoundsException e) {
-			return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
+			int start = position;
+			while (!atEnd() && text.charAt(position) != ' ') position++;
+			String id = text.substring(start, position);
+			if (id.equals("GMT") || id.equals("UTC")) return 0; //$NON-NLS-1$ //$NON-NLS-2$
+			TimeZone zone = TimeZone.getTimeZone(id);
+			return zone.getOffset(localMillis - zone.getRawOffset());
 		}
-		return TimeZone.getTimeZone("GMT");//$NON-NLS-1$
 	}
 }
@@ -11,19 +11,29 @@
 package org.eclipse.team.internal.ccvs.core.util;
 
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 import org.eclipse.core.runtime.Assert;
 
 /**
  * A FileNameMatcher associates a String with a String pattern.
+ * <p>
+ * Patterns without wildcards and patterns of the form <code>*.ext</code>
+ * are looked up by name and by extension so their cost does not depend on
+ * the number of registered patterns. Only the other patterns are matched
+ * one by one. When several patterns match a name, the result of the pattern
+ * registered first is returned.
  */
 public class FileNameMatcher {
 	
 	private List matchers = new ArrayList();
+	private List matcherIndexes = new ArrayList();
 	private List results = new ArrayList();
+	// Map of name or extension (including the dot) to the index of the first pattern registered for it
+	private Map names = new HashMap();
+	private Map extensions = new HashMap();
 	private static final String TRUE = "true"; //$NON-NLS-1$
+	private static final String WILDCARDS = "*?[\\"; //$NON-NLS-1$
 	
 	public FileNameMatcher() {
 	}
@@ -40,7 +50,7 @@ public class FileNameMatcher {
 	
 	public void register(String pattern, String result) {
 		
-		Assert.isTrue(matchers.size() == results.size());
+		Assert.isTrue(matchers.size() == matcherIndexes.size());
 		
 		pattern = pattern.trim();
 		
@@ -50,22 +60,60 @@ public class FileNameMatcher {
 			return;
 		}
 	
-		matchers.add(new StringMatcher(pattern,false,false));
+		Integer index = new Integer(results.size());
 		results.add(result);
-		
+		if (isLiteral(pattern, 0)) {
+			if (!names.containsKey(pattern))
+				names.put(pattern, index);
+		} else if (pattern.startsWith("*.") && pattern.indexOf('.', 2) == -1 && isLiteral(pattern, 1)) { //$NON-NLS-1$
+			String extension = pattern.substring(1);
+			if (!extensions.containsKey(extension))
+				extensions.put(extension, index);
+		} else {
+			matchers.add(new StringMatcher(pattern,false,false));
+			matcherIndexes.add(index);
+		}
+	}
+	
+	private static boolean isLiteral(String pattern, int start) {
+		for (int i = start; i < pattern.length(); i++) {
+			if (WILDCARDS.indexOf(pattern.charAt(i)) != -1)
+				return false;
+		}
+		return true;
 	}
 	
 	public String getMatch(String name) {
-		StringMatcher stringMatcher;
+		int match = Integer.MAX_VALUE;
 		
+		Integer index = (Integer)names.get(name);
+		if (index != null) {
+			match = index.intValue();
+		}
+		int dot = name.lastIndexOf('.');
+		if (dot != -1) {
+			index = (Integer)extensions.get(name.substring(dot));
+			if (index != null) {
+				match = Math.min(match, index.intValue());
+			}
+		}
+		
+		// Only patterns registered before the one found so far can take precedence
 		for (int i = 0; i < matchers.size(); i++) {
-			stringMatcher = (StringMatcher) matchers.get(i);
-			if (stringMatcher.match(name)) {
-				return (String)results.get(i);
+			int matcherIndex = ((Integer)matcherIndexes.get(i)).intValue();
+			if (matcherIndex > match) {
+				break;
+			}
+			if (((StringMatcher) matchers.get(i)).match(name)) {
+				match = matcherIndex;
+				break;
 			}
 		}
 		
-		return null;
+		if (match == Integer.MAX_VALUE) {
+			return null;
+		}
+		return (String)results.get(match);
 	}
 	
 	public boolean match(String name) {
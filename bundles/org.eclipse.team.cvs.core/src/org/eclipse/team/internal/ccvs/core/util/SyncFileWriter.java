@@ -56,11 +56,17 @@ public class SyncFileWriter {
 	
 	// Command characters found in the Entries.log file
 	private static final String ADD_TAG="A "; //$NON-NLS-1$
-	private static final String REMOVE_TAG="R "; //$NON-NLS-1$	
+	private static final String REMOVE_TAG="R "; //$NON-NLS-1$
+	
+	// The maximum number of lines appended to Entries.log before Entries is rewritten
+	private static final int MAX_ENTRIES_LOG_LINES = 64;	
 	
 	// key for saving the mod stamp for each written meta file
 	public static final QualifiedName MODSTAMP_KEY = new QualifiedName("org.eclipse.team.cvs.core", "meta-file-modtime"); //$NON-NLS-1$ //$NON-NLS-2$
 	
+	// key for saving the number of lines of an Entries.log file written by us
+	private static final QualifiedName LOG_SIZE_KEY = new QualifiedName("org.eclipse.team.cvs.core", "entries-log-size"); //$NON-NLS-1$ //$NON-NLS-2$
+	
 	/**
 	 * Reads the CVS/Entries, CVS/Entries.log and CVS/Permissions files from the
 	 * specified folder and returns ResourceSyncInfo instances for the data stored therein.
@@ -122,6 +128,39 @@ public class SyncFileWriter {
 		return result;
 	}
 	
+	/*
+	 * Return the lines to append to Entries.log for the given changes, an empty
+	 * array if nothing changed or null if Entries should be rewritten instead.
+	 * Entries is rewritten if the changes are not known, if a large part of the
+	 * entries changed or if the log would grow beyond MAX_ENTRIES_LOG_LINES lines.
+	 */
+	private static String[] getEntriesLogChanges(byte[][] diskInfos, byte[][] changedInfos, int logSize, int entryCount) {
+		if (diskInfos == null || changedInfos == null || logSize == -1) return null;
+		List changes = new ArrayList();
+		for (int i = 0; i < diskInfos.length; i++) {
+			if (Arrays.equals(diskInfos[i], changedInfos[i])) continue;
+			if (changedInfos[i] != null) {
+				changes.add(ADD_TAG + new String(changedInfos[i]));
+			} else {
+				changes.add(REMOVE_TAG + new String(diskInfos[i]));
+			}
+		}
+		if (changes.isEmpty()) return new String[0];
+		if (changes.size() * 2 > entryCount || logSize + changes.size() > MAX_ENTRIES_LOG_LINES) return null;
+		return (String[]) changes.toArray(new String[changes.size()]);
+	}
+	
+	/*
+	 * Return the number of lines of Entries.log or -1 if it is not known
+	 * without reading the file, which is the case if it was not written by us.
+	 */
+	private static int getEntriesLogSize(IFile entriesLogFile) throws CoreException {
+		if (!entriesLogFile.exists()) return 0;
+		if (!isWrittenByUs(entriesLogFile)) return -1;
+		Integer size = (Integer)entriesLogFile.getSessionProperty(LOG_SIZE_KEY);
+		return size == null ? -1 : size.intValue();
+	}
+	
 	private static boolean folderExists(IFolder cvsSubDir) throws CVSException {
 	    try {
 	    	URI uri = cvsSubDir.getLocationURI();
@@ -138,24 +177,66 @@ public class SyncFileWriter {
 	}
 
 	public static void writeAllResourceSync(IContainer parent, byte[][] infos) throws CVSException {
+		writeAllResourceSync(parent, infos, null, null);
+	}
+
+	/**
+	 * Write the sync info of the children of the given folder. The given changes
+	 * describe how the sync info differs from the meta files on disk. Small
+	 * changes are appended to Entries.log instead of rewriting Entries.
+	 * 
+	 * @param parent the folder
+	 * @param infos the sync bytes of all the children with sync info
+	 * @param diskInfos the sync bytes on disk of the changed children or
+	 * <code>null</code> if they are not known, in which case Entries is rewritten
+	 * @param changedInfos the sync bytes of the changed children, in the same
+	 * order as the bytes on disk. An element is <code>null</code> if the child
+	 * has no sync info.
+	 * @throws CVSException
+	 */
+	public static void writeAllResourceSync(IContainer parent, byte[][] infos, byte[][] diskInfos, byte[][] changedInfos) throws CVSException {
 		try {
 			if (Policy.DEBUG_METAFILE_CHANGES) {
 				System.out.println("Writing Entries file for folder " + parent.getFullPath()); //$NON-NLS-1$
 			}
 			IFolder cvsSubDir = createCVSSubdirectory(parent);
 
-			// format file contents
-			String[] entries = new String[infos.length];
-			for (int i = 0; i < infos.length; i++) {
-				byte[] info = infos[i];
-				entries[i] = new String(info);
+			IFile entriesFile = cvsSubDir.getFile(ENTRIES);
+			IFile entriesLogFile = cvsSubDir.getFile(ENTRIES_LOG);
+			int logSize = getEntriesLogSize(entriesLogFile);
+			String[] changes = null;
+			if (entriesFile.exists()) {
+				changes = getEntriesLogChanges(diskInfos, changedInfos, logSize, infos.length);
 			}
+			if (changes == null) {
+				// format file contents
+				String[] entries = new String[infos.length];
+				for (int i = 0; i < infos.length; i++) {
+					byte[] info = infos[i];
+					entries[i] = new String(info);
+				}
 
-			// write Entries
-			writeLines(cvsSubDir.getFile(ENTRIES), entries);
+				// write Entries
+				writeLines(entriesFile, entries);
 
-			// delete Entries.log
-			cvsSubDir.getFile(ENTRIES_LOG).delete(IResource.NONE, null);
+				// clear Entries.log
+				if (entriesLogFile.exists()) {
+					if (!isWrittenByUs(entriesLogFile)) {
+						entriesLogFile.delete(IResource.NONE, null);
+					} else if (logSize != 0) {
+						// Deleting a log appended to by us would be reported as a 3rd
+						// party change by the SyncFileChangeListener so truncate it instead
+						writeLines(entriesLogFile, new String[0]);
+						entriesLogFile.setSessionProperty(LOG_SIZE_KEY, new Integer(0));
+					}
+				}
+			} else if (changes.length > 0) {
+				if (Policy.DEBUG_METAFILE_CHANGES) {
+					System.out.println("Appending to Entries.log file for folder " + parent.getFullPath()); //$NON-NLS-1$
+				}
+				appendLines(entriesLogFile, changes);
+				entriesLogFile.setSessionProperty(LOG_SIZE_KEY, new Integer(logSize + changes.length));
+			}
 		} catch(CoreException e) {
 			throw CVSException.wrapException(e);
 		}
@@ -166,6 +247,17 @@ public class SyncFileWriter {
 	 * If the folder does not have a CVS subdirectory then <code>null</code> is returned.
 	 */
 	public static FolderSyncInfo readFolderSync(IContainer folder) throws CVSException {
+		return readFolderSync(folder, true);
+	}
+	
+	/**
+	 * Reads the folder sync info of the specified folder. If <code>hideCVSSubdirectory</code>
+	 * is <code>false</code>, the CVS subdirectory is not marked as team-private so the
+	 * files can be read without modifying the workspace (e.g. from a thread that does
+	 * not own the workspace lock). The caller is then responsible for invoking
+	 * {@link #hideCVSSubdirectory(IContainer)}.
+	 */
+	public static FolderSyncInfo readFolderSync(IContainer folder, boolean hideCVSSubdirectory) throws CVSException {
 		IFolder cvsSubDir = getCVSSubdirectory(folder);
 		
         if (!folderExists(cvsSubDir)){
@@ -176,13 +268,8 @@ public class SyncFileWriter {
 			System.out.println("Reading Root/Repository files for " + folder.getFullPath()); //$NON-NLS-1$
 		}
 		
-		// check to make sure the the cvs folder is hidden
-		if (!cvsSubDir.isTeamPrivateMember() && cvsSubDir.exists()) {
-			try {
-				cvsSubDir.setTeamPrivateMember(true);
-			} catch (CoreException e) {
-				CVSProviderPlugin.log(e);
-			}
+		if (hideCVSSubdirectory) {
+			hideCVSSubdirectory(cvsSubDir);
 		}
 				
 		// read CVS/Root
@@ -223,10 +310,10 @@ public class SyncFileWriter {
 			IFolder cvsSubDir = createCVSSubdirectory(folder);
 	
 			// write CVS/Root
-			writeLines(cvsSubDir.getFile(ROOT), new String[] {info.getRoot()});
+			writeLinesIfChanged(cvsSubDir.getFile(ROOT), new String[] {info.getRoot()});
 			
 			// write CVS/Repository
-			writeLines(cvsSubDir.getFile(REPOSITORY), new String[] {info.getRepository()});
+			writeLinesIfChanged(cvsSubDir.getFile(REPOSITORY), new String[] {info.getRepository()});
 			
 			// write CVS/Tag
 			IFile tagFile = cvsSubDir.getFile(TAG);
@@ -234,7 +321,7 @@ public class SyncFileWriter {
 				if (Policy.DEBUG_METAFILE_CHANGES) {
 					System.out.println("Writing Tag file for " + folder.getFullPath()); //$NON-NLS-1$
 				}
-				writeLines(tagFile, new String[] {info.getTag().toEntryLineFormat(false)});
+				writeLinesIfChanged(tagFile, new String[] {info.getTag().toEntryLineFormat(false)});
 			} else {
 				if(tagFile.exists()) {
 					if (Policy.DEBUG_METAFILE_CHANGES) {
@@ -251,7 +338,9 @@ public class SyncFileWriter {
 				if (Policy.DEBUG_METAFILE_CHANGES) {
 					System.out.println("Writing Static file for " + folder.getFullPath()); //$NON-NLS-1$
 				}
-				writeLines(staticFile, new String[] {""}); //$NON-NLS-1$
+				if (!staticFile.exists()) {
+					writeLines(staticFile, new String[] {""}); //$NON-NLS-1$
+				}
 			} else {
 				if(staticFile.exists()) {
 					if (Policy.DEBUG_METAFILE_CHANGES) {
@@ -438,6 +527,43 @@ public class SyncFileWriter {
 		return folder.getFolder(new Path(CVS_DIRNAME));
 	}
 	
+	/**
+	 * Makes sure the CVS subdirectory of the given folder, if it exists,
+	 * is marked as team-private.
+	 */
+	public static void hideCVSSubdirectory(IContainer folder) {
+		hideCVSSubdirectory(getCVSSubdirectory(folder));
+	}
+	
+	private static void hideCVSSubdirectory(IFolder cvsSubDir) {
+		// check to make sure the the cvs folder is hidden
+		if (!cvsSubDir.isTeamPrivateMember() && cvsSubDir.exists()) {
+			try {
+				cvsSubDir.setTeamPrivateMember(true);
+			} catch (CoreException e) {
+				CVSProviderPlugin.log(e);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the modification stamps of the meta files that are read by
+	 * {@link #readAllResourceSync(IContainer)} and {@link #readFolderSync(IContainer)}.
+	 * Comparing the stamps taken before and after a read allows callers to
+	 * detect whether the meta files changed in the meantime.
+	 */
+	public static long[] getMetaFileStamps(IContainer folder) {
+		IFolder cvsSubDir = getCVSSubdirectory(folder);
+		return new long[] {
+			cvsSubDir.getFile(ENTRIES).getModificationStamp(),
+			cvsSubDir.getFile(ENTRIES_LOG).getModificationStamp(),
+			cvsSubDir.getFile(ROOT).getModificationStamp(),
+			cvsSubDir.getFile(REPOSITORY).getModificationStamp(),
+			cvsSubDir.getFile(TAG).getModificationStamp(),
+			cvsSubDir.getFile(STATIC).getModificationStamp()
+		};
+	}
+	
 	/**
 	 * Creates and makes team-private and returns a CVS subdirectory in this folder.
 	 */
@@ -613,6 +739,51 @@ public class SyncFileWriter {
 		}
 	}
 	
+	/*
+	 * Writes the lines to the specified file unless the file already contains
+	 * exactly these lines. Avoiding the write avoids the resulting delta.
+	 */
+	private static void writeLinesIfChanged(IFile file, String[] contents) throws CVSException {
+		if (!file.exists() || !Arrays.equals(contents, readLines(file))) {
+			writeLines(file, contents);
+		}
+	}
+	
+	/*
+	 * Appends the lines to the specified file, creating it if necessary. 
+	 */
+	private static void appendLines(final IFile file, final String[] contents) throws CVSException {
+		try {
+			// See writeLines for why this is done in a runnable
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				public void run(IProgressMonitor monitor) throws CoreException {
+					try {
+						ByteArrayOutputStream os = new ByteArrayOutputStream();
+						writeLinesToStreamAndClose(os, contents);
+						if(!file.exists()) {
+							file.create(new ByteArrayInputStream(os.toByteArray()), IResource.FORCE /*don't keep history but do force*/, null);
+						} else {
+							file.appendContents(new ByteArrayInputStream(os.toByteArray()), IResource.FORCE /*don't keep history but do force*/, null);
+						}			
+						file.setSessionProperty(MODSTAMP_KEY, new Long(file.getModificationStamp()));
+					} catch(CVSException e) {
+						throw new CoreException(e.getStatus());
+					}
+				}
+			}, ResourcesPlugin.getWorkspace().getRuleFactory().createRule(file), 0, null);
+		} catch (CoreException e) {
+			throw CVSException.wrapException(e);
+		}
+	}
+	
+	/*
+	 * Return whether the file was last written by this class.
+	 */
+	private static boolean isWrittenByUs(IFile file) throws CoreException {
+		Long whenWeWrote = (Long)file.getSessionProperty(MODSTAMP_KEY);
+		return whenWeWrote != null && whenWeWrote.longValue() == file.getModificationStamp();
+	}
+	
 	private static void writeLinesToStreamAndClose(OutputStream os, String[] contents) throws CVSException {
 		byte[] lineEnd = getLineDelimiter();
 		try {
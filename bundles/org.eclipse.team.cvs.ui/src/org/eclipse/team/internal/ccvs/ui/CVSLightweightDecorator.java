@@ -28,6 +28,7 @@ import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncBytes;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
@@ -367,10 +368,12 @@ public class CVSLightweightDecorator extends LabelProvider implements ILightweig
 
 	private static void extractFileProperties(IFile resource, CVSDecoration cvsDecoration) throws CVSException {
 		ICVSFile file = CVSWorkspaceRoot.getCVSFileFor(resource);
-		ResourceSyncInfo fileInfo = file.getSyncInfo();
+		byte[] syncBytes = file.getSyncBytes();
 		KSubstOption option = KSubstOption.fromFile(resource);
-		if (fileInfo != null) {
-			cvsDecoration.setAdded(fileInfo.isAdded());
+		if (syncBytes != null) {
+			// Only decode the fields of the entry line that are shown
+			ResourceSyncBytes fileInfo = new ResourceSyncBytes(syncBytes);
+			cvsDecoration.setAdded(fileInfo.isAddition());
 			cvsDecoration.setRevision(fileInfo.getRevision());
 			cvsDecoration.setReadOnly(file.isReadOnly());
 			cvsDecoration.setNeedsMerge(fileInfo.isNeedsMerge(file.getTimeStamp()));
@@ -24,16 +24,24 @@ public class CVSTeamStateProvider extends SubscriberTeamStateProvider {
 
 	public ITeamStateDescription getStateDescription(Object element, final int requestedStateMask, String[] properties, IProgressMonitor monitor) throws CoreException {
 		if (properties != null && properties.length == 0) {
-			return new CVSTeamStateDescription(getSynchronizationState(element, requestedStateMask, monitor));
+			return new CVSTeamStateDescription(getDecoratedState(element, requestedStateMask, monitor));
 		}
 		CVSDecoration d = CVSLightweightDecorator.decorate(element, new SynchronizationStateTester() {
 			public int getState(Object element, int stateMask, IProgressMonitor monitor) throws CoreException {
 				if (requestedStateMask != USE_DECORATED_STATE_MASK) {
 					stateMask = requestedStateMask & stateMask;
 				}
-				return getSynchronizationState(element, requestedStateMask & stateMask, monitor);
+				return getDecoratedState(element, requestedStateMask & stateMask, monitor);
 			}
 		});
 		return d.asTeamStateDescription(properties);
 	}
+
+	/*
+	 * Return the state used to decorate the element. The state of resources
+	 * is answered from the cache of the superclass.
+	 */
+	private int getDecoratedState(Object element, int stateMask, IProgressMonitor monitor) throws CoreException {
+		return super.getStateDescription(element, stateMask, new String[0], monitor).getStateFlags();
+	}
 }
@@ -33,7 +33,6 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.internal.ccvs.core.*;
 import org.eclipse.team.internal.ccvs.core.client.*;
-import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
 import org.eclipse.team.internal.ccvs.core.client.listeners.AnnotateListener;
 import org.eclipse.team.internal.ccvs.core.connection.CVSServerException;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
@@ -73,12 +72,15 @@ public class ShowAnnotationOperation extends CVSOperation {
     	
 		monitor.beginTask(null, 100);
 
+		// Get the log entries first so the annotations can be derived from those of an older revision
+		final Map logEntriesByRevision= getLogEntriesByRevision(Policy.subMonitorFor(monitor, 20));
+
 		// Get the annotations from the repository.
 		final AnnotateListener listener= new AnnotateListener();
-		fetchAnnotation(listener, fCVSResource, fRevision, Policy.subMonitorFor(monitor, 80));
+		fetchAnnotation(listener, fCVSResource, fRevision, logEntriesByRevision, Policy.subMonitorFor(monitor, 80));
 
 		// this is not needed if there is no live annotate
-		final RevisionInformation information = createRevisionInformation(listener, Policy.subMonitorFor(monitor, 20));
+		final RevisionInformation information = createRevisionInformation(listener, logEntriesByRevision);
 
 		// Open the view and display it from the UI thread.
 		final Display display= getPart().getSite().getShell().getDisplay();
@@ -153,7 +155,7 @@ public class ShowAnnotationOperation extends CVSOperation {
         return null;
 	}
 
-	private void fetchAnnotation(AnnotateListener listener, ICVSResource cvsResource, String revision, IProgressMonitor monitor) throws CVSException {
+	private void fetchAnnotation(AnnotateListener listener, ICVSResource cvsResource, String revision, Map logEntriesByRevision, IProgressMonitor monitor) throws CVSException {
     
         monitor = Policy.monitorFor(monitor);
         monitor.beginTask(null, 100);
@@ -168,14 +170,7 @@ public class ShowAnnotationOperation extends CVSOperation {
             final Command.QuietOption quietness = CVSProviderPlugin.getPlugin().getQuietness();
             try {
                 CVSProviderPlugin.getPlugin().setQuietness(Command.VERBOSE);
-                List localOptions = new ArrayList();
-                if (revision != null) {
-                    localOptions.add(Annotate.makeRevisionOption(revision));
-                }
-                if (fBinary) {
-                    localOptions.add(Annotate.FORCE_BINARY_ANNOTATE);
-                }
-                final IStatus status = Command.ANNOTATE.execute(session, Command.NO_GLOBAL_OPTIONS, (LocalOption[]) localOptions.toArray(new LocalOption[localOptions.size()]), new ICVSResource[]{cvsResource}, listener, Policy.subMonitorFor(monitor, 90));
+                final IStatus status = AnnotationCache.getInstance().annotate(session, cvsResource, revision, fBinary, logEntriesByRevision, listener, Policy.subMonitorFor(monitor, 90));
                 if (status.getCode() == CVSStatus.SERVER_ERROR) {
                     throw new CVSServerException(status);
                 }
@@ -188,7 +183,7 @@ public class ShowAnnotationOperation extends CVSOperation {
         }
     }
 
-    private RevisionInformation createRevisionInformation(final AnnotateListener listener, IProgressMonitor monitor) throws CVSException {
+    private Map getLogEntriesByRevision(IProgressMonitor monitor) throws CVSException {
 	    Map logEntriesByRevision= new HashMap();
 		if (fCVSResource instanceof ICVSFile) {
 			try {
@@ -204,7 +199,10 @@ public class ShowAnnotationOperation extends CVSOperation {
 				throw CVSException.wrapException(e);
 			}
 		}
+		return logEntriesByRevision;
+    }
 
+    private RevisionInformation createRevisionInformation(final AnnotateListener listener, Map logEntriesByRevision) {
 		final CommitterColors colors= CommitterColors.getDefault();
 		RevisionInformation info= new RevisionInformation();
 
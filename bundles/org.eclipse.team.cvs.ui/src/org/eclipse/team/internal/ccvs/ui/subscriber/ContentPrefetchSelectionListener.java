@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ccvs.ui.subscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jface.viewers.*;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ui.Utils;
+import org.eclipse.team.ui.synchronize.ISynchronizePageConfiguration;
+
+/**
+ * Fetches the remote contents of the files selected in a synchronize page
+ * ahead of the other changed files so that they are available when the
+ * selected files are opened in a compare editor.
+ */
+public class ContentPrefetchSelectionListener implements ISelectionChangedListener {
+
+	/**
+	 * Prefetch the contents of the files selected in the page of the given
+	 * configuration until the page is disposed.
+	 * @param configuration the synchronize page configuration
+	 */
+	public static void install(final ISynchronizePageConfiguration configuration) {
+		final ContentPrefetchSelectionListener listener = new ContentPrefetchSelectionListener();
+		configuration.getSite().getSelectionProvider().addSelectionChangedListener(listener);
+		configuration.getPage().getViewer().getControl().addDisposeListener(new DisposeListener() {
+			public void widgetDisposed(DisposeEvent e) {
+				configuration.getSite().getSelectionProvider().removeSelectionChangedListener(listener);
+			}
+		});
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jface.viewers.ISelectionChangedListener#selectionChanged(org.eclipse.jface.viewers.SelectionChangedEvent)
+	 */
+	public void selectionChanged(SelectionChangedEvent event) {
+		ISelection selection = event.getSelection();
+		if (!(selection instanceof IStructuredSelection) || selection.isEmpty())
+			return;
+		IResource[] resources = Utils.getResources(((IStructuredSelection)selection).toArray());
+		List files = new ArrayList();
+		for (int i = 0; i < resources.length; i++) {
+			if (resources[i].getType() == IResource.FILE)
+				files.add(resources[i]);
+		}
+		if (!files.isEmpty()) {
+			CVSProviderPlugin.getPlugin().getCVSWorkspaceSubscriber().prefetchContents((IFile[]) files.toArray(new IFile[files.size()]));
+		}
+	}
+}
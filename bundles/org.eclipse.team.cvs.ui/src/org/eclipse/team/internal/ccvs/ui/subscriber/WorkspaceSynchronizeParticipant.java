@@ -63,6 +63,7 @@ public class WorkspaceSynchronizeParticipant extends ScopableSubscriberParticipa
 		
 		public void initialize(ISynchronizePageConfiguration configuration) {
 			super.initialize(configuration);
+			ContentPrefetchSelectionListener.install(configuration);
 			
 			updateToolbar = new WorkspaceUpdateAction(
 					configuration, 
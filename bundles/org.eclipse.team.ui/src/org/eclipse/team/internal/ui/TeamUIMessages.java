@@ -499,6 +499,8 @@ public class TeamUIMessages extends NLS {
 	public static String SynchronizeManager_19;
 	public static String SynchronizeModelProvider_0;
 	public static String SynchronizeModelUpdateHandler_0;
+	public static String TeamStateCache_0;
+	public static String TeamStateCache_1;
 
 	public static String WorkingSetsDialog_ErrorMessage;
 
@@ -523,6 +525,7 @@ public class TeamUIMessages extends NLS {
 
 	public static String CompressedFoldersModelProvider_0;
 	public static String HierarchicalModelProvider_0;
+	public static String LazyHierarchicalModelProvider_0;
 	public static String UIProjectSetSerializationContext_0;
 	public static String UIProjectSetSerializationContext_1;
     public static String UIProjectSetSerializationContext_2;
@@ -38,6 +38,8 @@ import org.eclipse.ui.IWorkbenchPage;
  * methods are only used when the site is modal so they can use the localEdition.
  */
 public class EditionHistoryPage extends LocalHistoryPage {
+	private static final LocalHistoryIndex index = new LocalHistoryIndex();
+
 	private IFile file;
 
 	private Object element;
@@ -149,12 +151,18 @@ public class EditionHistoryPage extends LocalHistoryPage {
 		if (revisions.length == 0)
 			return null;
 		sortDescending(revisions);
+		index.retainRevisions(file, revisions);
 		ITypedElement localEdition = null;
 		try {
 			localEdition = createLocalEdition(structureCreator, localFileElement, element);
+			byte[] localDigest = LocalHistoryIndex.digest(structureCreator, localEdition);
 			for (int i = 0; i < revisions.length; i++) {
 				IFileRevision revision = revisions[i];
+				// Only parse the revisions that are not known to match the local edition
+				if (isIndexedAs(file, revision, element, localDigest))
+					continue;
 				ITypedElement edition = createEdition(structureCreator, element, new FileRevisionTypedElement(revision));
+				index.setDigest(file, revision, element, edition == null ? LocalHistoryIndex.NO_ELEMENT : LocalHistoryIndex.digest(structureCreator, edition));
 				if (edition != null && !contentsEqual(structureCreator, localEdition, edition)) {
 					return edition;
 				}
@@ -229,15 +237,23 @@ public class EditionHistoryPage extends LocalHistoryPage {
 	private IFileRevision[] filterRevisions(ITypedElement localEdition, IFileRevision[] revisions,
 			IProgressMonitor monitor) {
 		ITypedElement previousEdition = localEdition;
+		byte[] previousDigest = LocalHistoryIndex.digest(structureCreator, localEdition);
 		List<IFileRevision> result = new ArrayList<IFileRevision>();
 		sortDescending(revisions);
+		index.retainRevisions(file, revisions);
 		editions.clear();
 		for (int i = 0; i < revisions.length; i++) {
 			IFileRevision revision = revisions[i];
+			// Only parse the revisions that are not known to match the previous edition
+			if (isIndexedAs(file, revision, element, previousDigest))
+				continue;
 			ITypedElement edition = createEdition(new FileRevisionTypedElement(revision));
+			byte[] digest = edition == null ? LocalHistoryIndex.NO_ELEMENT : LocalHistoryIndex.digest(structureCreator, edition);
+			index.setDigest(file, revision, element, digest);
 			if (edition != null && !contentsEqual(structureCreator, previousEdition, edition)) {
 				editions.put(revision, edition);
 				previousEdition = edition;
+				previousDigest = digest;
 				result.add(revision);
 			}
 		}
@@ -253,6 +269,17 @@ public class EditionHistoryPage extends LocalHistoryPage {
 		});
 	}
 
+	/*
+	 * Return whether the index records that the revision does not contain
+	 * the element or contains an edition with the given digest.
+	 */
+	private static boolean isIndexedAs(IFile file, IFileRevision revision, Object element, byte[] digest) {
+		byte[] indexed = index.getDigest(file, revision, element);
+		if (indexed == null)
+			return false;
+		return indexed == LocalHistoryIndex.NO_ELEMENT || (digest != null && Arrays.equals(indexed, digest));
+	}
+
 	private static boolean contentsEqual(IStructureCreator creator, ITypedElement previousEdition,
 			ITypedElement edition) {
 		if (previousEdition == null || creator == null || edition == null)
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.history;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import org.eclipse.compare.ITypedElement;
+import org.eclipse.compare.structuremergeviewer.IStructureCreator;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.team.core.history.IFileRevision;
+
+/**
+ * Remembers a digest of the contents of the sub-elements of the local
+ * history revisions of recently used files. Local history revisions do not
+ * change so a revision whose digest is known does not need to be parsed to
+ * know whether it contains a different edition of an element.
+ * <p>
+ * Files are identified by their path. The elements are only weakly referenced
+ * so that the index does not keep the elements of closed editors or views alive.
+ */
+class LocalHistoryIndex {
+
+	/**
+	 * The digest recorded for a revision that does not contain the element.
+	 */
+	public static final byte[] NO_ELEMENT = new byte[0];
+
+	/*
+	 * The number of files whose revisions are indexed
+	 */
+	private static final int MAX_FILES = 20;
+
+	// {file path -> {element (weak) -> {revision timestamp -> digest}}}
+	private final Map<IPath, Map<Object, Map<Long, byte[]>>> files = new LinkedHashMap<IPath, Map<Object, Map<Long, byte[]>>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, Map<Object, Map<Long, byte[]>>> eldest) {
+			return size() > MAX_FILES;
+		}
+	};
+
+	/**
+	 * Return the digest of the edition of the element in the given revision,
+	 * {@link #NO_ELEMENT} if the revision does not contain the element or
+	 * <code>null</code> if the revision has not been indexed for the element.
+	 * @param file the file
+	 * @param revision a local history revision of the file
+	 * @param element the element
+	 * @return the digest of the edition of the element or <code>null</code>
+	 */
+	public synchronized byte[] getDigest(IFile file, IFileRevision revision, Object element) {
+		Map<Object, Map<Long, byte[]>> elements = files.get(file.getFullPath());
+		if (elements == null)
+			return null;
+		Map<Long, byte[]> revisions = elements.get(element);
+		if (revisions == null)
+			return null;
+		return revisions.get(Long.valueOf(revision.getTimestamp()));
+	}
+
+	/**
+	 * Record the digest of the edition of the element in the given revision.
+	 * @param file the file
+	 * @param revision a local history revision of the file
+	 * @param element the element
+	 * @param digest the digest of the edition or {@link #NO_ELEMENT}. Nothing is
+	 * recorded if the digest is <code>null</code>
+	 */
+	public synchronized void setDigest(IFile file, IFileRevision revision, Object element, byte[] digest) {
+		if (digest == null)
+			return;
+		Map<Object, Map<Long, byte[]>> elements = files.get(file.getFullPath());
+		if (elements == null) {
+			elements = new WeakHashMap<Object, Map<Long, byte[]>>();
+			files.put(file.getFullPath(), elements);
+		}
+		Map<Long, byte[]> revisions = elements.get(element);
+		if (revisions == null) {
+			revisions = new HashMap<Long, byte[]>();
+			elements.put(element, revisions);
+		}
+		revisions.put(Long.valueOf(revision.getTimestamp()), digest);
+	}
+
+	/**
+	 * Forget the revisions of the file that are no longer in its local history.
+	 * @param file the file
+	 * @param revisions the local history revisions of the file
+	 */
+	public synchronized void retainRevisions(IFile file, IFileRevision[] revisions) {
+		Map<Object, Map<Long, byte[]>> elements = files.get(file.getFullPath());
+		if (elements == null)
+			return;
+		Set<Long> timestamps = new HashSet<Long>();
+		for (int i = 0; i < revisions.length; i++) {
+			timestamps.add(Long.valueOf(revisions[i].getTimestamp()));
+		}
+		for (Iterator<Map<Long, byte[]>> iter = elements.values().iterator(); iter.hasNext();) {
+			Map<Long, byte[]> indexed = iter.next();
+			indexed.keySet().retainAll(timestamps);
+		}
+	}
+
+	/**
+	 * Return a digest of the contents of the given edition.
+	 * @param creator the structure creator that created the edition
+	 * @param edition an edition or <code>null</code>
+	 * @return a digest of the contents of the edition or <code>null</code> if
+	 * the edition or its contents are not available
+	 */
+	public static byte[] digest(IStructureCreator creator, ITypedElement edition) {
+		if (creator == null || edition == null)
+			return null;
+		String contents = creator.getContents(edition, false);
+		if (contents == null)
+			return null;
+		try {
+			return MessageDigest.getInstance("SHA-1").digest(contents.getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+}
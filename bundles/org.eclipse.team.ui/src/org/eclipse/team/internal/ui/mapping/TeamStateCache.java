@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.mapping;
+
+import java.util.*;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.subscribers.ISubscriberChangeEvent;
+import org.eclipse.team.internal.core.BackgroundEventHandler;
+import org.eclipse.team.internal.ui.TeamUIMessages;
+
+/**
+ * A cache of the synchronization state of resources that is filled in the
+ * background. A lookup never computes the state: it answers the cached state,
+ * which may be out-of-date, and queues the resource so that its state is
+ * determined by {@link #resolveState(IResource, int, IProgressMonitor)}.
+ * The resources whose state was determined and differs from the state that
+ * was answered are reported in batches to {@link #statesResolved(IResource[])}
+ * so that their labels can be updated.
+ * <p>
+ * A state is cached for each state mask it was requested with, as clients
+ * may request the state of the same resource with different masks. The
+ * states of the least recently requested resources are discarded once
+ * {@link #MAX_RESOURCES} resources are cached.
+ * <p>
+ * The cache is invalidated using the subscriber change events.
+ */
+public abstract class TeamStateCache extends BackgroundEventHandler {
+
+	private static final int RESOLVE = 1;
+
+	/**
+	 * The maximum number of resources whose states are cached.
+	 */
+	public static final int MAX_RESOURCES = 10000;
+
+	/*
+	 * The state of a resource for a state mask
+	 */
+	private static class CachedState {
+		final int state;
+		boolean stale;
+		CachedState(int state) {
+			this.state = state;
+		}
+	}
+
+	/*
+	 * Event that requests the state of a resource for a state mask
+	 */
+	private static class ResolveEvent extends ResourceEvent {
+		private final int stateMask;
+		ResolveEvent(IResource resource, int stateMask) {
+			super(resource, RESOLVE, IResource.DEPTH_ZERO);
+			this.stateMask = stateMask;
+		}
+		int getStateMask() {
+			return stateMask;
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof ResolveEvent) {
+				ResolveEvent other = (ResolveEvent) obj;
+				return stateMask == other.stateMask && getResource().equals(other.getResource());
+			}
+			return false;
+		}
+		@Override
+		public int hashCode() {
+			return getResource().hashCode() * 31 + stateMask;
+		}
+	}
+
+	// {IResource -> {Integer state mask -> CachedState}} in least recently requested order
+	private final Map states = new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_RESOURCES;
+		}
+	};
+
+	// The resolve events of the states that have been requested but not yet determined
+	private final Set queued = new HashSet();
+
+	// The resources whose state was determined since the last dispatch
+	private final Set resolved = new HashSet();
+
+	// The resource whose state is being determined and whether it was invalidated meanwhile
+	private IResource resolving;
+	private boolean resolvingInvalidated;
+
+	public TeamStateCache() {
+		super(TeamUIMessages.TeamStateCache_0, TeamUIMessages.TeamStateCache_1);
+	}
+
+	/**
+	 * Return the cached state of the resource for the given mask or
+	 * <code>-1</code> if the state is not known. The state is determined in
+	 * the background if it is not known or out-of-date.
+	 * @param resource the resource
+	 * @param stateMask the state mask
+	 * @return the cached state or <code>-1</code>
+	 */
+	public int getState(IResource resource, int stateMask) {
+		CachedState cached;
+		synchronized (states) {
+			cached = getCachedState(resource, stateMask);
+		}
+		if (cached == null || cached.stale) {
+			queueResolve(resource, stateMask);
+		}
+		return cached != null ? cached.state : -1;
+	}
+
+	private CachedState getCachedState(IResource resource, int stateMask) {
+		Map masks = (Map) states.get(resource);
+		if (masks == null)
+			return null;
+		return (CachedState) masks.get(new Integer(stateMask));
+	}
+
+	private void queueResolve(IResource resource, int stateMask) {
+		ResolveEvent event = new ResolveEvent(resource, stateMask);
+		synchronized (queued) {
+			if (!queued.add(event))
+				return;
+		}
+		queueEvent(event, false);
+	}
+
+	/**
+	 * Mark the state of the resources affected by the given subscriber changes
+	 * as out-of-date. The state of the ancestors of a changed resource is
+	 * invalidated as well as it depends on the state of its descendants.
+	 * @param deltas the subscriber changes
+	 */
+	public void invalidate(ISubscriberChangeEvent[] deltas) {
+		synchronized (states) {
+			for (int i = 0; i < deltas.length; i++) {
+				ISubscriberChangeEvent delta = deltas[i];
+				IResource resource = delta.getResource();
+				if ((delta.getFlags() & (ISubscriberChangeEvent.ROOT_ADDED | ISubscriberChangeEvent.ROOT_REMOVED)) != 0) {
+					removeStates(resource);
+				} else if (!resource.exists()) {
+					if (resource.equals(resolving))
+						resolvingInvalidated = true;
+					states.remove(resource);
+				} else {
+					markStale(resource);
+				}
+				IResource parent = resource.getParent();
+				while (parent != null && parent.getType() != IResource.ROOT) {
+					markStale(parent);
+					parent = parent.getParent();
+				}
+			}
+		}
+	}
+
+	private void markStale(IResource resource) {
+		if (resource.equals(resolving))
+			resolvingInvalidated = true;
+		Map masks = (Map) states.get(resource);
+		if (masks == null)
+			return;
+		for (Iterator it = masks.values().iterator(); it.hasNext();) {
+			CachedState cached = (CachedState) it.next();
+			cached.stale = true;
+		}
+	}
+
+	/*
+	 * Remove the states of the given root and its descendants.
+	 */
+	private void removeStates(IResource root) {
+		IPath path = root.getFullPath();
+		if (resolving != null && path.isPrefixOf(resolving.getFullPath()))
+			resolvingInvalidated = true;
+		for (Iterator it = states.keySet().iterator(); it.hasNext();) {
+			IResource resource = (IResource) it.next();
+			if (path.isPrefixOf(resource.getFullPath()))
+				it.remove();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.core.BackgroundEventHandler#processEvent(org.eclipse.team.internal.core.BackgroundEventHandler.Event, org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected void processEvent(Event event, IProgressMonitor monitor) throws CoreException {
+		if (event.getType() != RESOLVE)
+			return;
+		ResolveEvent resolveEvent = (ResolveEvent) event;
+		IResource resource = resolveEvent.getResource();
+		int stateMask = resolveEvent.getStateMask();
+		synchronized (queued) {
+			queued.remove(resolveEvent);
+		}
+		synchronized (states) {
+			resolving = resource;
+			resolvingInvalidated = false;
+		}
+		try {
+			int state = resolveState(resource, stateMask, monitor);
+			int previousState;
+			synchronized (states) {
+				CachedState previous = getCachedState(resource, stateMask);
+				// Lookups answer no change until the state is known
+				previousState = previous != null ? previous.state : IDiff.NO_CHANGE;
+				CachedState cached = new CachedState(state);
+				// The state may have been determined before a change that was reported meanwhile
+				cached.stale = resolvingInvalidated;
+				Map masks = (Map) states.get(resource);
+				if (masks == null) {
+					masks = new HashMap();
+					states.put(resource, masks);
+				}
+				masks.put(new Integer(stateMask), cached);
+			}
+			if (state == previousState)
+				return;
+		} finally {
+			synchronized (states) {
+				resolving = null;
+			}
+		}
+		synchronized (resolved) {
+			resolved.add(resource);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.core.BackgroundEventHandler#doDispatchEvents(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected boolean doDispatchEvents(IProgressMonitor monitor) throws TeamException {
+		IResource[] resources;
+		synchronized (resolved) {
+			if (resolved.isEmpty())
+				return false;
+			resources = (IResource[]) resolved.toArray(new IResource[resolved.size()]);
+			resolved.clear();
+		}
+		statesResolved(resources);
+		return true;
+	}
+
+	/**
+	 * Determine the state of the given resource for the given state mask.
+	 * This method is invoked in the background.
+	 * @param resource the resource
+	 * @param stateMask the state mask
+	 * @param monitor a progress monitor
+	 * @return the state of the resource
+	 * @throws CoreException
+	 */
+	protected abstract int resolveState(IResource resource, int stateMask, IProgressMonitor monitor) throws CoreException;
+
+	/**
+	 * Notification that the state of the given resources has been determined.
+	 * @param resources the resources
+	 */
+	protected abstract void statesResolved(IResource[] resources);
+}
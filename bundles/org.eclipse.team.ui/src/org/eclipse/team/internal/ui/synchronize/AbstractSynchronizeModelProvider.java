@@ -227,6 +227,15 @@ public abstract class AbstractSynchronizeModelProvider implements ISynchronizeMo
 		IResource resource = element.getResource();
 		String property = null;
 		if (resource != null && resource.exists()) {
+			// Use the marker counts to avoid searching the markers of the subtree
+			int maximumSeverity = updateHandler.getMaximumProblemSeverity(resource, getLogicalModelDepth(resource));
+			if (maximumSeverity == IMarker.SEVERITY_ERROR) {
+				return ISynchronizeModelElement.PROPAGATED_ERROR_MARKER_PROPERTY;
+			} else if (maximumSeverity == IMarker.SEVERITY_WARNING) {
+				return ISynchronizeModelElement.PROPAGATED_WARNING_MARKER_PROPERTY;
+			} else if (maximumSeverity == -1) {
+				return null;
+			}
 			try {
 				IMarker[] markers = resource.findMarkers(IMarker.PROBLEM, true, getLogicalModelDepth(resource));
 				for (int i = 0; i < markers.length; i++) {
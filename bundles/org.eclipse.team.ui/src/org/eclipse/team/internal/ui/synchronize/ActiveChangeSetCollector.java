@@ -276,16 +276,7 @@ public class ActiveChangeSetCollector implements IDiffChangeListener {
     }
 
     private ChangeSet[] findChangeSets(SyncInfo info) {
-        ActiveChangeSetManager manager = getActiveChangeSetManager();
-        ChangeSet[] sets = manager.getSets();
-        List result = new ArrayList();
-        for (int i = 0; i < sets.length; i++) {
-            ChangeSet set = sets[i];
-            if (set.contains(info.getLocal())) {
-                result.add(set);
-            }
-        }
-        return (ChangeSet[]) result.toArray(new ChangeSet[result.size()]);
+        return getActiveChangeSetManager().getContainingSets(info.getLocal());
     }
 
     /*
@@ -427,11 +418,9 @@ public class ActiveChangeSetCollector implements IDiffChangeListener {
     }
 
     private ChangeSet getChangeSet(IDiffTree tree) {
-        for (Iterator iter = activeSets.keySet().iterator(); iter.hasNext();) {
-            ChangeSet changeSet = (ChangeSet) iter.next();
-            if (((DiffChangeSet)changeSet).getDiffTree() == tree) {
-                return changeSet;
-            }
+        ChangeSet changeSet = getActiveChangeSetManager().getChangeSet((IResourceDiffTree)tree);
+        if (changeSet != null && activeSets.containsKey(changeSet)) {
+            return changeSet;
         }
         return null;
     }
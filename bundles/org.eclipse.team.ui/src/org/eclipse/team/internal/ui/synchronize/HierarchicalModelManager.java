@@ -29,6 +29,7 @@ public class HierarchicalModelManager extends SynchronizeModelManager {
 		return new ISynchronizeModelProviderDescriptor[] {
 		        new FlatModelProvider.FlatModelProviderDescriptor(),
 				new HierarchicalModelProvider.HierarchicalModelProviderDescriptor(),
+				new LazyHierarchicalModelProvider.LazyHierarchicalModelProviderDescriptor(),
 				new CompressedFoldersModelProvider.CompressedFolderModelProviderDescriptor() };
 	}
 
@@ -44,6 +45,8 @@ public class HierarchicalModelManager extends SynchronizeModelManager {
 		    return new FlatModelProvider(getConfiguration(), getSyncInfoSet());
 		} else if(id.endsWith(CompressedFoldersModelProvider.CompressedFolderModelProviderDescriptor.ID)) {
 			return new CompressedFoldersModelProvider(getConfiguration(), getSyncInfoSet());
+		} else if(id.endsWith(LazyHierarchicalModelProvider.LazyHierarchicalModelProviderDescriptor.ID)) {
+			return new LazyHierarchicalModelProvider(getConfiguration(), getSyncInfoSet());
 		} else {
 			return new HierarchicalModelProvider(getConfiguration(), getSyncInfoSet());
 		}
@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.synchronize;
+
+import java.util.*;
+
+import org.eclipse.compare.structuremergeviewer.IDiffElement;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.swt.events.TreeEvent;
+import org.eclipse.team.core.synchronize.*;
+import org.eclipse.team.internal.ui.*;
+import org.eclipse.team.ui.TeamImages;
+import org.eclipse.team.ui.synchronize.ISynchronizeModelElement;
+import org.eclipse.team.ui.synchronize.ISynchronizePageConfiguration;
+
+/**
+ * A hierarchical model provider that only creates the model elements that
+ * can be shown. The children of a folder are created when the folder becomes
+ * visible, so that the viewer knows whether it can be expanded, and the
+ * children of these children are created when the folder is expanded. The
+ * size of the model is therefore proportional to the part of the tree that
+ * was opened rather than to the size of the sync set.
+ * <p>
+ * The conflict state of a folder whose children have not been created is
+ * obtained from the counts maintained by the {@link SyncInfoTree} instead of
+ * from its descendant elements.
+ * <p>
+ * Only the expansion done by the user or the restoration of the expansion
+ * state creates elements. Expanding the tree programmatically (e.g. Expand All)
+ * only reveals the elements that exist.
+ */
+public class LazyHierarchicalModelProvider extends HierarchicalModelProvider {
+
+	public static class LazyHierarchicalModelProviderDescriptor implements ISynchronizeModelProviderDescriptor {
+		public static final String ID = TeamUIPlugin.ID + ".modelprovider_lazyhierarchical"; //$NON-NLS-1$
+		@Override
+		public String getId() {
+			return ID;
+		}
+		@Override
+		public String getName() {
+			return TeamUIMessages.LazyHierarchicalModelProvider_0;
+		}
+		@Override
+		public ImageDescriptor getImageDescriptor() {
+			return TeamImages.getImageDescriptor(ITeamUIImages.IMG_HIERARCHICAL);
+		}
+	}
+	private static final LazyHierarchicalModelProviderDescriptor lazyHierarchicalDescriptor = new LazyHierarchicalModelProviderDescriptor();
+
+	// The resources whose elements have had their children created
+	private final Set builtResources = Collections.synchronizedSet(new HashSet());
+
+	// The resources whose elements are expanded in the viewer
+	private final Set expandedResources = Collections.synchronizedSet(new HashSet());
+
+	public LazyHierarchicalModelProvider(ISynchronizePageConfiguration configuration, SyncInfoSet set) {
+		super(configuration, set);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.ISynchronizeModelProvider#getDescriptor()
+	 */
+	@Override
+	public ISynchronizeModelProviderDescriptor getDescriptor() {
+		return lazyHierarchicalDescriptor;
+	}
+
+	/**
+	 * Create the children of the given node. The children of the children
+	 * are only created if the node is expanded.
+	 * @see org.eclipse.team.internal.ui.synchronize.HierarchicalModelProvider#buildModelObjects(org.eclipse.team.ui.synchronize.ISynchronizeModelElement)
+	 */
+	@Override
+	protected IDiffElement[] buildModelObjects(ISynchronizeModelElement node) {
+		IResource resource = node.getResource();
+		if (resource != null) {
+			builtResources.add(resource);
+		}
+		IDiffElement[] children = createModelObjects(node);
+		if (isExpanded(node)) {
+			for (int i = 0; i < children.length; i++) {
+				IDiffElement element = children[i];
+				if (element instanceof ISynchronizeModelElement) {
+					buildModelObjects((ISynchronizeModelElement) element);
+				}
+			}
+		}
+		return children;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.HierarchicalModelProvider#addResource(org.eclipse.team.core.synchronize.SyncInfo)
+	 */
+	@Override
+	protected void addResource(SyncInfo info) {
+		ISynchronizeModelElement parent = getModelObject(info.getLocal().getParent());
+		if (parent != null && !isBuilt(parent)) {
+			// The element will be created along with its siblings when the parent is shown
+			return;
+		}
+		super.addResource(info);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.SynchronizeModelProvider#handleResourceChanges(org.eclipse.team.core.synchronize.ISyncInfoTreeChangeEvent)
+	 */
+	@Override
+	protected void handleResourceChanges(ISyncInfoTreeChangeEvent event) {
+		super.handleResourceChanges(event);
+		SyncInfo[] infos = event.getChangedResources();
+		IResource[] resources = new IResource[infos.length];
+		for (int i = 0; i < infos.length; i++) {
+			resources[i] = infos[i].getLocal();
+		}
+		updateUnbuiltConflictState(resources);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.HierarchicalModelProvider#handleResourceRemovals(org.eclipse.team.core.synchronize.ISyncInfoTreeChangeEvent)
+	 */
+	@Override
+	protected void handleResourceRemovals(ISyncInfoTreeChangeEvent event) {
+		super.handleResourceRemovals(event);
+		updateUnbuiltConflictState(event.getRemovedResources());
+	}
+
+	/*
+	 * The elements of resources below a folder whose children have not been
+	 * created do not exist so the conflict state of the folder must be
+	 * recalculated when these resources change.
+	 */
+	private void updateUnbuiltConflictState(IResource[] resources) {
+		Set updated = new HashSet();
+		for (int i = 0; i < resources.length; i++) {
+			IResource parent = resources[i].getParent();
+			ISynchronizeModelElement node = null;
+			while (node == null && parent != null && parent.getType() != IResource.ROOT) {
+				node = getModelObject(parent);
+				parent = parent.getParent();
+			}
+			if (node != null && !isBuilt(node) && updated.add(node)) {
+				propogateConflictState(node, false);
+			}
+		}
+	}
+
+	/**
+	 * Return whether the element is a conflict or, if its children have not
+	 * been created, whether it contains a conflict.
+	 * @see org.eclipse.team.internal.ui.synchronize.AbstractSynchronizeModelProvider#isConflicting(org.eclipse.team.ui.synchronize.ISynchronizeModelElement)
+	 */
+	@Override
+	protected boolean isConflicting(ISynchronizeModelElement element) {
+		if (super.isConflicting(element))
+			return true;
+		IResource resource = element.getResource();
+		return resource != null
+				&& resource.getType() != IResource.FILE
+				&& !isBuilt(element)
+				&& getSyncInfoTree().countFor(resource, SyncInfo.CONFLICTING, SyncInfo.DIRECTION_MASK) > 0;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.SynchronizeModelProvider#recursiveClearModelObjects(org.eclipse.team.ui.synchronize.ISynchronizeModelElement)
+	 */
+	@Override
+	protected void recursiveClearModelObjects(ISynchronizeModelElement node) {
+		super.recursiveClearModelObjects(node);
+		if (node == getModelRoot()) {
+			builtResources.clear();
+		} else {
+			IResource resource = node.getResource();
+			if (resource != null) {
+				builtResources.remove(resource);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.AbstractSynchronizeModelProvider#treeExpanded(org.eclipse.swt.events.TreeEvent)
+	 */
+	@Override
+	public void treeExpanded(TreeEvent e) {
+		super.treeExpanded(e);
+		Object data = e.item.getData();
+		if (data instanceof ISynchronizeModelElement) {
+			final IResource resource = ((ISynchronizeModelElement) data).getResource();
+			if (resource != null) {
+				expandedResources.add(resource);
+				performUpdate(new IWorkspaceRunnable() {
+					@Override
+					public void run(IProgressMonitor monitor) {
+						// The element may have been removed since it was expanded
+						ISynchronizeModelElement node = getModelObject(resource);
+						if (node != null) {
+							buildChildren(node);
+						}
+					}
+				}, false /* preserve expansion */, true /* run in UI thread */);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.AbstractSynchronizeModelProvider#treeCollapsed(org.eclipse.swt.events.TreeEvent)
+	 */
+	@Override
+	public void treeCollapsed(TreeEvent e) {
+		super.treeCollapsed(e);
+		Object data = e.item.getData();
+		if (data instanceof ISynchronizeModelElement) {
+			IResource resource = ((ISynchronizeModelElement) data).getResource();
+			if (resource != null) {
+				// Keep the elements that were created but don't create more if the model is rebuilt
+				expandedResources.remove(resource);
+			}
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.AbstractSynchronizeModelProvider#expandResources(org.eclipse.core.resources.IResource[])
+	 */
+	@Override
+	protected void expandResources(IResource[] resources) {
+		for (int i = 0; i < resources.length; i++) {
+			buildPath(resources[i], true);
+		}
+		super.expandResources(resources);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.AbstractSynchronizeModelProvider#selectResources(org.eclipse.core.resources.IResource[])
+	 */
+	@Override
+	protected void selectResources(IResource[] resourcesToSelect) {
+		for (int i = 0; i < resourcesToSelect.length; i++) {
+			buildPath(resourcesToSelect[i], false);
+		}
+		super.selectResources(resourcesToSelect);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.team.internal.ui.synchronize.AbstractSynchronizeModelProvider#checkResources(org.eclipse.core.resources.IResource[])
+	 */
+	@Override
+	protected void checkResources(IResource[] resourcesToCheck) {
+		for (int i = 0; i < resourcesToCheck.length; i++) {
+			buildPath(resourcesToCheck[i], false);
+		}
+		super.checkResources(resourcesToCheck);
+	}
+
+	/*
+	 * Create the elements from the project down to the given resource so that
+	 * the resource has an element if it is in the sync set. If requested, the
+	 * resource and its ancestors are also recorded as expanded and the children
+	 * of their children are created.
+	 */
+	private void buildPath(IResource resource, boolean expand) {
+		List path = new ArrayList();
+		while (resource != null && resource.getType() != IResource.ROOT) {
+			path.add(0, resource);
+			resource = resource.getParent();
+		}
+		for (Iterator it = path.iterator(); it.hasNext();) {
+			IResource next = (IResource) it.next();
+			ISynchronizeModelElement node = getModelObject(next);
+			if (node == null)
+				return;
+			if (expand) {
+				expandedResources.add(next);
+				buildChildren(node);
+			} else if (!isBuilt(node)) {
+				buildModelObjects(node);
+			}
+		}
+	}
+
+	/*
+	 * Ensure that the children of the node and their children exist so that
+	 * the node can be shown expanded.
+	 */
+	private void buildChildren(ISynchronizeModelElement node) {
+		if (!isBuilt(node)) {
+			buildModelObjects(node);
+			return;
+		}
+		IDiffElement[] children = node.getChildren();
+		for (int i = 0; i < children.length; i++) {
+			IDiffElement element = children[i];
+			if (element instanceof ISynchronizeModelElement && !isBuilt((ISynchronizeModelElement) element)) {
+				buildModelObjects((ISynchronizeModelElement) element);
+			}
+		}
+	}
+
+	private boolean isBuilt(ISynchronizeModelElement node) {
+		if (node == getModelRoot())
+			return true;
+		IResource resource = node.getResource();
+		return resource == null || builtResources.contains(resource);
+	}
+
+	private boolean isExpanded(ISynchronizeModelElement node) {
+		if (node == getModelRoot())
+			return true;
+		IResource resource = node.getResource();
+		return resource == null || expandedResources.contains(resource);
+	}
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.synchronize;
+
+import java.util.*;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.ui.TeamUIPlugin;
+
+/**
+ * Counts the error and warning problem markers of each resource and its
+ * descendants. The markers of a project are counted when a count in the
+ * project is first requested and the counts are then maintained from the
+ * marker deltas, so that updating the counts for a marker change and
+ * obtaining the problem marker property of a resource do not require
+ * searching for markers.
+ * <p>
+ * The counters are updated by {@link SynchronizeModelUpdateHandler} with the
+ * problem marker deltas of each resource change event.
+ */
+public class ProblemMarkerCounters {
+
+	/**
+	 * Value returned by {@link #getMaximumSeverity(IResource, int)} when the
+	 * markers of the resource cannot be counted and must be searched.
+	 */
+	public static final int NOT_COUNTED = -2;
+
+	// Indices in the counts of a resource
+	private static final int DEEP_ERRORS = 0;
+	private static final int DEEP_WARNINGS = 1;
+	private static final int SHALLOW_ERRORS = 2;
+	private static final int SHALLOW_WARNINGS = 3;
+
+	/*
+	 * A counted marker
+	 */
+	private static class CountedMarker {
+		final IResource resource;
+		final int severity;
+		CountedMarker(IResource resource, int severity) {
+			this.resource = resource;
+			this.severity = severity;
+		}
+	}
+
+	// {IResource -> int[]} the counts of the markers on the resource and its descendants
+	// (deep) and on the resource and its direct children (shallow)
+	private final Map counts = new HashMap();
+
+	// {IMarker -> CountedMarker} the markers that have an error or warning severity
+	private final Map markers = new HashMap();
+
+	// The projects whose markers are counted
+	private final Set projects = new HashSet();
+
+	/**
+	 * Return the highest severity of the problem markers on the resource and,
+	 * depending on the depth, on its direct children or all its descendants.
+	 * Only projects and the resources they contain can be counted.
+	 * @param resource the resource
+	 * @param depth the depth of the markers to consider (<code>IResource.DEPTH_ONE</code>
+	 * or <code>IResource.DEPTH_INFINITE</code>)
+	 * @return <code>IMarker.SEVERITY_ERROR</code>, <code>IMarker.SEVERITY_WARNING</code>,
+	 * <code>-1</code> if there are no errors or warnings or {@link #NOT_COUNTED}
+	 */
+	public synchronized int getMaximumSeverity(IResource resource, int depth) {
+		IProject project = resource.getProject();
+		if (project == null || depth == IResource.DEPTH_ZERO)
+			return NOT_COUNTED;
+		if (!project.isAccessible()) {
+			forgetProject(project);
+			return -1;
+		}
+		if (!projects.contains(project) && !countMarkers(project))
+			return NOT_COUNTED;
+		int[] resourceCounts = (int[]) counts.get(resource);
+		if (resourceCounts == null)
+			return -1;
+		boolean deep = depth == IResource.DEPTH_INFINITE;
+		if (resourceCounts[deep ? DEEP_ERRORS : SHALLOW_ERRORS] > 0)
+			return IMarker.SEVERITY_ERROR;
+		if (resourceCounts[deep ? DEEP_WARNINGS : SHALLOW_WARNINGS] > 0)
+			return IMarker.SEVERITY_WARNING;
+		return -1;
+	}
+
+	/**
+	 * Update the counts of the projects whose markers are counted from the given
+	 * problem marker deltas.
+	 * @param deltas the marker deltas
+	 */
+	public synchronized void markersChanged(IMarkerDelta[] deltas) {
+		for (int i = 0; i < deltas.length; i++) {
+			IMarkerDelta delta = deltas[i];
+			IResource resource = delta.getResource();
+			if (!projects.contains(resource.getProject()))
+				continue;
+			if (delta.getKind() == IResourceDelta.REMOVED) {
+				setSeverity(delta.getMarker(), resource, -1);
+			} else {
+				// The marker may have been deleted since in which case a removal delta follows
+				setSeverity(delta.getMarker(), resource, delta.getMarker().getAttribute(IMarker.SEVERITY, -1));
+			}
+		}
+	}
+
+	/*
+	 * Count the markers of the project. Markers that are also reported
+	 * by a delta are only counted once since the markers are recorded.
+	 */
+	private boolean countMarkers(IProject project) {
+		try {
+			IMarker[] projectMarkers = project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+			projects.add(project);
+			for (int i = 0; i < projectMarkers.length; i++) {
+				IMarker marker = projectMarkers[i];
+				setSeverity(marker, marker.getResource(), marker.getAttribute(IMarker.SEVERITY, -1));
+			}
+			return true;
+		} catch (CoreException e) {
+			// If the project exists (is accessible), log the exception.
+			// Otherwise, just ignore the exception
+			if (project.isAccessible())
+				TeamUIPlugin.log(e);
+			return false;
+		}
+	}
+
+	private void forgetProject(IProject project) {
+		if (!projects.remove(project))
+			return;
+		for (Iterator it = markers.keySet().iterator(); it.hasNext();) {
+			if (project.equals(((IMarker) it.next()).getResource().getProject()))
+				it.remove();
+		}
+		for (Iterator it = counts.keySet().iterator(); it.hasNext();) {
+			if (project.equals(((IResource) it.next()).getProject()))
+				it.remove();
+		}
+	}
+
+	private void setSeverity(IMarker marker, IResource resource, int severity) {
+		CountedMarker counted = (CountedMarker) markers.get(marker);
+		int oldIndex = counted == null ? -1 : getIndex(counted.severity);
+		int newIndex = getIndex(severity);
+		if (oldIndex == newIndex)
+			return;
+		if (oldIndex != -1) {
+			adjust(counted.resource, oldIndex, -1);
+			markers.remove(marker);
+		}
+		if (newIndex != -1) {
+			adjust(resource, newIndex, 1);
+			markers.put(marker, new CountedMarker(resource, severity));
+		}
+	}
+
+	private static int getIndex(int severity) {
+		if (severity == IMarker.SEVERITY_ERROR)
+			return DEEP_ERRORS;
+		if (severity == IMarker.SEVERITY_WARNING)
+			return DEEP_WARNINGS;
+		return -1;
+	}
+
+	/*
+	 * Adjust the deep count of the resource and its ancestors and the
+	 * shallow count of the resource and its parent.
+	 */
+	private void adjust(IResource resource, int index, int increment) {
+		int distance = 0;
+		while (resource != null && resource.getType() != IResource.ROOT) {
+			int[] resourceCounts = (int[]) counts.get(resource);
+			if (resourceCounts == null) {
+				resourceCounts = new int[4];
+				counts.put(resource, resourceCounts);
+			}
+			resourceCounts[index] += increment;
+			if (distance <= 1)
+				resourceCounts[index + SHALLOW_ERRORS] += increment;
+			if (resourceCounts[DEEP_ERRORS] == 0 && resourceCounts[DEEP_WARNINGS] == 0)
+				counts.remove(resource);
+			resource = resource.getParent();
+			distance++;
+		}
+	}
+}
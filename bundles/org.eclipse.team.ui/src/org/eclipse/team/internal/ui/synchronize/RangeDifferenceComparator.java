@@ -58,7 +58,16 @@ public abstract class RangeDifferenceComparator extends
 		return false;
 	}
 
-	private boolean compareStrings(String left, String right,
+	/**
+	 * Compute the differences between the given contents and return whether
+	 * they match the criterion.
+	 *
+	 * @param left the left contents
+	 * @param right the right contents
+	 * @param monitor a progress monitor
+	 * @return <code>true</code> if all differences match the criterion
+	 */
+	protected boolean compareStrings(String left, String right,
 			IProgressMonitor monitor) {
 		IDocument lDoc = new Document(left);
 		IDocument rDoc = new Document(right);
@@ -11,8 +11,7 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ui.synchronize;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 import org.eclipse.core.resources.mapping.ResourceMapping;
 import org.eclipse.core.runtime.*;
@@ -121,6 +120,18 @@ public class RefreshModelParticipantJob extends RefreshParticipantJob {
 		return super.belongsTo(family);
 	}
 
+	/**
+	 * Return whether this job refreshes the same participant and all the
+	 * mappings refreshed by the given job.
+	 * @see org.eclipse.team.internal.ui.synchronize.RefreshParticipantJob#covers(org.eclipse.team.internal.ui.synchronize.RefreshParticipantJob)
+	 */
+	@Override
+	protected boolean covers(RefreshParticipantJob job) {
+		if (!(job instanceof RefreshModelParticipantJob) || job.getParticipant() != getParticipant())
+			return false;
+		return Arrays.asList(mappings).containsAll(Arrays.asList(((RefreshModelParticipantJob) job).mappings));
+	}
+
 	@Override
 	public IStatus run(IProgressMonitor monitor) {
 		if (group != null)
@@ -62,7 +62,7 @@ public abstract class RefreshParticipantJob extends Job {
 	/**
 	 * The schedule delay used when rescheduling a completed job
 	 */
-	private static long scheduleDelay;
+	private long scheduleDelay;
 
 	/**
 	 * The participant that is being refreshed.
@@ -83,15 +83,20 @@ public abstract class RefreshParticipantJob extends Job {
 	private static final int DONE = 2;
 
 	/*
-	 * Lock used to sequence refresh jobs
+	 * Scheduler used to coordinate the refresh jobs
 	 */
-	private static final ILock lock = Job.getJobManager().newLock();
+	private static final RefreshScheduler scheduler = new RefreshScheduler();
 
 	/*
 	 * Constant used for postponement
 	 */
 	private static final IStatus POSTPONED = new Status(IStatus.CANCEL, TeamUIPlugin.ID, 0, "Scheduled refresh postponed due to conflicting operation", null); //$NON-NLS-1$
 
+	/*
+	 * Constant used when a scheduled refresh is covered by another refresh
+	 */
+	private static final IStatus SKIPPED = new Status(IStatus.OK, TeamUIPlugin.ID, 0, "Scheduled refresh skipped since an overlapping refresh was performed", null); //$NON-NLS-1$
+
 	/*
 	 * Action wrapper which allows the goto action
 	 * to be set later. It also handles errors
@@ -248,10 +253,10 @@ public abstract class RefreshParticipantJob extends Job {
 					if(result.getSeverity() == IStatus.CANCEL && ! restartOnCancel) {
 						return;
 					}
-					long delay = scheduleDelay;
+					long delay = scheduler.spread(scheduleDelay, scheduleDelay);
 					if (result == POSTPONED) {
-						// Restart in 5 seconds
-						delay = 5000;
+						// Restart in 5 to 10 seconds
+						delay = scheduler.spread(5000, 50000);
 					}
 					RefreshParticipantJob.this.schedule(delay);
 					restartOnCancel = true;
@@ -288,20 +293,15 @@ public abstract class RefreshParticipantJob extends Job {
 				|| isJobInFamilyRunning(ResourcesPlugin.FAMILY_MANUAL_BUILD))) {
 			return POSTPONED;
 		}
-		// Only allow one refresh job at a time
+		// Only allow one refresh job at a time for the same subscriber or participant
 		// NOTE: It would be cleaner if this was done by a scheduling
 		// rule but at the time of writing, it is not possible due to
 		// the scheduling rule containment rules.
-		// Acquiring lock to ensure only one refresh job is running at a particular time
 		boolean acquired = false;
 		try {
-			while (!acquired) {
-				try {
-					acquired = lock.acquire(1000);
-				} catch (InterruptedException e1) {
-					acquired = false;
-				}
-				Policy.checkCanceled(monitor);
+			acquired = scheduler.acquire(this, monitor);
+			if (!acquired) {
+				return SKIPPED;
 			}
 
 			IChangeDescription changeDescription = createChangeDescription();
@@ -367,7 +367,7 @@ public abstract class RefreshParticipantJob extends Job {
 			}
 			return event.getStatus();
 		} finally {
-			if (acquired) lock.release();
+			if (acquired) scheduler.release(this);
             monitor.done();
 		}
 	}
@@ -507,6 +507,35 @@ public abstract class RefreshParticipantJob extends Job {
 
 	protected abstract IChangeDescription createChangeDescription();
 
+	/**
+	 * Return the object that identifies what this job refreshes. Jobs
+	 * with the same key are not run at the same time. By default, the
+	 * key is the participant.
+	 * @return the object that identifies what this job refreshes
+	 */
+	protected Object getRefreshKey() {
+		return participant;
+	}
+
+	/**
+	 * Return whether a refresh by this job also refreshes everything that
+	 * the given job refreshes. The given job has the same refresh key.
+	 * By default, a job only covers itself.
+	 * @param job a refresh job with the same refresh key
+	 * @return whether this job covers the given job
+	 */
+	protected boolean covers(RefreshParticipantJob job) {
+		return job == this;
+	}
+
+	/**
+	 * Return the scheduler that coordinates the refresh jobs.
+	 * @return the scheduler that coordinates the refresh jobs
+	 */
+	static RefreshScheduler getScheduler() {
+		return scheduler;
+	}
+
 	public long getScheduleDelay() {
 		return scheduleDelay;
 	}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.internal.ui.synchronize;
+
+import java.util.*;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.internal.ui.Policy;
+
+/**
+ * Coordinates the refresh jobs of all participants. Refreshes that target
+ * the same subscriber or participant are run one at a time while refreshes of
+ * independent participants run concurrently, up to a limit. A scheduled
+ * refresh whose scope is covered by a refresh that is running is skipped
+ * once that refresh completes. The scheduler also spreads the start of
+ * scheduled refreshes so that participants sharing a refresh interval do
+ * not all contact their servers at the same time.
+ */
+public class RefreshScheduler {
+
+	/*
+	 * The maximum number of refreshes that run at the same time
+	 */
+	private static final int MAX_CONCURRENT_REFRESHES = 4;
+
+	/*
+	 * The minimum time between the starts of two schedules
+	 */
+	private static final long START_SPACING = 10000;
+
+	/*
+	 * The largest random delay added to a scheduled refresh
+	 */
+	private static final long MAX_SPREAD = 5 * 60 * 1000;
+
+	private final List running = new ArrayList();
+
+	private final Random random = new Random();
+
+	private long nextStartTime;
+
+	/**
+	 * Wait until the given job can run and record it as running. A refresh
+	 * waits while a refresh with the same key is running or the maximum number
+	 * of refreshes is running. A scheduled refresh that waited for a refresh
+	 * that covers it is not run.
+	 * @param job the job that is about to refresh
+	 * @param monitor a progress monitor used to cancel the wait
+	 * @return whether the job should refresh. If <code>true</code> is returned,
+	 * {@link #release(RefreshParticipantJob)} must be called once the refresh is done
+	 */
+	public synchronized boolean acquire(RefreshParticipantJob job, IProgressMonitor monitor) {
+		boolean covered = false;
+		while (true) {
+			RefreshParticipantJob conflict = getConflictingJob(job);
+			if (conflict == null) {
+				if (covered)
+					return false;
+				if (running.size() < MAX_CONCURRENT_REFRESHES) {
+					running.add(job);
+					return true;
+				}
+			} else if (job.shouldReschedule() && conflict.covers(job)) {
+				covered = true;
+			}
+			try {
+				wait(1000);
+			} catch (InterruptedException e) {
+				// Check for cancellation and continue waiting
+			}
+			Policy.checkCanceled(monitor);
+		}
+	}
+
+	/**
+	 * Record that the given job is done refreshing.
+	 * @param job a job for which {@link #acquire(RefreshParticipantJob, IProgressMonitor)}
+	 * returned <code>true</code>
+	 */
+	public synchronized void release(RefreshParticipantJob job) {
+		running.remove(job);
+		notifyAll();
+	}
+
+	private RefreshParticipantJob getConflictingJob(RefreshParticipantJob job) {
+		Object key = job.getRefreshKey();
+		for (Iterator iter = running.iterator(); iter.hasNext();) {
+			RefreshParticipantJob other = (RefreshParticipantJob) iter.next();
+			if (other.getRefreshKey() == key)
+				return other;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the delay after which a schedule that has just been started should
+	 * perform its first refresh. The first refreshes of schedules that are
+	 * started together (e.g. when the workbench starts) are spaced out.
+	 * @return the delay in milliseconds
+	 */
+	public synchronized long getStartDelay() {
+		long now = System.currentTimeMillis();
+		long delay = Math.max(0, nextStartTime - now);
+		nextStartTime = now + delay + START_SPACING;
+		return delay;
+	}
+
+	/**
+	 * Return the given delay increased by a random amount that is proportional
+	 * to the refresh interval so that scheduled refreshes drift apart.
+	 * @param delay the delay in milliseconds
+	 * @param interval the refresh interval in milliseconds
+	 * @return the spread delay in milliseconds
+	 */
+	public synchronized long spread(long delay, long interval) {
+		long range = Math.min(interval / 10, MAX_SPREAD);
+		if (range <= 0)
+			return delay;
+		return delay + (long) (random.nextDouble() * range);
+	}
+}
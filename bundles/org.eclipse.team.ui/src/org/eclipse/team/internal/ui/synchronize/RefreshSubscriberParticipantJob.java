@@ -115,6 +115,36 @@ public class RefreshSubscriberParticipantJob extends RefreshParticipantJob {
 		return super.belongsTo(family);
 	}
 
+	@Override
+	protected Object getRefreshKey() {
+		return getSubscriber();
+	}
+
+	/**
+	 * Return whether the resources refreshed by this job contain the resources
+	 * refreshed by the given job.
+	 * @see org.eclipse.team.internal.ui.synchronize.RefreshParticipantJob#covers(org.eclipse.team.internal.ui.synchronize.RefreshParticipantJob)
+	 */
+	@Override
+	protected boolean covers(RefreshParticipantJob job) {
+		if (!(job instanceof RefreshSubscriberParticipantJob))
+			return false;
+		IResource[] others = ((RefreshSubscriberParticipantJob) job).resources;
+		for (int i = 0; i < others.length; i++) {
+			if (!contains(others[i]))
+				return false;
+		}
+		return true;
+	}
+
+	private boolean contains(IResource resource) {
+		for (int i = 0; i < resources.length; i++) {
+			if (resources[i].getFullPath().isPrefixOf(resource.getFullPath()))
+				return true;
+		}
+		return false;
+	}
+
 	@Override
 	protected void doRefresh(IChangeDescription changeListener, IProgressMonitor monitor) throws TeamException {
 		Subscriber subscriber = getSubscriber();
@@ -10,11 +10,19 @@
  *******************************************************************************/
 package org.eclipse.team.internal.ui.synchronize;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 import java.util.regex.Pattern;
 
 import org.eclipse.compare.internal.DocLineComparator;
 import org.eclipse.compare.rangedifferencer.RangeDifference;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.*;
+import org.eclipse.team.core.history.IFileRevision;
+import org.eclipse.team.core.variants.IResourceVariant;
 
 /**
  * Compute differences between local and remote contents and checks if all match
@@ -22,9 +30,36 @@ import org.eclipse.jface.text.*;
  * right side don't match the pattern
  * <code>{@link #compareRangeDifferences(RangeDifference[], IDocument, IDocument)}</code>
  * returns <code>false</code>.
+ * <p>
+ * The results are remembered for the contents that were compared and for
+ * the local modification stamp and remote content identifier of the compared
+ * resources, so that filtering again does not re-read or re-scan contents
+ * that have not changed.
  */
 public class RegexDiffComparator extends RangeDifferenceComparator {
 
+	/*
+	 * The number of results that are remembered
+	 */
+	private static final int MAX_CACHED_RESULTS = 2000;
+
+	/*
+	 * {String key -> Boolean result} shared by all the comparators. The keys
+	 * include the pattern and whitespace handling of the comparator.
+	 */
+	private static final Map results = new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > MAX_CACHED_RESULTS;
+		}
+	};
+
+	/*
+	 * The key of the resource and revision being compared by the current thread
+	 */
+	private final ThreadLocal revisionKey = new ThreadLocal();
+
 	private Pattern pattern;
 
 	public RegexDiffComparator(Pattern pattern, boolean ignoreWhitespace) {
@@ -32,19 +67,71 @@ public class RegexDiffComparator extends RangeDifferenceComparator {
 		this.pattern = pattern;
 	}
 
+	@Override
+	public boolean compare(IResource e1, IResourceVariant e2, IProgressMonitor monitor) {
+		String key = getRevisionKey(e1, e2.getContentIdentifier());
+		Boolean cached = getCachedResult(key);
+		if (cached != null)
+			return cached.booleanValue();
+		Object previous = revisionKey.get();
+		revisionKey.set(key);
+		try {
+			return super.compare(e1, e2, monitor);
+		} finally {
+			revisionKey.set(previous);
+		}
+	}
+
+	@Override
+	public boolean compare(IResource e1, IFileRevision e2, IProgressMonitor monitor) {
+		String key = getRevisionKey(e1, e2.getContentIdentifier());
+		Boolean cached = getCachedResult(key);
+		if (cached != null)
+			return cached.booleanValue();
+		Object previous = revisionKey.get();
+		revisionKey.set(key);
+		try {
+			return super.compare(e1, e2, monitor);
+		} finally {
+			revisionKey.set(previous);
+		}
+	}
+
+	@Override
+	protected boolean compareStrings(String left, String right,
+			IProgressMonitor monitor) {
+		String key = getContentKey(left, right);
+		Boolean cached = getCachedResult(key);
+		boolean result = cached != null ? cached.booleanValue() : super.compareStrings(left, right, monitor);
+		synchronized (results) {
+			if (key != null)
+				results.put(key, Boolean.valueOf(result));
+			// The contents were read so the result also applies to the compared revisions
+			Object currentRevisionKey = revisionKey.get();
+			if (currentRevisionKey != null)
+				results.put(currentRevisionKey, Boolean.valueOf(result));
+		}
+		return result;
+	}
+
 	@Override
 	protected boolean compareRangeDifferences(RangeDifference[] ranges,
 			IDocument lDoc, IDocument rDoc) {
 		try {
+			DocLineComparator sleft = null;
+			DocLineComparator sright = null;
 			for (int i = 0; i < ranges.length; i++) {
 				RangeDifference diff = ranges[i];
 				if (diff.kind() == RangeDifference.NOCHANGE)
 					continue;
 
-				DocLineComparator sleft = new DocLineComparator(lDoc, null,
-						shouldIgnoreWhitespace());
-				DocLineComparator sright = new DocLineComparator(rDoc, null,
-						shouldIgnoreWhitespace());
+				// Compute the lines of the documents only once
+				if (sleft == null) {
+					sleft = new DocLineComparator(lDoc, null,
+							shouldIgnoreWhitespace());
+					sright = new DocLineComparator(rDoc, null,
+							shouldIgnoreWhitespace());
+				}
 
 				IRegion lRegion = lDoc.getLineInformation(diff.leftStart());
 				int leftEnd = sleft.getTokenStart(diff.leftStart()
@@ -69,4 +156,42 @@ public class RegexDiffComparator extends RangeDifferenceComparator {
 		}
 		return true;
 	}
+
+	private static Boolean getCachedResult(String key) {
+		if (key == null)
+			return null;
+		synchronized (results) {
+			return (Boolean) results.get(key);
+		}
+	}
+
+	/*
+	 * Return the key that identifies the comparison of the current contents of
+	 * the local resource with the given remote contents or <code>null</code> if
+	 * the remote contents cannot be identified.
+	 */
+	private String getRevisionKey(IResource local, String contentIdentifier) {
+		if (contentIdentifier == null)
+			return null;
+		return getCriteriaKey() + "\0" + local.getFullPath() + "\0" + local.getModificationStamp() + "\0" + contentIdentifier; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/*
+	 * Return the key that identifies the comparison of the given contents or
+	 * <code>null</code> if the contents cannot be digested.
+	 */
+	private String getContentKey(String left, String right) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+			String leftDigest = Base64.getEncoder().encodeToString(digest.digest(left.getBytes(StandardCharsets.UTF_8)));
+			String rightDigest = Base64.getEncoder().encodeToString(digest.digest(right.getBytes(StandardCharsets.UTF_8)));
+			return getCriteriaKey() + "\0" + leftDigest + "\0" + rightDigest; //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	private String getCriteriaKey() {
+		return pattern.pattern() + "\0" + pattern.flags() + "\0" + shouldIgnoreWhitespace(); //$NON-NLS-1$ //$NON-NLS-2$
+	}
 }
\ No newline at end of file
@@ -154,7 +154,8 @@ public class SubscriberRefreshSchedule {
 		if (refreshStart != null) {
 			job.schedule(getJobDelay());
 		} else {
-			job.schedule();
+			// Space out the schedules that are started together
+			job.schedule(RefreshParticipantJob.getScheduler().getStartDelay());
 		}
 	}
 
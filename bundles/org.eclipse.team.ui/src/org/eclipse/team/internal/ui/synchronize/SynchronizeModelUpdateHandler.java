@@ -12,11 +12,13 @@ package org.eclipse.team.internal.ui.synchronize;
 
 import com.ibm.icu.text.DateFormat;
 import com.ibm.icu.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -53,12 +55,21 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	private Set pendingLabelUpdates = Collections.synchronizedSet(new HashSet());
 
+	private ProblemMarkerCounters problemMarkerCounters = new ProblemMarkerCounters();
+
 	// Flag to indicate the need for an early dispath in order to show
 	// busy for elements involved in an operation
 	private boolean dispatchEarly = false;
 
 	private static final int EARLY_DISPATCH_INCREMENT = 100;
 
+	// The time the UI thread can spend on an update before it is given
+	// the chance to paint and handle input
+	private static final long UPDATE_TIME_BUDGET = 50;
+
+	// The number of labels updated before checking the time budget
+	private static final int LABEL_UPDATE_CHUNK = 100;
+
 	/**
 	 * Custom event for posting marker changes
 	 */
@@ -157,6 +168,7 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 	 */
 	@Override
 	public void resourceChanged(final IResourceChangeEvent event) {
+			problemMarkerCounters.markersChanged(event.findMarkerDeltas(IMarker.PROBLEM, true));
 			String[] markerTypes = getMarkerTypes();
 			Set handledResources = new HashSet();
 			Set changes = new HashSet();
@@ -233,8 +245,8 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
             provider.reset();
             break;
         case SYNC_INFO_SET_CHANGED:
-            // Handle the sync change immediately
-            handleChanges(((SyncInfoSetChangeEvent)event).getEvent(), monitor);
+            // Handle the sync change immediately along with any sync changes queued behind it
+            handleChanges(getQueuedChanges((SyncInfoSetChangeEvent)event), monitor);
         default:
             break;
         }
@@ -269,17 +281,77 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 
 	/**
 	 * Forces the viewer to update the labels for queued elemens
-	 * whose label has changed during this round of changes. This method
+	 * whose label has changed during this round of changes. The labels
+	 * of the elements that are shown are updated first. If the update takes
+	 * longer than the time budget, the remaining labels are updated in a later
+	 * UI runnable so the viewer stays responsive. This method
 	 * should only be invoked in the UI thread.
 	 */
 	protected void firePendingLabelUpdates() {
 		if (!Utils.canUpdateViewer(getViewer())) return;
-		try {
-			Object[] updates = pendingLabelUpdates.toArray(new Object[pendingLabelUpdates.size()]);
-			updateLabels(updates);
-		} finally {
+		Object[] updates;
+		synchronized (pendingLabelUpdates) {
+			updates = pendingLabelUpdates.toArray(new Object[pendingLabelUpdates.size()]);
 			pendingLabelUpdates.clear();
 		}
+		updates = getShownElementsFirst(updates);
+		long deadline = System.currentTimeMillis() + UPDATE_TIME_BUDGET;
+		int updated = 0;
+		while (updated < updates.length) {
+			int count = Math.min(LABEL_UPDATE_CHUNK, updates.length - updated);
+			Object[] chunk = new Object[count];
+			System.arraycopy(updates, updated, chunk, 0, count);
+			updateLabels(chunk);
+			updated += count;
+			if (System.currentTimeMillis() >= deadline)
+				break;
+		}
+		if (updated < updates.length) {
+			for (int i = updated; i < updates.length; i++) {
+				pendingLabelUpdates.add(updates[i]);
+			}
+			Utils.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					firePendingLabelUpdates();
+				}
+			}, getViewer());
+		}
+	}
+
+	/*
+	 * Order the elements so that the elements whose parents are expanded in the
+	 * viewer come before the elements that are hidden in collapsed subtrees.
+	 */
+	private Object[] getShownElementsFirst(Object[] elements) {
+		StructuredViewer viewer = getViewer();
+		if (!(viewer instanceof AbstractTreeViewer)) {
+			return elements;
+		}
+		List shown = new ArrayList();
+		List hidden = new ArrayList();
+		for (int i = 0; i < elements.length; i++) {
+			Object element = elements[i];
+			if (isShown((AbstractTreeViewer)viewer, element)) {
+				shown.add(element);
+			} else {
+				hidden.add(element);
+			}
+		}
+		shown.addAll(hidden);
+		return shown.toArray();
+	}
+
+	private boolean isShown(AbstractTreeViewer viewer, Object element) {
+		if (!(element instanceof ISynchronizeModelElement))
+			return true;
+		Object parent = ((ISynchronizeModelElement)element).getParent();
+		while (parent instanceof ISynchronizeModelElement && parent != provider.getModelRoot()) {
+			if (!viewer.getExpandedState(parent))
+				return false;
+			parent = ((ISynchronizeModelElement)parent).getParent();
+		}
+		return true;
 	}
 
 	/*
@@ -313,6 +385,20 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
 		pendingLabelUpdates.add(diffNode);
 	}
 
+	/**
+	 * Return the highest severity of the problem markers on the resource and
+	 * on its descendants to the given depth using the marker counts maintained
+	 * from the marker deltas.
+	 * @param resource the resource
+	 * @param depth the depth
+	 * @return <code>IMarker.SEVERITY_ERROR</code>, <code>IMarker.SEVERITY_WARNING</code>,
+	 * <code>-1</code> if there are no errors or warnings or
+	 * {@link ProblemMarkerCounters#NOT_COUNTED} if the markers of the resource are not counted
+	 */
+	public int getMaximumProblemSeverity(IResource resource, int depth) {
+		return problemMarkerCounters.getMaximumSeverity(resource, depth);
+	}
+
 	/**
 	 * Calculate and propagate problem markers in the element model
 	 * @param element the ssynchronize element
@@ -497,16 +583,51 @@ public class SynchronizeModelUpdateHandler extends BackgroundEventHandler implem
     }
 
     /*
-     * Handle the sync info set change event in the UI thread.
+     * Return the changes of the given event and of the sync info set change
+     * events that directly follow it in the queue, removing the latter from the queue.
      */
-    private void handleChanges(final ISyncInfoSetChangeEvent event, final IProgressMonitor monitor) {
-        runViewUpdate(new Runnable() {
-            @Override
-			public void run() {
-				provider.handleChanges((ISyncInfoTreeChangeEvent)event, monitor);
-				firePendingLabelUpdates();
+    private ISyncInfoSetChangeEvent[] getQueuedChanges(SyncInfoSetChangeEvent event) {
+        List changes = new ArrayList();
+        changes.add(event.getEvent());
+        synchronized (this) {
+            Event next;
+            while ((next = peek()) != null && next.getType() == SYNC_INFO_SET_CHANGED) {
+                nextElement();
+                changes.add(((SyncInfoSetChangeEvent)next).getEvent());
+            }
+        }
+        return (ISyncInfoSetChangeEvent[]) changes.toArray(new ISyncInfoSetChangeEvent[changes.size()]);
+    }
+
+    /*
+     * Handle the sync info set change events in the UI thread. The changes
+     * and the resulting label updates are applied to the view in as few UI
+     * runnables as the time budget allows so that the view is redrawn once
+     * per runnable and the UI thread is released between them.
+     */
+    private void handleChanges(final ISyncInfoSetChangeEvent[] events, final IProgressMonitor monitor) {
+        int next = 0;
+        while (next < events.length) {
+            final int first = next;
+            final int[] handled = new int[] { first };
+            runViewUpdate(new Runnable() {
+                @Override
+				public void run() {
+                    long deadline = System.currentTimeMillis() + UPDATE_TIME_BUDGET;
+                    int i = first;
+                    do {
+                        provider.handleChanges((ISyncInfoTreeChangeEvent)events[i++], monitor);
+                    } while (i < events.length && System.currentTimeMillis() < deadline);
+                    handled[0] = i;
+                    firePendingLabelUpdates();
+                }
+            }, true /* preserve expansion */);
+            if (handled[0] == first) {
+                // The view could not be updated (i.e. it was disposed)
+                break;
             }
-        }, true /* preserve expansion */);
+            next = handled[0];
+        }
     }
 
     /* (non-Javadoc)
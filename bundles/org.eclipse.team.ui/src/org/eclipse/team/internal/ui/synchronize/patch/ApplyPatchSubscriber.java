@@ -14,12 +14,13 @@ import java.util.*;
 
 import org.eclipse.compare.internal.core.patch.*;
 import org.eclipse.compare.internal.patch.PatchProjectDiffNode;
+import org.eclipse.compare.internal.patch.WorkspaceFileDiffResult;
 import org.eclipse.compare.internal.patch.WorkspacePatcher;
 import org.eclipse.compare.patch.IHunk;
 import org.eclipse.compare.structuremergeviewer.IDiffElement;
 import org.eclipse.core.resources.*;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.subscribers.Subscriber;
 import org.eclipse.team.core.subscribers.SubscriberChangeEvent;
@@ -71,13 +72,85 @@ public class ApplyPatchSubscriber extends Subscriber {
 		}
 	}
 
+	/*
+	 * Job that evaluates the pending file diffs
+	 */
+	private class DiffEvaluationJob extends Job {
+		DiffEvaluationJob() {
+			super("Evaluating patch"); //$NON-NLS-1$
+			setSystem(true);
+		}
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			while (!monitor.isCanceled()) {
+				FilePatch2 diff;
+				synchronized (pendingDiffs) {
+					if (pendingDiffs.isEmpty())
+						break;
+					diff = (FilePatch2) pendingDiffs.removeFirst();
+					evaluatingDiffs.add(diff);
+				}
+				evaluate(diff);
+			}
+			return Status.OK_STATUS;
+		}
+		@Override
+		public boolean belongsTo(Object family) {
+			return family == ApplyPatchSubscriber.this;
+		}
+	}
+
+	/*
+	 * The maximum number of jobs that evaluate the file diffs in parallel
+	 */
+	private static final int MAX_EVALUATION_JOBS = 4;
+
 	private WorkspacePatcher patcher;
 	private IResourceVariantComparator comparator;
 
+	// The file diffs that have not been evaluated, in the order of the patch
+	private final LinkedList pendingDiffs = new LinkedList();
+
+	// The file diffs that are being evaluated
+	private final Set evaluatingDiffs = new HashSet();
+
+	// {FilePatch2 -> Long} the modification stamp of the target file when the diff was evaluated
+	private final Map evaluatedDiffs = new HashMap();
+
+	/**
+	 * Create a subscriber for the given patcher. The file diffs of the patch
+	 * are evaluated against the workspace in the background, in parallel. The
+	 * sync info of a file is available once its diff has been evaluated so
+	 * that the first files of a large patch can be shown while the remaining
+	 * ones are still being matched.
+	 * @param patcher the patcher
+	 */
 	public ApplyPatchSubscriber(WorkspacePatcher patcher) {
 		this.patcher = patcher;
 		this.comparator = new PatchedFileVariantComparator();
-		getPatcher().refresh();
+		// Discard the results computed for the patch wizard, like refresh() does, and
+		// create new ones up-front so the patcher is only read by the evaluation jobs
+		getPatcher().clearDiffResults();
+		FilePatch2[] diffs = getPatcher().getDiffs();
+		for (int i = 0; i < diffs.length; i++) {
+			getPatcher().getDiffResult(diffs[i]);
+			pendingDiffs.add(diffs[i]);
+		}
+		int jobCount = Math.min(MAX_EVALUATION_JOBS, Runtime.getRuntime().availableProcessors());
+		for (int i = 0; i < jobCount && i < diffs.length; i++) {
+			new DiffEvaluationJob().schedule();
+		}
+	}
+
+	/**
+	 * Stop evaluating the file diffs in the background. The diff of a file is
+	 * still evaluated when its sync info is requested.
+	 */
+	public void dispose() {
+		synchronized (pendingDiffs) {
+			pendingDiffs.clear();
+		}
+		Job.getJobManager().cancel(this);
 	}
 
 	@Override
@@ -93,10 +166,9 @@ public class ApplyPatchSubscriber extends Subscriber {
 	@Override
 	public SyncInfo getSyncInfo(IResource resource) throws TeamException {
 		if (!isSupervised(resource)) return null;
-		// TODO: called too many times, optimize
-		refresh(new IResource[] { resource }, IResource.DEPTH_ZERO, null);
 		try {
 			FilePatch2 diff = (FilePatch2) PatchModelProvider.getPatchObject(resource, getPatcher());
+			ensureEvaluated(diff);
 			// use null as remote variant for deletions
 			IResourceVariant remote = null;
 			if (diff.getDiffType(patcher.isReversed()) != FilePatch2.DELETION)
@@ -162,7 +234,59 @@ public class ApplyPatchSubscriber extends Subscriber {
 				diffs.add(filePatch);
 			}
 		}
-		getPatcher().refresh((FilePatch2[]) diffs.toArray(new FilePatch2[0]));
+		for (Iterator iter = diffs.iterator(); iter.hasNext();) {
+			FilePatch2 diff = (FilePatch2) iter.next();
+			invalidate(diff);
+			ensureEvaluated(diff);
+		}
+	}
+
+	/*
+	 * Wait for the diff to be evaluated by an evaluation job or evaluate it
+	 * if it has not been evaluated since its target file last changed.
+	 */
+	private void ensureEvaluated(FilePatch2 diff) {
+		long stamp = PatchModelProvider.getFile(diff, getPatcher()).getModificationStamp();
+		synchronized (pendingDiffs) {
+			while (evaluatingDiffs.contains(diff)) {
+				try {
+					pendingDiffs.wait();
+				} catch (InterruptedException e) {
+					// Continue waiting
+				}
+			}
+			Long evaluated = (Long) evaluatedDiffs.get(diff);
+			if (evaluated != null && evaluated.longValue() == stamp)
+				return;
+			pendingDiffs.remove(diff);
+			evaluatingDiffs.add(diff);
+		}
+		evaluate(diff);
+	}
+
+	/*
+	 * Evaluate a diff that has been marked as being evaluated.
+	 */
+	private void evaluate(FilePatch2 diff) {
+		long stamp = PatchModelProvider.getFile(diff, getPatcher()).getModificationStamp();
+		boolean done = false;
+		try {
+			((WorkspaceFileDiffResult) getPatcher().getDiffResult(diff)).refresh();
+			done = true;
+		} finally {
+			synchronized (pendingDiffs) {
+				evaluatingDiffs.remove(diff);
+				if (done)
+					evaluatedDiffs.put(diff, new Long(stamp));
+				pendingDiffs.notifyAll();
+			}
+		}
+	}
+
+	private void invalidate(FilePatch2 diff) {
+		synchronized (pendingDiffs) {
+			evaluatedDiffs.remove(diff);
+		}
 	}
 
 	@Override
@@ -188,6 +312,11 @@ public class ApplyPatchSubscriber extends Subscriber {
 	}
 
 	public void merged(IResource[] resources) {
+		for (int i = 0; i < resources.length; i++) {
+			Object object = PatchModelProvider.getPatchObject(resources[i], getPatcher());
+			if (object instanceof FilePatch2)
+				invalidate((FilePatch2) object);
+		}
 		fireTeamResourceChange(SubscriberChangeEvent.asSyncChangedDeltas(this, resources));
 	}
 }
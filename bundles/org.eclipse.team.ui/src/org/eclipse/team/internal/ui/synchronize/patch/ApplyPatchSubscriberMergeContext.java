@@ -37,6 +37,12 @@ public class ApplyPatchSubscriberMergeContext extends SubscriberMergeContext {
 		return mergeContext;
 	}
 
+	@Override
+	public void dispose() {
+		((ApplyPatchSubscriber) getSubscriber()).dispose();
+		super.dispose();
+	}
+
 	@Override
 	protected void makeInSync(IDiff diff, IProgressMonitor monitor)
 			throws CoreException {
@@ -10,15 +10,19 @@
  *******************************************************************************/
 package org.eclipse.team.ui.synchronize;
 
+import java.util.*;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.mapping.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.team.core.RepositoryProviderType;
+import org.eclipse.team.core.TeamException;
 import org.eclipse.team.core.diff.IDiff;
 import org.eclipse.team.core.subscribers.*;
 import org.eclipse.team.internal.ui.Policy;
 import org.eclipse.team.internal.ui.Utils;
+import org.eclipse.team.internal.ui.mapping.TeamStateCache;
 import org.eclipse.team.ui.mapping.*;
 
 /**
@@ -27,6 +31,13 @@ import org.eclipse.team.ui.mapping.*;
  * If a repository provider type does not have a subscriber, or it a repository provider type wishes to se a custom
  * provider, they must adapt their {@link RepositoryProviderType} class to an appropriate {@link ITeamStateProvider}.
  * <p>
+ * The synchronization state of elements that are resources that is obtained
+ * through {@link #getStateDescription(Object, int, String[], IProgressMonitor)}
+ * for decoration is cached. It is determined in the background when it is
+ * first requested or after the subscriber reports a change, and a state change
+ * event is fired for the resources whose state was determined, so decorating a
+ * resource never waits for the subscriber.
+ * <p>
  * Clients may subclass this class.
  *
  * @since 3.2
@@ -35,6 +46,34 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 
 	private Subscriber subscriber;
 
+	private TeamStateCache stateCache = new TeamStateCache() {
+		@Override
+		protected int resolveState(IResource resource, int stateMask, IProgressMonitor monitor) throws CoreException {
+			ResourceMapping mapping = Utils.getResourceMapping(resource);
+			if (mapping == null)
+				return IDiff.NO_CHANGE;
+			return getSynchronizationState(mapping, stateMask, monitor);
+		}
+		@Override
+		protected void statesResolved(IResource[] resources) {
+			TeamStateChangeEvent event = new TeamStateChangeEvent();
+			for (int i = 0; i < resources.length; i++) {
+				event.changed(resources[i]);
+			}
+			fireStateChangeEvent(event);
+		}
+	};
+
+	// {IResource -> Boolean} whether the resource is supervised by the subscriber,
+	// in least recently requested order and bounded like the state cache
+	private Map supervised = Collections.synchronizedMap(new LinkedHashMap(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry eldest) {
+			return size() > TeamStateCache.MAX_RESOURCES;
+		}
+	});
+
 	/**
 	 * Create a provider that determines the synchronization state
 	 * from the subscriber. This method registers this provider as a listener
@@ -60,7 +99,7 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 				IResource[] resources = traversal.getResources();
 				for (int j = 0; j < resources.length; j++) {
 					IResource resource = resources[j];
-					if (getSubscriber().isSupervised(resource))
+					if (isSupervised(resource))
 						return true;
 				}
 			}
@@ -68,6 +107,15 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 		return false;
 	}
 
+	private boolean isSupervised(IResource resource) throws TeamException {
+		Boolean isSupervised = (Boolean) supervised.get(resource);
+		if (isSupervised == null) {
+			isSupervised = Boolean.valueOf(getSubscriber().isSupervised(resource));
+			supervised.put(resource, isSupervised);
+		}
+		return isSupervised.booleanValue();
+	}
+
 	/**
 	 * Obtain the synchronization state of the element. If the model
 	 * provider for the element adapts to an
@@ -90,6 +138,26 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 		return IDiff.NO_CHANGE;
 	}
 
+	/*
+	 * Return the synchronization state of the element for decoration. The state
+	 * of a resource is answered from the cache and is NO_CHANGE until it has been
+	 * determined in the background.
+	 */
+	private int getDecoratedSynchronizationState(Object element, int stateMask,
+			IProgressMonitor monitor) throws CoreException {
+		ResourceMapping mapping = Utils.getResourceMapping(element);
+		if (mapping == null)
+			return IDiff.NO_CHANGE;
+		Object modelObject = mapping.getModelObject();
+		if (modelObject instanceof IResource) {
+			int state = stateCache.getState((IResource) modelObject, stateMask);
+			if (state != -1)
+				return state;
+			return IDiff.NO_CHANGE;
+		}
+		return getSynchronizationState(mapping, stateMask, monitor);
+	}
+
 	private int getSynchronizationState(ResourceMapping mapping, int stateMask, IProgressMonitor monitor) throws CoreException {
 		ISynchronizationCompareAdapter compareAdapter = (ISynchronizationCompareAdapter)Adapters.adapt(mapping.getModelProvider(), ISynchronizationCompareAdapter.class);
 		try {
@@ -122,7 +190,7 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 		monitor = Policy.monitorFor(monitor);
 		if (stateMask == USE_DECORATED_STATE_MASK)
 			stateMask = getDecoratedStateMask(element);
-		return new TeamStateDescription(getSynchronizationState(element, stateMask, monitor));
+		return new TeamStateDescription(getDecoratedSynchronizationState(element, stateMask, monitor));
 	}
 
 	/* (non-Javadoc)
@@ -149,6 +217,8 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 	 */
 	public void dispose() {
 		subscriber.removeListener(this);
+		stateCache.shutdown();
+		supervised.clear();
 	}
 
 	/* (non-Javadoc)
@@ -156,6 +226,15 @@ public class SubscriberTeamStateProvider extends TeamStateProvider implements IS
 	 */
 	@Override
 	public void subscriberResourceChanged(ISubscriberChangeEvent[] deltas) {
+		for (int i = 0; i < deltas.length; i++) {
+			ISubscriberChangeEvent delta = deltas[i];
+			if ((delta.getFlags() & (ISubscriberChangeEvent.ROOT_ADDED | ISubscriberChangeEvent.ROOT_REMOVED)) != 0) {
+				supervised.clear();
+			} else {
+				supervised.remove(delta.getResource());
+			}
+		}
+		stateCache.invalidate(deltas);
 		fireStateChangeEvent(new TeamStateChangeEvent(deltas));
 	}
 
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.mapping.provider.ResourceDiff;
+import org.eclipse.team.core.mapping.provider.ResourceDiffTree;
+import org.eclipse.team.internal.core.subscribers.ActiveChangeSet;
+import org.eclipse.team.internal.core.subscribers.ActiveChangeSetManager;
+import org.eclipse.team.internal.core.subscribers.ChangeSet;
+
+/**
+ * Tests that the sets found for a resource by an {@link ActiveChangeSetManager}
+ * follow the changes made to the sets.
+ */
+public class ActiveChangeSetManagerTests extends TestCase {
+
+	private static class TestManager extends ActiveChangeSetManager {
+		public IDiff getDiff(IResource resource) {
+			return createDiff(resource);
+		}
+		protected String getName() {
+			return "test";
+		}
+		protected void initializeSets() {
+			// There are no persisted sets
+		}
+	}
+
+	private TestManager manager;
+
+	public ActiveChangeSetManagerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(ActiveChangeSetManagerTests.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		manager = new TestManager();
+	}
+
+	protected void tearDown() throws Exception {
+		manager.dispose();
+		super.tearDown();
+	}
+
+	public void testSetAddAndRemove() {
+		IFile a = getFile("/p1/a.txt");
+		IFile b = getFile("/p1/b.txt");
+		ActiveChangeSet set = manager.createSet("set", new IDiff[] { createDiff(a) });
+
+		// Sets are only found once they are managed
+		assertContainingSets(a, new ChangeSet[0]);
+		manager.add(set);
+		assertContainingSets(a, new ChangeSet[] { set });
+
+		manager.remove(set);
+		assertContainingSets(a, new ChangeSet[0]);
+
+		// Changes to a set that is no longer managed are ignored
+		set.add(createDiff(b));
+		assertContainingSets(b, new ChangeSet[0]);
+	}
+
+	public void testSetChanges() {
+		IFile a = getFile("/p1/a.txt");
+		IFile b = getFile("/p1/folder/b.txt");
+		IFile c = getFile("/p1/folder/c.txt");
+		ActiveChangeSet set = manager.createSet("set", new IDiff[] { createDiff(a) });
+		manager.add(set);
+
+		set.add(new IDiff[] { createDiff(b), createDiff(c) });
+		assertContainingSets(b, new ChangeSet[] { set });
+		assertContainingSets(c, new ChangeSet[] { set });
+
+		set.remove(b);
+		assertContainingSets(b, new ChangeSet[0]);
+		assertContainingSets(c, new ChangeSet[] { set });
+
+		set.remove(new IPath[] { c.getFullPath() });
+		assertContainingSets(c, new ChangeSet[0]);
+
+		set.add(new IDiff[] { createDiff(b), createDiff(c) });
+		set.rootRemoved(b.getParent(), IResource.DEPTH_INFINITE);
+		assertContainingSets(b, new ChangeSet[0]);
+		assertContainingSets(c, new ChangeSet[0]);
+		assertContainingSets(a, new ChangeSet[] { set });
+	}
+
+	public void testSetChangesDuringBatch() {
+		IFile a = getFile("/p1/a.txt");
+		IFile b = getFile("/p1/b.txt");
+		ActiveChangeSet set = manager.createSet("set", new IDiff[] { createDiff(a) });
+		manager.add(set);
+
+		// The sets are found before their trees report the changes
+		ResourceDiffTree tree = (ResourceDiffTree) set.getDiffTree();
+		tree.beginInput();
+		try {
+			set.add(createDiff(b));
+			assertContainingSets(b, new ChangeSet[] { set });
+			set.remove(a);
+			assertContainingSets(a, new ChangeSet[0]);
+		} finally {
+			tree.endInput(null);
+		}
+		assertContainingSets(a, new ChangeSet[0]);
+		assertContainingSets(b, new ChangeSet[] { set });
+	}
+
+	public void testResourceInSeveralSets() {
+		IFile a = getFile("/p1/a.txt");
+		IFile b = getFile("/p1/b.txt");
+		ActiveChangeSet first = manager.createSet("first", new IDiff[] { createDiff(a), createDiff(b) });
+		first.setUserCreated(false);
+		manager.add(first);
+		ActiveChangeSet second = manager.createSet("second", new IDiff[] { createDiff(a) });
+		second.setUserCreated(false);
+		manager.add(second);
+		assertContainingSets(a, new ChangeSet[] { first, second });
+
+		// A resource added to a user set is removed from the other user sets
+		first.setUserCreated(true);
+		second.setUserCreated(true);
+		ActiveChangeSet third = manager.createSet("third", new IDiff[] { createDiff(a) });
+		manager.add(third);
+		assertContainingSets(a, new ChangeSet[] { third });
+		assertContainingSets(b, new ChangeSet[] { first });
+
+		// Sets that become empty are removed
+		assertFalse(manager.contains(second));
+		assertContainingSets(b, new ChangeSet[] { first });
+	}
+
+	private void assertContainingSets(IResource resource, ChangeSet[] expected) {
+		ChangeSet[] sets = manager.getContainingSets(resource);
+		assertEquals(resource.getFullPath().toString(), new HashSet(Arrays.asList(expected)), new HashSet(Arrays.asList(sets)));
+		assertEquals(resource.getFullPath().toString(), expected.length, sets.length);
+	}
+
+	private IFile getFile(String path) {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		return root.getFile(new Path(path));
+	}
+
+	private static IDiff createDiff(IResource resource) {
+		return new ResourceDiff(resource, IDiff.CHANGE, 0, null, null);
+	}
+}
@@ -37,6 +37,9 @@ public class AllTeamTests extends ResourceTest {
 		suite.addTest(RepositoryProviderTests.suite());
 		suite.addTest(StreamTests.suite());
 		suite.addTest(StorageMergerTests.suite());
+		suite.addTest(DiffTreeStatisticsTests.suite());
+		suite.addTest(SyncInfoTreeStatisticsTests.suite());
+		suite.addTest(ActiveChangeSetManagerTests.suite());
 		suite.addTest(org.eclipse.team.tests.core.regression.AllTests.suite());
 		return suite;
 	}
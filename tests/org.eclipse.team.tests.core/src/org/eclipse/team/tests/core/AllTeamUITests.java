@@ -16,6 +16,7 @@ import junit.framework.TestSuite;
 import org.eclipse.core.tests.resources.ResourceTest;
 import org.eclipse.team.tests.core.mapping.ScopeTests;
 import org.eclipse.team.tests.ui.SaveableCompareEditorInputTest;
+import org.eclipse.team.tests.ui.TeamStateCacheTests;
 
 public class AllTeamUITests extends ResourceTest {
 
@@ -31,6 +32,7 @@ public class AllTeamUITests extends ResourceTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(ScopeTests.suite());
 		suite.addTest(SaveableCompareEditorInputTest.suite());
+		suite.addTest(TeamStateCacheTests.suite());
 		return suite;
 	}
 }
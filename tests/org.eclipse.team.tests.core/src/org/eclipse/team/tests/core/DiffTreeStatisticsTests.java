@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IThreeWayDiff;
+import org.eclipse.team.core.diff.provider.DiffTree;
+import org.eclipse.team.core.diff.provider.ThreeWayDiff;
+import org.eclipse.team.core.diff.provider.TwoWayDiff;
+
+public class DiffTreeStatisticsTests extends TestCase {
+
+	public DiffTreeStatisticsTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(DiffTreeStatisticsTests.class);
+	}
+
+	public void testCountsFollowChanges() {
+		DiffTree tree = new DiffTree();
+		tree.add(createDiff("/p1/a.txt", IThreeWayDiff.INCOMING));
+		tree.add(createDiff("/p1/folder/b.txt", IThreeWayDiff.OUTGOING));
+		tree.add(createDiff("/p1/folder/c.txt", IThreeWayDiff.CONFLICTING));
+		tree.add(createDiff("/p2/d.txt", IThreeWayDiff.INCOMING));
+		assertCounts(tree, Path.ROOT, 2, 1, 1);
+		assertCounts(tree, new Path("/p1"), 1, 1, 1);
+		assertCounts(tree, new Path("/p1/folder"), 0, 1, 1);
+		assertCounts(tree, new Path("/p2"), 1, 0, 0);
+		assertCounts(tree, new Path("/p3"), 0, 0, 0);
+		assertEquals(3, tree.countFor(new Path("/p1"), 0, 0));
+		assertEquals(4, tree.countFor(0, 0));
+
+		// Replacing a diff moves it to its new state
+		tree.add(createDiff("/p1/a.txt", IThreeWayDiff.OUTGOING));
+		assertCounts(tree, Path.ROOT, 1, 2, 1);
+		assertCounts(tree, new Path("/p1"), 0, 2, 1);
+
+		tree.remove(new Path("/p1/folder/c.txt"));
+		tree.remove(new Path("/p2/d.txt"));
+		assertCounts(tree, Path.ROOT, 0, 2, 0);
+		assertCounts(tree, new Path("/p1"), 0, 2, 0);
+		assertCounts(tree, new Path("/p2"), 0, 0, 0);
+
+		tree.clear();
+		assertCounts(tree, Path.ROOT, 0, 0, 0);
+		assertCounts(tree, new Path("/p1"), 0, 0, 0);
+	}
+
+	public void testCountsWithKindMask() {
+		DiffTree tree = new DiffTree();
+		tree.add(createDiff("/p1/a.txt", IThreeWayDiff.INCOMING));
+		tree.add(createDiff("/p1/b.txt", IThreeWayDiff.INCOMING));
+		assertEquals(2, tree.countFor(IThreeWayDiff.INCOMING | IDiff.CHANGE, 0));
+		assertEquals(2, tree.countFor(new Path("/p1"), IDiff.CHANGE, IDiff.CHANGE));
+		assertEquals(0, tree.countFor(new Path("/p1"), IDiff.ADD, IDiff.ADD));
+	}
+
+	private void assertCounts(DiffTree tree, IPath path, long incoming, long outgoing, long conflicting) {
+		assertEquals(incoming, tree.countFor(path, IThreeWayDiff.INCOMING, IThreeWayDiff.DIRECTION_MASK));
+		assertEquals(outgoing, tree.countFor(path, IThreeWayDiff.OUTGOING, IThreeWayDiff.DIRECTION_MASK));
+		assertEquals(conflicting, tree.countFor(path, IThreeWayDiff.CONFLICTING, IThreeWayDiff.DIRECTION_MASK));
+	}
+
+	private IDiff createDiff(String path, int direction) {
+		IPath diffPath = new Path(path);
+		TwoWayDiff local = (direction & IThreeWayDiff.OUTGOING) != 0 ? new TwoWayDiff(diffPath, IDiff.CHANGE, 0) : null;
+		TwoWayDiff remote = (direction & IThreeWayDiff.INCOMING) != 0 ? new TwoWayDiff(diffPath, IDiff.CHANGE, 0) : null;
+		return new ThreeWayDiff(local, remote);
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.core.synchronize.SyncInfoTree;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.core.variants.IResourceVariantComparator;
+
+public class SyncInfoTreeStatisticsTests extends TestCase {
+
+	public SyncInfoTreeStatisticsTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(SyncInfoTreeStatisticsTests.class);
+	}
+
+	public void testCountsFollowChanges() throws TeamException {
+		SyncInfoTree tree = new SyncInfoTree();
+		tree.add(createInfo("/p1/a.txt", SyncInfo.INCOMING));
+		tree.add(createInfo("/p1/folder/b.txt", SyncInfo.OUTGOING));
+		tree.add(createInfo("/p1/folder/c.txt", SyncInfo.CONFLICTING));
+		tree.add(createInfo("/p2/d.txt", SyncInfo.INCOMING));
+		assertCounts(tree, getRoot(), 2, 1, 1);
+		assertCounts(tree, getRoot().getProject("p1"), 1, 1, 1);
+		assertCounts(tree, getRoot().getFolder(new Path("/p1/folder")), 0, 1, 1);
+		assertCounts(tree, getRoot().getFile(new Path("/p1/folder/c.txt")), 0, 0, 1);
+		assertCounts(tree, getRoot().getProject("p2"), 1, 0, 0);
+		assertCounts(tree, getRoot().getProject("p3"), 0, 0, 0);
+
+		// The counts are maintained once they have been computed
+		tree.add(createInfo("/p1/folder/e.txt", SyncInfo.CONFLICTING));
+		assertCounts(tree, getRoot().getProject("p1"), 1, 1, 2);
+		assertCounts(tree, getRoot().getFolder(new Path("/p1/folder")), 0, 1, 2);
+
+		// Replacing an info moves it to its new kind
+		tree.add(createInfo("/p1/a.txt", SyncInfo.OUTGOING));
+		assertCounts(tree, getRoot().getProject("p1"), 0, 2, 2);
+
+		tree.remove(getRoot().getFile(new Path("/p1/folder/c.txt")));
+		tree.remove(getRoot().getFile(new Path("/p2/d.txt")));
+		assertCounts(tree, getRoot(), 0, 2, 1);
+		assertCounts(tree, getRoot().getProject("p1"), 0, 2, 1);
+		assertCounts(tree, getRoot().getFolder(new Path("/p1/folder")), 0, 1, 1);
+		assertCounts(tree, getRoot().getProject("p2"), 0, 0, 0);
+
+		tree.clear();
+		assertCounts(tree, getRoot(), 0, 0, 0);
+		assertCounts(tree, getRoot().getProject("p1"), 0, 0, 0);
+
+		// The counts are computed again after the tree is cleared
+		tree.add(createInfo("/p1/folder/b.txt", SyncInfo.INCOMING));
+		assertCounts(tree, getRoot().getFolder(new Path("/p1/folder")), 1, 0, 0);
+	}
+
+	public void testCountsOfInitialInfos() throws TeamException {
+		SyncInfoTree tree = new SyncInfoTree(new SyncInfo[] {
+				createInfo("/p1/a.txt", SyncInfo.INCOMING),
+				createInfo("/p1/folder/b.txt", SyncInfo.CONFLICTING) });
+		assertCounts(tree, getRoot().getProject("p1"), 1, 0, 1);
+		assertCounts(tree, getRoot().getFolder(new Path("/p1/folder")), 0, 0, 1);
+	}
+
+	public void testCountsWithKindMask() throws TeamException {
+		SyncInfoTree tree = new SyncInfoTree();
+		tree.add(createInfo("/p1/a.txt", SyncInfo.INCOMING | SyncInfo.CHANGE));
+		tree.add(createInfo("/p1/b.txt", SyncInfo.INCOMING | SyncInfo.ADDITION));
+		IResource project = getRoot().getProject("p1");
+		assertEquals(1, tree.countFor(project, SyncInfo.INCOMING | SyncInfo.CHANGE, 0));
+		assertEquals(2, tree.countFor(project, SyncInfo.INCOMING, SyncInfo.DIRECTION_MASK));
+		assertEquals(1, tree.countFor(project, SyncInfo.ADDITION, SyncInfo.CHANGE_MASK));
+		assertEquals(0, tree.countFor(project, SyncInfo.DELETION, SyncInfo.CHANGE_MASK));
+	}
+
+	private void assertCounts(SyncInfoTree tree, IResource resource, long incoming, long outgoing, long conflicting) {
+		String path = resource.getFullPath().toString();
+		assertEquals(path, incoming, tree.countFor(resource, SyncInfo.INCOMING, SyncInfo.DIRECTION_MASK));
+		assertEquals(path, outgoing, tree.countFor(resource, SyncInfo.OUTGOING, SyncInfo.DIRECTION_MASK));
+		assertEquals(path, conflicting, tree.countFor(resource, SyncInfo.CONFLICTING, SyncInfo.DIRECTION_MASK));
+	}
+
+	private IWorkspaceRoot getRoot() {
+		return ResourcesPlugin.getWorkspace().getRoot();
+	}
+
+	private SyncInfo createInfo(String path, int kind) throws TeamException {
+		int syncKind = (kind & SyncInfo.CHANGE_MASK) == 0 ? kind | SyncInfo.CHANGE : kind;
+		SyncInfo info = new TestSyncInfo(getRoot().getFile(new Path(path)), syncKind);
+		info.init();
+		return info;
+	}
+
+	private static class TestSyncInfo extends SyncInfo {
+		private final int kind;
+		public TestSyncInfo(IResource local, int kind) {
+			super(local, null, null, new TestComparator());
+			this.kind = kind;
+		}
+		protected int calculateKind() {
+			return kind;
+		}
+	}
+
+	private static class TestComparator implements IResourceVariantComparator {
+		public boolean compare(IResource local, IResourceVariant remote) {
+			return false;
+		}
+		public boolean compare(IResourceVariant base, IResourceVariant remote) {
+			return false;
+		}
+		public boolean isThreeWay() {
+			return true;
+		}
+	}
+}
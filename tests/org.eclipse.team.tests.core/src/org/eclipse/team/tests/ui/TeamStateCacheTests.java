@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui;
+
+import java.util.*;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.core.diff.IDiff;
+import org.eclipse.team.core.diff.IThreeWayDiff;
+import org.eclipse.team.core.subscribers.ISubscriberChangeEvent;
+import org.eclipse.team.core.subscribers.SubscriberChangeEvent;
+import org.eclipse.team.internal.ui.mapping.TeamStateCache;
+import org.eclipse.team.tests.core.TeamTest;
+
+public class TeamStateCacheTests extends TeamTest {
+
+	private static final int DIRECTION_MASK = IThreeWayDiff.DIRECTION_MASK;
+	private static final int KIND_MASK = IDiff.ADD | IDiff.REMOVE | IDiff.CHANGE;
+
+	/*
+	 * A cache that resolves the states from a map and records the calls
+	 */
+	private static class TestCache extends TeamStateCache {
+		// {IResource -> Integer state}
+		final Map states = Collections.synchronizedMap(new HashMap());
+		final List resolveRequests = Collections.synchronizedList(new ArrayList());
+		final Set resolved = Collections.synchronizedSet(new HashSet());
+		protected int resolveState(IResource resource, int stateMask, IProgressMonitor monitor) {
+			resolveRequests.add(resource);
+			Integer state = (Integer) states.get(resource);
+			return state == null ? IDiff.NO_CHANGE : state.intValue() & stateMask;
+		}
+		protected void statesResolved(IResource[] resources) {
+			resolved.addAll(Arrays.asList(resources));
+		}
+		void setState(IResource resource, int state) {
+			states.put(resource, new Integer(state));
+		}
+		boolean isIdle() {
+			// The job may have ended while events were queued and be about to be rescheduled
+			return isQueueEmpty() && getEventHandlerJob().getState() == Job.NONE;
+		}
+	}
+
+	private TestCache cache;
+
+	public TeamStateCacheTests() {
+		super();
+	}
+
+	public TeamStateCacheTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(TeamStateCacheTests.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		cache = new TestCache();
+	}
+
+	protected void tearDown() throws Exception {
+		cache.shutdown();
+		super.tearDown();
+	}
+
+	public void testStatesAreResolvedInBackground() throws CoreException {
+		IProject project = createProject("testResolve", new String[] { "file.txt" });
+		IFile file = project.getFile("file.txt");
+		cache.setState(file, IThreeWayDiff.INCOMING | IDiff.CHANGE);
+
+		assertEquals(-1, cache.getState(file, DIRECTION_MASK));
+		waitForCache();
+		assertEquals(IThreeWayDiff.INCOMING, cache.getState(file, DIRECTION_MASK));
+		assertTrue(cache.resolved.contains(file));
+
+		// A known state is not determined again
+		cache.getState(file, DIRECTION_MASK);
+		waitForCache();
+		assertEquals(1, cache.resolveRequests.size());
+	}
+
+	public void testStatesOfDifferentMasks() throws CoreException {
+		IProject project = createProject("testMasks", new String[] { "file.txt" });
+		IFile file = project.getFile("file.txt");
+		cache.setState(file, IThreeWayDiff.OUTGOING | IDiff.ADD);
+
+		// Lookups with different masks do not evict each other
+		assertEquals(-1, cache.getState(file, DIRECTION_MASK));
+		assertEquals(-1, cache.getState(file, KIND_MASK));
+		waitForCache();
+		assertEquals(IThreeWayDiff.OUTGOING, cache.getState(file, DIRECTION_MASK));
+		assertEquals(IDiff.ADD, cache.getState(file, KIND_MASK));
+		assertEquals(IThreeWayDiff.OUTGOING, cache.getState(file, DIRECTION_MASK));
+		waitForCache();
+		assertEquals(2, cache.resolveRequests.size());
+	}
+
+	public void testUnchangedStatesAreNotReported() throws CoreException {
+		IProject project = createProject("testUnchanged", new String[] { "file.txt" });
+		IFile file = project.getFile("file.txt");
+
+		assertEquals(-1, cache.getState(file, DIRECTION_MASK));
+		waitForCache();
+		assertEquals(IDiff.NO_CHANGE, cache.getState(file, DIRECTION_MASK));
+		assertFalse(cache.resolved.contains(file));
+	}
+
+	public void testInvalidation() throws CoreException {
+		IProject project = createProject("testInvalidation", new String[] { "folder/", "folder/file.txt", "other.txt" });
+		IFile file = project.getFile("folder/file.txt");
+		IFolder folder = project.getFolder("folder");
+		IFile other = project.getFile("other.txt");
+		cache.setState(file, IThreeWayDiff.INCOMING | IDiff.CHANGE);
+		cache.setState(folder, IThreeWayDiff.INCOMING | IDiff.CHANGE);
+		cache.getState(file, DIRECTION_MASK);
+		cache.getState(file, KIND_MASK);
+		cache.getState(folder, DIRECTION_MASK);
+		cache.getState(other, DIRECTION_MASK);
+		waitForCache();
+		cache.resolved.clear();
+		cache.resolveRequests.clear();
+
+		// The last known state is answered until the new state is determined
+		cache.setState(file, IThreeWayDiff.CONFLICTING | IDiff.CHANGE);
+		cache.setState(folder, IThreeWayDiff.CONFLICTING | IDiff.CHANGE);
+		cache.invalidate(new ISubscriberChangeEvent[] { new SubscriberChangeEvent(null, ISubscriberChangeEvent.SYNC_CHANGED, file) });
+		assertEquals(IThreeWayDiff.INCOMING, cache.getState(file, DIRECTION_MASK));
+		assertEquals(IDiff.CHANGE, cache.getState(file, KIND_MASK));
+		assertEquals(IThreeWayDiff.INCOMING, cache.getState(folder, DIRECTION_MASK));
+		assertEquals(IDiff.NO_CHANGE, cache.getState(other, DIRECTION_MASK));
+		waitForCache();
+		assertEquals(IThreeWayDiff.CONFLICTING, cache.getState(file, DIRECTION_MASK));
+		assertEquals(IDiff.CHANGE, cache.getState(file, KIND_MASK));
+		assertEquals(IThreeWayDiff.CONFLICTING, cache.getState(folder, DIRECTION_MASK));
+
+		// Only the changed resource and its ancestors were determined again
+		// and only those whose state changed are reported
+		assertEquals(3, cache.resolveRequests.size());
+		assertFalse(cache.resolveRequests.contains(other));
+		assertEquals(new HashSet(Arrays.asList(new IResource[] { file, folder })), cache.resolved);
+	}
+
+	public void testRootRemoval() throws CoreException {
+		IProject project = createProject("testRootRemoval", new String[] { "file.txt" });
+		IFile file = project.getFile("file.txt");
+		cache.getState(project, DIRECTION_MASK);
+		cache.getState(file, DIRECTION_MASK);
+		waitForCache();
+
+		cache.invalidate(new ISubscriberChangeEvent[] { new SubscriberChangeEvent(null, ISubscriberChangeEvent.ROOT_REMOVED, project) });
+		assertEquals(-1, cache.getState(project, DIRECTION_MASK));
+		assertEquals(-1, cache.getState(file, DIRECTION_MASK));
+	}
+
+	public void testCacheIsBounded() throws CoreException {
+		IProject project = createProject("testBound", new String[0]);
+		IFile first = project.getFile("file0.txt");
+		cache.getState(first, DIRECTION_MASK);
+		waitForCache();
+		assertEquals(IDiff.NO_CHANGE, cache.getState(first, DIRECTION_MASK));
+
+		for (int i = 1; i <= TeamStateCache.MAX_RESOURCES; i++) {
+			cache.getState(project.getFile("file" + i + ".txt"), DIRECTION_MASK);
+		}
+		waitForCache();
+
+		// The least recently requested state is discarded
+		assertEquals(-1, cache.getState(first, DIRECTION_MASK));
+		assertEquals(IDiff.NO_CHANGE, cache.getState(project.getFile("file1.txt"), DIRECTION_MASK));
+	}
+
+	private void waitForCache() {
+		while (!cache.isIdle()) {
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+}
@@ -28,6 +28,10 @@ public class AllTeamSynchronizeTests extends ResourceTest {
 	public static Test suite() {
 		TestSuite suite = new TestSuite();
 		suite.addTest(ResourceContentTests.suite());
+		suite.addTest(ApplyPatchSubscriberTest.suite());
+		suite.addTest(RegexDiffComparatorTest.suite());
+		suite.addTest(ProblemMarkerCountersTest.suite());
+		suite.addTest(RefreshSchedulerTest.suite());
 		return suite;
 	}
 }
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.Test;
+
+import org.eclipse.compare.internal.core.patch.FileDiffResult;
+import org.eclipse.compare.internal.core.patch.FilePatch2;
+import org.eclipse.compare.internal.patch.WorkspacePatcher;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.internal.ui.synchronize.patch.ApplyPatchSubscriber;
+import org.eclipse.team.tests.core.TeamTest;
+
+public class ApplyPatchSubscriberTest extends TeamTest {
+
+	private static final String CONTENTS = "a\nb\nc\n";
+
+	private ApplyPatchSubscriber subscriber;
+
+	public ApplyPatchSubscriberTest() {
+		super();
+	}
+
+	public ApplyPatchSubscriberTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(ApplyPatchSubscriberTest.class);
+	}
+
+	protected void tearDown() throws Exception {
+		if (subscriber != null)
+			subscriber.dispose();
+		super.tearDown();
+	}
+
+	public void testDiffsAreEvaluatedInBackground() throws Exception {
+		IProject project = createProject("testEvaluation", 3);
+		WorkspacePatcher patcher = createPatcher(project, 3);
+		subscriber = new ApplyPatchSubscriber(patcher);
+		Job.getJobManager().join(subscriber, null);
+
+		FilePatch2[] diffs = patcher.getDiffs();
+		for (int i = 0; i < diffs.length; i++) {
+			FileDiffResult result = patcher.getDiffResult(diffs[i]);
+			assertTrue(result.hasMatches());
+			assertFalse(result.containsProblems());
+			assertSyncKind(project.getFile(getFileName(i)), SyncInfo.INCOMING | SyncInfo.CHANGE);
+		}
+	}
+
+	public void testResultsAreRecreated() throws Exception {
+		IProject project = createProject("testRecreation", 1);
+		WorkspacePatcher patcher = createPatcher(project, 1);
+		FilePatch2 diff = patcher.getDiffs()[0];
+		// The results of the patch wizard are not reused
+		FileDiffResult previous = patcher.getDiffResult(diff);
+		subscriber = new ApplyPatchSubscriber(patcher);
+		Job.getJobManager().join(subscriber, null);
+		assertNotSame(previous, patcher.getDiffResult(diff));
+		assertTrue(patcher.getDiffResult(diff).hasMatches());
+	}
+
+	public void testChangedFileIsEvaluatedAgain() throws Exception {
+		IProject project = createProject("testChangedFile", 1);
+		WorkspacePatcher patcher = createPatcher(project, 1);
+		subscriber = new ApplyPatchSubscriber(patcher);
+		Job.getJobManager().join(subscriber, null);
+		IFile file = project.getFile(getFileName(0));
+		assertSyncKind(file, SyncInfo.INCOMING | SyncInfo.CHANGE);
+
+		// The hunk no longer applies once the file is changed
+		file.setContents(new ByteArrayInputStream("x\ny\nz\n".getBytes()), true, true, null);
+		SyncInfo info = subscriber.getSyncInfo(file);
+		assertEquals(SyncInfo.CONFLICTING, info.getKind() & SyncInfo.DIRECTION_MASK);
+		assertTrue(patcher.getDiffResult(patcher.getDiffs()[0]).containsProblems());
+	}
+
+	public void testDispose() throws Exception {
+		IProject project = createProject("testDispose", 50);
+		WorkspacePatcher patcher = createPatcher(project, 50);
+		subscriber = new ApplyPatchSubscriber(patcher);
+		subscriber.dispose();
+
+		// The jobs that did not start are cancelled and the running ones stop
+		Job[] jobs = Job.getJobManager().find(subscriber);
+		for (int i = 0; i < jobs.length; i++) {
+			assertEquals(Job.RUNNING, jobs[i].getState());
+		}
+		Job.getJobManager().join(subscriber, null);
+		assertEquals(0, Job.getJobManager().find(subscriber).length);
+
+		// The diffs are still evaluated on demand
+		assertSyncKind(project.getFile(getFileName(49)), SyncInfo.INCOMING | SyncInfo.CHANGE);
+		assertTrue(patcher.getDiffResult(patcher.getDiffs()[49]).hasMatches());
+	}
+
+	private void assertSyncKind(IFile file, int kind) throws TeamException {
+		SyncInfo info = subscriber.getSyncInfo(file);
+		assertNotNull(file.getFullPath().toString(), info);
+		assertEquals(file.getFullPath().toString(), SyncInfo.kindToString(kind), SyncInfo.kindToString(info.getKind()));
+	}
+
+	private IProject createProject(String prefix, int fileCount) throws CoreException {
+		IProject project = createProject(prefix, new String[0]);
+		for (int i = 0; i < fileCount; i++) {
+			project.getFile(getFileName(i)).create(new ByteArrayInputStream(CONTENTS.getBytes()), true, null);
+		}
+		return project;
+	}
+
+	/*
+	 * Create a patcher for a patch that changes the second line of each file
+	 */
+	private WorkspacePatcher createPatcher(IProject project, int fileCount) throws IOException {
+		StringBuffer patch = new StringBuffer();
+		for (int i = 0; i < fileCount; i++) {
+			String name = getFileName(i);
+			patch.append("--- " + name + "\n");
+			patch.append("+++ " + name + "\n");
+			patch.append("@@ -1,3 +1,3 @@\n");
+			patch.append(" a\n");
+			patch.append("-b\n");
+			patch.append("+B\n");
+			patch.append(" c\n");
+		}
+		WorkspacePatcher patcher = new WorkspacePatcher(project);
+		patcher.parse(new BufferedReader(new StringReader(patch.toString())));
+		return patcher;
+	}
+
+	private String getFileName(int i) {
+		return "file" + i + ".txt";
+	}
+}
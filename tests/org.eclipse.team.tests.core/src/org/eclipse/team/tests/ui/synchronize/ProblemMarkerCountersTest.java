@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.internal.ui.synchronize.ProblemMarkerCounters;
+import org.eclipse.team.tests.core.TeamTest;
+
+/**
+ * Tests that the problem marker counts used to decorate the synchronize
+ * view follow the marker changes and agree with a search of the markers.
+ */
+public class ProblemMarkerCountersTest extends TeamTest {
+
+	private ProblemMarkerCounters counters;
+
+	// Feeds the counters in the same way as the SynchronizeModelUpdateHandler
+	private final IResourceChangeListener listener = new IResourceChangeListener() {
+		public void resourceChanged(IResourceChangeEvent event) {
+			counters.markersChanged(event.findMarkerDeltas(IMarker.PROBLEM, true));
+		}
+	};
+
+	public ProblemMarkerCountersTest() {
+		super();
+	}
+
+	public ProblemMarkerCountersTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(ProblemMarkerCountersTest.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		counters = new ProblemMarkerCounters();
+		getWorkspace().addResourceChangeListener(listener);
+	}
+
+	protected void tearDown() throws Exception {
+		getWorkspace().removeResourceChangeListener(listener);
+		super.tearDown();
+	}
+
+	public void testAddRemoveAndChangeSeverity() throws CoreException {
+		IProject project = createProject("testMarkerChanges", new String[] { "folder/", "folder/file.txt", "other.txt" });
+		IFolder folder = project.getFolder("folder");
+		IFile file = project.getFile("folder/file.txt");
+		IFile other = project.getFile("other.txt");
+		assertSeverity(project, IResource.DEPTH_INFINITE, -1);
+
+		// A warning propagates to all the ancestors but only to the direct parent for a shallow count
+		IMarker marker = createMarker(file, IMarker.SEVERITY_WARNING);
+		assertSeverity(file, IResource.DEPTH_ONE, IMarker.SEVERITY_WARNING);
+		assertSeverity(folder, IResource.DEPTH_ONE, IMarker.SEVERITY_WARNING);
+		assertSeverity(folder, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+		assertSeverity(project, IResource.DEPTH_ONE, -1);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+		assertSeverity(other, IResource.DEPTH_ONE, -1);
+
+		// The severity change is reflected by the ancestors
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertSeverity(file, IResource.DEPTH_ONE, IMarker.SEVERITY_ERROR);
+		assertSeverity(folder, IResource.DEPTH_INFINITE, IMarker.SEVERITY_ERROR);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_ERROR);
+
+		// A warning does not hide an error of a descendant
+		IMarker projectMarker = createMarker(project, IMarker.SEVERITY_WARNING);
+		assertSeverity(project, IResource.DEPTH_ONE, IMarker.SEVERITY_WARNING);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_ERROR);
+
+		// Markers that are not errors or warnings are not counted
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		assertSeverity(file, IResource.DEPTH_ONE, -1);
+		assertSeverity(folder, IResource.DEPTH_INFINITE, -1);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		assertSeverity(folder, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+
+		// Removing the markers clears the counts
+		marker.delete();
+		assertSeverity(file, IResource.DEPTH_ONE, -1);
+		assertSeverity(folder, IResource.DEPTH_INFINITE, -1);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+		projectMarker.delete();
+		assertSeverity(project, IResource.DEPTH_INFINITE, -1);
+	}
+
+	public void testSeveralMarkers() throws CoreException {
+		IProject project = createProject("testSeveralMarkers", new String[] { "folder/", "folder/a.txt", "folder/b.txt" });
+		IFolder folder = project.getFolder("folder");
+		IMarker error = createMarker(project.getFile("folder/a.txt"), IMarker.SEVERITY_ERROR);
+		IMarker warning = createMarker(project.getFile("folder/b.txt"), IMarker.SEVERITY_WARNING);
+
+		// The markers that exist when the project is first counted are found
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_ERROR);
+		assertSeverity(folder, IResource.DEPTH_ONE, IMarker.SEVERITY_ERROR);
+
+		IMarker otherError = createMarker(project.getFile("folder/b.txt"), IMarker.SEVERITY_ERROR);
+		error.delete();
+		assertSeverity(folder, IResource.DEPTH_ONE, IMarker.SEVERITY_ERROR);
+		otherError.delete();
+		assertSeverity(folder, IResource.DEPTH_ONE, IMarker.SEVERITY_WARNING);
+		warning.delete();
+		assertSeverity(project, IResource.DEPTH_INFINITE, -1);
+	}
+
+	public void testResourceDeletion() throws CoreException {
+		IProject project = createProject("testResourceDeletion", new String[] { "folder/", "folder/file.txt" });
+		IFolder folder = project.getFolder("folder");
+		createMarker(project.getFile("folder/file.txt"), IMarker.SEVERITY_ERROR);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_ERROR);
+
+		// The markers of deleted resources are no longer counted
+		folder.delete(true, null);
+		assertSeverity(project, IResource.DEPTH_INFINITE, -1);
+	}
+
+	public void testClosedProject() throws CoreException {
+		IProject project = createProject("testClosedProject", new String[] { "file.txt" });
+		createMarker(project.getFile("file.txt"), IMarker.SEVERITY_WARNING);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+
+		// The markers are counted again when the project is reopened
+		project.close(null);
+		assertEquals(-1, counters.getMaximumSeverity(project, IResource.DEPTH_INFINITE));
+		project.open(null);
+		assertSeverity(project, IResource.DEPTH_INFINITE, IMarker.SEVERITY_WARNING);
+	}
+
+	public void testNotCounted() throws CoreException {
+		IProject project = createProject("testNotCounted", new String[] { "file.txt" });
+		assertEquals(ProblemMarkerCounters.NOT_COUNTED, counters.getMaximumSeverity(getWorkspace().getRoot(), IResource.DEPTH_INFINITE));
+		assertEquals(ProblemMarkerCounters.NOT_COUNTED, counters.getMaximumSeverity(project.getFile("file.txt"), IResource.DEPTH_ZERO));
+	}
+
+	/*
+	 * Create a problem marker that has its severity when it is first reported
+	 */
+	private IMarker createMarker(final IResource resource, final int severity) throws CoreException {
+		final IMarker[] marker = new IMarker[1];
+		getWorkspace().run(new IWorkspaceRunnable() {
+			public void run(IProgressMonitor monitor) throws CoreException {
+				marker[0] = resource.createMarker(IMarker.PROBLEM);
+				marker[0].setAttribute(IMarker.SEVERITY, severity);
+			}
+		}, null);
+		return marker[0];
+	}
+
+	/*
+	 * Assert that the count has the expected severity and that it agrees with
+	 * a search of the markers.
+	 */
+	private void assertSeverity(IResource resource, int depth, int expected) throws CoreException {
+		String message = resource.getFullPath() + " at depth " + depth;
+		assertEquals(message, expected, searchMaximumSeverity(resource, depth));
+		assertEquals(message, expected, counters.getMaximumSeverity(resource, depth));
+	}
+
+	private int searchMaximumSeverity(IResource resource, int depth) throws CoreException {
+		int maximumSeverity = -1;
+		IMarker[] markers = resource.findMarkers(IMarker.PROBLEM, true, depth);
+		for (int i = 0; i < markers.length; i++) {
+			int severity = markers[i].getAttribute(IMarker.SEVERITY, -1);
+			if (severity == IMarker.SEVERITY_ERROR)
+				return severity;
+			if (severity == IMarker.SEVERITY_WARNING)
+				maximumSeverity = severity;
+		}
+		return maximumSeverity;
+	}
+}
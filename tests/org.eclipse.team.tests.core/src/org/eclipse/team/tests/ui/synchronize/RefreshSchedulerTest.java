@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.*;
+import org.eclipse.team.internal.ui.synchronize.RefreshParticipantJob;
+import org.eclipse.team.internal.ui.synchronize.RefreshScheduler;
+import org.eclipse.team.ui.synchronize.ISynchronizeParticipant;
+
+/**
+ * Tests that the {@link RefreshScheduler} limits the refreshes that run at
+ * the same time and spreads the start of scheduled refreshes.
+ */
+public class RefreshSchedulerTest extends TestCase {
+
+	private static final long SECOND = 1000;
+	private static final long MINUTE = 60 * SECOND;
+
+	/*
+	 * A refresh job that is only used to acquire the scheduler
+	 */
+	private static class TestJob extends RefreshParticipantJob {
+		private final Object key;
+		private final List covered = new ArrayList();
+		TestJob(Object key) {
+			super(createParticipant(), "test", "test", null);
+			this.key = key;
+		}
+		protected Object getRefreshKey() {
+			return key;
+		}
+		protected boolean covers(RefreshParticipantJob job) {
+			return job == this || covered.contains(job);
+		}
+		protected void doRefresh(IChangeDescription changeListener, IProgressMonitor monitor) {
+			// The job is never run
+		}
+		protected int getChangeCount() {
+			return 0;
+		}
+		protected int getIncomingChangeCount() {
+			return 0;
+		}
+		protected int getOutgoingChangeCount() {
+			return 0;
+		}
+		protected void handleProgressGroupSet(IProgressMonitor group, int ticks) {
+			// The job is never run
+		}
+		protected IChangeDescription createChangeDescription() {
+			return null;
+		}
+	}
+
+	/*
+	 * A thread that acquires the scheduler for a job
+	 */
+	private class Acquirer extends Thread {
+		private final TestJob job;
+		private final IProgressMonitor monitor = new NullProgressMonitor();
+		private Boolean acquired;
+		private RuntimeException exception;
+		Acquirer(TestJob job) {
+			this.job = job;
+			start();
+		}
+		public void run() {
+			try {
+				acquired = Boolean.valueOf(scheduler.acquire(job, monitor));
+			} catch (RuntimeException e) {
+				exception = e;
+			}
+		}
+		boolean isWaiting() throws InterruptedException {
+			join(500);
+			return isAlive();
+		}
+		boolean getResult() throws InterruptedException {
+			join(10 * SECOND);
+			assertFalse("The job is still waiting", isAlive());
+			if (exception != null)
+				throw exception;
+			return acquired.booleanValue();
+		}
+	}
+
+	private RefreshScheduler scheduler;
+
+	public RefreshSchedulerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(RefreshSchedulerTest.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		scheduler = new RefreshScheduler();
+	}
+
+	public void testConcurrencyLimit() throws InterruptedException {
+		TestJob[] jobs = new TestJob[5];
+		for (int i = 0; i < jobs.length; i++) {
+			jobs[i] = new TestJob(new Object());
+		}
+
+		// Four independent refreshes run at the same time
+		for (int i = 0; i < 4; i++) {
+			assertTrue(scheduler.acquire(jobs[i], new NullProgressMonitor()));
+		}
+		Acquirer fifth = new Acquirer(jobs[4]);
+		assertTrue(fifth.isWaiting());
+
+		// The fifth refresh runs once another one is done
+		scheduler.release(jobs[0]);
+		assertTrue(fifth.getResult());
+		for (int i = 1; i < jobs.length; i++) {
+			scheduler.release(jobs[i]);
+		}
+	}
+
+	public void testConcurrentRefreshes() throws InterruptedException {
+		final Object lock = new Object();
+		final int[] counts = new int[2]; // running, maximum running
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			final TestJob job = new TestJob(new Object());
+			threads[i] = new Thread() {
+				public void run() {
+					if (!scheduler.acquire(job, new NullProgressMonitor()))
+						return;
+					synchronized (lock) {
+						counts[0]++;
+						counts[1] = Math.max(counts[0], counts[1]);
+					}
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException e) {
+						// Release early
+					}
+					synchronized (lock) {
+						counts[0]--;
+					}
+					scheduler.release(job);
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join(10 * SECOND);
+			assertFalse(threads[i].isAlive());
+		}
+		assertEquals(4, counts[1]);
+		assertEquals(0, counts[0]);
+	}
+
+	public void testSameKey() throws InterruptedException {
+		Object key = new Object();
+		TestJob first = new TestJob(key);
+		TestJob second = new TestJob(key);
+
+		// Refreshes with the same key run one at a time
+		assertTrue(scheduler.acquire(first, new NullProgressMonitor()));
+		Acquirer acquirer = new Acquirer(second);
+		assertTrue(acquirer.isWaiting());
+		scheduler.release(first);
+		assertTrue(acquirer.getResult());
+		scheduler.release(second);
+	}
+
+	public void testCoveredRefresh() throws InterruptedException {
+		Object key = new Object();
+		TestJob first = new TestJob(key);
+		TestJob scheduled = new TestJob(key);
+		scheduled.setReschedule(true);
+		first.covered.add(scheduled);
+
+		// A scheduled refresh that is covered by a running refresh is skipped
+		assertTrue(scheduler.acquire(first, new NullProgressMonitor()));
+		Acquirer acquirer = new Acquirer(scheduled);
+		assertTrue(acquirer.isWaiting());
+		scheduler.release(first);
+		assertFalse(acquirer.getResult());
+
+		// A refresh requested by the user is not skipped
+		TestJob requested = new TestJob(key);
+		first.covered.add(requested);
+		assertTrue(scheduler.acquire(first, new NullProgressMonitor()));
+		acquirer = new Acquirer(requested);
+		assertTrue(acquirer.isWaiting());
+		scheduler.release(first);
+		assertTrue(acquirer.getResult());
+		scheduler.release(requested);
+	}
+
+	public void testCancelWait() throws InterruptedException {
+		Object key = new Object();
+		TestJob first = new TestJob(key);
+		assertTrue(scheduler.acquire(first, new NullProgressMonitor()));
+		Acquirer acquirer = new Acquirer(new TestJob(key));
+		assertTrue(acquirer.isWaiting());
+		acquirer.monitor.setCanceled(true);
+		try {
+			acquirer.getResult();
+			fail("The wait should have been canceled");
+		} catch (OperationCanceledException e) {
+			// Expected
+		}
+		scheduler.release(first);
+	}
+
+	public void testStartDelay() {
+		// The schedules that are started together are started 10 seconds apart
+		long start = System.currentTimeMillis();
+		long first = scheduler.getStartDelay();
+		long second = scheduler.getStartDelay();
+		long third = scheduler.getStartDelay();
+		long elapsed = System.currentTimeMillis() - start;
+		assertEquals(0, first);
+		assertDelay(10 * SECOND - elapsed, 10 * SECOND, second);
+		assertDelay(20 * SECOND - elapsed, 20 * SECOND, third);
+	}
+
+	public void testSpread() {
+		// The spread is a tenth of the interval
+		assertSpread(0, MINUTE, 6 * SECOND);
+		assertSpread(5 * SECOND, 50 * SECOND, 5 * SECOND);
+		assertSpread(30 * MINUTE, 30 * MINUTE, 3 * MINUTE);
+
+		// The spread is at most 5 minutes
+		assertSpread(60 * MINUTE, 60 * MINUTE, 5 * MINUTE);
+		assertSpread(24 * 60 * MINUTE, 24 * 60 * MINUTE, 5 * MINUTE);
+
+		// There is no spread for very short intervals
+		assertEquals(100, scheduler.spread(100, 5));
+		assertEquals(100, scheduler.spread(100, 0));
+	}
+
+	/*
+	 * Assert that the spread delays are within the range and cover most of it
+	 */
+	private void assertSpread(long delay, long interval, long range) {
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < 1000; i++) {
+			long spread = scheduler.spread(delay, interval);
+			assertDelay(delay, delay + range - 1, spread);
+			min = Math.min(min, spread);
+			max = Math.max(max, spread);
+		}
+		assertTrue("The spread delays are not random", min < delay + range / 10);
+		assertTrue("The spread delays are not random", max > delay + range * 9 / 10);
+	}
+
+	private void assertDelay(long min, long max, long delay) {
+		assertTrue("Expected a delay between " + min + " and " + max + " but was " + delay, delay >= min && delay <= max);
+	}
+
+	private static ISynchronizeParticipant createParticipant() {
+		return (ISynchronizeParticipant) Proxy.newProxyInstance(RefreshSchedulerTest.class.getClassLoader(),
+				new Class[] { ISynchronizeParticipant.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("equals"))
+							return Boolean.valueOf(proxy == args[0]);
+						if (method.getName().equals("hashCode"))
+							return new Integer(System.identityHashCode(proxy));
+						return null;
+					}
+				});
+	}
+}
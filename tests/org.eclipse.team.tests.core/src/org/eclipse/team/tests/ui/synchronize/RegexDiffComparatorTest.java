@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ui.synchronize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.regex.Pattern;
+
+import junit.framework.Test;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.core.variants.IResourceVariant;
+import org.eclipse.team.internal.ui.synchronize.RegexDiffComparator;
+import org.eclipse.team.tests.core.TeamTest;
+
+/**
+ * Tests that the results remembered by the regex content filter are not
+ * used once the compared contents or the filter criteria change.
+ */
+public class RegexDiffComparatorTest extends TeamTest {
+
+	private static final Pattern FOO_OR_BAR = Pattern.compile("\\s*(foo|bar)\\s*");
+
+	/*
+	 * A remote variant with fixed contents that counts how often they are read
+	 */
+	private static class TestVariant implements IResourceVariant {
+		private final String contents;
+		private final String identifier;
+		int reads;
+		TestVariant(String contents, String identifier) {
+			this.contents = contents;
+			this.identifier = identifier;
+		}
+		public String getName() {
+			return "file.txt";
+		}
+		public boolean isContainer() {
+			return false;
+		}
+		public IStorage getStorage(IProgressMonitor monitor) {
+			return new IStorage() {
+				public InputStream getContents() {
+					reads++;
+					return new ByteArrayInputStream(contents.getBytes());
+				}
+				public IPath getFullPath() {
+					return new Path(getName());
+				}
+				public String getName() {
+					return TestVariant.this.getName();
+				}
+				public boolean isReadOnly() {
+					return true;
+				}
+				public Object getAdapter(Class adapter) {
+					return null;
+				}
+			};
+		}
+		public String getContentIdentifier() {
+			return identifier;
+		}
+		public byte[] asBytes() {
+			return identifier.getBytes();
+		}
+	}
+
+	public RegexDiffComparatorTest() {
+		super();
+	}
+
+	public RegexDiffComparatorTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return suite(RegexDiffComparatorTest.class);
+	}
+
+	public void testModificationStamp() throws CoreException {
+		IFile file = createFile("testRegexStamp", "a\nfoo\nc\n");
+		TestVariant remote = new TestVariant("a\nbar\nc\n", "1.1");
+		RegexDiffComparator comparator = new RegexDiffComparator(FOO_OR_BAR, false);
+		assertTrue(comparator.compare(file, remote, DEFAULT_MONITOR));
+		assertEquals(1, remote.reads);
+
+		// The result is reused while the file and the revision do not change
+		assertTrue(comparator.compare(file, remote, DEFAULT_MONITOR));
+		assertEquals(1, remote.reads);
+
+		// A change that does not match the pattern is found once the file changes
+		file.setContents(new ByteArrayInputStream("a\nfoo\nc\nqux\n".getBytes()), true, true, null);
+		assertFalse(comparator.compare(file, remote, DEFAULT_MONITOR));
+		assertEquals(2, remote.reads);
+
+		// A different revision is compared again
+		TestVariant other = new TestVariant("a\nbar\nc\nqux\n", "1.2");
+		assertTrue(comparator.compare(file, other, DEFAULT_MONITOR));
+		assertEquals(1, other.reads);
+	}
+
+	public void testPattern() throws CoreException {
+		IFile file = createFile("testRegexPattern", "a\nfoo\nc\n");
+		TestVariant remote = new TestVariant("a\nbar\nc\n", "1.1");
+		assertTrue(new RegexDiffComparator(FOO_OR_BAR, false).compare(file, remote, DEFAULT_MONITOR));
+		assertFalse(new RegexDiffComparator(Pattern.compile("\\s*baz\\s*"), false).compare(file, remote, DEFAULT_MONITOR));
+
+		// The flags of the pattern are part of the criteria
+		assertFalse(new RegexDiffComparator(Pattern.compile("\\s*(FOO|BAR)\\s*"), false).compare(file, remote, DEFAULT_MONITOR));
+		assertTrue(new RegexDiffComparator(Pattern.compile("\\s*(FOO|BAR)\\s*", Pattern.CASE_INSENSITIVE), false).compare(file, remote, DEFAULT_MONITOR));
+	}
+
+	public void testWhitespace() throws CoreException {
+		IFile file = createFile("testRegexWhitespace", "a\nfoo \nc\n");
+		TestVariant remote = new TestVariant("a\nfoo\nc\n", "1.1");
+		Pattern pattern = Pattern.compile("\\s*bar\\s*");
+
+		// There are no differences when whitespace is ignored
+		assertTrue(new RegexDiffComparator(pattern, true).compare(file, remote, DEFAULT_MONITOR));
+		assertFalse(new RegexDiffComparator(pattern, false).compare(file, remote, DEFAULT_MONITOR));
+		assertTrue(new RegexDiffComparator(pattern, true).compare(file, remote, DEFAULT_MONITOR));
+	}
+
+	private IFile createFile(String prefix, String contents) throws CoreException {
+		IProject project = createProject(prefix, new String[0]);
+		IFile file = project.getFile("file.txt");
+		file.create(new ByteArrayInputStream(contents.getBytes()), true, null);
+		return file;
+	}
+}
@@ -16,6 +16,7 @@ import junit.framework.TestSuite;
 
 import org.eclipse.team.tests.ccvs.core.cvsresources.AllTestsCVSResources;
 import org.eclipse.team.tests.ccvs.core.jsch.AllJschTests;
+import org.eclipse.team.tests.ccvs.core.mock.MockServerTest;
 
 /**
  * Tests that don't require the Team UI plugin to be loaded.
@@ -34,6 +35,7 @@ public class AllCoreTests extends EclipseTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(AllTestsCVSResources.suite());
 		suite.addTest(AllJschTests.suite());
+		suite.addTest(MockServerTest.suite());
 		return new TestSetup(suite);
 	}
 }
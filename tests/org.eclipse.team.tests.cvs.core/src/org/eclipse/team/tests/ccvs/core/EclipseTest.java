@@ -1077,6 +1077,7 @@ public class EclipseTest extends ResourceTest {
 	
 	public static void waitForIgnoreFileHandling() {
 		waitForJobCompletion(SyncFileChangeListener.getDeferredHandler().getEventHandlerJob());
+		waitForJobCompletion(CVSProviderPlugin.getPlugin().getFileModificationManager().getEventHandlerJob());
         waitForDecorator();
 	}
 
@@ -1141,7 +1142,7 @@ public class EclipseTest extends ResourceTest {
     @Override
 	protected void setUp() throws Exception {
     	RepositoryProviderOperation.consultModelsWhenBuildingScope = false;
-    	if (CVSTestSetup.ENSURE_SEQUENTIAL_ACCESS)
+    	if (CVSTestSetup.ENSURE_SEQUENTIAL_ACCESS && usesTestServer())
     		obtainCVSServerLock();
         super.setUp();
     }
@@ -1149,7 +1150,7 @@ public class EclipseTest extends ResourceTest {
 	@Override
 	protected void tearDown() throws Exception {
 		RepositoryProviderOperation.consultModelsWhenBuildingScope = true;
-		if (CVSTestSetup.ENSURE_SEQUENTIAL_ACCESS)
+		if (CVSTestSetup.ENSURE_SEQUENTIAL_ACCESS && usesTestServer())
 			releaseCVSServerLock();
 		super.tearDown();
 		if (CVSTestSetup.logListener != null) {
@@ -1166,6 +1167,15 @@ public class EclipseTest extends ResourceTest {
 		}
 	}
         
+	/**
+	 * Return whether the test connects to the test repository. Tests that do
+	 * not (e.g. tests that use a mock server) do not need to hold the server lock.
+	 * @return whether the test connects to the test repository
+	 */
+	protected boolean usesTestServer() {
+		return true;
+	}
+        
     private void obtainCVSServerLock() {
         IProject project = null;
         boolean firstTry = true;
@@ -21,6 +21,10 @@ public class AllTestsCVSResources extends EclipseTest {
 		suite.addTest(EclipseFolderTest.suite());
 		suite.addTest(ResourceSyncBytesTest.suite());
 		suite.addTest(CVSURITest.suite());
+		suite.addTest(CVSDateFormatterTest.suite());
+		suite.addTest(FileNameMatcherTest.suite());
+		suite.addTest(SyncInfoSnapshotTest.suite());
+		suite.addTest(ServerMessageLineMatcherTest.suite());
     	return suite; 	
 	}	
 	
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class CVSDateFormatterTest extends EclipseTest {
+
+	public CVSDateFormatterTest() {
+		super();
+	}
+
+	public CVSDateFormatterTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(CVSDateFormatterTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	private SimpleDateFormat getFormat(String pattern) {
+		SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format;
+	}
+
+	public void testEntryLineRoundTrip() throws ParseException {
+		SimpleDateFormat format = getFormat("E MMM dd HH:mm:ss yyyy");
+		long time = 0;
+		for (int i = 0; i < 1000; i++) {
+			time += 3L * 24 * 60 * 60 * 1000 + 3723000;
+			String expected = format.format(new Date(time));
+			if (expected.charAt(8) == '0') {
+				expected = expected.substring(0, 8) + " " + expected.substring(9);
+			}
+			String entryLine = CVSDateFormatter.millisToEntryLine(time);
+			assertEquals(expected, entryLine);
+			assertEquals(time, CVSDateFormatter.entryLineToMillis(entryLine));
+		}
+	}
+
+	public void testEntryLineParsing() throws ParseException {
+		long expected = getFormat("E MMM dd HH:mm:ss yyyy").parse("Tue Mar 04 19:47:36 2003").getTime();
+		assertEquals(expected, CVSDateFormatter.entryLineToMillis("Tue Mar  4 19:47:36 2003"));
+		assertEquals(expected, CVSDateFormatter.entryLineToMillis("Tue Mar 04 19:47:36 2003"));
+		assertEquals(expected, CVSDateFormatter.entryLineToDate("Tue Mar  4 19:47:36 2003").getTime());
+		assertEquals("Tue Mar  4 19:47:36 2003", CVSDateFormatter.dateToEntryLine(new Date(expected)));
+		assertEquals("", CVSDateFormatter.dateToEntryLine(null));
+	}
+
+	public void testInvalidEntryLine() {
+		String[] invalid = new String[] { "", "dummy timestamp", "Result of merge", "Tue Mar", "Tue Foo  4 19:47:36 2003", "Tue Mar  4 19:47 2003" };
+		for (int i = 0; i < invalid.length; i++) {
+			try {
+				CVSDateFormatter.entryLineToMillis(invalid[i]);
+				fail("Expected parse failure for '" + invalid[i] + "'");
+			} catch (ParseException e) {
+				// expected
+			}
+		}
+	}
+
+	public void testServerStamp() throws ParseException {
+		SimpleDateFormat format = getFormat("dd MMM yyyy HH:mm:ss");
+		long expected = format.parse("18 Oct 2002 13:02:45").getTime();
+		assertEquals(expected, CVSDateFormatter.serverStampToMillis("18 Oct 2002 13:02:45 -0000"));
+		assertEquals(expected, CVSDateFormatter.serverStampToMillis("18 Oct 2002 13:02:45"));
+		assertEquals(expected, CVSDateFormatter.serverStampToMillis("18 Oct 2002 08:02:45 -0500"));
+		assertEquals(expected, CVSDateFormatter.serverStampToMillis("18 Oct 2002 14:32:45 +0130"));
+		assertEquals("18 Oct 2002 13:02:45 GMT", CVSDateFormatter.dateToNotifyServer(new Date(expected)));
+		assertEquals("04 Mar 2003 19:47:36 GMT", CVSDateFormatter.dateToNotifyServer(CVSDateFormatter.entryLineToDate("Tue Mar  4 19:47:36 2003")));
+	}
+
+	public void testAnnotateDate() {
+		SimpleDateFormat format = getFormat("dd-MMM-yy");
+		long time = 0;
+		for (int i = 0; i < 1000; i++) {
+			time += 17L * 24 * 60 * 60 * 1000 + 3723000;
+			assertEquals(format.format(new Date(time)), CVSDateFormatter.millisToAnnotateDate(time));
+		}
+		assertEquals("01-Jan-70", CVSDateFormatter.millisToAnnotateDate(0));
+	}
+
+	public void testLogStamp() throws ParseException {
+		long expected = getFormat("yyyy/MM/dd HH:mm:ss").parse("2000/06/19 04:56:21").getTime();
+		assertEquals(expected, CVSDateFormatter.logStampToMillis("2000/06/19 04:56:21 GMT"));
+		assertEquals(expected, CVSDateFormatter.logStampToMillis("2000-06-19 04:56:21 +0000 GMT"));
+		assertEquals(expected, CVSDateFormatter.logStampToMillis("2000-06-19 06:56:21 +0200 GMT"));
+	}
+}
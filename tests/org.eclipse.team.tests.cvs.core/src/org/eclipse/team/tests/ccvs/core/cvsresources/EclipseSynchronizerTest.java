@@ -12,10 +12,12 @@ package org.eclipse.team.tests.ccvs.core.cvsresources;
 
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import junit.framework.Test;
@@ -31,6 +33,7 @@ import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.Team;
@@ -47,6 +50,7 @@ import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
+import org.eclipse.team.tests.ccvs.ui.ReflectionUtils;
 
 /**
  * Tests the EclipseSynchronizer.
@@ -662,6 +666,295 @@ public class EclipseSynchronizerTest extends EclipseTest {
 		assertBijection(expectedMembers.toArray(), members, ignores);
 	}
 	
+	public void testEnsureSyncInfoLoaded() throws CoreException, CVSException {
+		// Enough folders for the meta files to be read concurrently
+		String[] paths = new String[32];
+		for (int i = 0; i < paths.length; i += 2) {
+			paths[i] = "folder" + i + "/";
+			paths[i + 1] = "folder" + i + "/file.txt";
+		}
+		IProject project = getUniqueTestProject(getName());
+		buildResources(project, paths, true);
+
+		// Write the meta files directly so nothing is cached
+		for (int i = 0; i < paths.length; i += 2) {
+			IFolder folder = project.getFolder(paths[i]);
+			IFile file = project.getFile(paths[i + 1]);
+			SyncFileWriter.writeFolderSync(folder, dummyFolderSync(folder));
+			SyncFileWriter.writeAllResourceSync(folder, new byte[][] { dummyResourceSync(file).getBytes() });
+		}
+
+		IResource[] resources = new IResource[] { project };
+		sync.ensureSyncInfoLoaded(resources, IResource.DEPTH_INFINITE);
+		assertTrue(sync.isSyncInfoLoaded(resources, IResource.DEPTH_INFINITE));
+		for (int i = 0; i < paths.length; i += 2) {
+			IFolder folder = project.getFolder(paths[i]);
+			FolderSyncInfo folderInfo = sync.getFolderSync(folder);
+			assertNotNull(folderInfo);
+			assertEquals(dummyFolderSync(folder).getRepository(), folderInfo.getRepository());
+			assertEquals(dummyFolderSync(folder).getRoot(), folderInfo.getRoot());
+			ResourceSyncInfo info = sync.getResourceSync(project.getFile(paths[i + 1]));
+			assertNotNull(info);
+			assertEquals("1.1", info.getRevision());
+		}
+	}
+
+	public void testEntriesLogWrites() throws CoreException, CVSException {
+		String[] paths = new String[] { "folder/", "folder/a.txt", "folder/b.txt", "folder/c.txt", "folder/d.txt", "folder/e.txt" };
+		IProject project = getUniqueTestProject(getName());
+		buildResources(project, paths, true);
+		IFolder folder = project.getFolder("folder");
+		byte[][] infos = new byte[paths.length - 1][];
+		for (int i = 1; i < paths.length; i++) {
+			infos[i - 1] = dummyResourceSync(project.getFile(paths[i])).getBytes();
+		}
+		SyncFileWriter.writeAllResourceSync(folder, infos);
+		IFile entriesLog = folder.getFolder(SyncFileWriter.CVS_DIRNAME).getFile(SyncFileWriter.ENTRIES_LOG);
+		assertTrue(!entriesLog.exists());
+
+		// A small change is appended to Entries.Log
+		MutableResourceSyncInfo changed = dummyResourceSync(project.getFile(paths[1])).cloneMutable();
+		changed.setRevision("1.2");
+		byte[] before = infos[0];
+		infos[0] = changed.getBytes();
+		SyncFileWriter.writeAllResourceSync(folder, infos, new byte[][] { before }, new byte[][] { infos[0] });
+		assertTrue(entriesLog.exists());
+		assertEntries(infos, SyncFileWriter.readAllResourceSync(folder));
+
+		// A removal is appended as well
+		byte[][] remaining = new byte[infos.length - 1][];
+		System.arraycopy(infos, 0, remaining, 0, remaining.length);
+		SyncFileWriter.writeAllResourceSync(folder, remaining, new byte[][] { infos[infos.length - 1] }, new byte[][] { null });
+		assertEntries(remaining, SyncFileWriter.readAllResourceSync(folder));
+
+		// Unchanged entries are not written at all
+		long stamp = entriesLog.getModificationStamp();
+		long entriesStamp = folder.getFolder(SyncFileWriter.CVS_DIRNAME).getFile(SyncFileWriter.ENTRIES).getModificationStamp();
+		SyncFileWriter.writeAllResourceSync(folder, remaining, new byte[][] { remaining[0] }, new byte[][] { remaining[0] });
+		assertEquals(stamp, entriesLog.getModificationStamp());
+		assertEquals(entriesStamp, folder.getFolder(SyncFileWriter.CVS_DIRNAME).getFile(SyncFileWriter.ENTRIES).getModificationStamp());
+
+		// Changing most entries rewrites Entries and clears the log
+		byte[][] previous = (byte[][]) remaining.clone();
+		for (int i = 0; i < remaining.length; i++) {
+			MutableResourceSyncInfo info = new ResourceSyncInfo(remaining[i]).cloneMutable();
+			info.setRevision("1.3");
+			remaining[i] = info.getBytes();
+		}
+		SyncFileWriter.writeAllResourceSync(folder, remaining, previous, remaining);
+		assertEntries(remaining, SyncFileWriter.readAllResourceSync(folder));
+		assertTrue(!entriesLog.exists() || entriesLog.getLocation().toFile().length() == 0);
+
+		// Entries is rewritten when the changes are not known
+		SyncFileWriter.writeAllResourceSync(folder, infos);
+		assertEntries(infos, SyncFileWriter.readAllResourceSync(folder));
+		assertTrue(!entriesLog.exists() || entriesLog.getLocation().toFile().length() == 0);
+	}
+
+	public void testEntriesLogWritesOnFlush() throws CoreException, CVSException {
+		String[] paths = new String[] { "folder/", "folder/a.txt", "folder/b.txt", "folder/c.txt", "folder/d.txt" };
+		IProject project = getUniqueTestProject(getName());
+		buildResources(project, paths, true);
+		IFolder folder = project.getFolder("folder");
+		sync.setFolderSync(project, dummyFolderSync(project));
+		sync.setFolderSync(folder, dummyFolderSync(folder));
+		for (int i = 1; i < paths.length; i++) {
+			sync.setResourceSync(project.getFile(paths[i]), dummyResourceSync(project.getFile(paths[i])));
+		}
+		IFile entries = folder.getFolder(SyncFileWriter.CVS_DIRNAME).getFile(SyncFileWriter.ENTRIES);
+		IFile entriesLog = folder.getFolder(SyncFileWriter.CVS_DIRNAME).getFile(SyncFileWriter.ENTRIES_LOG);
+		long entriesStamp = entries.getModificationStamp();
+
+		// The change made by the synchronizer is appended to the log
+		IFile file = project.getFile(paths[1]);
+		MutableResourceSyncInfo changed = sync.getResourceSync(file).cloneMutable();
+		changed.setRevision("1.2");
+		sync.setResourceSync(file, changed);
+		assertEquals(entriesStamp, entries.getModificationStamp());
+		assertTrue(entriesLog.exists());
+		assertEquals("1.2", getResourceSyncFromDisk(file).getRevision());
+
+		sync.deleteResourceSync(project.getFile(paths[2]));
+		assertEquals(entriesStamp, entries.getModificationStamp());
+		assertNull(getResourceSyncFromDisk(project.getFile(paths[2])));
+	}
+
+	public void testProjectLocks() throws CoreException {
+		IProject project = getUniqueTestProject(getName());
+		IProject other = getProjectWithOtherLock(project);
+		IFile file = project.getFile("file.txt");
+		IFile otherFile = other.getFile("file.txt");
+		file.create(getRandomContents(), false /*force*/, null);
+		otherFile.create(getRandomContents(), false /*force*/, null);
+
+		// The resources of a project share a lock and the workspace requires all the locks
+		assertEquals(getLockIndex(project), getLockIndex(file));
+		assertEquals(-1, getLockIndex(ResourcesPlugin.getWorkspace().getRoot()));
+		assertEquals(-1, getLockIndex(null));
+
+		// The sync info of a project is accessed while another project is locked
+		LockHolder holder = new LockHolder(project);
+		try {
+			new SyncInfoAccess(otherFile).assertDone();
+			SyncInfoAccess blocked = new SyncInfoAccess(file);
+			assertTrue("Access to a locked project should wait", blocked.isWaiting());
+			holder.release();
+			blocked.assertDone();
+		} finally {
+			holder.release();
+		}
+
+		// A move or delete excludes the accesses to all projects
+		holder = new LockHolder(null);
+		try {
+			SyncInfoAccess access = new SyncInfoAccess(file);
+			SyncInfoAccess otherAccess = new SyncInfoAccess(otherFile);
+			assertTrue("Access during a move should wait", access.isWaiting());
+			assertTrue("Access during a move should wait", otherAccess.isWaiting());
+			holder.release();
+			access.assertDone();
+			otherAccess.assertDone();
+		} finally {
+			holder.release();
+		}
+	}
+
+	/*
+	 * A thread that holds the lock of the project of a resource or, for a
+	 * null resource, all the locks of a move or delete until it is released
+	 */
+	private class LockHolder extends Thread {
+		private final IResource resource;
+		private boolean locked;
+		private boolean released;
+		LockHolder(IResource resource) {
+			this.resource = resource;
+			start();
+			waitUntilLocked();
+		}
+		public void run() {
+			if (resource == null) {
+				try {
+					sync.performMoveDelete(new ICVSRunnable() {
+						public void run(IProgressMonitor monitor) {
+							hold();
+						}
+					}, new NullProgressMonitor());
+				} catch (CVSException e) {
+					// The failure is reported by the wait for the lock
+				}
+			} else {
+				ReflectionUtils.callMethod(sync, "beginOperation", new Class[] { IResource.class }, new Object[] { resource });
+				try {
+					hold();
+				} finally {
+					ReflectionUtils.callMethod(sync, "endOperation", new Class[] { IResource.class }, new Object[] { resource });
+				}
+			}
+		}
+		private synchronized void hold() {
+			locked = true;
+			notifyAll();
+			while (!released) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					// Keep holding the lock until released
+				}
+			}
+		}
+		private synchronized void waitUntilLocked() {
+			long end = System.currentTimeMillis() + 10000;
+			while (!locked && System.currentTimeMillis() < end) {
+				try {
+					wait(1000);
+				} catch (InterruptedException e) {
+					// Keep waiting
+				}
+			}
+			assertTrue("The lock was not obtained", locked);
+		}
+		synchronized void release() {
+			released = true;
+			notifyAll();
+		}
+	}
+
+	/*
+	 * A thread that sets and reads back the sync info of a file
+	 */
+	private class SyncInfoAccess extends Thread {
+		private final IFile file;
+		private Throwable error;
+		SyncInfoAccess(IFile file) {
+			this.file = file;
+			start();
+		}
+		public void run() {
+			try {
+				ResourceSyncInfo info = dummyResourceSync(file);
+				sync.setResourceSync(file, info);
+				assertEquals(info, sync.getResourceSync(file));
+			} catch (Throwable e) {
+				error = e;
+			}
+		}
+		boolean isWaiting() {
+			try {
+				join(500);
+			} catch (InterruptedException e) {
+				// Report whether the access is still running
+			}
+			return isAlive();
+		}
+		void assertDone() {
+			try {
+				join(10000);
+			} catch (InterruptedException e) {
+				// Fail below if the access is still running
+			}
+			assertFalse("The access to " + file.getFullPath() + " is blocked", isAlive());
+			if (error != null)
+				fail(error.toString());
+		}
+	}
+
+	private IProject getProjectWithOtherLock(IProject project) throws CoreException {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (int i = 0; ; i++) {
+			IProject other = root.getProject(project.getName() + "-" + i);
+			if (getLockIndex(other) != getLockIndex(project))
+				return getNamedTestProject(other.getName());
+		}
+	}
+
+	private int getLockIndex(IResource resource) {
+		return ((Integer) ReflectionUtils.callMethod(sync, "getLockIndex", new Class[] { IResource.class }, new Object[] { resource })).intValue();
+	}
+
+	private ResourceSyncInfo getResourceSyncFromDisk(IFile file) throws CVSException {
+		byte[][] infos = SyncFileWriter.readAllResourceSync(file.getParent());
+		for (int i = 0; i < infos.length; i++) {
+			ResourceSyncInfo info = new ResourceSyncInfo(infos[i]);
+			if (info.getName().equals(file.getName()))
+				return info;
+		}
+		return null;
+	}
+
+	private void assertEntries(byte[][] expected, byte[][] actual) throws CVSException {
+		assertEquals(expected.length, actual.length);
+		Map expectedRevisions = new HashMap();
+		for (int i = 0; i < expected.length; i++) {
+			ResourceSyncInfo info = new ResourceSyncInfo(expected[i]);
+			expectedRevisions.put(info.getName(), info.getRevision());
+		}
+		for (int i = 0; i < actual.length; i++) {
+			ResourceSyncInfo info = new ResourceSyncInfo(actual[i]);
+			assertEquals("Unexpected entry " + info.getName(), expectedRevisions.get(info.getName()), info.getRevision());
+		}
+	}
+
 	private FolderSyncInfo dummyFolderSync(IContainer container) {
 		return new FolderSyncInfo("repo", ":pserver:user@host:/root", CVSTag.DEFAULT, false);
 	}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.util.FileNameMatcher;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class FileNameMatcherTest extends EclipseTest {
+
+	public FileNameMatcherTest() {
+		super();
+	}
+
+	public FileNameMatcherTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(FileNameMatcherTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	public void testIgnorePatterns() {
+		FileNameMatcher matcher = new FileNameMatcher(new String[] { "bin", " *.class ", "*.tar.gz", "a?c", "[xy].txt", "", "\\*" });
+		assertTrue(matcher.match("bin"));
+		assertFalse(matcher.match("bin2"));
+		assertTrue(matcher.match("Foo.class"));
+		assertTrue(matcher.match(".class"));
+		assertTrue(matcher.match("a.b.class"));
+		assertFalse(matcher.match("Foo.classes"));
+		assertTrue(matcher.match("file.tar.gz"));
+		assertFalse(matcher.match("file.gz"));
+		assertTrue(matcher.match("abc"));
+		assertFalse(matcher.match("abbc"));
+		assertTrue(matcher.match("x.txt"));
+		assertFalse(matcher.match("z.txt"));
+		assertTrue(matcher.match("*"));
+		assertFalse(matcher.match("other"));
+		assertFalse(matcher.match(""));
+	}
+
+	public void testFirstRegisteredPatternWins() {
+		FileNameMatcher matcher = new FileNameMatcher();
+		matcher.register("*.g?f", "-kb");
+		matcher.register("*.gif", "-ko");
+		matcher.register("logo.gif", "-kv");
+		matcher.register("*.jpg", "-kb");
+		matcher.register("*", "-kk");
+		matcher.register("photo.jpg", "-ko");
+		assertEquals("-kb", matcher.getMatch("logo.gif"));
+		assertEquals("-kb", matcher.getMatch("photo.jpg"));
+		assertEquals("-kk", matcher.getMatch("photo.png"));
+		assertEquals("-kk", matcher.getMatch("photo"));
+	}
+}
@@ -11,6 +11,7 @@
 package org.eclipse.team.tests.ccvs.core.cvsresources;
 
 import java.text.ParseException;
+import java.util.Date;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -21,6 +22,7 @@ import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
 import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
 import org.eclipse.team.internal.ccvs.core.client.Session;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncBytes;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.*;
 import org.eclipse.team.internal.ccvs.core.util.CVSDateFormatter;
@@ -124,4 +126,59 @@ public class ResourceSyncBytesTest extends EclipseTest {
 		
 	}
 
+	public void testSyncBytesView() throws CVSException, ParseException {
+		String[] entryLines = new String[] {
+			"/plugin.xml/1.27/Tue Mar  4 19:47:36 2003/-ko/",
+			"/file.java/-1.1/Mon Feb 25 21:44:02 2002/-kb/Tv1",
+			"/file.java/0/dummy timestamp//",
+			"/newfile.txt/1.10/Result of merge+Thu Mar 20 16:36:56 2003//Nversion/with/slashes",
+			"/newfile.txt/1.10/Result of merge//",
+			"/file.txt/1.2/restored+Thu Mar 20 16:36:56 2003//",
+			"D/folder////"
+		};
+		for (int i = 0; i < entryLines.length; i++) {
+			byte[] syncBytes = entryLines[i].getBytes();
+			ResourceSyncBytes view = new ResourceSyncBytes(syncBytes);
+			ResourceSyncInfo info = new ResourceSyncInfo(entryLines[i], null);
+			assertTrue(view.isWellFormed());
+			assertEquals(info.isDirectory(), view.isFolder());
+			assertEquals(info.getName(), view.getName());
+			if (!info.isDirectory()) {
+				assertEquals(info.getRevision(), view.getRevision());
+				assertEquals(info.isAdded(), view.isAddition());
+				assertEquals(info.isDeleted(), view.isDeletion());
+				assertEquals(info.isMerged(), view.isMerge());
+				assertEquals(info.isMergedWithConflicts(), view.isMergedWithConflicts());
+				assertEquals(info.getKeywordMode(), view.getKeywordMode());
+				assertEquals(info.getKeywordMode().isBinary(), view.isBinary());
+				assertEquals(info.getTag(), view.getTag());
+				Date timestamp = CVSDateFormatter.entryLineToDate("Thu Mar 20 16:36:56 2003");
+				assertEquals(info.isNeedsMerge(timestamp), view.isNeedsMerge(timestamp));
+				assertEquals(timestamp.equals(info.getTimeStamp()), view.isTimeStamp(timestamp));
+			}
+			// The byte constructor decodes the view
+			assertEquals(info.getEntryLine(), new ResourceSyncInfo(syncBytes).getEntryLine());
+		}
+		assertTrue(new ResourceSyncBytes("/file.txt/1.2/restored+Thu Mar 20 16:36:56 2003//".getBytes()).wasDeleted());
+		assertEqualBytes("Nversion/with/slashes", new ResourceSyncBytes(entryLines[3].getBytes()).getTagBytes());
+		assertEquals("1.2.2.3", new ResourceSyncBytes("/file.txt/1.2.2.3\tlocked by: igorf;/dummy timestamp//".getBytes()).getRevision());
+	}
+
+	public void testMalformedSyncBytesView() {
+		ResourceSyncBytes view = new ResourceSyncBytes("/file.txt/1.1".getBytes());
+		assertFalse(view.isWellFormed());
+		try {
+			view.getKeywordMode();
+			fail();
+		} catch (CVSException e) {
+			// expected
+		}
+		try {
+			new ResourceSyncInfo("/file.txt////".getBytes());
+			fail();
+		} catch (CVSException e) {
+			// expected
+		}
+	}
+
 }
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.client.listeners.IMessagePatterns;
+import org.eclipse.team.internal.ccvs.core.client.listeners.ServerMessageLineMatcher;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class ServerMessageLineMatcherTest extends EclipseTest {
+
+	public ServerMessageLineMatcherTest() {
+		super();
+	}
+
+	public ServerMessageLineMatcherTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(ServerMessageLineMatcherTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	public void testLiteralOutsideGroups() {
+		assertEquals(" changed from revision ", ServerMessageLineMatcher.getRequiredLiteral("File (.*) changed from revision (.*) to (.*)"));
+		assertEquals("xy", ServerMessageLineMatcher.getRequiredLiteral("(abcdef)xy"));
+		assertEquals("xy", ServerMessageLineMatcher.getRequiredLiteral("[abcdef]xy"));
+		assertEquals("xy", ServerMessageLineMatcher.getRequiredLiteral("a{1,5}xy"));
+		assertEquals(" revision ", ServerMessageLineMatcher.getRequiredLiteral(IMessagePatterns.RDIFF_SUMMARY_NEW_FILE.replaceAll("\\w+:|:\\w+", "")));
+	}
+
+	public void testLiteralWithEscapedCharacters() {
+		assertEquals("bcdef", ServerMessageLineMatcher.getRequiredLiteral("a\\.bcdef"));
+		assertEquals("abcd", ServerMessageLineMatcher.getRequiredLiteral("abcd\\(x\\)"));
+		assertEquals(": Diffing ", ServerMessageLineMatcher.getRequiredLiteral("\\w* \\w*: Diffing (.*)"));
+		assertEquals("ab", ServerMessageLineMatcher.getRequiredLiteral("\\d+ab\\s"));
+	}
+
+	public void testLiteralWithQuantifiers() {
+		assertEquals("def", ServerMessageLineMatcher.getRequiredLiteral("abc*def"));
+		assertEquals("abc", ServerMessageLineMatcher.getRequiredLiteral("abcd?e"));
+		assertEquals("cd", ServerMessageLineMatcher.getRequiredLiteral("ab+cd"));
+	}
+
+	public void testNoLiteral() {
+		assertEquals("", ServerMessageLineMatcher.getRequiredLiteral(""));
+		assertEquals("", ServerMessageLineMatcher.getRequiredLiteral(".*"));
+		assertEquals("", ServerMessageLineMatcher.getRequiredLiteral("(.*)"));
+		assertEquals("", ServerMessageLineMatcher.getRequiredLiteral("[\\w\\-]*"));
+		assertEquals("", ServerMessageLineMatcher.getRequiredLiteral("abc|def"));
+		assertEquals("", ServerMessageLineMatcher.getRequiredLiteral("(?i)abcdef"));
+	}
+
+	public void testMatchTemplates() throws CVSException {
+		ServerMessageLineMatcher matcher = new ServerMessageLineMatcher(IMessagePatterns.RDIFF_SUMMARY_NEW_FILE, new String[] { "remoteFilePath", "rightRevision" });
+		Matcher match = matcher.match("File module/a b.txt is new; HEAD revision 1.1");
+		assertNotNull(match);
+		assertEquals("module/a b.txt", matcher.getValue(match, "remoteFilePath"));
+		assertEquals("1.1", matcher.getValue(match, "rightRevision"));
+		assertNull(matcher.getValue(match, "leftRevision"));
+		assertNull(matcher.match("File module/a.txt changed from revision 1.1 to 1.2"));
+
+		matcher = new ServerMessageLineMatcher(IMessagePatterns.RDIFF_DIRECTORY, new String[] { "remoteFolderPath" });
+		Map values = matcher.processServerMessage("cvs rdiff: Diffing module/folder");
+		assertNotNull(values);
+		assertEquals("module/folder", values.get("remoteFolderPath"));
+		assertNull(matcher.processServerMessage("cvs rdiff: Updating module/folder"));
+
+		matcher = new ServerMessageLineMatcher(IMessagePatterns.MERGE_UPDATE_CONFLICTING_ADDITION, new String[] { "localFilePath" });
+		match = matcher.match("cvs server: file folder/a.txt exists, but has been added in revision TAG_1");
+		assertNotNull(match);
+		assertEquals("folder/a.txt", matcher.getValue(match, "localFilePath"));
+	}
+
+	public void testTemplateWithoutLiteral() throws CVSException {
+		ServerMessageLineMatcher matcher = new ServerMessageLineMatcher("(path:.*:path)", new String[] { "path" });
+		Matcher match = matcher.match("any line");
+		assertNotNull(match);
+		assertEquals("any line", matcher.getValue(match, "path"));
+		assertNotNull(matcher.match(""));
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.cvsresources;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.resources.SyncInfoSnapshot;
+import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
+import org.eclipse.team.internal.ccvs.core.util.SyncFileWriter;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+public class SyncInfoSnapshotTest extends EclipseTest {
+
+	private File directory;
+
+	public SyncInfoSnapshotTest() {
+		super();
+	}
+
+	public SyncInfoSnapshotTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(SyncInfoSnapshotTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		directory = new File(System.getProperty("java.io.tmpdir"), "snapshots-" + System.currentTimeMillis());
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				files[i].delete();
+			}
+		}
+		directory.delete();
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws CoreException {
+		IProject project = getUniqueTestProject("testSnapshotRoundTrip");
+		IFolder folder = project.getFolder("folder");
+		folder.create(false, true, null);
+		new SyncInfoSnapshot(directory).write(project, createEntries(project, folder, "1.1"));
+
+		// A new snapshot reads the entries from the file
+		SyncInfoSnapshot snapshot = new SyncInfoSnapshot(directory);
+		assertEntry(snapshot.getEntry(project), null, "1.1");
+		assertEntry(snapshot.getEntry(folder), getFolderSync(), "1.1");
+		assertNull(snapshot.getEntry(project.getFolder("other")));
+
+		// Writing again replaces the loaded snapshot
+		snapshot.write(project, createEntries(project, folder, "1.2"));
+		assertEntry(snapshot.getEntry(folder), getFolderSync(), "1.2");
+		assertEntry(new SyncInfoSnapshot(directory).getEntry(folder), getFolderSync(), "1.2");
+	}
+
+	public void testChangedMetaFiles() throws CoreException {
+		IProject project = getUniqueTestProject("testSnapshotChangedMetaFiles");
+		IFolder folder = project.getFolder("folder");
+		folder.create(false, true, null);
+		new SyncInfoSnapshot(directory).write(project, createEntries(project, folder, "1.1"));
+
+		// The entry of a folder whose meta files have changed is not used
+		IFolder cvsFolder = folder.getFolder(SyncFileWriter.CVS_DIRNAME);
+		cvsFolder.create(false, true, null);
+		cvsFolder.getFile(SyncFileWriter.ENTRIES).create(new ByteArrayInputStream(new byte[0]), false, null);
+		SyncInfoSnapshot snapshot = new SyncInfoSnapshot(directory);
+		assertNull(snapshot.getEntry(folder));
+		assertEntry(snapshot.getEntry(project), null, "1.1");
+	}
+
+	public void testCorruptFile() throws CoreException, IOException {
+		IProject project = getUniqueTestProject("testSnapshotCorruptFile");
+		IFolder folder = project.getFolder("folder");
+		folder.create(false, true, null);
+		new SyncInfoSnapshot(directory).write(project, createEntries(project, folder, "1.1"));
+		File file = getSnapshotFile(project);
+
+		// A truncated snapshot is ignored
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(out.length() - 5);
+		} finally {
+			out.close();
+		}
+		SyncInfoSnapshot snapshot = new SyncInfoSnapshot(directory);
+		assertNull(snapshot.getEntry(folder));
+		assertNull(snapshot.getEntry(project));
+		clearLoggedErrors();
+
+		// A snapshot with an unknown header is ignored
+		FileOutputStream garbage = new FileOutputStream(file);
+		try {
+			garbage.write("not a snapshot".getBytes());
+		} finally {
+			garbage.close();
+		}
+		snapshot = new SyncInfoSnapshot(directory);
+		assertNull(snapshot.getEntry(folder));
+		assertNull(snapshot.getEntry(project));
+
+		// A valid snapshot can be written over the corrupt one
+		snapshot.write(project, createEntries(project, folder, "1.1"));
+		assertEntry(new SyncInfoSnapshot(directory).getEntry(folder), getFolderSync(), "1.1");
+	}
+
+	private List createEntries(IProject project, IFolder folder, String revision) throws CVSException {
+		List entries = new ArrayList();
+		entries.add(new SyncInfoSnapshot.Entry("", SyncFileWriter.getMetaFileStamps(project), null,
+				new byte[][] { getSyncBytes("file.txt", revision) }));
+		entries.add(new SyncInfoSnapshot.Entry("folder", SyncFileWriter.getMetaFileStamps(folder), getFolderSync(),
+				new byte[][] { getSyncBytes("a.txt", revision), getSyncBytes("b.txt", revision) }));
+		return entries;
+	}
+
+	private void assertEntry(SyncInfoSnapshot.Entry entry, FolderSyncInfo folderSync, String revision) {
+		assertNotNull(entry);
+		assertEquals(folderSync, entry.getFolderSync());
+		byte[][] resourceSync = entry.getResourceSync();
+		assertTrue(resourceSync.length > 0);
+		for (int i = 0; i < resourceSync.length; i++) {
+			assertTrue(new String(resourceSync[i]).indexOf("/" + revision + "/") != -1);
+		}
+	}
+
+	private FolderSyncInfo getFolderSync() {
+		return new FolderSyncInfo("repo", ":pserver:user@host:/root", CVSTag.DEFAULT, false);
+	}
+
+	private byte[] getSyncBytes(String name, String revision) {
+		return ("/" + name + "/" + revision + "/Tue Sep 27 12:00:00 2016//").getBytes();
+	}
+
+	private File getSnapshotFile(IProject project) {
+		File file = new File(directory, project.getName() + ".snapshot");
+		assertTrue(file.exists());
+		return file;
+	}
+
+	/*
+	 * The snapshot logs the corruption it detects
+	 */
+	private void clearLoggedErrors() {
+		if (CVSTestSetup.logListener != null) {
+			try {
+				CVSTestSetup.logListener.checkErrors();
+			} catch (CoreException e) {
+				// expected
+			}
+		}
+	}
+}
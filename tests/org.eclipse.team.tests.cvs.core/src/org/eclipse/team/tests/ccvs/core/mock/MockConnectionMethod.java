@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.IConnectionMethod;
+import org.eclipse.team.internal.ccvs.core.IServerConnection;
+
+/**
+ * The connection method that connects to the {@link MockServer} installed for
+ * the root directory of a repository location.
+ */
+public class MockConnectionMethod implements IConnectionMethod {
+	@Override
+	public String getName() {
+		return MockServer.CONNECTION_METHOD;
+	}
+
+	@Override
+	public IServerConnection createConnection(ICVSRepositoryLocation location, String password) {
+		return new MockServerConnection(location.getRootDirectory());
+	}
+
+	@Override
+	public void disconnect(ICVSRepositoryLocation location) {
+		// Nothing need to be done
+	}
+}
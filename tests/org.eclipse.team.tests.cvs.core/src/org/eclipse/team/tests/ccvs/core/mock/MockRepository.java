@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The in-memory contents of a repository served by a {@link MockServer}.
+ * Files are identified by their repository relative path (e.g.
+ * <code>project/folder/file.txt</code>) and only have revisions on the
+ * trunk. Folders exist as long as they contain files.
+ */
+public class MockRepository {
+
+	public static final String DEFAULT_AUTHOR = "mock";
+
+	/**
+	 * A revision of a file.
+	 */
+	public static class Revision {
+		private final String number;
+		private final byte[] contents;
+		private final Date date;
+		private final String author;
+		private final String comment;
+
+		Revision(String number, byte[] contents, Date date, String author, String comment) {
+			this.number = number;
+			this.contents = contents;
+			this.date = date;
+			this.author = author;
+			this.comment = comment;
+		}
+
+		public String getNumber() {
+			return number;
+		}
+
+		public byte[] getContents() {
+			return contents;
+		}
+
+		public Date getDate() {
+			return date;
+		}
+
+		public String getAuthor() {
+			return author;
+		}
+
+		public String getComment() {
+			return comment;
+		}
+	}
+
+	/**
+	 * A file and its revisions, oldest first.
+	 */
+	public static class MockFile {
+		private final String path;
+		private final List<Revision> revisions = new ArrayList<>();
+
+		MockFile(String path) {
+			this.path = path;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public String getName() {
+			return path.substring(path.lastIndexOf('/') + 1);
+		}
+
+		public Revision getHead() {
+			return revisions.get(revisions.size() - 1);
+		}
+
+		public List<Revision> getRevisions() {
+			return revisions;
+		}
+
+		Revision addRevision(byte[] contents, String author, String comment) {
+			String number = "1." + (revisions.size() + 1);
+			Revision revision = new Revision(number, contents, new Date(), author, comment);
+			revisions.add(revision);
+			return revision;
+		}
+	}
+
+	private final SortedMap<String, MockFile> files = new TreeMap<>();
+
+	/**
+	 * Add a file with an initial revision or add a revision to an existing file.
+	 * @param path the repository relative path of the file
+	 * @param contents the contents of the new revision
+	 * @param comment the commit comment
+	 * @return the new revision
+	 */
+	public synchronized Revision commit(String path, byte[] contents, String comment) {
+		path = normalize(path);
+		MockFile file = files.get(path);
+		if (file == null) {
+			file = new MockFile(path);
+			files.put(path, file);
+		}
+		return file.addRevision(contents, DEFAULT_AUTHOR, comment);
+	}
+
+	/**
+	 * Add a file with an initial revision or add a revision to an existing file.
+	 * @param path the repository relative path of the file
+	 * @param contents the contents of the new revision
+	 * @return the new revision
+	 */
+	public Revision commit(String path, String contents) {
+		return commit(path, contents.getBytes(), "");
+	}
+
+	/**
+	 * Remove the file from the repository.
+	 * @param path the repository relative path of the file
+	 */
+	public synchronized void remove(String path) {
+		files.remove(normalize(path));
+	}
+
+	/**
+	 * Remove all files from the repository.
+	 */
+	public synchronized void clear() {
+		files.clear();
+	}
+
+	/**
+	 * Return the file at the given path or <code>null</code>.
+	 * @param path the repository relative path of the file
+	 * @return the file or <code>null</code>
+	 */
+	public synchronized MockFile getFile(String path) {
+		return files.get(normalize(path));
+	}
+
+	/**
+	 * Return whether the given path is a folder that contains files.
+	 * @param path the repository relative path of the folder
+	 * @return whether the folder exists
+	 */
+	public synchronized boolean isFolder(String path) {
+		String prefix = getPrefix(path);
+		SortedMap<String, MockFile> tail = files.tailMap(prefix);
+		return !tail.isEmpty() && tail.firstKey().startsWith(prefix);
+	}
+
+	/**
+	 * Return the files that are direct children of the given folder.
+	 * @param path the repository relative path of the folder
+	 * @return the child files sorted by name
+	 */
+	public synchronized List<MockFile> getFiles(String path) {
+		String prefix = getPrefix(path);
+		List<MockFile> result = new ArrayList<>();
+		for (MockFile file : files.tailMap(prefix).values()) {
+			if (!file.getPath().startsWith(prefix))
+				break;
+			if (file.getPath().indexOf('/', prefix.length()) == -1)
+				result.add(file);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the names of the folders that are direct children of the given folder.
+	 * @param path the repository relative path of the folder
+	 * @return the child folder names sorted by name
+	 */
+	public synchronized SortedSet<String> getFolderNames(String path) {
+		String prefix = getPrefix(path);
+		SortedSet<String> result = new TreeSet<>();
+		for (String filePath : files.tailMap(prefix).keySet()) {
+			if (!filePath.startsWith(prefix))
+				break;
+			int end = filePath.indexOf('/', prefix.length());
+			if (end != -1)
+				result.add(filePath.substring(prefix.length(), end));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of files in the repository.
+	 * @return the number of files
+	 */
+	public synchronized int getFileCount() {
+		return files.size();
+	}
+
+	private static String getPrefix(String folderPath) {
+		folderPath = normalize(folderPath);
+		return folderPath.length() == 0 ? folderPath : folderPath + '/';
+	}
+
+	static String normalize(String path) {
+		while (path.startsWith("/"))
+			path = path.substring(1);
+		while (path.endsWith("/"))
+			path = path.substring(0, path.length() - 1);
+		return path.replaceAll("/+", "/");
+	}
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.util.KnownRepositories;
+
+/**
+ * An in-process stand-in for a CVS server that is reached through the
+ * <code>mock</code> connection method. It speaks enough of the client/server
+ * protocol to answer <code>valid-requests</code>, <code>expand-modules</code>,
+ * <code>co</code>, <code>update</code>, <code>status</code>, <code>log</code>
+ * and <code>rlog</code> from the contents of a {@link MockRepository}, which
+ * allows the client side of these commands to be measured without a real
+ * server.
+ * <p>
+ * The latency of each round trip and the bandwidth of the responses can be
+ * configured to simulate slow links. Other requests can be scripted with a
+ * canned response.
+ * <p>
+ * Servers are registered by repository root directory so the location
+ * <code>:mock:user@localhost:/root</code> connects to the server installed
+ * for <code>/root</code>.
+ */
+public class MockServer {
+
+	public static final String CONNECTION_METHOD = "mock";
+
+	// Map of repository root directory to server
+	private static final Map<String, MockServer> servers = new HashMap<>();
+
+	private final String rootDirectory;
+	private final MockRepository repository = new MockRepository();
+
+	// Map of request name to canned response
+	private final Map<String, String> scriptedResponses = new HashMap<>();
+
+	private volatile int latency;
+	private volatile long bandwidth;
+
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger roundTrips = new AtomicInteger();
+	private final AtomicLong bytesSent = new AtomicLong();
+
+	/**
+	 * Install a server for the given repository root directory, replacing any
+	 * server previously installed for it.
+	 * @param rootDirectory the repository root directory (e.g. <code>/mock</code>)
+	 * @return the server
+	 */
+	public static synchronized MockServer install(String rootDirectory) {
+		MockServer server = new MockServer(rootDirectory);
+		servers.put(rootDirectory, server);
+		return server;
+	}
+
+	/**
+	 * Remove the server installed for the given repository root directory.
+	 * @param rootDirectory the repository root directory
+	 */
+	public static synchronized void uninstall(String rootDirectory) {
+		servers.remove(rootDirectory);
+	}
+
+	static synchronized MockServer getServer(String rootDirectory) {
+		return servers.get(rootDirectory);
+	}
+
+	private MockServer(String rootDirectory) {
+		this.rootDirectory = rootDirectory;
+	}
+
+	public String getRootDirectory() {
+		return rootDirectory;
+	}
+
+	public MockRepository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * Return the repository location used to connect to this server.
+	 * @return the repository location
+	 * @throws CVSException
+	 */
+	public ICVSRepositoryLocation getLocation() throws CVSException {
+		return KnownRepositories.getInstance().getRepository(":" + CONNECTION_METHOD + ":user@localhost:" + rootDirectory);
+	}
+
+	/**
+	 * Set the time that elapses between the end of a request and the first
+	 * byte of its response. Opening a connection also takes one round trip.
+	 * @param millis the latency in milliseconds
+	 */
+	public void setLatency(int millis) {
+		this.latency = millis;
+	}
+
+	public int getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Set the rate at which responses can be read.
+	 * @param bytesPerSecond the bandwidth or 0 for an unlimited bandwidth
+	 */
+	public void setBandwidth(long bytesPerSecond) {
+		this.bandwidth = bytesPerSecond;
+	}
+
+	public long getBandwidth() {
+		return bandwidth;
+	}
+
+	/**
+	 * Answer the given request, which is not otherwise understood by the
+	 * server, with a canned response. The response is sent as is and must
+	 * end with an <code>ok</code> or <code>error</code> line.
+	 * @param request the name of the request (e.g. <code>editors</code>)
+	 * @param response the response
+	 */
+	public synchronized void script(String request, String response) {
+		scriptedResponses.put(request, response);
+	}
+
+	synchronized String getScriptedResponse(String request) {
+		return scriptedResponses.get(request);
+	}
+
+	/**
+	 * Return the number of connections that were opened since the
+	 * statistics were last reset.
+	 * @return the number of connections
+	 */
+	public int getConnectionCount() {
+		return connections.get();
+	}
+
+	/**
+	 * Return the number of responses sent since the statistics were last reset.
+	 * @return the number of round trips
+	 */
+	public int getRoundTrips() {
+		return roundTrips.get();
+	}
+
+	/**
+	 * Return the number of response bytes sent since the statistics were
+	 * last reset.
+	 * @return the number of bytes
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	public void resetStatistics() {
+		connections.set(0);
+		roundTrips.set(0);
+		bytesSent.set(0);
+	}
+
+	void connectionOpened() {
+		connections.incrementAndGet();
+	}
+
+	void responseSent(int bytes) {
+		roundTrips.incrementAndGet();
+		bytesSent.addAndGet(bytes);
+	}
+}
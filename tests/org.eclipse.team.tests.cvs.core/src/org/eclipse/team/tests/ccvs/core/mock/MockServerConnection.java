@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.team.internal.ccvs.core.IServerConnection;
+import org.eclipse.team.internal.ccvs.core.connection.CVSAuthenticationException;
+
+/**
+ * A connection to a {@link MockServer}. The requests written by the client
+ * are handed to a {@link MockServerSession} as they are written and its
+ * responses are made available to the client once the latency of the server
+ * has elapsed, at the bandwidth of the server.
+ */
+class MockServerConnection implements IServerConnection {
+
+	private final String rootDirectory;
+	private MockServer server;
+	private MockServerSession session;
+
+	// The response being read and the responses that were sent after it
+	private byte[] response = new byte[0];
+	private int position;
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+	// The time at which the first pending response can be read
+	private long responseTime;
+
+	// The time at which the client started reading the current response and the bytes read since
+	private long transferStart;
+	private long transferred;
+
+	private final InputStream in = new InputStream() {
+		@Override
+		public int read() throws IOException {
+			if (!ensureAvailable())
+				return -1;
+			int b = response[position++] & 0xFF;
+			throttle(1);
+			return b;
+		}
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+			if (!ensureAvailable())
+				return -1;
+			int count = Math.min(len, response.length - position);
+			System.arraycopy(response, position, b, off, count);
+			position += count;
+			throttle(count);
+			return count;
+		}
+		@Override
+		public int available() {
+			return response.length - position;
+		}
+	};
+
+	private final OutputStream out = new OutputStream() {
+		@Override
+		public void write(int b) throws IOException {
+			getSession().receive((byte)b);
+		}
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			MockServerSession session = getSession();
+			for (int i = off; i < off + len; i++) {
+				session.receive(b[i]);
+			}
+		}
+	};
+
+	MockServerConnection(String rootDirectory) {
+		this.rootDirectory = rootDirectory;
+	}
+
+	@Override
+	public void open(IProgressMonitor monitor) throws IOException, CVSAuthenticationException {
+		server = MockServer.getServer(rootDirectory);
+		if (server == null)
+			throw new IOException("No mock server is installed for " + rootDirectory);
+		server.connectionOpened();
+		sleepUntil(System.currentTimeMillis() + server.getLatency());
+		session = new MockServerSession(server, this);
+	}
+
+	@Override
+	public void close() throws IOException {
+		session = null;
+		response = new byte[0];
+		position = 0;
+		pending.reset();
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return in;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return out;
+	}
+
+	/*
+	 * Queue a response of the session. The response can be read once the
+	 * latency has elapsed after the request that triggered it.
+	 */
+	void respond(byte[] bytes) {
+		if (pending.size() == 0)
+			responseTime = System.currentTimeMillis() + server.getLatency();
+		pending.write(bytes, 0, bytes.length);
+		server.responseSent(bytes.length);
+	}
+
+	private MockServerSession getSession() throws IOException {
+		if (session == null)
+			throw new IOException("The connection is closed");
+		return session;
+	}
+
+	/*
+	 * Make the next pending response available when the current one has been read.
+	 * Fail instead of blocking when the client reads without having sent a request
+	 * that the server answers.
+	 */
+	private boolean ensureAvailable() throws IOException {
+		if (position < response.length)
+			return true;
+		if (session == null)
+			return false;
+		if (pending.size() == 0)
+			throw new IOException("The client is waiting for a response that the mock server will not send");
+		response = pending.toByteArray();
+		position = 0;
+		pending.reset();
+		sleepUntil(responseTime);
+		transferStart = System.currentTimeMillis();
+		transferred = 0;
+		return true;
+	}
+
+	/*
+	 * Delay the reading of the response so that it does not exceed the bandwidth
+	 */
+	private void throttle(int bytes) throws InterruptedIOException {
+		long bandwidth = server.getBandwidth();
+		if (bandwidth <= 0)
+			return;
+		transferred += bytes;
+		long due = transferStart + transferred * 1000 / bandwidth;
+		// Avoid sleeping for each byte that is read
+		if (due - System.currentTimeMillis() >= 10)
+			sleepUntil(due);
+	}
+
+	private void sleepUntil(long time) throws InterruptedIOException {
+		long delay = time - System.currentTimeMillis();
+		if (delay <= 0)
+			return;
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+}
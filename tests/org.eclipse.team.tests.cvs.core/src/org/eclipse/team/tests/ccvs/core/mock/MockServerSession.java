@@ -0,0 +1,628 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+import org.eclipse.team.tests.ccvs.core.mock.MockRepository.MockFile;
+import org.eclipse.team.tests.ccvs.core.mock.MockRepository.Revision;
+
+/**
+ * The server side of a connection to a {@link MockServer}. The session
+ * collects the requests that describe the state of the client (directories,
+ * entries, arguments and options) until a command request is received and
+ * then answers the command from the contents of the repository of the server
+ * the way a CVS 1.11 server would.
+ * <p>
+ * Only the trunk of the repository is modelled. The tag, date and revision
+ * selection options of the commands are ignored and locally modified files
+ * whose revision is not the latest are reported as conflicts instead of
+ * being merged.
+ */
+class MockServerSession {
+
+	private static final String VALID_REQUESTS = "Root Valid-responses valid-requests Directory Max-dotdot Static-directory Sticky Entry Kopt Checkin-time Modified Is-modified UseUnchanged Unchanged Notify Questionable Case Argument Argumentx Global_option expand-modules co update log rlog status noop version";
+
+	private static final String SERVER_PREFIX = "cvs server: ";
+	private static final String PERMISSIONS = "u=rw,g=rw,o=r";
+	private static final String LOG_SEPARATOR = "----------------------------";
+	private static final String LOG_END = "=============================================================================";
+	private static final String STATUS_SEPARATOR = "===================================================================";
+
+	// The requests that are followed by additional lines
+	private static final int NONE = 0;
+	private static final int DIRECTORY_REPOSITORY = 1;
+	private static final int MODIFIED_MODE = 2;
+	private static final int MODIFIED_SIZE = 3;
+	private static final int NOTIFY_DETAILS = 4;
+
+	private final MockServer server;
+	private final MockServerConnection connection;
+	private final MockRepository repository;
+
+	// The line being received and the state of the request it belongs to
+	private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+	private int expected = NONE;
+	private long bytesToSkip;
+
+	// The state sent by the client for the next command
+	private String currentDirectory;
+	private final Map<String, String> directories = new LinkedHashMap<>();
+	private final Map<String, Map<String, String>> entries = new HashMap<>();
+	private final Set<String> unchanged = new HashSet<>();
+	private final Set<String> modified = new HashSet<>();
+	private final List<String> arguments = new ArrayList<>();
+	private final Set<String> globalOptions = new HashSet<>();
+
+	// The response being built
+	private final ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+	MockServerSession(MockServer server, MockServerConnection connection) {
+		this.server = server;
+		this.connection = connection;
+		this.repository = server.getRepository();
+	}
+
+	/*
+	 * Receive the next byte sent by the client
+	 */
+	void receive(byte b) {
+		if (bytesToSkip > 0) {
+			// Skip the contents of a modified file
+			bytesToSkip--;
+			return;
+		}
+		if (b == '\n') {
+			String request = new String(line.toByteArray());
+			line.reset();
+			receiveLine(request);
+		} else {
+			line.write(b);
+		}
+	}
+
+	private void receiveLine(String request) {
+		switch (expected) {
+			case DIRECTORY_REPOSITORY:
+				directories.put(currentDirectory, getRepositoryRelativePath(request));
+				expected = NONE;
+				return;
+			case MODIFIED_MODE:
+				expected = MODIFIED_SIZE;
+				return;
+			case MODIFIED_SIZE:
+				bytesToSkip = Long.parseLong(request.startsWith("z") ? request.substring(1) : request);
+				expected = NONE;
+				return;
+			case NOTIFY_DETAILS:
+				expected = NONE;
+				return;
+		}
+		int space = request.indexOf(' ');
+		String name = space == -1 ? request : request.substring(0, space);
+		String argument = space == -1 ? "" : request.substring(space + 1);
+		if (name.equals("Directory")) {
+			currentDirectory = normalizeLocalPath(argument);
+			expected = DIRECTORY_REPOSITORY;
+		} else if (name.equals("Entry")) {
+			receiveEntry(argument);
+		} else if (name.equals("Unchanged")) {
+			unchanged.add(getKey(currentDirectory, argument));
+		} else if (name.equals("Is-modified")) {
+			modified.add(getKey(currentDirectory, argument));
+		} else if (name.equals("Modified")) {
+			modified.add(getKey(currentDirectory, argument));
+			expected = MODIFIED_MODE;
+		} else if (name.equals("Notify")) {
+			expected = NOTIFY_DETAILS;
+		} else if (name.equals("Argument")) {
+			arguments.add(argument);
+		} else if (name.equals("Argumentx")) {
+			int last = arguments.size() - 1;
+			arguments.set(last, arguments.get(last) + '\n' + argument);
+		} else if (name.equals("Global_option")) {
+			globalOptions.add(argument);
+		} else if (name.equals("valid-requests")) {
+			message("Valid-requests " + VALID_REQUESTS);
+			respond(true);
+		} else if (name.equals("expand-modules")) {
+			for (String module : arguments) {
+				message("Module-expansion " + module);
+			}
+			respond(true);
+		} else if (name.equals("version")) {
+			message("M Concurrent Versions System (CVS) 1.11.22 (client/server)");
+			respond(true);
+		} else if (name.equals("noop")) {
+			respond(true);
+		} else if (name.equals("co")) {
+			respond(checkout());
+		} else if (name.equals("update")) {
+			respond(update());
+		} else if (name.equals("status")) {
+			respond(status());
+		} else if (name.equals("log")) {
+			respond(log());
+		} else if (name.equals("rlog")) {
+			respond(rlog());
+		} else if (server.getScriptedResponse(name) != null) {
+			byte[] bytes = server.getScriptedResponse(name).getBytes();
+			response.write(bytes, 0, bytes.length);
+			sendResponse();
+		} else if (name.length() > 0 && Character.isLowerCase(name.charAt(0))) {
+			message("E " + SERVER_PREFIX + "unrecognized request `" + name + "'");
+			respond(false);
+		}
+		// Other requests (e.g. Root, Valid-responses or UseUnchanged) only describe the client
+	}
+
+	private void receiveEntry(String entryLine) {
+		// e.g. /file.txt/1.1/timestamp/-kb/
+		String[] fields = entryLine.split("/", -1);
+		if (!entryLine.startsWith("/") || fields.length < 3)
+			return;
+		Map<String, String> folderEntries = entries.get(currentDirectory);
+		if (folderEntries == null) {
+			folderEntries = new HashMap<>();
+			entries.put(currentDirectory, folderEntries);
+		}
+		folderEntries.put(fields[1], fields[2]);
+	}
+
+	/*
+	 * Finish the response to a command and forget the state sent for it
+	 */
+	private void respond(boolean ok) {
+		message(ok ? "ok" : "error  ");
+		sendResponse();
+	}
+
+	private void sendResponse() {
+		connection.respond(response.toByteArray());
+		response.reset();
+		currentDirectory = null;
+		directories.clear();
+		entries.clear();
+		unchanged.clear();
+		modified.clear();
+		arguments.clear();
+		globalOptions.clear();
+	}
+
+	private void message(String text) {
+		byte[] bytes = text.getBytes();
+		response.write(bytes, 0, bytes.length);
+		response.write('\n');
+	}
+
+	private void error(String text) {
+		message("E " + SERVER_PREFIX + text);
+	}
+
+	/*** co ***/
+
+	private boolean checkout() {
+		Map<String, String> options = new HashMap<>();
+		List<String> modules = parseOptions(arguments, options, "-d", "-r", "-D", "-j", "-k", "-s");
+		boolean ok = true;
+		for (String module : modules) {
+			String path = MockRepository.normalize(module);
+			if (!repository.isFolder(path)) {
+				error("cannot find module `" + module + "' - ignored");
+				ok = false;
+				continue;
+			}
+			String localDir = options.containsKey("-d") ? options.get("-d") : path;
+			sendFolder(localDir, path, !options.containsKey("-l"));
+		}
+		return ok;
+	}
+
+	/*** update ***/
+
+	private boolean update() {
+		Map<String, String> options = new HashMap<>();
+		List<String> files = parseOptions(arguments, options, "-r", "-D", "-j", "-k", "-I", "-W");
+		boolean noChange = globalOptions.contains("-n");
+		boolean createDirectories = options.containsKey("-d");
+		boolean recurse = !options.containsKey("-l");
+		for (String file : getLocalPaths(files)) {
+			String repositoryPath = getRepositoryPath(file);
+			if (directories.containsKey(file) || noChange && repository.isFolder(repositoryPath)) {
+				updateFolder(file, repositoryPath, noChange, createDirectories, recurse);
+			} else if (repository.isFolder(repositoryPath)) {
+				sendFolder(file, repositoryPath, recurse);
+			} else {
+				String parent = getParent(file);
+				updateFile(parent, getRepositoryPath(parent), getName(file), noChange);
+			}
+		}
+		return true;
+	}
+
+	private void updateFolder(String localDir, String repositoryPath, boolean noChange, boolean createDirectories, boolean recurse) {
+		if (!repository.isFolder(repositoryPath)) {
+			error("skipping directory " + localDir);
+			return;
+		}
+		error("Updating " + localDir);
+		Set<String> names = new TreeSet<>();
+		for (MockFile file : repository.getFiles(repositoryPath)) {
+			names.add(file.getName());
+		}
+		names.addAll(getEntries(localDir).keySet());
+		for (String name : names) {
+			updateFile(localDir, repositoryPath, name, noChange);
+		}
+		if (!recurse)
+			return;
+		for (String name : repository.getFolderNames(repositoryPath)) {
+			String childDir = appendPath(localDir, name);
+			String childRepositoryPath = appendPath(repositoryPath, name);
+			if (directories.containsKey(childDir)) {
+				updateFolder(childDir, childRepositoryPath, noChange, createDirectories, recurse);
+			} else if (createDirectories) {
+				if (noChange) {
+					error("New directory `" + childDir + "' -- ignored");
+				} else {
+					sendFolder(childDir, childRepositoryPath, true);
+				}
+			}
+		}
+		for (String childDir : getChildDirectories(localDir)) {
+			if (!repository.isFolder(directories.get(childDir)))
+				error("skipping directory " + childDir);
+		}
+	}
+
+	private void updateFile(String localDir, String repositoryPath, String name, boolean noChange) {
+		String path = appendPath(localDir, name);
+		String key = getKey(localDir, name);
+		String revision = getEntries(localDir).get(name);
+		MockFile file = repository.getFile(appendPath(repositoryPath, name));
+		if (file == null) {
+			if (revision == null)
+				return;
+			if (modified.contains(key)) {
+				error("conflict: " + path + " is modified but no longer in the repository");
+				message("M C " + path);
+			} else {
+				error(path + " is no longer in the repository");
+				if (!noChange) {
+					message("Removed " + localDir + "/");
+					message(getRepositoryFile(repositoryPath, name));
+				}
+			}
+			return;
+		}
+		Revision head = file.getHead();
+		if (revision == null) {
+			if (noChange) {
+				message("M U " + path);
+			} else {
+				sendFile("Created", localDir, repositoryPath, file);
+			}
+		} else if (revision.equals("0")) {
+			message("M A " + path);
+		} else if (revision.startsWith("-")) {
+			message("M R " + path);
+		} else if (modified.contains(key)) {
+			message((revision.equals(head.getNumber()) ? "M M " : "M C ") + path);
+		} else if (!revision.equals(head.getNumber()) || !unchanged.contains(key)) {
+			if (noChange) {
+				message("M U " + path);
+			} else {
+				sendFile("Updated", localDir, repositoryPath, file);
+			}
+		}
+	}
+
+	/*
+	 * Send a folder and all its files (and sub-folders) as it would be for a
+	 * checkout or for a new folder found by an update
+	 */
+	private void sendFolder(String localDir, String repositoryPath, boolean recurse) {
+		error("Updating " + localDir);
+		String repositoryDir = getRepositoryFile(repositoryPath, "") + "/";
+		message("Clear-sticky " + localDir + "/");
+		message(repositoryDir);
+		message("Clear-static-directory " + localDir + "/");
+		message(repositoryDir);
+		for (MockFile file : repository.getFiles(repositoryPath)) {
+			sendFile("Created", localDir, repositoryPath, file);
+		}
+		if (!recurse)
+			return;
+		for (String name : repository.getFolderNames(repositoryPath)) {
+			sendFolder(appendPath(localDir, name), appendPath(repositoryPath, name), true);
+		}
+	}
+
+	private void sendFile(String responseName, String localDir, String repositoryPath, MockFile file) {
+		Revision head = file.getHead();
+		byte[] contents = head.getContents();
+		message(responseName + " " + localDir + "/");
+		message(getRepositoryFile(repositoryPath, file.getName()));
+		message("/" + file.getName() + "/" + head.getNumber() + "///");
+		message(PERMISSIONS);
+		message(Integer.toString(contents.length));
+		response.write(contents, 0, contents.length);
+	}
+
+	/*** status ***/
+
+	private boolean status() {
+		List<String> files = parseOptions(arguments, new HashMap<String, String>());
+		for (String file : getLocalPaths(files)) {
+			if (directories.containsKey(file)) {
+				statusFolder(file);
+			} else {
+				statusFile(getParent(file), getName(file));
+			}
+		}
+		return true;
+	}
+
+	private void statusFolder(String localDir) {
+		error("Examining " + localDir);
+		String repositoryPath = directories.get(localDir);
+		Set<String> names = new TreeSet<>(getEntries(localDir).keySet());
+		for (MockFile file : repository.getFiles(repositoryPath)) {
+			names.add(file.getName());
+		}
+		for (String name : names) {
+			statusFile(localDir, name);
+		}
+		for (String childDir : getChildDirectories(localDir)) {
+			statusFolder(childDir);
+		}
+	}
+
+	private void statusFile(String localDir, String name) {
+		String repositoryPath = getRepositoryPath(localDir);
+		String revision = getEntries(localDir).get(name);
+		MockFile file = repository.getFile(appendPath(repositoryPath, name));
+		boolean isModified = modified.contains(getKey(localDir, name));
+		String status;
+		if (file == null) {
+			status = revision == null ? "Unknown" : "Entry Invalid";
+		} else if (revision == null) {
+			status = "Needs Checkout";
+		} else if (revision.equals(file.getHead().getNumber())) {
+			status = isModified ? "Locally Modified" : "Up-to-date";
+		} else {
+			status = isModified ? "Needs Merge" : "Needs Patch";
+		}
+		message("M " + STATUS_SEPARATOR);
+		message("M File: " + name + "\tStatus: " + status);
+		message("M ");
+		message("M    Working revision:\t" + (revision == null ? "No entry for " + name : revision));
+		if (file == null) {
+			message("M    Repository revision:\tNo revision control file");
+		} else {
+			message("M    Repository revision:\t" + file.getHead().getNumber() + "\t" + getRepositoryFile(repositoryPath, name) + ",v");
+		}
+		message("M    Sticky Tag:\t\t(none)");
+		message("M    Sticky Date:\t\t(none)");
+		message("M    Sticky Options:\t(none)");
+		message("M ");
+	}
+
+	/*** log and rlog ***/
+
+	private boolean log() {
+		Map<String, String> options = new HashMap<>();
+		List<String> files = parseOptions(arguments, options, "-d", "-s", "-w");
+		for (String file : getLocalPaths(files)) {
+			if (directories.containsKey(file)) {
+				logFolder(file, directories.get(file), true, !options.containsKey("-l"), options);
+			} else {
+				String parent = getParent(file);
+				MockFile mockFile = repository.getFile(appendPath(getRepositoryPath(parent), getName(file)));
+				if (mockFile == null) {
+					error("nothing known about " + file);
+				} else {
+					logFile(mockFile, file, options);
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean rlog() {
+		Map<String, String> options = new HashMap<>();
+		List<String> paths = parseOptions(arguments, options, "-d", "-s", "-w");
+		boolean ok = true;
+		for (String module : paths) {
+			String path = MockRepository.normalize(module);
+			MockFile file = repository.getFile(path);
+			if (file != null) {
+				logFile(file, null, options);
+			} else if (repository.isFolder(path)) {
+				logFolder(path, path, false, !options.containsKey("-l"), options);
+			} else {
+				error("cannot find module `" + module + "' - ignored");
+				ok = false;
+			}
+		}
+		return ok;
+	}
+
+	private void logFolder(String localDir, String repositoryPath, boolean local, boolean recurse, Map<String, String> options) {
+		error("Logging " + localDir);
+		for (MockFile file : repository.getFiles(repositoryPath)) {
+			logFile(file, local ? appendPath(localDir, file.getName()) : null, options);
+		}
+		if (!recurse)
+			return;
+		for (String name : repository.getFolderNames(repositoryPath)) {
+			String childDir = appendPath(localDir, name);
+			// A local log only covers the folders that were sent by the client
+			if (!local || directories.containsKey(childDir))
+				logFolder(childDir, appendPath(repositoryPath, name), local, recurse, options);
+		}
+	}
+
+	private void logFile(MockFile file, String workingFile, Map<String, String> options) {
+		List<Revision> revisions = file.getRevisions();
+		message("M ");
+		message("M RCS file: " + getRepositoryFile(file.getPath(), "") + ",v");
+		if (workingFile != null)
+			message("M Working file: " + workingFile);
+		message("M head: " + file.getHead().getNumber());
+		message("M branch:");
+		message("M locks: strict");
+		message("M access list:");
+		if (!options.containsKey("-N"))
+			message("M symbolic names:");
+		message("M keyword substitution: kv");
+		message("M total revisions: " + revisions.size() + ";\tselected revisions: " + revisions.size());
+		message("M description:");
+		SimpleDateFormat format = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		for (int i = revisions.size() - 1; i >= 0; i--) {
+			Revision revision = revisions.get(i);
+			message("M " + LOG_SEPARATOR);
+			message("M revision " + revision.getNumber());
+			message("M date: " + format.format(revision.getDate()) + ";  author: " + revision.getAuthor() + ";  state: Exp;");
+			String comment = revision.getComment().length() == 0 ? "*** empty log message ***" : revision.getComment();
+			for (String commentLine : comment.split("\n")) {
+				message("M " + commentLine);
+			}
+		}
+		message("M " + LOG_END);
+	}
+
+	/*** helpers ***/
+
+	/*
+	 * Split the arguments into options and files. The given options take the
+	 * following argument as their value.
+	 */
+	private List<String> parseOptions(List<String> args, Map<String, String> options, String... optionsWithValue) {
+		List<String> files = new ArrayList<>();
+		Set<String> withValue = new HashSet<>();
+		for (String option : optionsWithValue) {
+			withValue.add(option);
+		}
+		for (int i = 0; i < args.size(); i++) {
+			String arg = args.get(i);
+			if (!files.isEmpty() || !arg.startsWith("-") || arg.length() < 2) {
+				files.add(arg);
+			} else if (withValue.contains(arg) && i + 1 < args.size()) {
+				options.put(arg, args.get(++i));
+			} else {
+				options.put(arg.substring(0, 2), arg.substring(2));
+			}
+		}
+		return files;
+	}
+
+	/*
+	 * Return the local paths of the given file arguments or the working directory if there are none
+	 */
+	private List<String> getLocalPaths(List<String> files) {
+		List<String> paths = new ArrayList<>();
+		if (files.isEmpty()) {
+			paths.add(".");
+		} else {
+			for (String file : files) {
+				paths.add(normalizeLocalPath(file));
+			}
+		}
+		return paths;
+	}
+
+	/*
+	 * Return the repository relative path of a local path. Paths of
+	 * directories that were not sent are derived from their parent.
+	 */
+	private String getRepositoryPath(String localPath) {
+		String path = directories.get(localPath);
+		if (path != null)
+			return path;
+		if (localPath.equals("."))
+			return "";
+		return appendPath(getRepositoryPath(getParent(localPath)), getName(localPath));
+	}
+
+	private String getRepositoryRelativePath(String repositoryDirectory) {
+		String root = MockRepository.normalize(server.getRootDirectory());
+		String path = MockRepository.normalize(repositoryDirectory);
+		if (path.equals(root))
+			return "";
+		if (path.startsWith(root + "/"))
+			return path.substring(root.length() + 1);
+		return path;
+	}
+
+	private String getRepositoryFile(String repositoryPath, String name) {
+		String root = server.getRootDirectory();
+		if (root.endsWith("/"))
+			root = root.substring(0, root.length() - 1);
+		return root + "/" + appendPath(repositoryPath, name);
+	}
+
+	private Map<String, String> getEntries(String localDir) {
+		Map<String, String> folderEntries = entries.get(localDir);
+		if (folderEntries == null)
+			return new HashMap<>();
+		return folderEntries;
+	}
+
+	private List<String> getChildDirectories(String localDir) {
+		List<String> children = new ArrayList<>();
+		for (String dir : directories.keySet()) {
+			if (!dir.equals(localDir) && getParent(dir).equals(localDir))
+				children.add(dir);
+		}
+		return children;
+	}
+
+	private static String getKey(String localDir, String name) {
+		return appendPath(localDir, name);
+	}
+
+	private static String normalizeLocalPath(String path) {
+		path = MockRepository.normalize(path);
+		if (path.startsWith("./"))
+			path = path.substring(2);
+		return path.length() == 0 ? "." : path;
+	}
+
+	private static String getParent(String localPath) {
+		int index = localPath.lastIndexOf('/');
+		return index == -1 ? "." : localPath.substring(0, index);
+	}
+
+	private static String getName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	private static String appendPath(String parent, String name) {
+		if (parent.length() == 0 || parent.equals("."))
+			return name;
+		if (name.length() == 0)
+			return parent;
+		return parent + "/" + name;
+	}
+}
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.ICVSRemoteFile;
+import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.ILogEntry;
+import org.eclipse.team.internal.ccvs.core.client.Session;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.filesystem.CVSFileStore;
+import org.eclipse.team.internal.ccvs.core.filesystem.CVSURI;
+import org.eclipse.team.internal.ccvs.core.filesystem.RemoteLogger;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolder;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTree;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTreeBuilder;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+/**
+ * Tests the client side of the commands that the {@link MockServer} supports
+ * and the statistics it collects.
+ */
+public class MockServerTest extends EclipseTest {
+
+	private static final String MODULE = "mockmodule";
+
+	private MockServer server;
+	private MockRepository repository;
+	private ICVSRepositoryLocation location;
+
+	public MockServerTest() {
+		super();
+	}
+
+	public MockServerTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new MockServerTestSetup(new TestSuite(MockServerTest.class));
+	}
+
+	@Override
+	protected boolean usesTestServer() {
+		return false;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		server = MockServerTestSetup.getServer();
+		server.setLatency(0);
+		server.setBandwidth(0);
+		repository = server.getRepository();
+		repository.clear();
+		repository.commit(MODULE + "/file1.txt", "file1");
+		repository.commit(MODULE + "/file2.txt", "file2");
+		repository.commit(MODULE + "/folder1/a.txt", "a");
+		location = server.getLocation();
+		server.resetStatistics();
+	}
+
+	public void testCheckout() throws CoreException {
+		IProject project = getUniqueTestProject("testMockCheckout");
+		checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+		assertContentsEqual(project.getFile("file1.txt"), "file1");
+		assertContentsEqual(project.getFile("file2.txt"), "file2");
+		assertContentsEqual(project.getFile("folder1/a.txt"), "a");
+		assertEquals("1.1", getRevision(project.getFile("folder1/a.txt")));
+		assertTrue(server.getConnectionCount() > 0);
+	}
+
+	public void testUpdate() throws CoreException {
+		IProject project = getUniqueTestProject("testMockUpdate");
+		checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+
+		repository.commit(MODULE + "/file1.txt", "file1 changed");
+		repository.remove(MODULE + "/file2.txt");
+		repository.commit(MODULE + "/folder2/b.txt", "b");
+		updateProject(project, null, false);
+
+		assertContentsEqual(project.getFile("file1.txt"), "file1 changed");
+		assertEquals("1.2", getRevision(project.getFile("file1.txt")));
+		assertFalse(project.getFile("file2.txt").exists());
+		assertContentsEqual(project.getFile("folder2/b.txt"), "b");
+		assertContentsEqual(project.getFile("folder1/a.txt"), "a");
+	}
+
+	public void testUpdateKeepsLocalChanges() throws CoreException {
+		IProject project = getUniqueTestProject("testMockLocalChanges");
+		checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+		setContentsAndEnsureModified(project.getFile("file1.txt"), "local");
+
+		repository.commit(MODULE + "/folder1/a.txt", "a changed");
+		updateProject(project, null, false);
+
+		assertContentsEqual(project.getFile("file1.txt"), "local");
+		assertEquals("1.1", getRevision(project.getFile("file1.txt")));
+		assertTrue(CVSWorkspaceRoot.getCVSFileFor(project.getFile("file1.txt")).isModified(DEFAULT_MONITOR));
+		assertContentsEqual(project.getFile("folder1/a.txt"), "a changed");
+	}
+
+	public void testBuildRemoteTree() throws CoreException {
+		IProject project = getUniqueTestProject("testMockRemoteTree");
+		checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+
+		repository.commit(MODULE + "/folder1/a.txt", "a changed");
+		RemoteFolderTree tree = RemoteFolderTreeBuilder.buildRemoteTree((CVSRepositoryLocation)location, project, null, DEFAULT_MONITOR);
+		assertEquals("1.2", ((ICVSRemoteFile)tree.getFile("folder1/a.txt")).getRevision());
+		assertEquals("1.1", ((ICVSRemoteFile)tree.getFile("file1.txt")).getRevision());
+	}
+
+	public void testLog() throws CoreException {
+		repository.commit(MODULE + "/file1.txt", "file1 changed".getBytes(), "second");
+		IProject project = getUniqueTestProject("testMockLog");
+		checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+
+		ICVSRemoteFile remote = (ICVSRemoteFile)CVSWorkspaceRoot.getRemoteResourceFor(project.getFile("file1.txt"));
+		ILogEntry[] entries = remote.getLogEntries(DEFAULT_MONITOR);
+		Set<String> revisions = new HashSet<>();
+		for (int i = 0; i < entries.length; i++) {
+			revisions.add(entries[i].getRevision());
+			if (entries[i].getRevision().equals("1.2"))
+				assertEquals("second", entries[i].getComment());
+		}
+		assertEquals(2, revisions.size());
+		assertTrue(revisions.contains("1.1"));
+		assertTrue(revisions.contains("1.2"));
+	}
+
+	public void testRemoteLog() throws CoreException {
+		repository.commit(MODULE + "/folder1/a.txt", "a changed");
+		RemoteFolderTree tree = new RemoteLogger(new RemoteFolder(null, location, MODULE, null)).fetchTree(DEFAULT_MONITOR);
+		assertEquals(3, tree.getChildren().length);
+		assertEquals("1.2", ((ICVSRemoteFile)tree.getFile("folder1/a.txt")).getRevision());
+		assertEquals("1.1", ((ICVSRemoteFile)tree.getFile("file2.txt")).getRevision());
+	}
+
+	public void testFileStoreTree() throws CoreException {
+		repository.commit("fsmodule1/file1.txt", "file1");
+		repository.commit("fsmodule1/folder1/a.txt", "a");
+		repository.commit("fsmodule1/folder1/sub/b.txt", "b");
+		server.resetStatistics();
+
+		// The tree of the listed folder is fetched with one rlog
+		IFileStore folder = getFileStore("fsmodule1/folder1");
+		assertEquals(toSet(new String[] { "a.txt", "sub" }), toSet(folder.childNames(EFS.NONE, DEFAULT_MONITOR)));
+		assertEquals(1, server.getConnectionCount());
+
+		// Descendants are answered from that tree
+		IFileInfo[] infos = folder.getChild("sub").childInfos(EFS.NONE, DEFAULT_MONITOR);
+		assertEquals(1, infos.length);
+		assertEquals("b.txt", infos[0].getName());
+		assertTrue(infos[0].getLastModified() > 0);
+		IFileInfo info = folder.getChild("a.txt").fetchInfo();
+		assertTrue(info.exists());
+		assertFalse(info.isDirectory());
+		assertTrue(folder.getChild("sub").fetchInfo().isDirectory());
+		assertEquals(1, server.getConnectionCount());
+
+		// The rlog only covered the listed folder
+		assertEquals(toSet(new String[] { "file1.txt", "folder1" }), toSet(getFileStore("fsmodule1").childNames(EFS.NONE, DEFAULT_MONITOR)));
+		assertEquals(2, server.getConnectionCount());
+	}
+
+	public void testConcurrentFileStoreRequests() throws Exception {
+		repository.commit("fsmodule2/file1.txt", "file1");
+		repository.commit("fsmodule2/folder1/a.txt", "a");
+		server.setLatency(200);
+		server.resetStatistics();
+
+		// Requests for the same tree wait for the rlog that is already running
+		final List<Object> results = new ArrayList<>();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final String path = i % 2 == 0 ? "fsmodule2" : "fsmodule2/folder1";
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						String[] names = getFileStore(path).childNames(EFS.NONE, DEFAULT_MONITOR);
+						synchronized (results) {
+							results.add(toSet(names));
+						}
+					} catch (Throwable e) {
+						synchronized (results) {
+							results.add(e);
+						}
+					}
+				}
+			};
+		}
+		// Start the request for the project first so that the others find its rlog running
+		threads[0].start();
+		Thread.sleep(50);
+		for (int i = 1; i < threads.length; i++) {
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; i++) {
+			threads[i].join();
+		}
+		assertEquals(threads.length, results.size());
+		for (Object result : results) {
+			if (result instanceof Throwable)
+				throw new AssertionError(result);
+			assertTrue(result.toString(), result.equals(toSet(new String[] { "file1.txt", "folder1" })) || result.equals(toSet(new String[] { "a.txt" })));
+		}
+		assertEquals(1, server.getConnectionCount());
+	}
+
+	public void testStatistics() throws CVSException {
+		Session session = new Session(location, CVSWorkspaceRoot.getCVSFolderFor(ResourcesPlugin.getWorkspace().getRoot()));
+		session.open(DEFAULT_MONITOR, false /* read-only */);
+		session.close();
+		assertEquals(1, server.getConnectionCount());
+		assertTrue(server.getRoundTrips() > 0);
+		assertTrue(server.getBytesSent() > 0);
+
+		server.resetStatistics();
+		assertEquals(0, server.getConnectionCount());
+		assertEquals(0, server.getRoundTrips());
+		assertEquals(0, server.getBytesSent());
+	}
+
+	private IFileStore getFileStore(String path) {
+		return new CVSFileStore(new CVSURI(location, new Path(null, path), CVSTag.DEFAULT), null);
+	}
+
+	private Set<String> toSet(String[] names) {
+		Set<String> set = new HashSet<>();
+		for (int i = 0; i < names.length; i++) {
+			set.add(names[i]);
+		}
+		return set;
+	}
+
+	private String getRevision(IFile file) throws CVSException {
+		return CVSWorkspaceRoot.getCVSFileFor(file).getSyncInfo().getRevision();
+	}
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.mock;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.team.internal.ccvs.core.CVSException;
+import org.eclipse.team.internal.ccvs.core.CVSStatus;
+import org.eclipse.team.internal.ccvs.core.IConnectionMethod;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.tests.ccvs.core.CVSTestLogListener;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+
+/**
+ * Sets up tests that run against a {@link MockServer} instead of the test
+ * repository. Unlike {@link CVSTestSetup}, it does not connect to the test
+ * repository. It only checks that the <code>mock</code> connection method is
+ * available and installs a server for the root directory of the tests. The
+ * server is removed when the tests are done.
+ */
+public class MockServerTestSetup extends TestSetup {
+
+	public static final String ROOT_DIRECTORY = "/mockrepo";
+
+	private static MockServer server;
+
+	/**
+	 * Return the server installed for the running tests.
+	 * @return the server
+	 */
+	public static MockServer getServer() {
+		return server;
+	}
+
+	public MockServerTestSetup(Test test) {
+		super(test);
+	}
+
+	@Override
+	public void setUp() throws CVSException {
+		if (!isConnectionMethodAvailable())
+			throw new CVSException(new CVSStatus(IStatus.ERROR, "The " + MockServer.CONNECTION_METHOD + " connection method is not available"));
+		server = MockServer.install(ROOT_DIRECTORY);
+		// Add a log listener so we can ensure that nothing is logged during a test
+		if (CVSTestSetup.logListener == null) {
+			CVSTestSetup.logListener = new CVSTestLogListener();
+			Platform.addLogListener(CVSTestSetup.logListener);
+		}
+	}
+
+	@Override
+	public void tearDown() {
+		MockServer.uninstall(ROOT_DIRECTORY);
+		server = null;
+	}
+
+	private boolean isConnectionMethodAvailable() {
+		IConnectionMethod[] methods = CVSRepositoryLocation.getPluggedInConnectionMethods();
+		for (int i = 0; i < methods.length; i++) {
+			if (methods[i].getName().equals(MockServer.CONNECTION_METHOD))
+				return true;
+		}
+		return false;
+	}
+}
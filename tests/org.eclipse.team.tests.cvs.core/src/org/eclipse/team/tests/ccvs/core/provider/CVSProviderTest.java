@@ -12,8 +12,10 @@ package org.eclipse.team.tests.ccvs.core.provider;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import junit.framework.Test;
@@ -31,6 +33,7 @@ import org.eclipse.team.core.IFileTypeInfo;
 import org.eclipse.team.core.RepositoryProvider;
 import org.eclipse.team.core.Team;
 import org.eclipse.team.core.TeamException;
+import org.eclipse.team.internal.ccvs.core.CVSAnnotateBlock;
 import org.eclipse.team.internal.ccvs.core.CVSException;
 import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
 import org.eclipse.team.internal.ccvs.core.CVSStatus;
@@ -38,12 +41,19 @@ import org.eclipse.team.internal.ccvs.core.CVSTag;
 import org.eclipse.team.internal.ccvs.core.CVSTeamProvider;
 import org.eclipse.team.internal.ccvs.core.ICVSFile;
 import org.eclipse.team.internal.ccvs.core.ICVSFolder;
+import org.eclipse.team.internal.ccvs.core.ICVSResource;
+import org.eclipse.team.internal.ccvs.core.ILogEntry;
+import org.eclipse.team.internal.ccvs.core.client.Annotate;
+import org.eclipse.team.internal.ccvs.core.client.AnnotationCache;
 import org.eclipse.team.internal.ccvs.core.client.Command;
 import org.eclipse.team.internal.ccvs.core.client.Command.KSubstOption;
 import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
 import org.eclipse.team.internal.ccvs.core.client.Session;
 import org.eclipse.team.internal.ccvs.core.client.Update;
+import org.eclipse.team.internal.ccvs.core.client.listeners.AnnotateListener;
+import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
 import org.eclipse.team.internal.ccvs.core.syncinfo.FolderSyncInfo;
 import org.eclipse.team.internal.ccvs.core.syncinfo.ResourceSyncInfo;
 import org.eclipse.team.internal.ccvs.core.util.Util;
@@ -749,5 +759,104 @@ public class CVSProviderTest extends EclipseTest {
     	// we expect the file to have the same tag used when switching 
     	assertEquals(tag, cvsFile.getSyncInfo().getTag());
     }
+
+    public void testIncrementalAnnotate() throws CoreException, IOException {
+    	IProject project = createProject("testIncrementalAnnotate", new String[] {"file1.txt"});
+    	// The keyword is expanded differently in each revision
+    	String keyword = "$" + "Revision" + "$";
+    	setContentsAndEnsureModified(project.getFile("file1.txt"), keyword + eol + "line1" + eol + "line2" + eol + "line3" + eol + "line4" + eol);
+    	commitProject(project);
+    	ICVSFile file = CVSWorkspaceRoot.getCVSFileFor(project.getFile("file1.txt"));
+    	// Cache the annotation of the first revision
+    	annotate(file, file.getSyncInfo().getRevision(), true);
+    	setContentsAndEnsureModified(project.getFile("file1.txt"), keyword + eol + "line0" + eol + "line1" + eol + "line2.5" + eol + "line3" + eol + "line4" + eol + "line5" + eol);
+    	commitProject(project);
+    	setContentsAndEnsureModified(project.getFile("file1.txt"), keyword + eol + "line0" + eol + "line2.5" + eol + "line3" + eol + "line3.5" + eol + "line4" + eol + "line5" + eol);
+    	commitProject(project);
+    	// The annotation derived from the cached one should match the one of the server
+    	String revision = file.getSyncInfo().getRevision();
+    	AnnotateListener incremental = annotate(file, revision, true);
+    	AnnotateListener full = annotate(file, revision, false);
+    	assertEquals(getLineRevisions(full), getLineRevisions(incremental));
+    	assertTrue(compareContent(full.getContents(), incremental.getContents()));
+    }
+
+    public void testApplyAnnotationDiff() {
+    	List lines = Arrays.asList(new String[] {
+    			"1.1          (user1    01-Jan-16): $Revision: 1.1 $",
+    			"1.1          (user1    01-Jan-16): line1",
+    			"1.1          (user1    01-Jan-16): line2",
+    			"1.1          (user1    01-Jan-16): line3",
+    			"1.1          (user1    01-Jan-16): line4",
+    			"1.1          (user1    01-Jan-16): line5" });
+    	List diff = Arrays.asList(new String[] {
+    			"Index: file1.txt",
+    			"--- file1.txt:1.1",
+    			"+++ file1.txt:1.2",
+    			"@@ -1,3 +1,3 @@",
+    			"-$Revision: 1.1 $",
+    			"+$Revision: 1.2 $",
+    			" line1",
+    			"-line2",
+    			"+line2.5",
+    			"@@ -5,2 +5,3 @@",
+    			" line4",
+    			"+line4.5",
+    			"-line5",
+    			"+line6" });
+    	ILogEntry entry = new LogEntry(RemoteFile.create("module/file1.txt", getRepository()), "1.2", "user2", new Date(0), "", "Exp", new CVSTag[0], new CVSTag[0]);
+    	List result = AnnotationCache.applyDiff(lines, diff, entry);
+    	assertEquals(Arrays.asList(new String[] {
+    			"1.1          (user1    01-Jan-16): $Revision: 1.2 $",
+    			"1.1          (user1    01-Jan-16): line1",
+    			"1.2          (user2    01-Jan-70): line2.5",
+    			"1.1          (user1    01-Jan-16): line3",
+    			"1.1          (user1    01-Jan-16): line4",
+    			"1.2          (user2    01-Jan-70): line4.5",
+    			"1.2          (user2    01-Jan-70): line6" }), result);
+
+    	// A diff that does not match the lines is not applied
+    	diff = Arrays.asList(new String[] { "@@ -7,1 +7,1 @@", "-line7", "+line8" });
+    	assertNull(AnnotationCache.applyDiff(lines, diff, entry));
+
+    	// Long author names are truncated to the width of the column
+    	diff = Arrays.asList(new String[] { "@@ -2,1 +2,1 @@", "-line1", "+line1.5" });
+    	entry = new LogEntry(RemoteFile.create("module/file1.txt", getRepository()), "1.2", "longusername", new Date(0), "", "Exp", new CVSTag[0], new CVSTag[0]);
+    	result = AnnotationCache.applyDiff(lines, diff, entry);
+    	assertEquals("1.2          (longuser 01-Jan-70): line1.5", result.get(1));
+    }
+
+	private AnnotateListener annotate(ICVSFile file, String revision, boolean useCache) throws CVSException, TeamException {
+		AnnotateListener listener = new AnnotateListener();
+		Session session = new Session(getRepository(), file.getParent());
+		session.open(DEFAULT_MONITOR);
+		try {
+			IStatus status;
+			if (useCache) {
+				Map logEntries = new HashMap();
+				ILogEntry[] entries = file.getLogEntries(DEFAULT_MONITOR);
+				for (int i = 0; i < entries.length; i++) {
+					logEntries.put(entries[i].getRevision(), entries[i]);
+				}
+				status = AnnotationCache.getInstance().annotate(session, file, revision, false, logEntries, listener, DEFAULT_MONITOR);
+			} else {
+				status = Command.ANNOTATE.execute(session, Command.NO_GLOBAL_OPTIONS, new LocalOption[] { Annotate.makeRevisionOption(revision) }, new ICVSResource[] { file }, listener, DEFAULT_MONITOR);
+			}
+			assertTrue(status.isOK());
+		} finally {
+			session.close();
+		}
+		return listener;
+	}
+
+	private String getLineRevisions(AnnotateListener listener) {
+		StringBuffer buffer = new StringBuffer();
+		List blocks = listener.getCvsAnnotateBlocks();
+		for (int i = 0; i < blocks.size(); i++) {
+			CVSAnnotateBlock block = (CVSAnnotateBlock) blocks.get(i);
+			buffer.append(block.getStartLine()).append('-').append(block.getEndLine()).append(':').append(block.getRevision()).append(' ');
+		}
+		return buffer.toString();
+	}
 }
 
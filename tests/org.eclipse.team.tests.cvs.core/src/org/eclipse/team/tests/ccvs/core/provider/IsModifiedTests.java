@@ -29,6 +29,7 @@ import org.eclipse.team.internal.ccvs.core.ICVSResource;
 import org.eclipse.team.internal.ccvs.core.ICVSResourceVisitor;
 import org.eclipse.team.internal.ccvs.core.IResourceStateChangeListener;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.EclipseSynchronizer;
 import org.eclipse.team.internal.ccvs.core.util.ResourceStateChangeListeners;
 import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
 import org.eclipse.team.tests.ccvs.core.EclipseTest;
@@ -585,6 +586,26 @@ public class IsModifiedTests extends EclipseTest {
 		assertModificationState(copy, null, true);
 	}
 
+	public void testIgnoredFileModification() throws TeamException, CoreException {
+		IProject project = createProject("testIgnoredFileModification", new String[] { "changed.txt", "folder1/", "folder1/a.txt" });
+		project.getFile(".cvsignore").create(new ByteArrayInputStream("ignored.txt".getBytes()), false, DEFAULT_MONITOR);
+		addResources(new IResource[] {project.getFile(".cvsignore")});
+		commitProject(project);
+		IFile ignored = project.getFile("ignored.txt");
+		ignored.create(new ByteArrayInputStream("stuff".getBytes()), false, DEFAULT_MONITOR);
+		assertModificationState(project, null, true);
+		
+		// Changing an ignored file must not discard the cached state of its parent
+		ignored.setContents(new ByteArrayInputStream("other stuff".getBytes()), false, false, DEFAULT_MONITOR);
+		waitForIgnoreFileHandling();
+		assertEquals(ICVSFile.CLEAN, EclipseSynchronizer.getInstance().getModificationState(project));
+		assertModificationState(project, null, true);
+		
+		// Changing a file that is not ignored still does
+		setContentsAndEnsureModified(project.getFile("changed.txt"));
+		assertModificationState(project, new String[] {".", "changed.txt"}, true);
+	}
+
 	public void testBug62547() throws TeamException, CoreException {
 		IProject project = createProject("testBug62547Project", new String[] { "file1.txt", "file2.txt" });
 		// ensure files have different content
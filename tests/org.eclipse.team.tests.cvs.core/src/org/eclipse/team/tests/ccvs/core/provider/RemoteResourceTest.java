@@ -12,9 +12,13 @@ package org.eclipse.team.tests.ccvs.core.provider;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
 
 import junit.framework.Test;
 
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -37,6 +41,8 @@ import org.eclipse.team.internal.ccvs.core.ICVSResource;
 import org.eclipse.team.internal.ccvs.core.ILogEntry;
 import org.eclipse.team.internal.ccvs.core.client.Command.LocalOption;
 import org.eclipse.team.internal.ccvs.core.client.listeners.LogEntry;
+import org.eclipse.team.internal.ccvs.core.filesystem.CVSFileStore;
+import org.eclipse.team.internal.ccvs.core.filesystem.CVSURI;
 import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFolder;
 import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTree;
@@ -638,6 +644,37 @@ public class RemoteResourceTest extends EclipseTest {
 		assertEquals(storage.getFullPath(), ((CachedResourceVariant)resource).getDisplayPath());
 	}
 	
+	public void testFileStoreChildren() throws CoreException {
+		IProject project = createProject(new String[] { "file1.txt", "folder1/", "folder1/a.txt", "empty/", "deleted/", "deleted/b.txt"});
+		// Leave only a deleted revision in a folder
+		deleteResources(project, new String[] { "deleted/b.txt" }, true);
+		CVSFileStore store = new CVSFileStore(new CVSURI(getRepository(), new Path(null, project.getName()), CVSTag.DEFAULT), null);
+		
+		// Fetching a file info fetches the tree of the project
+		IFileInfo info = store.getChild("file1.txt").fetchInfo();
+		assertTrue(info.exists());
+		assertFalse(info.isDirectory());
+		assertTrue(info.getLastModified() > 0);
+		
+		// The children include empty folders and folders with only deleted files
+		List names = Arrays.asList(store.childNames(EFS.NONE, DEFAULT_MONITOR));
+		assertEquals(4, names.size());
+		assertTrue(names.contains("file1.txt"));
+		assertTrue(names.contains("folder1"));
+		assertTrue(names.contains("empty"));
+		assertTrue(names.contains("deleted"));
+		IFileInfo[] infos = store.getChild("folder1").childInfos(EFS.NONE, DEFAULT_MONITOR);
+		assertEquals(1, infos.length);
+		assertEquals("a.txt", infos[0].getName());
+		assertTrue(infos[0].getLastModified() > 0);
+		assertEquals(0, store.getChild("empty").childInfos(EFS.NONE, DEFAULT_MONITOR).length);
+		
+		// The info of an empty folder is answered as well
+		info = store.getChild("empty").fetchInfo();
+		assertTrue(info.exists());
+		assertTrue(info.isDirectory());
+	}
+	
 	public String getCachePath(ICVSRemoteResource resource) throws CVSException {
 		ICVSRepositoryLocation location = resource.getRepository();
 		IPath path = new Path(location.getHost());
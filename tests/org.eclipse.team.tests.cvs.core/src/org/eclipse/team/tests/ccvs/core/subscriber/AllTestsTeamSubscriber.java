@@ -30,6 +30,8 @@ public class AllTestsTeamSubscriber extends EclipseTest {
 		TestSuite suite = new TestSuite();
 		suite.addTest(CVSMergeSubscriberTest.suite());
 		suite.addTest(CVSWorkspaceSubscriberTest.suite());
+		suite.addTest(RemoteChangeFinderTest.suite());
+		suite.addTest(FileContentPrefetcherTest.suite());
 		suite.addTest(CVSCompareSubscriberTest.suite());
 		suite.addTest(SyncSetTests.suite());
 		suite.addTest(CompareEditorTests.suite());
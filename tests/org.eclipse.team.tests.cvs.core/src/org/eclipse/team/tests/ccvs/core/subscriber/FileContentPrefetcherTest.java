@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.subscriber;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ccvs.core.CVSWorkspaceSubscriber;
+import org.eclipse.team.internal.ccvs.core.ICVSRemoteResource;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFile;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolder;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+/**
+ * Tests the background fetching of the remote contents of the files changed
+ * by a refresh of the workspace subscriber.
+ */
+public class FileContentPrefetcherTest extends EclipseTest {
+
+	public FileContentPrefetcherTest() {
+		super();
+	}
+
+	public FileContentPrefetcherTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(FileContentPrefetcherTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	private CVSWorkspaceSubscriber getSubscriber() {
+		return CVSProviderPlugin.getPlugin().getCVSWorkspaceSubscriber();
+	}
+
+	public void testPartialRemoteTree() throws CoreException {
+		IProject project = createProject("testPartialRemoteTree", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder1/b.txt", "folder2/", "folder2/c.txt", "folder3/", "folder3/d.txt" });
+		getSubscriber().refresh(new IResource[] { project }, IResource.DEPTH_INFINITE, DEFAULT_MONITOR);
+
+		// Only the requested files and their parents are part of the tree
+		ICVSRemoteResource tree = getSubscriber().buildRemoteTree(project,
+				new IResource[] { project.getFile("folder1/a.txt"), project.getFile("folder2/c.txt") }, DEFAULT_MONITOR);
+		assertChildren(tree, new String[] { "folder1", "folder2" });
+		assertChildren(getChild(tree, "folder1"), new String[] { "a.txt" });
+		assertChildren(getChild(tree, "folder2"), new String[] { "c.txt" });
+
+		// The tree can be rooted below the project
+		tree = getSubscriber().buildRemoteTree(project.getFolder("folder1"),
+				new IResource[] { project.getFile("folder1/b.txt") }, DEFAULT_MONITOR);
+		assertChildren(tree, new String[] { "b.txt" });
+	}
+
+	public void testPrefetchAfterRefresh() throws CoreException {
+		IProject project = createProject("testPrefetchAfterRefresh", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder1/b.txt", "folder2/", "folder2/c.txt" });
+		getSubscriber().refresh(new IResource[] { project }, IResource.DEPTH_INFINITE, DEFAULT_MONITOR);
+
+		// Change files in a copy
+		IProject copy = checkoutCopy(project, "-copy");
+		setContentsAndEnsureModified(copy.getFile("file1.txt"));
+		setContentsAndEnsureModified(copy.getFile("folder1/a.txt"));
+		setContentsAndEnsureModified(copy.getFile("folder2/c.txt"));
+		commitProject(copy);
+
+		// The contents of the incoming changes are fetched after the refresh
+		getSubscriber().refresh(new IResource[] { project }, IResource.DEPTH_INFINITE, DEFAULT_MONITOR);
+		waitForJobCompletion(getSubscriber().getContentPrefetchJob());
+		assertContentsCached(project.getFile("file1.txt"));
+		assertContentsCached(project.getFile("folder1/a.txt"));
+		assertContentsCached(project.getFile("folder2/c.txt"));
+	}
+
+	public void testPrefetchSelectedFiles() throws CoreException {
+		IProject project = createProject("testPrefetchSelectedFiles", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder1/b.txt" });
+		getSubscriber().refresh(new IResource[] { project }, IResource.DEPTH_INFINITE, DEFAULT_MONITOR);
+		waitForJobCompletion(getSubscriber().getContentPrefetchJob());
+
+		// Only the contents of the selected files are fetched
+		getSubscriber().prefetchContents(new IFile[] { project.getFile("file1.txt"), project.getFile("folder1/b.txt") });
+		waitForJobCompletion(getSubscriber().getContentPrefetchJob());
+		assertContentsCached(project.getFile("file1.txt"), true);
+		assertContentsCached(project.getFile("folder1/b.txt"), true);
+		assertContentsCached(project.getFile("folder1/a.txt"), false);
+	}
+
+	private void assertContentsCached(IFile file) throws TeamException {
+		assertContentsCached(file, true);
+	}
+
+	private void assertContentsCached(IFile file, boolean cached) throws TeamException {
+		SyncInfo info = getSubscriber().getSyncInfo(file);
+		assertNotNull(file.getFullPath().toString(), info);
+		RemoteFile remote = (RemoteFile) info.getRemote();
+		assertNotNull(file.getFullPath().toString(), remote);
+		assertEquals(file.getFullPath().toString(), cached, remote.isContentsCached());
+	}
+
+	private ICVSRemoteResource getChild(ICVSRemoteResource folder, String name) {
+		ICVSRemoteResource[] children = ((RemoteFolder) folder).getChildren();
+		for (int i = 0; i < children.length; i++) {
+			if (children[i].getName().equals(name))
+				return children[i];
+		}
+		fail("Missing child " + name + " of " + folder.getName());
+		return null;
+	}
+
+	private void assertChildren(ICVSRemoteResource folder, String[] names) {
+		assertTrue(folder instanceof RemoteFolder);
+		ICVSRemoteResource[] children = ((RemoteFolder) folder).getChildren();
+		Set actual = new HashSet();
+		for (int i = 0; i < children.length; i++) {
+			actual.add(children[i].getName());
+		}
+		assertEquals(names.length, actual.size());
+		for (int i = 0; i < names.length; i++) {
+			assertTrue(folder.getName() + " should contain " + names[i], actual.contains(names[i]));
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.core.subscriber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.team.core.TeamException;
+import org.eclipse.team.core.synchronize.SyncInfo;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ccvs.core.CVSTag;
+import org.eclipse.team.internal.ccvs.core.CVSWorkspaceSubscriber;
+import org.eclipse.team.internal.ccvs.core.syncinfo.RemoteChangeFinder;
+import org.eclipse.team.tests.ccvs.core.CVSTestSetup;
+import org.eclipse.team.tests.ccvs.core.EclipseTest;
+
+/**
+ * Tests the detection of the remotely changed folders of a project that is
+ * used by the workspace subscriber to avoid refreshing whole projects.
+ */
+public class RemoteChangeFinderTest extends EclipseTest {
+
+	private static final long HOUR = 60 * 60 * 1000;
+
+	public RemoteChangeFinderTest() {
+		super();
+	}
+
+	public RemoteChangeFinderTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite(RemoteChangeFinderTest.class);
+		return new CVSTestSetup(suite);
+	}
+
+	public void testEligibility() throws CoreException {
+		IProject project = createProject("testChangeFinderEligibility", new String[] { "file1.txt", "folder1/", "folder1/a.txt" });
+		RemoteChangeFinder finder = new RemoteChangeFinder();
+
+		// A project that was never fully refreshed must be fully refreshed
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+		finder.refreshed(project, System.currentTimeMillis(), false);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// A project on HEAD is eligible until it is forgotten
+		finder.refreshed(project, System.currentTimeMillis(), true);
+		assertNotNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+		finder.forget(project);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// A project on a branch is eligible but switching tags requires a full refresh
+		CVSTag version = new CVSTag("v1", CVSTag.VERSION);
+		CVSTag branch = new CVSTag("branch1", CVSTag.BRANCH);
+		finder.refreshed(project, System.currentTimeMillis(), true);
+		makeBranch(new IResource[] { project }, version, branch, true);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+		finder.refreshed(project, System.currentTimeMillis(), true);
+		assertNotNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// A project with a folder on another tag is not eligible
+		replace(project, new String[] { "folder1/" }, version, true);
+		finder.refreshed(project, System.currentTimeMillis(), true);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// A project on a version is not eligible since the version can be moved
+		updateProject(project, version, false);
+		finder.refreshed(project, System.currentTimeMillis(), true);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+	}
+
+	public void testFolderSelection() throws CoreException {
+		IProject project = createProject("testChangeFinderFolders", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder1/folder2/", "folder1/folder2/b.txt", "folder3/", "folder3/c.txt" });
+		RemoteChangeFinder finder = new RemoteChangeFinder();
+		finder.refreshed(project, System.currentTimeMillis(), true);
+
+		// The files committed within the clock skew margin are reported
+		// and their parents are refreshed to depth one
+		assertChangedFolders(finder.findChangedFolders(project, DEFAULT_MONITOR),
+				new IContainer[] { project, project.getFolder("folder1"), project.getFolder("folder1/folder2"), project.getFolder("folder3") },
+				new int[] { IResource.DEPTH_ONE, IResource.DEPTH_ONE, IResource.DEPTH_ONE, IResource.DEPTH_ONE });
+
+		// A changed folder that does not exist locally is refreshed through its closest existing ancestor
+		project.getFolder("folder1/folder2").delete(false, DEFAULT_MONITOR);
+		assertChangedFolders(finder.findChangedFolders(project, DEFAULT_MONITOR),
+				new IContainer[] { project, project.getFolder("folder1"), project.getFolder("folder3") },
+				new int[] { IResource.DEPTH_ONE, IResource.DEPTH_INFINITE, IResource.DEPTH_ONE });
+
+		// The folders covered by a deep refresh of an ancestor are not refreshed again
+		project.getFolder("folder1").delete(false, DEFAULT_MONITOR);
+		assertChangedFolders(finder.findChangedFolders(project, DEFAULT_MONITOR),
+				new IContainer[] { project },
+				new int[] { IResource.DEPTH_INFINITE });
+	}
+
+	public void testTooManyChangedFolders() throws CoreException {
+		List resources = new ArrayList();
+		for (int i = 0; i < 11; i++) {
+			resources.add("folder" + i + "/");
+			resources.add("folder" + i + "/a.txt");
+		}
+		IProject project = createProject("testChangeFinderTooManyFolders", (String[]) resources.toArray(new String[resources.size()]));
+		RemoteChangeFinder finder = new RemoteChangeFinder();
+		finder.refreshed(project, System.currentTimeMillis(), true);
+
+		// More than ten changed folders require a full refresh
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// Ten folders do not
+		project.getFolder("folder10").delete(false, DEFAULT_MONITOR);
+		assertChangedFolders(finder.findChangedFolders(project, DEFAULT_MONITOR),
+				new IContainer[] { project },
+				new int[] { IResource.DEPTH_INFINITE });
+	}
+
+	public void testFullRefreshInterval() throws CoreException {
+		IProject project = createProject("testChangeFinderInterval", new String[] { "file1.txt" });
+		RemoteChangeFinder finder = new RemoteChangeFinder();
+		long now = System.currentTimeMillis();
+
+		finder.refreshed(project, now - 5 * HOUR, true);
+		assertNotNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// A project is fully refreshed six hours after its last full refresh
+		finder.refreshed(project, now - 7 * HOUR, true);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+
+		// ... even if it was partially refreshed since
+		finder.refreshed(project, now, false);
+		assertNull(finder.findChangedFolders(project, DEFAULT_MONITOR));
+	}
+
+	public void testRefreshChangedFolders() throws CoreException {
+		IProject project = createProject("testRefreshChangedFolders", new String[] { "file1.txt", "folder1/", "folder1/a.txt", "folder2/", "folder2/b.txt" });
+		CVSWorkspaceSubscriber subscriber = CVSProviderPlugin.getPlugin().getCVSWorkspaceSubscriber();
+		subscriber.refresh(new IResource[] { project }, IResource.DEPTH_INFINITE, DEFAULT_MONITOR);
+
+		// Change a file and add a folder in a copy
+		IProject copy = checkoutCopy(project, "-copy");
+		setContentsAndEnsureModified(copy.getFile("folder1/a.txt"));
+		addResources(copy, new String[] { "folder3/", "folder3/c.txt" }, false);
+		commitProject(copy);
+
+		// Only the changed folders are refreshed but all the changes are found
+		subscriber.refresh(new IResource[] { project }, IResource.DEPTH_INFINITE, DEFAULT_MONITOR);
+		assertSyncKind(subscriber, project.getFile("folder1/a.txt"), SyncInfo.INCOMING | SyncInfo.CHANGE);
+		assertSyncKind(subscriber, project.getFile("folder3/c.txt"), SyncInfo.INCOMING | SyncInfo.ADDITION);
+		assertSyncKind(subscriber, project.getFile("folder2/b.txt"), SyncInfo.IN_SYNC);
+		assertSyncKind(subscriber, project.getFile("file1.txt"), SyncInfo.IN_SYNC);
+	}
+
+	private void assertSyncKind(CVSWorkspaceSubscriber subscriber, IResource resource, int kind) throws TeamException {
+		SyncInfo info = subscriber.getSyncInfo(resource);
+		int actual = info == null ? SyncInfo.IN_SYNC : info.getKind();
+		assertEquals(resource.getFullPath().toString(), SyncInfo.kindToString(kind), SyncInfo.kindToString(actual));
+	}
+
+	private void assertChangedFolders(RemoteChangeFinder.ChangedFolder[] folders, IContainer[] expected, int[] depths) {
+		assertNotNull(folders);
+		Map actual = new HashMap();
+		for (int i = 0; i < folders.length; i++) {
+			actual.put(folders[i].getFolder(), new Integer(folders[i].getDepth()));
+		}
+		assertEquals(expected.length, actual.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getFullPath().toString(), new Integer(depths[i]), actual.get(expected[i]));
+		}
+	}
+}
@@ -30,7 +30,11 @@ public class AllBenchmarkTests extends EclipseTest {
 		suite.addTest(WorkflowTests.suite());
 		suite.addTest(SyncTests.suite());
         // TODO: Enable decorators?
-		return new CVSTestSetup(suite);
+		TestSuite all = new TestSuite();
+		all.addTest(new CVSTestSetup(suite));
+		// The mock server tests do not use the test repository
+		all.addTest(MockServerTests.suite());
+		return all;
 	}
 }
 
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2016 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.team.tests.ccvs.ui.benchmark;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.team.internal.ccvs.core.CVSProviderPlugin;
+import org.eclipse.team.internal.ccvs.core.ICVSRemoteFile;
+import org.eclipse.team.internal.ccvs.core.ICVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.client.Session;
+import org.eclipse.team.internal.ccvs.core.connection.CVSRepositoryLocation;
+import org.eclipse.team.internal.ccvs.core.filesystem.RemoteLogger;
+import org.eclipse.team.internal.ccvs.core.resources.CVSWorkspaceRoot;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolder;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTree;
+import org.eclipse.team.internal.ccvs.core.resources.RemoteFolderTreeBuilder;
+import org.eclipse.team.tests.ccvs.core.mock.MockRepository;
+import org.eclipse.team.tests.ccvs.core.mock.MockServer;
+import org.eclipse.team.tests.ccvs.core.mock.MockServerTestSetup;
+
+/**
+ * Measures the client side of the protocol against a {@link MockServer} so
+ * that the results do not depend on the load of a shared test server. Each
+ * test measures the same client path on a local link and on a slow link to
+ * separate the cost of the round trips from the cost of the transfer.
+ */
+public class MockServerTests extends BenchmarkTest {
+
+	private static final String MODULE = "benchmark";
+
+	private static final int FOLDER_COUNT = 10;
+	private static final int FILES_PER_FOLDER = 20;
+	private static final int FILE_SIZE = 4096;
+	private static final int CHANGED_FILE_COUNT = 10;
+	private static final int SESSION_COUNT = 20;
+
+	// The link used for the slow link measurements
+	private static final int WAN_LATENCY = 50;
+	private static final long WAN_BANDWIDTH = 256 * 1024;
+
+	private static final String LAN = "LAN";
+	private static final String WAN = "WAN";
+	private static final String[] PERFORMANCE_GROUPS = new String[] { LAN, WAN };
+
+	private MockServer server;
+	private ICVSRepositoryLocation location;
+	private boolean determineVersionEnabled;
+
+	public MockServerTests() {
+		super();
+	}
+
+	public MockServerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new MockServerTestSetup(new TestSuite(MockServerTests.class));
+	}
+
+	@Override
+	protected boolean usesTestServer() {
+		return false;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		server = MockServerTestSetup.getServer();
+		MockRepository repository = server.getRepository();
+		repository.clear();
+		for (int i = 0; i < FOLDER_COUNT; i++) {
+			for (int j = 0; j < FILES_PER_FOLDER; j++) {
+				repository.commit(getFilePath(i, j), createContents(FILE_SIZE, i + j), "initial");
+			}
+		}
+		location = server.getLocation();
+		// Use one round trip per session
+		determineVersionEnabled = CVSProviderPlugin.getPlugin().isDetermineVersionEnabled();
+		CVSProviderPlugin.getPlugin().setDetermineVersionEnabled(false);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		CVSProviderPlugin.getPlugin().setDetermineVersionEnabled(determineVersionEnabled);
+		server.setLatency(0);
+		server.setBandwidth(0);
+		super.tearDown();
+	}
+
+	public void testOpenSession() throws Exception {
+		setupGroups(PERFORMANCE_GROUPS);
+		for (int i = 0; i < BenchmarkTestSetup.LOOP_COUNT; i++) {
+			for (String link : PERFORMANCE_GROUPS) {
+				useLink(link);
+				startGroup(link);
+				for (int j = 0; j < SESSION_COUNT; j++) {
+					Session session = new Session(location, CVSWorkspaceRoot.getCVSFolderFor(ResourcesPlugin.getWorkspace().getRoot()));
+					session.open(DEFAULT_MONITOR, false /* read-only */);
+					session.close();
+				}
+				endGroup();
+				assertEquals(SESSION_COUNT, server.getConnectionCount());
+				assertEquals(SESSION_COUNT, server.getRoundTrips());
+			}
+		}
+		commitGroups(false);
+	}
+
+	public void testCheckout() throws Exception {
+		setupGroups(PERFORMANCE_GROUPS);
+		for (int i = 0; i < BenchmarkTestSetup.LOOP_COUNT; i++) {
+			for (String link : PERFORMANCE_GROUPS) {
+				IProject project = getUniqueTestProject(link);
+				useLink(link);
+				startGroup(link);
+				checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+				endGroup();
+				assertTrue(project.getFile(getFilePath(FOLDER_COUNT - 1, FILES_PER_FOLDER - 1).substring(MODULE.length() + 1)).exists());
+			}
+		}
+		commitGroups(false);
+	}
+
+	public void testBuildRemoteTreeWithIncomingChanges() throws Exception {
+		IProject project = getUniqueTestProject(getName());
+		checkout(location, project, MODULE, null, DEFAULT_MONITOR);
+		setupGroups(PERFORMANCE_GROUPS);
+		for (int i = 0; i < BenchmarkTestSetup.LOOP_COUNT; i++) {
+			for (String link : PERFORMANCE_GROUPS) {
+				String revision = null;
+				for (int j = 0; j < CHANGED_FILE_COUNT; j++) {
+					revision = server.getRepository().commit(getFilePath(j % FOLDER_COUNT, j), createContents(FILE_SIZE, i), "change").getNumber();
+				}
+				useLink(link);
+				startGroup(link);
+				RemoteFolderTree tree = RemoteFolderTreeBuilder.buildRemoteTree((CVSRepositoryLocation)location, project, null, DEFAULT_MONITOR);
+				endGroup();
+				String path = getFilePath((CHANGED_FILE_COUNT - 1) % FOLDER_COUNT, CHANGED_FILE_COUNT - 1).substring(MODULE.length() + 1);
+				assertEquals(revision, ((ICVSRemoteFile)tree.getFile(path)).getRevision());
+			}
+		}
+		commitGroups(false);
+	}
+
+	public void testRemoteLog() throws Exception {
+		setupGroups(PERFORMANCE_GROUPS);
+		for (int i = 0; i < BenchmarkTestSetup.LOOP_COUNT; i++) {
+			for (String link : PERFORMANCE_GROUPS) {
+				useLink(link);
+				startGroup(link);
+				RemoteFolderTree tree = new RemoteLogger(new RemoteFolder(null, location, MODULE, null)).fetchTree(DEFAULT_MONITOR);
+				endGroup();
+				assertEquals(FOLDER_COUNT, tree.getChildren().length);
+			}
+		}
+		commitGroups(false);
+	}
+
+	private void useLink(String link) {
+		if (link.equals(WAN)) {
+			server.setLatency(WAN_LATENCY);
+			server.setBandwidth(WAN_BANDWIDTH);
+		} else {
+			server.setLatency(0);
+			server.setBandwidth(0);
+		}
+		server.resetStatistics();
+	}
+
+	private static String getFilePath(int folder, int file) {
+		return MODULE + "/folder" + folder + "/file" + file + ".txt";
+	}
+
+	private static byte[] createContents(int size, int seed) {
+		byte[] contents = new byte[size];
+		for (int i = 0; i < size; i++) {
+			contents[i] = (byte)((i + seed) % 80 == 79 ? '\n' : 'a' + (i + seed) % 26);
+		}
+		return contents;
+	}
+}